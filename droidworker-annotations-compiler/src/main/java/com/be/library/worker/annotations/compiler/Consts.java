@@ -10,4 +10,15 @@ public final class Consts {
     public static final String JOB_CONFIGURATOR = "com.be.android.library.worker.base.JobConfigurator";
     public static final String JOB_CONFIGURATOR_DELEGATE = "com.be.android.library.worker.base.JobConfigurator.Delegate";
     public static final String JOB_TYPE_FORK_JOIN = "com.be.android.library.worker.base.ForkJoinJob";
+    public static final String JOB_EVENT_TYPE = "com.be.android.library.worker.base.JobEvent";
+    public static final String JOB_STATUS_TYPE = "com.be.android.library.worker.base.JobStatus";
+    public static final String EVENT_HANDLER_MATCHER = "com.be.android.library.worker.base.EventHandlerMatcher";
+    public static final String EVENT_HANDLER_DISPATCHER = "com.be.android.library.worker.interfaces.EventHandlerDispatcher";
+
+    // Event handler annotations in the order they are checked by JobEventDispatcher
+    public static final String ON_JOB_EVENT_ANNOTATION = "com.be.android.library.worker.annotations.OnJobEvent";
+    public static final String ON_JOB_RESULT_ANNOTATION = "com.be.android.library.worker.annotations.OnJobResult";
+    public static final String ON_JOB_SUCCESS_ANNOTATION = "com.be.android.library.worker.annotations.OnJobSuccess";
+    public static final String ON_JOB_FAILURE_ANNOTATION = "com.be.android.library.worker.annotations.OnJobFailure";
+    public static final String ON_JOB_CANCELLED_ANNOTATION = "com.be.android.library.worker.annotations.OnJobCancelled";
 }
@@ -0,0 +1,308 @@
+package com.be.library.worker.annotations.compiler;
+
+import com.google.common.collect.ImmutableList;
+import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Generates {@code <ListenerType>EventDispatcher} classes invoking event handlers
+ * of listener types directly instead of using reflection.
+ * <p>
+ * Generated dispatcher matches events the same way as reflective invocation handlers do:
+ * handlers are checked from listener type to it's super types, at first for handlers
+ * taking event of fitting type as argument, then for handlers taking no arguments.
+ */
+public class EventDispatcherGenerator {
+
+    public static final String SUFFIX = "EventDispatcher";
+
+    public static final List<String> HANDLER_ANNOTATIONS = ImmutableList.of(
+            Consts.ON_JOB_EVENT_ANNOTATION,
+            Consts.ON_JOB_RESULT_ANNOTATION,
+            Consts.ON_JOB_SUCCESS_ANNOTATION,
+            Consts.ON_JOB_FAILURE_ANNOTATION,
+            Consts.ON_JOB_CANCELLED_ANNOTATION);
+
+    private static final String ARG_LISTENER = "listener";
+    private static final String ARG_EVENT = "event";
+    private static final String MATCHER_FIELD_PREFIX = "MATCHER_";
+
+    private final ProcessingEnvironment mProcessingEnvironment;
+    private final Elements mElementUtils;
+    private final Types mTypeUtils;
+    private final Logger mLogger;
+
+    public EventDispatcherGenerator(ProcessingEnvironment environment) {
+        mProcessingEnvironment = environment;
+        mElementUtils = environment.getElementUtils();
+        mTypeUtils = environment.getTypeUtils();
+        mLogger = new Logger(environment);
+    }
+
+    public void generateCode(TypeElement listenerType) throws IOException {
+        final String packageName = mElementUtils.getPackageOf(listenerType).getQualifiedName().toString();
+        final String binaryName = mElementUtils.getBinaryName(listenerType).toString();
+        final String dispatcherClassName = (packageName.isEmpty()
+                ? binaryName
+                : binaryName.substring(packageName.length() + 1)) + SUFFIX;
+
+        if (!isAccessible(listenerType)) {
+            mLogger.note(String.format("Skipping event dispatcher for \"%s\": type is not accessible, " +
+                    "reflection will be used", binaryName));
+            return;
+        }
+
+        final List<EventHandlerInfo> handlers = collectEventHandlers(listenerType);
+        for (EventHandlerInfo handler : handlers) {
+            if (!handler.isAccessibleFrom(packageName)) {
+                mLogger.note(String.format("Skipping event dispatcher for \"%s\": event handler \"%s\" " +
+                        "is not accessible, reflection will be used", binaryName, handler.getMethodName()));
+                return;
+            }
+        }
+
+        mLogger.note(String.format("Generating event dispatcher for \"%s\" (%s)..",
+                binaryName, dispatcherClassName));
+
+        final TypeName listenerTypeName = TypeName.get(mTypeUtils.erasure(listenerType.asType()));
+        final TypeSpec.Builder classSpecBuilder = TypeSpec.classBuilder(dispatcherClassName)
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addJavadoc("Delivers job events to event handlers of {@link $T}\n", listenerTypeName)
+                .addSuperinterface(ParameterizedTypeName.get(
+                        ClassName.bestGuess(Consts.EVENT_HANDLER_DISPATCHER), listenerTypeName));
+
+        for (int i = 0; i < handlers.size(); i++) {
+            classSpecBuilder.addField(makeMatcherFieldSpec(i, handlers.get(i)));
+        }
+
+        classSpecBuilder.addMethod(makeDispatchMethodSpec(listenerType, listenerTypeName, handlers));
+
+        final JavaFile javaFile = JavaFile.builder(packageName, classSpecBuilder.build())
+                .build();
+
+        javaFile.writeTo(mProcessingEnvironment.getFiler());
+    }
+
+    private List<EventHandlerInfo> collectEventHandlers(TypeElement listenerType) {
+        final List<EventHandlerInfo> handlers = new ArrayList<EventHandlerInfo>();
+
+        TypeElement lookupType = listenerType;
+        while (lookupType != null
+                && !Object.class.getName().equals(lookupType.getQualifiedName().toString())) {
+
+            for (ExecutableElement method : ElementFilter.methodsIn(lookupType.getEnclosedElements())) {
+                final AnnotationMirror annotation = findHandlerAnnotation(method);
+
+                if (annotation != null) {
+                    handlers.add(new EventHandlerInfo(method, annotation, mProcessingEnvironment));
+                }
+            }
+
+            final TypeMirror superType = lookupType.getSuperclass();
+            lookupType = superType.getKind() == TypeKind.DECLARED
+                    ? TypeSimplifier.toTypeElement(superType)
+                    : null;
+        }
+
+        return handlers;
+    }
+
+    private static AnnotationMirror findHandlerAnnotation(ExecutableElement method) {
+        for (String annotationName : HANDLER_ANNOTATIONS) {
+            for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+                if (annotationName.equals(annotation.getAnnotationType().toString())) {
+                    return annotation;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean isAccessible(TypeElement type) {
+        Element element = type;
+        while (element instanceof TypeElement) {
+            final TypeElement typeElement = (TypeElement) element;
+
+            if (typeElement.getModifiers().contains(Modifier.PRIVATE)
+                    || (typeElement.getNestingKind() != NestingKind.TOP_LEVEL
+                    && typeElement.getNestingKind() != NestingKind.MEMBER)) {
+
+                return false;
+            }
+
+            element = element.getEnclosingElement();
+        }
+
+        return true;
+    }
+
+    private FieldSpec makeMatcherFieldSpec(int index, EventHandlerInfo handler) {
+        final ClassName statusTypeName = ClassName.bestGuess(Consts.JOB_STATUS_TYPE);
+
+        final CodeBlock.Builder statusBuilder = CodeBlock.builder();
+        for (int i = 0; i < handler.getPendingStatus().size(); i++) {
+            statusBuilder.add(i == 0 ? "$T.$L" : ", $T.$L", statusTypeName, handler.getPendingStatus().get(i));
+        }
+
+        final CodeBlock.Builder eventCodeBuilder = CodeBlock.builder();
+        if (handler.isCancelledEventHandler()) {
+            eventCodeBuilder.add("$T.EVENT_CODE_CANCELLED", ClassName.bestGuess(Consts.JOB_EVENT_TYPE));
+        } else {
+            for (int i = 0; i < handler.getPendingEventCode().size(); i++) {
+                eventCodeBuilder.add(i == 0 ? "$L" : ", $L", handler.getPendingEventCode().get(i));
+            }
+        }
+
+        final CodeBlock.Builder tagsBuilder = CodeBlock.builder();
+        for (int i = 0; i < handler.getPendingTags().size(); i++) {
+            tagsBuilder.add(i == 0 ? "$S" : ", $S", handler.getPendingTags().get(i));
+        }
+
+        final ClassName matcherTypeName = ClassName.bestGuess(Consts.EVENT_HANDLER_MATCHER);
+
+        return FieldSpec.builder(matcherTypeName, MATCHER_FIELD_PREFIX + index,
+                Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .addJavadoc("{@code $L.$L()} annotated with {@code @$L}\n",
+                        TypeSimplifier.enclosingClass(handler.getMethod()).getSimpleName(),
+                        handler.getMethodName(),
+                        handler.getAnnotationSimpleName())
+                .initializer("new $T($S, new $T[] {$L}, new int[] {$L}, new String[] {$L})",
+                        matcherTypeName,
+                        handler.getJobClassName(),
+                        statusTypeName,
+                        statusBuilder.build(),
+                        eventCodeBuilder.build(),
+                        tagsBuilder.build())
+                .build();
+    }
+
+    private MethodSpec makeDispatchMethodSpec(TypeElement listenerType,
+                                              TypeName listenerTypeName,
+                                              List<EventHandlerInfo> handlers) {
+
+        final TypeName eventTypeName = ClassName.bestGuess(Consts.JOB_EVENT_TYPE);
+        final TypeMirror eventType = mElementUtils.getTypeElement(Consts.JOB_EVENT_TYPE).asType();
+
+        final MethodSpec.Builder methodSpecBuilder = MethodSpec.methodBuilder("dispatch")
+                .addAnnotation(Override.class);
+
+        // Generic listener is called through raw type, and generic handler parameter
+        // is passed event cast to erased type, so client builds don't get unchecked warnings
+        if (isUncheckedDispatch(listenerType, handlers)) {
+            methodSpecBuilder.addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
+                    .addMember("value", "$S", "unchecked")
+                    .build());
+        }
+
+        methodSpecBuilder
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(listenerTypeName, ARG_LISTENER)
+                .addParameter(eventTypeName, ARG_EVENT)
+                .addException(Exception.class)
+                .returns(boolean.class);
+
+        // Handlers taking event of fitting type
+        for (int i = 0; i < handlers.size(); i++) {
+            final EventHandlerInfo handler = handlers.get(i);
+            final TypeMirror parameterType = handler.getParameterType();
+
+            if (!handler.hasSupportedParameters() || parameterType == null) {
+                continue;
+            }
+
+            if (mTypeUtils.isAssignable(eventType, parameterType)) {
+                methodSpecBuilder.beginControlFlow("if ($L.matches($L))", MATCHER_FIELD_PREFIX + i, ARG_EVENT);
+                addInvocation(methodSpecBuilder, handler, CodeBlock.builder().add("$L", ARG_EVENT).build());
+
+            } else if (mTypeUtils.isAssignable(parameterType, eventType)) {
+                final TypeName parameterTypeName = TypeName.get(parameterType);
+                methodSpecBuilder.beginControlFlow("if ($L.matches($L) && $L instanceof $T)",
+                        MATCHER_FIELD_PREFIX + i, ARG_EVENT, ARG_EVENT, parameterTypeName);
+                addInvocation(methodSpecBuilder, handler,
+                        CodeBlock.builder().add("($T) $L", parameterTypeName, ARG_EVENT).build());
+
+            } else {
+                // Event never fits such handler
+                continue;
+            }
+
+            methodSpecBuilder.addStatement("return true");
+            methodSpecBuilder.endControlFlow();
+        }
+
+        // Handlers taking no arguments
+        for (int i = 0; i < handlers.size(); i++) {
+            final EventHandlerInfo handler = handlers.get(i);
+
+            if (!handler.hasSupportedParameters() || handler.getParameterType() != null) {
+                continue;
+            }
+
+            methodSpecBuilder.beginControlFlow("if ($L.matches($L))", MATCHER_FIELD_PREFIX + i, ARG_EVENT);
+            addInvocation(methodSpecBuilder, handler, CodeBlock.builder().build());
+            methodSpecBuilder.addStatement("return true");
+            methodSpecBuilder.endControlFlow();
+        }
+
+        methodSpecBuilder.addStatement("return false");
+
+        return methodSpecBuilder.build();
+    }
+
+    private static boolean isUncheckedDispatch(TypeElement listenerType, List<EventHandlerInfo> handlers) {
+        Element element = listenerType;
+        while (element instanceof TypeElement) {
+            if (!((TypeElement) element).getTypeParameters().isEmpty()) {
+                return true;
+            }
+
+            element = element.getEnclosingElement();
+        }
+
+        for (EventHandlerInfo handler : handlers) {
+            if (handler.hasGenericParameterType()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void addInvocation(MethodSpec.Builder builder, EventHandlerInfo handler, CodeBlock arguments) {
+        if (handler.getMethod().getModifiers().contains(Modifier.STATIC)) {
+            final TypeElement declaringType = TypeSimplifier.enclosingClass(handler.getMethod());
+            builder.addStatement("$T.$L($L)",
+                    TypeName.get(mTypeUtils.erasure(declaringType.asType())),
+                    handler.getMethodName(),
+                    arguments);
+
+        } else {
+            builder.addStatement("$L.$L($L)", ARG_LISTENER, handler.getMethodName(), arguments);
+        }
+    }
+}
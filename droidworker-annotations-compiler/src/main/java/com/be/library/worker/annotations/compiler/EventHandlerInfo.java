@@ -0,0 +1,210 @@
+package com.be.library.worker.annotations.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Event handler method declared by listener type or by it's super type
+ */
+public class EventHandlerInfo {
+
+    private final ExecutableElement mMethod;
+    private final String mAnnotationType;
+    private final ProcessingEnvironment mEnvironment;
+    private final ErrorReporter mErrorReporter;
+
+    private String mJobClassName;
+    private final List<String> mPendingStatus;
+    private final List<Integer> mPendingEventCode;
+    private final List<String> mPendingTags;
+
+    public EventHandlerInfo(ExecutableElement method,
+                            AnnotationMirror annotation,
+                            ProcessingEnvironment env) {
+
+        mMethod = method;
+        mAnnotationType = annotation.getAnnotationType().toString();
+        mEnvironment = env;
+        mErrorReporter = new ErrorReporter(env);
+        mPendingStatus = new ArrayList<String>();
+        mPendingEventCode = new ArrayList<Integer>();
+        mPendingTags = new ArrayList<String>();
+
+        readAnnotation(annotation);
+    }
+
+    private void readAnnotation(AnnotationMirror annotation) {
+        TypeMirror value = null;
+        TypeMirror jobType = null;
+
+        final Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                mEnvironment.getElementUtils().getElementValuesWithDefaults(annotation);
+
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            final String name = entry.getKey().getSimpleName().toString();
+            final Object entryValue = entry.getValue().getValue();
+
+            if ("value".equals(name)) {
+                value = (TypeMirror) entryValue;
+
+            } else if ("jobType".equals(name)) {
+                jobType = (TypeMirror) entryValue;
+
+            } else if ("jobTags".equals(name)) {
+                for (AnnotationValue tag : asList(entryValue)) {
+                    mPendingTags.add((String) tag.getValue());
+                }
+
+            } else if ("jobStatus".equals(name)) {
+                for (AnnotationValue status : asList(entryValue)) {
+                    mPendingStatus.add(((VariableElement) status.getValue()).getSimpleName().toString());
+                }
+
+            } else if ("eventCode".equals(name)) {
+                for (AnnotationValue eventCode : asList(entryValue)) {
+                    mPendingEventCode.add((Integer) eventCode.getValue());
+                }
+            }
+        }
+
+        final boolean isValueSet = value != null && !isJobInterface(value);
+        final boolean isJobTypeSet = jobType != null && !isJobInterface(jobType);
+        if (isValueSet && isJobTypeSet) {
+            mErrorReporter.abortWithError(String.format(
+                    "Inconsistent value and jobType on @%s; please consider to use one of two variants",
+                    getAnnotationSimpleName()), mMethod);
+        }
+
+        if (isValueSet) {
+            mJobClassName = getBinaryName(value);
+        } else if (isJobTypeSet) {
+            mJobClassName = getBinaryName(jobType);
+        }
+
+        if (Consts.ON_JOB_RESULT_ANNOTATION.equals(mAnnotationType)) {
+            mPendingStatus.add("OK");
+            mPendingStatus.add("FAILED");
+            mPendingStatus.add("CANCELLED");
+
+        } else if (Consts.ON_JOB_SUCCESS_ANNOTATION.equals(mAnnotationType)) {
+            mPendingStatus.add("OK");
+
+        } else if (Consts.ON_JOB_FAILURE_ANNOTATION.equals(mAnnotationType)) {
+            mPendingStatus.add("FAILED");
+
+        } else if (Consts.ON_JOB_CANCELLED_ANNOTATION.equals(mAnnotationType)) {
+            mPendingStatus.add("CANCELLED");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<? extends AnnotationValue> asList(Object value) {
+        return (List<? extends AnnotationValue>) value;
+    }
+
+    private boolean isJobInterface(TypeMirror type) {
+        return Consts.JOB_INTERFACE_TYPE_NAME.equals(
+                mEnvironment.getTypeUtils().erasure(type).toString());
+    }
+
+    private String getBinaryName(TypeMirror type) {
+        final TypeElement element = TypeSimplifier.toTypeElement(type);
+
+        return mEnvironment.getElementUtils().getBinaryName(element).toString();
+    }
+
+    public ExecutableElement getMethod() {
+        return mMethod;
+    }
+
+    public String getMethodName() {
+        return mMethod.getSimpleName().toString();
+    }
+
+    public String getAnnotationSimpleName() {
+        return mAnnotationType.substring(mAnnotationType.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * @return true if event handler is checked for cancelled event code only
+     */
+    public boolean isCancelledEventHandler() {
+        return Consts.ON_JOB_CANCELLED_ANNOTATION.equals(mAnnotationType);
+    }
+
+    public String getJobClassName() {
+        return mJobClassName;
+    }
+
+    public List<String> getPendingStatus() {
+        return mPendingStatus;
+    }
+
+    public List<Integer> getPendingEventCode() {
+        return mPendingEventCode;
+    }
+
+    public List<String> getPendingTags() {
+        return mPendingTags;
+    }
+
+    /**
+     * @return true if dispatcher in given package may call event handler
+     */
+    public boolean isAccessibleFrom(String packageName) {
+        if (mMethod.getModifiers().contains(Modifier.PRIVATE)) {
+            return false;
+        }
+
+        if (mMethod.getModifiers().contains(Modifier.PUBLIC)) {
+            return true;
+        }
+
+        final TypeElement declaringType = TypeSimplifier.enclosingClass(mMethod);
+
+        return packageName.equals(mEnvironment.getElementUtils()
+                .getPackageOf(declaringType).getQualifiedName().toString());
+    }
+
+    /**
+     * @return event handler parameter type or null if handler takes no parameters
+     */
+    public TypeMirror getParameterType() {
+        if (mMethod.getParameters().isEmpty()) {
+            return null;
+        }
+
+        return mEnvironment.getTypeUtils().erasure(mMethod.getParameters().get(0).asType());
+    }
+
+    /**
+     * @return true if handler parameter type is parameterized, so passing event
+     * of erased {@link #getParameterType()} to the handler is an unchecked conversion
+     */
+    public boolean hasGenericParameterType() {
+        if (mMethod.getParameters().isEmpty()) {
+            return false;
+        }
+
+        final TypeMirror type = mMethod.getParameters().get(0).asType();
+
+        return !mEnvironment.getTypeUtils().isSameType(type, mEnvironment.getTypeUtils().erasure(type));
+    }
+
+    /**
+     * @return true if JobEventDispatcher is able to call this event handler
+     */
+    public boolean hasSupportedParameters() {
+        return mMethod.getParameters().size() <= 1;
+    }
+}
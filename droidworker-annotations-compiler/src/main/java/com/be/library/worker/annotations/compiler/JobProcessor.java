@@ -8,6 +8,7 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSet;
 
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -47,7 +48,10 @@ public class JobProcessor extends AbstractProcessor {
 
     @Override
     public Set<String> getSupportedAnnotationTypes() {
-        return ImmutableSet.of(JobExtra.class.getName(), JobFlag.class.getName(), Shared.class.getName());
+        return ImmutableSet.<String>builder()
+                .add(JobExtra.class.getName(), JobFlag.class.getName(), Shared.class.getName())
+                .addAll(EventDispatcherGenerator.HANDLER_ANNOTATIONS)
+                .build();
     }
 
     @Override
@@ -92,6 +96,8 @@ public class JobProcessor extends AbstractProcessor {
                     new JobExtraInjectorGenerator(mProcessingEnvironment);
             generator.generateCode(jobClassInfo);
 
+            processEventHandlerElements(roundEnv);
+
         } catch (AbortProcessingException e) {
             // proceed
 
@@ -104,6 +110,42 @@ public class JobProcessor extends AbstractProcessor {
         return false;
     }
 
+    private void processEventHandlerElements(RoundEnvironment roundEnv) {
+        final Set<TypeElement> listenerTypes = new LinkedHashSet<TypeElement>();
+        for (String annotationName : EventDispatcherGenerator.HANDLER_ANNOTATIONS) {
+            final TypeElement annotationType =
+                    mProcessingEnvironment.getElementUtils().getTypeElement(annotationName);
+
+            if (annotationType == null) {
+                continue;
+            }
+
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotationType)) {
+                final Element enclosingElement = element.getEnclosingElement();
+
+                if (element.getKind() == ElementKind.METHOD
+                        && enclosingElement.getKind() == ElementKind.CLASS) {
+
+                    listenerTypes.add((TypeElement) enclosingElement);
+                }
+            }
+        }
+
+        final EventDispatcherGenerator generator = new EventDispatcherGenerator(mProcessingEnvironment);
+        for (TypeElement listenerType : listenerTypes) {
+            try {
+                generator.generateCode(listenerType);
+
+            } catch (AbortProcessingException e) {
+                // We abandoned this type; continue with the next.
+
+            } catch (Exception e) {
+                String trace = Throwables.getStackTraceAsString(e);
+                mErrorReporter.reportError(PROCESSOR_NAME + "processor threw an exception: " + trace, listenerType);
+            }
+        }
+    }
+
     private void processSharedElements(JobClassInfo classInfo, Collection<? extends Element> elements) {
         // Check that each @Shared class has inherited field
         for (Element element : elements) {
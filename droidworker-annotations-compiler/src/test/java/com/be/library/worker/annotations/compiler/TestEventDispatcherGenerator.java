@@ -0,0 +1,250 @@
+package com.be.library.worker.annotations.compiler;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Run the processor on sample listeners compiled against stubs of worker library types,
+ * then compile and invoke generated event dispatchers
+ */
+public class TestEventDispatcherGenerator {
+
+    private static final String[][] LIBRARY_STUBS = {
+            {"com/be/android/library/worker/interfaces/Job.java",
+                    "package com.be.android.library.worker.interfaces;\n"
+                            + "public interface Job {}\n"},
+            {"com/be/android/library/worker/base/JobStatus.java",
+                    "package com.be.android.library.worker.base;\n"
+                            + "public enum JobStatus { PENDING, IN_PROGRESS, OK, FAILED, CANCELLED }\n"},
+            {"com/be/android/library/worker/base/JobEvent.java",
+                    "package com.be.android.library.worker.base;\n"
+                            + "public class JobEvent {\n"
+                            + "    public static final int EVENT_CODE_CANCELLED = -2;\n"
+                            + "    private final JobStatus mJobStatus;\n"
+                            + "    public JobEvent(JobStatus jobStatus) { mJobStatus = jobStatus; }\n"
+                            + "    public JobStatus getJobStatus() { return mJobStatus; }\n"
+                            + "}\n"},
+            {"com/be/android/library/worker/base/EventHandlerMatcher.java",
+                    "package com.be.android.library.worker.base;\n"
+                            + "public final class EventHandlerMatcher {\n"
+                            + "    private final JobStatus[] mPendingStatus;\n"
+                            + "    public EventHandlerMatcher(String jobClassName, JobStatus[] pendingStatus,\n"
+                            + "            int[] pendingEventCode, String[] pendingTags) {\n"
+                            + "        mPendingStatus = pendingStatus;\n"
+                            + "    }\n"
+                            + "    public boolean matches(JobEvent event) {\n"
+                            + "        for (JobStatus status : mPendingStatus) {\n"
+                            + "            if (status == event.getJobStatus()) return true;\n"
+                            + "        }\n"
+                            + "        return mPendingStatus.length == 0;\n"
+                            + "    }\n"
+                            + "}\n"},
+            {"com/be/android/library/worker/interfaces/EventHandlerDispatcher.java",
+                    "package com.be.android.library.worker.interfaces;\n"
+                            + "import com.be.android.library.worker.base.JobEvent;\n"
+                            + "public interface EventHandlerDispatcher<T> {\n"
+                            + "    boolean dispatch(T listener, JobEvent event) throws Exception;\n"
+                            + "}\n"},
+            {"com/be/android/library/worker/models/LoadJobResult.java",
+                    "package com.be.android.library.worker.models;\n"
+                            + "import com.be.android.library.worker.base.JobEvent;\n"
+                            + "import com.be.android.library.worker.base.JobStatus;\n"
+                            + "public class LoadJobResult<T> extends JobEvent {\n"
+                            + "    private final T mData;\n"
+                            + "    public LoadJobResult(T data) { super(JobStatus.OK); mData = data; }\n"
+                            + "    public T getData() { return mData; }\n"
+                            + "}\n"},
+            {"com/be/android/library/worker/annotations/OnJobSuccess.java",
+                    "package com.be.android.library.worker.annotations;\n"
+                            + "import com.be.android.library.worker.interfaces.Job;\n"
+                            + "public @interface OnJobSuccess {\n"
+                            + "    Class<? extends Job> value() default Job.class;\n"
+                            + "    Class<? extends Job> jobType() default Job.class;\n"
+                            + "    String[] jobTags() default {};\n"
+                            + "    int[] eventCode() default {};\n"
+                            + "}\n"},
+            {"com/be/android/library/worker/annotations/OnJobFailure.java",
+                    "package com.be.android.library.worker.annotations;\n"
+                            + "import com.be.android.library.worker.interfaces.Job;\n"
+                            + "public @interface OnJobFailure {\n"
+                            + "    Class<? extends Job> value() default Job.class;\n"
+                            + "    Class<? extends Job> jobType() default Job.class;\n"
+                            + "    String[] jobTags() default {};\n"
+                            + "    int[] eventCode() default {};\n"
+                            + "}\n"},
+    };
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private File mGeneratedDir;
+
+    @Test
+    public void testGenericHandlerDispatchedWithoutUncheckedWarnings() throws Exception {
+        final String listenerSource = "package sample;\n"
+                + "import com.be.android.library.worker.annotations.OnJobFailure;\n"
+                + "import com.be.android.library.worker.annotations.OnJobSuccess;\n"
+                + "import com.be.android.library.worker.models.LoadJobResult;\n"
+                + "public class SampleListener {\n"
+                + "    public String data;\n"
+                + "    public boolean isFailed;\n"
+                + "    @OnJobSuccess\n"
+                + "    public void onAny(LoadJobResult<String> result) { data = result.getData(); }\n"
+                + "    @OnJobFailure\n"
+                + "    public void onFailure() { isFailed = true; }\n"
+                + "}\n";
+
+        final File outputDir = compile("sample/SampleListener.java", listenerSource);
+
+        final String dispatcherSource = readGeneratedSource("sample/SampleListenerEventDispatcher.java");
+        assertTrue(dispatcherSource.contains("@SuppressWarnings(\"unchecked\")"));
+
+        final URLClassLoader classLoader = new URLClassLoader(new URL[] {outputDir.toURI().toURL()},
+                getClass().getClassLoader());
+        try {
+            final Class<?> listenerClass = classLoader.loadClass("sample.SampleListener");
+            final Class<?> eventClass = classLoader.loadClass("com.be.android.library.worker.base.JobEvent");
+            final Class<?> statusClass = classLoader.loadClass("com.be.android.library.worker.base.JobStatus");
+            final Object listener = listenerClass.newInstance();
+            final Object dispatcher = classLoader.loadClass("sample.SampleListenerEventDispatcher").newInstance();
+            final Method dispatch = dispatcher.getClass().getMethod("dispatch", listenerClass, eventClass);
+
+            final Object result = classLoader.loadClass("com.be.android.library.worker.models.LoadJobResult")
+                    .getConstructor(Object.class)
+                    .newInstance("loaded");
+            assertEquals(true, dispatch.invoke(dispatcher, listener, result));
+            assertEquals("loaded", listenerClass.getField("data").get(listener));
+
+            final Object failure = eventClass.getConstructor(statusClass)
+                    .newInstance(statusClass.getField("FAILED").get(null));
+            assertEquals(true, dispatch.invoke(dispatcher, listener, failure));
+            assertEquals(true, listenerClass.getField("isFailed").get(listener));
+
+            // Plain success event doesn't fit handler taking load result
+            final Object success = eventClass.getConstructor(statusClass)
+                    .newInstance(statusClass.getField("OK").get(null));
+            assertEquals(false, dispatch.invoke(dispatcher, listener, success));
+
+        } finally {
+            classLoader.close();
+        }
+    }
+
+    @Test
+    public void testPlainHandlerDispatcherNotSuppressed() throws Exception {
+        final String listenerSource = "package sample;\n"
+                + "import com.be.android.library.worker.annotations.OnJobSuccess;\n"
+                + "import com.be.android.library.worker.base.JobEvent;\n"
+                + "public class PlainListener {\n"
+                + "    @OnJobSuccess\n"
+                + "    public void onSuccess(JobEvent event) {}\n"
+                + "}\n";
+
+        compile("sample/PlainListener.java", listenerSource);
+
+        final String dispatcherSource = readGeneratedSource("sample/PlainListenerEventDispatcher.java");
+        assertFalse(dispatcherSource.contains("@SuppressWarnings"));
+        assertTrue(dispatcherSource.contains("listener.onSuccess(event)"));
+    }
+
+    /**
+     * Compile listener source with library stubs running the processor;
+     * fails on any error or warning
+     *
+     * @return class output directory
+     */
+    private File compile(String listenerPath, String listenerSource) throws IOException {
+        final File sourceDir = mTemporaryFolder.newFolder("src");
+        final File generatedDir = mTemporaryFolder.newFolder("generated");
+        final File outputDir = mTemporaryFolder.newFolder("classes");
+
+        final List<File> sources = new ArrayList<File>();
+        for (String[] stub : LIBRARY_STUBS) {
+            sources.add(writeSource(sourceDir, stub[0], stub[1]));
+        }
+        sources.add(writeSource(sourceDir, listenerPath, listenerSource));
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        final StandardJavaFileManager fileManager =
+                compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8);
+
+        try {
+            final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-Xlint:unchecked",
+                            "-d", outputDir.getPath(),
+                            "-s", generatedDir.getPath(),
+                            "-classpath", System.getProperty("java.class.path")),
+                    null,
+                    fileManager.getJavaFileObjectsFromFiles(sources));
+            task.setProcessors(Collections.singletonList(new JobProcessor()));
+
+            final boolean isCompiled = task.call();
+
+            final StringBuilder problems = new StringBuilder();
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                if (diagnostic.getKind() == Diagnostic.Kind.ERROR
+                        || diagnostic.getKind() == Diagnostic.Kind.WARNING
+                        || diagnostic.getKind() == Diagnostic.Kind.MANDATORY_WARNING) {
+
+                    problems.append(diagnostic).append('\n');
+                }
+            }
+
+            assertTrue(problems.toString(), isCompiled);
+            assertEquals("", problems.toString());
+
+        } finally {
+            fileManager.close();
+        }
+
+        mGeneratedDir = generatedDir;
+
+        return outputDir;
+    }
+
+    private String readGeneratedSource(String path) throws IOException {
+        return new String(Files.readAllBytes(new File(mGeneratedDir, path).toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static File writeSource(File sourceDir, String path, String source) throws IOException {
+        final File file = new File(sourceDir, path);
+        file.getParentFile().mkdirs();
+
+        final Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8);
+        try {
+            writer.write(source);
+        } finally {
+            writer.close();
+        }
+
+        return file;
+    }
+}
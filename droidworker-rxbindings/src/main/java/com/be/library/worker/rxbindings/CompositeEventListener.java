@@ -2,10 +2,9 @@ package com.be.library.worker.rxbindings;
 
 import com.be.android.library.worker.base.JobEvent;
 import com.be.android.library.worker.interfaces.JobEventListener;
+import com.be.android.library.worker.util.IntSet;
 
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * @author Eugene Byzov gdzhey@gmail.com
@@ -13,11 +12,14 @@ import java.util.Set;
  */
 class CompositeEventListener implements JobEventListener {
 
-    private final Set<Integer> mPendingJobs;
+    private final IntSet mPendingJobs;
     private JobEventListener mDelegate;
 
     CompositeEventListener(Collection<Integer> pendingJobs) {
-        mPendingJobs = new HashSet<>(pendingJobs);
+        mPendingJobs = new IntSet(pendingJobs.size());
+        for (Integer jobId : pendingJobs) {
+            mPendingJobs.add(jobId);
+        }
     }
 
     @Override
@@ -0,0 +1,34 @@
+package com.be.library.worker.rxbindings;
+
+import com.be.android.library.worker.base.JobEvent;
+
+import rx.Subscriber;
+import rx.exceptions.MissingBackpressureException;
+
+/**
+ * Strategy applied to job events when {@link Subscriber} requests
+ * events slower than jobs send them.
+ *
+ * @see RxJobs#observe(com.be.android.library.worker.util.JobSelector, JobEventBackpressure)
+ */
+public enum JobEventBackpressure {
+
+    /**
+     * Keep only the latest not yet emitted intermediate event of each job,
+     * such as progress update, while keeping every job finish event.
+     * Number of retained events is bounded by twice the number of observed jobs.
+     */
+    LATEST_UPDATE,
+
+    /**
+     * Keep all events up to buffer capacity set by
+     * {@link RxJobs.Builder#backpressureBufferSize(int)}. Buffer overflow is signalled
+     * to {@link Subscriber#onError(Throwable)} as {@link MissingBackpressureException}.
+     */
+    BUFFER,
+
+    /**
+     * Drop any {@link JobEvent} received while subscriber has no pending requests
+     */
+    DROP
+}
@@ -0,0 +1,214 @@
+package com.be.library.worker.rxbindings;
+
+import com.be.android.library.worker.base.JobEvent;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+import rx.Observable;
+import rx.Producer;
+import rx.Subscriber;
+
+/**
+ * Backpressure operator keeping only the latest not yet emitted intermediate event
+ * of each job, while keeping every job finish event.
+ * <p>
+ * Replaced intermediate event keeps position of the first conflated one, so events
+ * of a job are emitted in order and no update is emitted after job finish event.
+ * Completion and errors are emitted after retained events.
+ *
+ * @see JobEventBackpressure#LATEST_UPDATE
+ */
+final class OperatorLatestJobUpdate implements Observable.Operator<JobEvent, JobEvent> {
+
+    private static final OperatorLatestJobUpdate INSTANCE = new OperatorLatestJobUpdate();
+
+    static OperatorLatestJobUpdate instance() {
+        return INSTANCE;
+    }
+
+    private OperatorLatestJobUpdate() {
+    }
+
+    @Override
+    public Subscriber<? super JobEvent> call(Subscriber<? super JobEvent> child) {
+        final LatestJobUpdateSubscriber parent = new LatestJobUpdateSubscriber(child);
+
+        child.add(parent);
+        child.setProducer(parent.mProducer);
+
+        return parent;
+    }
+
+    /**
+     * Retained event, may be replaced by later intermediate event of the same job until emitted
+     */
+    private static final class Slot {
+        JobEvent event;
+
+        Slot(JobEvent event) {
+            this.event = event;
+        }
+    }
+
+    private static final class LatestJobUpdateSubscriber extends Subscriber<JobEvent> {
+
+        private final Subscriber<? super JobEvent> mChild;
+        private final ArrayDeque<Slot> mQueue;
+        private final Map<Integer, Slot> mPendingUpdates;
+        private long mRequested;
+        private boolean mIsEmitting;
+        private boolean mIsDone;
+        private boolean mIsTerminated;
+        private Throwable mError;
+
+        private final Producer mProducer = new Producer() {
+            @Override
+            public void request(long n) {
+                onRequest(n);
+            }
+        };
+
+        LatestJobUpdateSubscriber(Subscriber<? super JobEvent> child) {
+            mChild = child;
+            mQueue = new ArrayDeque<>();
+            mPendingUpdates = new HashMap<>();
+        }
+
+        @Override
+        public void onStart() {
+            request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(JobEvent event) {
+            synchronized (this) {
+                if (mIsDone) {
+                    return;
+                }
+
+                final Integer jobId = event.getJobId();
+                if (event.isJobFinished()) {
+                    mPendingUpdates.remove(jobId);
+                    mQueue.offer(new Slot(event));
+
+                } else {
+                    final Slot pendingUpdate = mPendingUpdates.get(jobId);
+
+                    if (pendingUpdate != null) {
+                        pendingUpdate.event = event;
+                    } else {
+                        final Slot slot = new Slot(event);
+                        mPendingUpdates.put(jobId, slot);
+                        mQueue.offer(slot);
+                    }
+                }
+            }
+
+            drain();
+        }
+
+        @Override
+        public void onCompleted() {
+            synchronized (this) {
+                mIsDone = true;
+            }
+
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            synchronized (this) {
+                mError = e;
+                mIsDone = true;
+            }
+
+            drain();
+        }
+
+        private void onRequest(long n) {
+            if (n < 0) {
+                throw new IllegalArgumentException("n >= 0 required but it was " + n);
+            }
+
+            if (n == 0) {
+                return;
+            }
+
+            synchronized (this) {
+                final long requested = mRequested + n;
+                mRequested = requested < 0 ? Long.MAX_VALUE : requested;
+            }
+
+            drain();
+        }
+
+        private void drain() {
+            synchronized (this) {
+                if (mIsEmitting) {
+                    return;
+                }
+                mIsEmitting = true;
+            }
+
+            for (;;) {
+                final JobEvent event;
+                final Throwable error;
+
+                synchronized (this) {
+                    if (mIsTerminated || mChild.isUnsubscribed()) {
+                        mQueue.clear();
+                        mPendingUpdates.clear();
+                        mIsEmitting = false;
+                        return;
+                    }
+
+                    if (mQueue.isEmpty()) {
+                        if (!mIsDone) {
+                            mIsEmitting = false;
+                            return;
+                        }
+
+                        mIsTerminated = true;
+                        mIsEmitting = false;
+                        error = mError;
+                        event = null;
+
+                    } else if (mRequested == 0) {
+                        mIsEmitting = false;
+                        return;
+
+                    } else {
+                        final Slot slot = mQueue.poll();
+                        event = slot.event;
+                        error = null;
+
+                        final Integer jobId = event.getJobId();
+                        if (mPendingUpdates.get(jobId) == slot) {
+                            mPendingUpdates.remove(jobId);
+                        }
+
+                        if (mRequested != Long.MAX_VALUE) {
+                            mRequested--;
+                        }
+                    }
+                }
+
+                if (event != null) {
+                    mChild.onNext(event);
+
+                } else {
+                    if (error != null) {
+                        mChild.onError(error);
+                    } else {
+                        mChild.onCompleted();
+                    }
+
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -13,6 +13,8 @@ import java.util.List;
 
 import rx.Observable;
 import rx.Subscriber;
+import rx.functions.Action0;
+import rx.subscriptions.Subscriptions;
 
 /**
  * @author Eugene Byzov gdzhey@gmail.com
@@ -55,6 +57,11 @@ public final class RxJobs {
      * <p>
      * Once all jobs are finished {@link Subscriber#onCompleted()} is invoked.
      * </p>
+     * <p>
+     * Returned <code>Observable</code> doesn't support backpressure;
+     * use {@link #observe(JobManager, JobSelector, JobEventBackpressure)}
+     * for subscribers requesting events slower than jobs send them.
+     * </p>
      *
      * @param jobManager job manager to apply selector on
      * @param selector   selector describing jobs
@@ -66,6 +73,80 @@ public final class RxJobs {
     public Observable<JobEvent> observe(final JobManager jobManager,
                                         final JobSelector selector) {
 
+        return createObservable(jobManager, selector, mSettings.provideIntermediateEvents);
+    }
+
+    public Observable<JobEvent> observe(JobSelector selector) {
+        return observe(JobManager.getInstance(), selector);
+    }
+
+    /**
+     * Same as {@link #observe(JobManager, JobSelector)}, but events are emitted
+     * only as subscriber requests them; events sent by jobs in the meantime are
+     * handled according to given <code>backpressure</code> strategy.
+     *
+     * @param jobManager   job manager to apply selector on
+     * @param selector     selector describing jobs
+     * @param backpressure strategy applied to events not requested yet
+     * @return new Observable
+     * @see JobEventBackpressure
+     */
+    public Observable<JobEvent> observe(JobManager jobManager,
+                                        JobSelector selector,
+                                        JobEventBackpressure backpressure) {
+
+        final Observable<JobEvent> observable = observe(jobManager, selector);
+
+        switch (backpressure) {
+            case LATEST_UPDATE:
+                return observable.lift(OperatorLatestJobUpdate.instance());
+
+            case BUFFER:
+                return observable.onBackpressureBuffer(mSettings.backpressureBufferSize);
+
+            case DROP:
+                return observable.onBackpressureDrop();
+
+            default:
+                throw new IllegalArgumentException(String.format(
+                        "unsupported backpressure strategy '%s'", backpressure));
+        }
+    }
+
+    public Observable<JobEvent> observe(JobSelector selector, JobEventBackpressure backpressure) {
+        return observe(JobManager.getInstance(), selector, backpressure);
+    }
+
+    /**
+     * <p>
+     * Create <code>Observable</code> emitting only finish events of jobs
+     * described by <code>selector</code>, regardless of
+     * {@link Builder#provideIntermediateEvents(boolean)}.
+     * Intermediate events are skipped as they are received, before any allocation.
+     * </p>
+     * <p>
+     * Each job sends single finish event, so events not requested yet are retained;
+     * their number is bounded by number of selected jobs.
+     * Once all jobs are finished {@link Subscriber#onCompleted()} is invoked.
+     * </p>
+     *
+     * @param jobManager job manager to apply selector on
+     * @param selector   selector describing jobs
+     * @return new Observable
+     */
+    public Observable<JobEvent> observeResults(JobManager jobManager, JobSelector selector) {
+        return createObservable(jobManager, selector, false)
+                .lift(OperatorLatestJobUpdate.instance());
+    }
+
+    public Observable<JobEvent> observeResults(JobSelector selector) {
+        return observeResults(JobManager.getInstance(), selector);
+    }
+
+    private Observable<JobEvent> createObservable(final JobManager jobManager,
+                                                  final JobSelector selector,
+                                                  final boolean provideIntermediateEvents) {
+
         final List<Job> pendingJobs = new ArrayList<>();
         final List<Integer> pendingJobIds = new ArrayList<>();
 
@@ -89,6 +170,10 @@ public final class RxJobs {
                 jobsEventListener.setDelegate(new JobEventListener() {
                     @Override
                     public void onJobEvent(JobEvent event) {
+                        if (subscriber.isUnsubscribed()) {
+                            return;
+                        }
+
                         if (mSettings.treatFailureAsError
                                 && event.getJobStatus() == JobStatus.FAILED) {
 
@@ -103,7 +188,7 @@ public final class RxJobs {
                             return;
                         }
 
-                        if (mSettings.provideIntermediateEvents || event.isJobFinished()) {
+                        if (provideIntermediateEvents || event.isJobFinished()) {
                             subscriber.onNext(event);
                         }
 
@@ -113,15 +198,24 @@ public final class RxJobs {
                     }
                 });
 
-                jobManager.addJobEventListener(jobsEventListener);
+                // Listen selected jobs only; listeners are weakly referenced by
+                // job manager, so subscriber keeps listener until unsubscribed
+                subscriber.add(Subscriptions.create(new Action0() {
+                    @Override
+                    public void call() {
+                        for (Integer jobId : pendingJobIds) {
+                            jobManager.removeJobEventListener(jobId, jobsEventListener);
+                        }
+                    }
+                }));
+
+                for (Integer jobId : pendingJobIds) {
+                    jobManager.addJobEventListener(jobId, jobsEventListener);
+                }
             }
         });
     }
 
-    public Observable<JobEvent> observe(JobSelector selector) {
-        return observe(JobManager.getInstance(), selector);
-    }
-
     /**
      * Allows to create customized {@link RxJobs} instance
      */
@@ -186,11 +280,32 @@ public final class RxJobs {
             return this;
         }
 
+        /**
+         * <p>
+         * Set number of events retained for subscriber
+         * with {@link JobEventBackpressure#BUFFER} strategy.
+         * </p>
+         * <p><code>128</code> by default</p>
+         *
+         * @param backpressureBufferSize max number of events not requested by subscriber yet
+         * @return this
+         */
+        public Builder backpressureBufferSize(int backpressureBufferSize) {
+            if (backpressureBufferSize <= 0) {
+                throw new IllegalArgumentException("buffer size should be positive");
+            }
+
+            mSettings.backpressureBufferSize = backpressureBufferSize;
+
+            return this;
+        }
+
         public RxJobs build() {
             final Settings settings = new Settings();
             settings.treatFailureAsError = mSettings.treatFailureAsError;
             settings.treatCancellationAsError = mSettings.treatCancellationAsError;
             settings.provideIntermediateEvents = mSettings.provideIntermediateEvents;
+            settings.backpressureBufferSize = mSettings.backpressureBufferSize;
 
             return new RxJobs(settings);
         }
@@ -200,5 +315,6 @@ public final class RxJobs {
         private boolean treatFailureAsError = true;
         private boolean treatCancellationAsError = true;
         private boolean provideIntermediateEvents = true;
+        private int backpressureBufferSize = 128;
     }
 }
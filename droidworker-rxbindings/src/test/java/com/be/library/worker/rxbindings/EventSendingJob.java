@@ -0,0 +1,39 @@
+package com.be.library.worker.rxbindings;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.base.JobStatus;
+import com.be.android.library.worker.interfaces.JobEventListener;
+
+/**
+ * Job sending events on demand of test instead of being executed.
+ * Events are passed to target synchronously instead of job listeners,
+ * so job manager doesn't deliver them on main thread.
+ */
+class EventSendingJob extends BaseJob {
+
+    private final JobEventListener mEventTarget;
+
+    EventSendingJob(JobEventListener eventTarget) {
+        mEventTarget = eventTarget;
+    }
+
+    @Override
+    protected JobEvent executeImpl() throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void notifyJobEventImpl(JobEvent event) {
+        mEventTarget.onJobEvent(event);
+    }
+
+    void sendUpdate(String message) {
+        notifyStatusMessageUpdate(message);
+    }
+
+    void sendFinish(String message) {
+        setStatusSilent(JobStatus.OK);
+        notifyJobEvent(JobEvent.ok(message));
+    }
+}
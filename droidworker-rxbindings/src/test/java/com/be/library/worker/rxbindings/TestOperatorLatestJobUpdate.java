@@ -0,0 +1,137 @@
+package com.be.library.worker.rxbindings;
+
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.interfaces.JobEventListener;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import rx.observers.TestSubscriber;
+import rx.subjects.PublishSubject;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Verify job events not requested by subscriber are conflated per job
+ * without reordering or losing finish events
+ */
+public class TestOperatorLatestJobUpdate {
+
+    private static int sJobIdCounter = 0;
+
+    private PublishSubject<JobEvent> mSubject;
+    private TestSubscriber<JobEvent> mSubscriber;
+
+    private final JobEventListener mForwardingListener = new JobEventListener() {
+        @Override
+        public void onJobEvent(JobEvent event) {
+            mSubject.onNext(event);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        mSubject = PublishSubject.create();
+        mSubscriber = new TestSubscriber<JobEvent>(0);
+        mSubject.lift(OperatorLatestJobUpdate.instance()).subscribe(mSubscriber);
+    }
+
+    @Test
+    public void testUpdatesConflatedPerJobInOrder() {
+        final EventSendingJob job1 = createJob();
+        final EventSendingJob job2 = createJob();
+
+        job1.sendUpdate("a");
+        job2.sendUpdate("x");
+        job1.sendUpdate("b");
+        job1.sendFinish("done");
+        job2.sendUpdate("y");
+        mSubscriber.assertNoValues();
+
+        // Update keeps position of the first conflated one and never follows finish event
+        mSubscriber.requestMore(1);
+        assertEquals(Arrays.asList("b"), messagesOf(mSubscriber));
+
+        job2.sendUpdate("z");
+        mSubscriber.requestMore(Long.MAX_VALUE);
+        assertEquals(Arrays.asList("b", "z", "done"), messagesOf(mSubscriber));
+
+        // Events are passed through while requested
+        job2.sendUpdate("w");
+        assertEquals(Arrays.asList("b", "z", "done", "w"), messagesOf(mSubscriber));
+    }
+
+    @Test
+    public void testFinishEventsRetainedUntilRequested() {
+        final EventSendingJob job1 = createJob();
+        final EventSendingJob job2 = createJob();
+        final EventSendingJob job3 = createJob();
+
+        job1.sendUpdate("a");
+        job1.sendFinish("1");
+        job2.sendFinish("2");
+        job3.sendUpdate("b");
+        job3.sendFinish("3");
+        mSubscriber.assertNoValues();
+
+        mSubscriber.requestMore(2);
+        assertEquals(Arrays.asList("a", "1"), messagesOf(mSubscriber));
+
+        mSubscriber.requestMore(3);
+        assertEquals(Arrays.asList("a", "1", "2", "b", "3"), messagesOf(mSubscriber));
+    }
+
+    @Test
+    public void testCompletionEmittedAfterQueueDrained() {
+        final EventSendingJob job = createJob();
+
+        job.sendUpdate("a");
+        job.sendFinish("done");
+        mSubject.onCompleted();
+        mSubscriber.assertNotCompleted();
+
+        mSubscriber.requestMore(1);
+        mSubscriber.assertNotCompleted();
+
+        mSubscriber.requestMore(1);
+        assertEquals(Arrays.asList("a", "done"), messagesOf(mSubscriber));
+        mSubscriber.assertCompleted();
+        mSubscriber.assertNoErrors();
+    }
+
+    @Test
+    public void testErrorEmittedAfterQueueDrained() {
+        final EventSendingJob job = createJob();
+        final Exception error = new Exception();
+
+        job.sendUpdate("a");
+        mSubject.onError(error);
+        mSubscriber.assertNoErrors();
+
+        mSubscriber.requestMore(1);
+        assertEquals(Arrays.asList("a"), messagesOf(mSubscriber));
+        mSubscriber.assertError(error);
+        mSubscriber.assertNotCompleted();
+    }
+
+    private EventSendingJob createJob() {
+        final EventSendingJob job = new EventSendingJob(mForwardingListener);
+        job.setup().apply();
+        job.getParams().assignJobId(++sJobIdCounter);
+
+        return job;
+    }
+
+    static List<String> messagesOf(TestSubscriber<JobEvent> subscriber) {
+        final List<String> messages = new ArrayList<>();
+        for (JobEvent event : subscriber.getOnNextEvents()) {
+            messages.add(event.getExtraMessage());
+        }
+
+        return messages;
+    }
+}
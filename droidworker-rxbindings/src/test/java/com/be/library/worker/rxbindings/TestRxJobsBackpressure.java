@@ -0,0 +1,147 @@
+package com.be.library.worker.rxbindings;
+
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.controllers.JobManager;
+import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.interfaces.JobEventListener;
+import com.be.android.library.worker.util.JobSelector;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import rx.Subscription;
+import rx.observers.TestSubscriber;
+
+import static com.be.library.worker.rxbindings.TestOperatorLatestJobUpdate.messagesOf;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verify {@link RxJobs} observables honoring subscriber requests
+ */
+public class TestRxJobsBackpressure {
+
+    private static final String JOB_TAG = "tag";
+
+    private JobManager mJobManager;
+    private final Set<JobEventListener> mJobListeners = new HashSet<>();
+
+    private final JobEventListener mRoutingListener = new JobEventListener() {
+        @Override
+        public void onJobEvent(JobEvent event) {
+            mJobManager.notifyJobEvent(event);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        // Submitted jobs are kept pending, events are sent by test
+        mJobManager = new JobManager() {
+            @Override
+            protected void submitJobImpl(Job job) {
+            }
+
+            @Override
+            public void addJobEventListener(int jobId, JobEventListener listener) {
+                mJobListeners.add(listener);
+                super.addJobEventListener(jobId, listener);
+            }
+
+            @Override
+            public boolean removeJobEventListener(int jobId, JobEventListener listener) {
+                mJobListeners.remove(listener);
+                return super.removeJobEventListener(jobId, listener);
+            }
+        };
+    }
+
+    @Test
+    public void testObserveLatestUpdate() {
+        final EventSendingJob job1 = submitJob();
+        final EventSendingJob job2 = submitJob();
+
+        final TestSubscriber<JobEvent> subscriber = new TestSubscriber<>(0);
+        RxJobs.get()
+                .observe(mJobManager, JobSelector.forJobTags(JOB_TAG), JobEventBackpressure.LATEST_UPDATE)
+                .subscribe(subscriber);
+
+        job1.sendUpdate("a");
+        job2.sendUpdate("x");
+        job1.sendUpdate("b");
+        job1.sendFinish("1");
+        job2.sendUpdate("y");
+        job2.sendFinish("2");
+        subscriber.assertNoValues();
+
+        subscriber.requestMore(3);
+        assertEquals(Arrays.asList("b", "y", "1"), messagesOf(subscriber));
+        subscriber.assertNotCompleted();
+
+        subscriber.requestMore(1);
+        assertEquals(Arrays.asList("b", "y", "1", "2"), messagesOf(subscriber));
+        subscriber.assertCompleted();
+        subscriber.assertNoErrors();
+    }
+
+    @Test
+    public void testObserveResults() {
+        final EventSendingJob job1 = submitJob();
+        final EventSendingJob job2 = submitJob();
+
+        final TestSubscriber<JobEvent> subscriber = new TestSubscriber<>(0);
+        RxJobs.get().observeResults(mJobManager, JobSelector.forJobTags(JOB_TAG)).subscribe(subscriber);
+
+        job1.sendUpdate("a");
+        job2.sendFinish("2");
+        job1.sendFinish("1");
+        subscriber.assertNoValues();
+
+        subscriber.requestMore(1);
+        assertEquals(Arrays.asList("2"), messagesOf(subscriber));
+        subscriber.assertNotCompleted();
+
+        subscriber.requestMore(1);
+        assertEquals(Arrays.asList("2", "1"), messagesOf(subscriber));
+        subscriber.assertCompleted();
+    }
+
+    @Test
+    public void testListenersRemovedOnUnsubscribe() {
+        final EventSendingJob job = submitJob();
+
+        for (JobEventBackpressure backpressure : JobEventBackpressure.values()) {
+            final TestSubscriber<JobEvent> subscriber = new TestSubscriber<>(0);
+            final Subscription subscription = RxJobs.get()
+                    .observe(mJobManager, JobSelector.forJobTags(JOB_TAG), backpressure)
+                    .subscribe(subscriber);
+
+            assertEquals(1, mJobListeners.size());
+
+            // Subscriber leaves retained events not requested
+            job.sendUpdate("a");
+            subscription.unsubscribe();
+
+            assertTrue(backpressure.name(), mJobListeners.isEmpty());
+        }
+
+        final Subscription subscription = RxJobs.get()
+                .observeResults(mJobManager, JobSelector.forJobTags(JOB_TAG))
+                .subscribe(new TestSubscriber<JobEvent>(0));
+
+        assertEquals(1, mJobListeners.size());
+        subscription.unsubscribe();
+        assertTrue(mJobListeners.isEmpty());
+    }
+
+    private EventSendingJob submitJob() {
+        final EventSendingJob job = new EventSendingJob(mRoutingListener);
+        job.setup().addTag(JOB_TAG).apply();
+        mJobManager.submitJob(job);
+
+        return job;
+    }
+}
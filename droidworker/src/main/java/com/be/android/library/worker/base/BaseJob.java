@@ -319,6 +319,24 @@ public abstract class BaseJob extends JobObservable {
         return mIsCancelled || getStatus() == JobStatus.CANCELLED;
     }
 
+    /**
+     * Finish pending job without execution and notify listeners with passed result
+     *
+     * @param result event defining one of finished job statuses
+     */
+    public void abort(JobEvent result) {
+        if (result == null || !result.isJobFinished()) {
+            throw new IllegalArgumentException("result should define finished job status");
+        }
+        if (getStatus() != JobStatus.PENDING) {
+            throw new IllegalStateException(String.format(
+                    "can't abort job which is already executed; \"%s\"", this));
+        }
+
+        setStatusSilent(result.getJobStatus());
+        notifyJobEvent(result);
+    }
+
     @Override
     public void reset() {
         if (getStatus() != JobStatus.PENDING && !isFinished()) {
@@ -0,0 +1,70 @@
+package com.be.android.library.worker.base;
+
+/**
+ * Checks whether job event fits event handler annotation parameters.
+ * Used by generated {@link com.be.android.library.worker.interfaces.EventHandlerDispatcher}
+ * implementations the same way as {@link BaseInvocationHandler} checks pending job type,
+ * status, event code and tags.
+ */
+public final class EventHandlerMatcher {
+
+    private final String mJobClassName;
+    private final JobStatus[] mPendingStatus;
+    private final int[] mPendingEventCode;
+    private final String[] mPendingTags;
+
+    /**
+     * @param jobClassName pending job class name or null to accept any job
+     * @param pendingStatus pending job statuses or empty array to accept any status
+     * @param pendingEventCode pending event codes or empty array to accept any event code
+     * @param pendingTags tags pending job should have
+     */
+    public EventHandlerMatcher(String jobClassName,
+                               JobStatus[] pendingStatus,
+                               int[] pendingEventCode,
+                               String[] pendingTags) {
+
+        mJobClassName = jobClassName;
+        mPendingStatus = pendingStatus;
+        mPendingEventCode = pendingEventCode;
+        mPendingTags = pendingTags;
+    }
+
+    public boolean matches(JobEvent event) {
+        if (mPendingStatus.length > 0) {
+            boolean isStatusMatched = false;
+            for (JobStatus status : mPendingStatus) {
+                if (status == event.getJobStatus()) {
+                    isStatusMatched = true;
+                    break;
+                }
+            }
+
+            if (!isStatusMatched) {
+                return false;
+            }
+        }
+
+        if (mJobClassName != null
+                && !mJobClassName.equals(event.getJobParams().getJobClassName())) {
+
+            return false;
+        }
+
+        if (mPendingEventCode.length > 0) {
+            boolean isEventCodeMatched = false;
+            for (int eventCode : mPendingEventCode) {
+                if (eventCode == event.getEventCode()) {
+                    isEventCodeMatched = true;
+                    break;
+                }
+            }
+
+            if (!isEventCodeMatched) {
+                return false;
+            }
+        }
+
+        return mPendingTags.length == 0 || event.getJobParams().hasTags(mPendingTags);
+    }
+}
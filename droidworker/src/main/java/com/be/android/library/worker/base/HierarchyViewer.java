@@ -2,24 +2,52 @@ package com.be.android.library.worker.base;
 
 import android.content.Context;
 
+import com.be.android.library.worker.interfaces.EventHandlerDispatcher;
+
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Resolves event handlers of listener types.
+ * <p>
+ * Resolved handlers are cached by listener class and shared between all viewers,
+ * so any thread may resolve and read them. Use {@link #prefetch(Class[])} to resolve
+ * listener types ahead of registration, e.g. on a background thread at startup.
+ */
 public class HierarchyViewer {
 
-    private static final Map<String, List<InvocationHandler>> sHandlersMap;
+    /**
+     * Suffix of generated {@link EventHandlerDispatcher} class name
+     */
+    public static final String EVENT_DISPATCHER_SUFFIX = "EventDispatcher";
+
+    /**
+     * Cached in place of null dispatcher for types handled with reflection
+     */
+    private static final EventHandlerDispatcher<Object> NO_DISPATCHER = new EventHandlerDispatcher<Object>() {
+        @Override
+        public boolean dispatch(Object listener, JobEvent event) {
+            return false;
+        }
+    };
+
+    private static final ConcurrentMap<Class<?>, List<InvocationHandler>> sHandlersMap;
+    private static final ConcurrentMap<Class<?>, EventHandlerDispatcher<Object>> sDispatchersMap;
     private final List<InvocationHandlerProvider> mProviders;
 
     static {
-        sHandlersMap = new HashMap<String, List<InvocationHandler>>();
+        sHandlersMap = new ConcurrentHashMap<Class<?>, List<InvocationHandler>>();
+        sDispatchersMap = new ConcurrentHashMap<Class<?>, EventHandlerDispatcher<Object>>();
     }
 
     public HierarchyViewer(Context context) {
-        mProviders = new ArrayList<InvocationHandlerProvider>();
+        mProviders = new CopyOnWriteArrayList<InvocationHandlerProvider>();
     }
 
     public void registerInvocationHandlerProvider(InvocationHandlerProvider provider) {
@@ -43,8 +71,9 @@ public class HierarchyViewer {
     }
 
     public List<InvocationHandler> fetchInvocationHandlers(Class<?> type) {
-        if (sHandlersMap.containsKey(type.getName())) {
-            return sHandlersMap.get(type.getName());
+        final List<InvocationHandler> cachedHandlers = sHandlersMap.get(type);
+        if (cachedHandlers != null) {
+            return cachedHandlers;
         }
 
         Class<?> lookupType = type;
@@ -65,8 +94,114 @@ public class HierarchyViewer {
                     "specified type '%s' declared no any event handlers", type));
         }
 
-        sHandlersMap.put(type.getName(), handlers);
+        handlers = Collections.unmodifiableList(handlers);
+        final List<InvocationHandler> resolvedHandlers = sHandlersMap.putIfAbsent(type, handlers);
+
+        return resolvedHandlers != null ? resolvedHandlers : handlers;
+    }
+
+    /**
+     * Find event handler dispatcher generated by annotation processor for given listener type.
+     * Dispatcher generated for a super type is used unless listener type
+     * or any type in between declares own event handlers.
+     *
+     * @param type listener type
+     * @return generated dispatcher or null if listener type should be handled with reflection
+     */
+    public EventHandlerDispatcher<Object> fetchEventHandlerDispatcher(Class<?> type) {
+        final EventHandlerDispatcher<Object> cachedDispatcher = sDispatchersMap.get(type);
+        if (cachedDispatcher != null) {
+            return cachedDispatcher == NO_DISPATCHER ? null : cachedDispatcher;
+        }
+
+        EventHandlerDispatcher<Object> dispatcher = null;
+        Class<?> lookupType = type;
+        while (lookupType != null && !Object.class.equals(lookupType)) {
+            dispatcher = createEventHandlerDispatcher(lookupType);
+
+            if (dispatcher != null || declaresEventHandlers(lookupType)) {
+                break;
+            }
+
+            lookupType = lookupType.getSuperclass();
+        }
+
+        final EventHandlerDispatcher<Object> resolvedDispatcher = sDispatchersMap.putIfAbsent(
+                type, dispatcher != null ? dispatcher : NO_DISPATCHER);
+
+        if (resolvedDispatcher != null) {
+            return resolvedDispatcher == NO_DISPATCHER ? null : resolvedDispatcher;
+        }
+
+        return dispatcher;
+    }
+
+    /**
+     * Resolve event handlers of given listener types so that their registration
+     * does not need to inspect listener types.
+     * Listener types already resolved are skipped.
+     *
+     * @param types listener types to resolve
+     * @throws IllegalArgumentException if any of given types declares no event handlers
+     */
+    public void prefetch(Class<?>... types) {
+        for (Class<?> type : types) {
+            if (isResolved(type)) {
+                continue;
+            }
+
+            if (fetchEventHandlerDispatcher(type) == null) {
+                fetchInvocationHandlers(type);
+            }
+        }
+    }
+
+    /**
+     * @param type listener type
+     * @return true if event handlers of given type are resolved and cached
+     */
+    public boolean isResolved(Class<?> type) {
+        final EventHandlerDispatcher<Object> dispatcher = sDispatchersMap.get(type);
+
+        if (dispatcher == null) {
+            return false;
+        }
+
+        return dispatcher != NO_DISPATCHER || sHandlersMap.containsKey(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EventHandlerDispatcher<Object> createEventHandlerDispatcher(Class<?> type) {
+        try {
+            final Class<?> dispatcherClass = Class.forName(
+                    type.getName() + EVENT_DISPATCHER_SUFFIX, true, type.getClassLoader());
+
+            if (!EventHandlerDispatcher.class.isAssignableFrom(dispatcherClass)) {
+                return null;
+            }
+
+            return (EventHandlerDispatcher<Object>) dispatcherClass.newInstance();
+
+        } catch (ClassNotFoundException e) {
+            return null;
+
+        } catch (InstantiationException e) {
+            throw new RuntimeException(String.format(
+                    "failed to create event dispatcher for '%s'", type.getName()), e);
+
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(String.format(
+                    "failed to create event dispatcher for '%s'", type.getName()), e);
+        }
+    }
+
+    private boolean declaresEventHandlers(Class<?> type) {
+        for (Method method : type.getDeclaredMethods()) {
+            if (getInvocationHandlerProvider(type, method) != null) {
+                return true;
+            }
+        }
 
-        return handlers;
+        return false;
     }
 }
@@ -227,6 +227,7 @@ public class JobEvent implements FlagsProvider {
     public static final int EXTRA_CODE_PROGRESS_UPDATE = 2;
     public static final int EXTRA_CODE_STATUS_MESSAGE_CHANGED = 3;
     public static final int EXTRA_CODE_FLAG_STATUS_CHANGED = 4;
+    public static final int EXTRA_CODE_JOB_REJECTED = 5;
 
     private int mEventCode = EVENT_CODE_UNSPECIFIED;
     private int mExtraCode = EXTRA_CODE_UNSPECIFIED;
@@ -355,6 +356,16 @@ public class JobEvent implements FlagsProvider {
                 || mJobStatus == JobStatus.CANCELLED;
     }
 
+    /**
+     * @return true if event is a progress or status message update,
+     * which is superseded by the next update of the same kind
+     */
+    public boolean isCoalescibleUpdate() {
+        return mEventCode == EVENT_CODE_UPDATE
+                && (mExtraCode == EXTRA_CODE_PROGRESS_UPDATE
+                || mExtraCode == EXTRA_CODE_STATUS_MESSAGE_CHANGED);
+    }
+
     protected final void copyFrom(JobEvent other) {
         mEventCode = other.mEventCode;
         mExtraCode = other.mExtraCode;
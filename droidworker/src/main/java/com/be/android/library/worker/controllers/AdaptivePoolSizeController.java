@@ -0,0 +1,153 @@
+package com.be.android.library.worker.controllers;
+
+/**
+ * Adjusts core size of a thread pool by hill climbing on measured job throughput.
+ * <p>
+ * While jobs are waiting in the queue, every sample moves pool size one step
+ * in the current direction. The direction is kept while throughput grows and
+ * reversed once it drops. When throughput does not change noticeably, pool
+ * grows only if most busy threads are blocked and jobs wait longer than they execute,
+ * so I/O-bound workloads get more threads and CPU-bound workloads get fewer.
+ * Idle threads are released one by one once the queue is empty.
+ */
+class AdaptivePoolSizeController {
+
+    interface PoolMetrics {
+        int getCorePoolSize();
+
+        void setCorePoolSize(int size);
+
+        int getActiveThreadCount();
+
+        /**
+         * @return number of busy pool threads which are blocked, waiting or sleeping
+         */
+        int getBlockedThreadCount();
+
+        int getQueuedJobCount();
+
+        long getCompletedJobCount();
+
+        long getTotalQueueWaitTimeNanos();
+
+        long getTotalExecutionTimeNanos();
+    }
+
+    private static final double THROUGHPUT_CHANGE_THRESHOLD = 0.05;
+    private static final double BLOCKED_RATIO_THRESHOLD = 0.5;
+
+    private final PoolMetrics mMetrics;
+    private final int mMinPoolSize;
+    private final int mMaxPoolSize;
+
+    private boolean mHasSample;
+    private long mLastSampleNanos;
+    private long mLastCompletedJobCount;
+    private long mLastQueueWaitTimeNanos;
+    private long mLastExecutionTimeNanos;
+    private double mLastThroughput = -1;
+    private int mDirection = 1;
+
+    AdaptivePoolSizeController(PoolMetrics metrics, int minPoolSize, int maxPoolSize) {
+        if (minPoolSize < 1) {
+            throw new IllegalArgumentException("minPoolSize < 1");
+        }
+        if (maxPoolSize < minPoolSize) {
+            throw new IllegalArgumentException("maxPoolSize < minPoolSize");
+        }
+
+        mMetrics = metrics;
+        mMinPoolSize = minPoolSize;
+        mMaxPoolSize = maxPoolSize;
+    }
+
+    int getMinPoolSize() {
+        return mMinPoolSize;
+    }
+
+    int getMaxPoolSize() {
+        return mMaxPoolSize;
+    }
+
+    /**
+     * Take metrics sample and resize pool if needed
+     *
+     * @return pool size change
+     */
+    synchronized int sample() {
+        final long now = System.nanoTime();
+        final long completedJobCount = mMetrics.getCompletedJobCount();
+        final long queueWaitTimeNanos = mMetrics.getTotalQueueWaitTimeNanos();
+        final long executionTimeNanos = mMetrics.getTotalExecutionTimeNanos();
+        final int poolSize = mMetrics.getCorePoolSize();
+
+        if (!mHasSample) {
+            mHasSample = true;
+            updateSample(now, completedJobCount, queueWaitTimeNanos, executionTimeNanos);
+
+            return clampPoolSize(poolSize) - poolSize;
+        }
+
+        final long elapsedNanos = Math.max(1, now - mLastSampleNanos);
+        final double throughput = (completedJobCount - mLastCompletedJobCount) * 1e9 / elapsedNanos;
+        final long waitTimeDelta = queueWaitTimeNanos - mLastQueueWaitTimeNanos;
+        final long executionTimeDelta = executionTimeNanos - mLastExecutionTimeNanos;
+        updateSample(now, completedJobCount, queueWaitTimeNanos, executionTimeNanos);
+
+        int targetSize;
+        if (mMetrics.getQueuedJobCount() == 0) {
+            // Throughput is limited by demand rather than by pool size
+            mLastThroughput = -1;
+            mDirection = 1;
+            targetSize = mMetrics.getActiveThreadCount() < poolSize ? poolSize - 1 : poolSize;
+
+        } else {
+            if (mLastThroughput < 0) {
+                mDirection = 1;
+
+            } else if (throughput > mLastThroughput * (1 + THROUGHPUT_CHANGE_THRESHOLD)) {
+                // Keep the direction
+
+            } else if (throughput < mLastThroughput * (1 - THROUGHPUT_CHANGE_THRESHOLD)) {
+                mDirection = -mDirection;
+
+            } else {
+                mDirection = isBlockingWorkload(waitTimeDelta, executionTimeDelta) ? 1 : -1;
+            }
+
+            mLastThroughput = throughput;
+            targetSize = poolSize + mDirection;
+        }
+
+        return clampPoolSize(targetSize) - poolSize;
+    }
+
+    private boolean isBlockingWorkload(long waitTimeDelta, long executionTimeDelta) {
+        final int activeThreadCount = mMetrics.getActiveThreadCount();
+        if (activeThreadCount == 0) {
+            return false;
+        }
+
+        final double blockedRatio = (double) mMetrics.getBlockedThreadCount() / activeThreadCount;
+
+        return blockedRatio >= BLOCKED_RATIO_THRESHOLD && waitTimeDelta > executionTimeDelta;
+    }
+
+    private int clampPoolSize(int targetSize) {
+        final int size = Math.max(mMinPoolSize, Math.min(mMaxPoolSize, targetSize));
+        if (size != mMetrics.getCorePoolSize()) {
+            mMetrics.setCorePoolSize(size);
+        }
+
+        return size;
+    }
+
+    private void updateSample(long now, long completedJobCount,
+                              long queueWaitTimeNanos, long executionTimeNanos) {
+
+        mLastSampleNanos = now;
+        mLastCompletedJobCount = completedJobCount;
+        mLastQueueWaitTimeNanos = queueWaitTimeNanos;
+        mLastExecutionTimeNanos = executionTimeNanos;
+    }
+}
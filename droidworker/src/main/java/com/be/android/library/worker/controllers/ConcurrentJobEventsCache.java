@@ -0,0 +1,207 @@
+package com.be.android.library.worker.controllers;
+
+import android.os.SystemClock;
+
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.interfaces.CacheEntryDescriptor;
+import com.be.android.library.worker.interfaces.JobEventsCache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Job events cache split into independently locked stripes, so lookups
+ * of different keys from different worker threads don't contend.
+ * <p>
+ * Each stripe is {@link InMemoryJobEventsCache}; keys are spread between stripes by hash.
+ * Max cache size bounds summary size of all stripes, so any job event fitting max cache size
+ * may be cached regardless of stripe count. Once the cache is full, stripes evict their
+ * least recently used entries in turn, so eviction order across the whole cache is approximate.
+ * Cache size may exceed max cache size while concurrent insert is evicting entries.
+ */
+public class ConcurrentJobEventsCache implements JobEventsCache {
+
+    private static final int MAX_STRIPE_COUNT = 64;
+
+    // Stripe is selected by top bits of scrambled hash: stripe hash table selects
+    // bucket by low hash bits, which would be the same for all keys of a stripe
+    private static final int STRIPE_INDEX_SHIFT = 32 - Integer.numberOfTrailingZeros(MAX_STRIPE_COUNT);
+    private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+    private final class Stripe extends InMemoryJobEventsCache {
+
+        private Stripe() {
+            super(Integer.MAX_VALUE);
+        }
+
+        @Override
+        protected long elapsedRealtime() {
+            return ConcurrentJobEventsCache.this.elapsedRealtime();
+        }
+
+        @Override
+        void onCacheSizeChanged(int delta) {
+            mCacheSize.addAndGet(delta);
+        }
+    }
+
+    private final Stripe[] mStripes;
+    private final int mStripeMask;
+    private final AtomicInteger mCacheSize;
+    private final AtomicInteger mEvictionCursor;
+    private volatile int mMaxCacheSize;
+
+    /**
+     * Create cache with stripe count based on number of available processors
+     *
+     * @param maxCacheSize max summary size of cached job events
+     */
+    public ConcurrentJobEventsCache(int maxCacheSize) {
+        this(maxCacheSize, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * @param maxCacheSize max summary size of cached job events
+     * @param concurrencyLevel estimated number of concurrently accessing threads;
+     *                         rounded up to power of two stripe count
+     */
+    public ConcurrentJobEventsCache(int maxCacheSize, int concurrencyLevel) {
+        if (maxCacheSize < 0) {
+            throw new IllegalArgumentException("maxCacheSize < 0");
+        }
+
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("concurrencyLevel <= 0");
+        }
+
+        int stripeCount = 1;
+        while (stripeCount < concurrencyLevel && stripeCount < MAX_STRIPE_COUNT) {
+            stripeCount <<= 1;
+        }
+
+        mStripes = new Stripe[stripeCount];
+        mStripeMask = stripeCount - 1;
+        mCacheSize = new AtomicInteger();
+        mEvictionCursor = new AtomicInteger();
+        mMaxCacheSize = maxCacheSize;
+
+        for (int i = 0; i < stripeCount; i++) {
+            mStripes[i] = new Stripe();
+        }
+    }
+
+    public int getStripeCount() {
+        return mStripes.length;
+    }
+
+    public void setIsTraceEnabled(boolean isTraceEnabled) {
+        for (Stripe stripe : mStripes) {
+            stripe.setIsTraceEnabled(isTraceEnabled);
+        }
+    }
+
+    public int getMaxCacheSize() {
+        return mMaxCacheSize;
+    }
+
+    /**
+     * Set max cache size, evicting entries exceeding it
+     *
+     * @param maxCacheSize max summary size of cached job events
+     */
+    public void setMaxCacheSize(int maxCacheSize) {
+        if (maxCacheSize < 0) {
+            throw new IllegalArgumentException("maxCacheSize < 0");
+        }
+
+        mMaxCacheSize = maxCacheSize;
+        trimCache(null);
+    }
+
+    /**
+     * @return summary size of cached job events
+     */
+    public int getCacheSize() {
+        return mCacheSize.get();
+    }
+
+    /**
+     * @return number of cached job events; stripes are summed
+     * one by one, so the value is not atomic under concurrent updates
+     */
+    public int getEntryCount() {
+        int entryCount = 0;
+        for (Stripe stripe : mStripes) {
+            entryCount += stripe.getEntryCount();
+        }
+
+        return entryCount;
+    }
+
+    @Override
+    public JobEvent getEvent(String key) {
+        if (key == null) return null;
+
+        return getStripe(key).getEvent(key);
+    }
+
+    @Override
+    public void putEvent(JobEvent event, String key, CacheEntryDescriptor descriptor) {
+        if (key == null) {
+            throw new IllegalArgumentException("key == null");
+        }
+
+        getStripe(key).putEvent(event, key, descriptor);
+        trimCache(key);
+    }
+
+    @Override
+    public void evictEvent(String key) {
+        if (key == null) return;
+
+        getStripe(key).evictEvent(key);
+    }
+
+    @Override
+    public void evictAll() {
+        for (Stripe stripe : mStripes) {
+            stripe.evictAll();
+        }
+    }
+
+    /**
+     * @return current time base of expiration timeouts, in milliseconds
+     */
+    protected long elapsedRealtime() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    private Stripe getStripe(String key) {
+        final int hash = key.hashCode() * HASH_MULTIPLIER;
+
+        return mStripes[(hash >>> STRIPE_INDEX_SHIFT) & mStripeMask];
+    }
+
+    /**
+     * Evict least recently used entries of stripes in turn until cache fits max cache size.
+     * Entry just inserted is evicted last, if it alone exceeds max cache size.
+     *
+     * @param retainedKey key of inserted entry or null
+     */
+    private void trimCache(String retainedKey) {
+        int idleStripeCount = 0;
+
+        while (mCacheSize.get() > mMaxCacheSize && idleStripeCount < mStripes.length) {
+            final Stripe stripe = mStripes[mEvictionCursor.getAndIncrement() & mStripeMask];
+
+            if (stripe.evictLeastRecentlyUsed(retainedKey)) {
+                idleStripeCount = 0;
+            } else {
+                idleStripeCount++;
+            }
+        }
+
+        if (retainedKey != null && mCacheSize.get() > mMaxCacheSize) {
+            getStripe(retainedKey).evictEvent(retainedKey);
+        }
+    }
+}
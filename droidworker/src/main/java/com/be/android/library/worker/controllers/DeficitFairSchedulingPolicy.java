@@ -0,0 +1,147 @@
+package com.be.android.library.worker.controllers;
+
+import com.be.android.library.worker.interfaces.JobSchedulingPolicy;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shares execution time between ready groups using deficit round-robin.
+ * <p>
+ * Each visited group is credited with <i>quantum * weight</i> milliseconds
+ * and is charged with it's average job execution time per dispatched job,
+ * so groups running long jobs are served less often than groups running short jobs.
+ * Groups with no finished jobs yet are charged with a single quantum.
+ * Credit of a group is dropped once it has no ready jobs.
+ */
+public class DeficitFairSchedulingPolicy implements JobSchedulingPolicy {
+
+    public static final long QUANTUM_MILLIS_DEFAULT = 10;
+
+    private final double mQuantumMillis;
+    private final Map<Integer, Integer> mGroupWeights;
+    private final Map<Integer, double[]> mDeficits;
+    private int mCurrentGroupId = GROUP_NONE;
+
+    public DeficitFairSchedulingPolicy() {
+        this(QUANTUM_MILLIS_DEFAULT);
+    }
+
+    /**
+     * @param quantumMillis execution time credited to group of weight 1 per round
+     */
+    public DeficitFairSchedulingPolicy(long quantumMillis) {
+        if (quantumMillis < 1) {
+            throw new IllegalArgumentException("quantumMillis < 1");
+        }
+
+        mQuantumMillis = quantumMillis;
+        mGroupWeights = new HashMap<Integer, Integer>();
+        mDeficits = new HashMap<Integer, double[]>();
+    }
+
+    public synchronized DeficitFairSchedulingPolicy setGroupWeight(int groupId, int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight < 1");
+        }
+
+        mGroupWeights.put(groupId, weight);
+
+        return this;
+    }
+
+    public synchronized int getGroupWeight(int groupId) {
+        final Integer weight = mGroupWeights.get(groupId);
+
+        return weight == null ? 1 : weight;
+    }
+
+    @Override
+    public synchronized int selectGroup(List<JobGroupStats> readyGroups, int releasedGroupId) {
+        final int count = readyGroups.size();
+
+        dropIdleDeficits(readyGroups);
+
+        // Continue with the group served last time if it is still ready
+        int index = 0;
+        for (int i = 0; i < count; i++) {
+            if (readyGroups.get(i).getGroupId() >= mCurrentGroupId) {
+                index = i;
+                break;
+            }
+        }
+
+        while (true) {
+            final JobGroupStats stats = readyGroups.get(index);
+            final int groupId = stats.getGroupId();
+            final double[] deficit = getDeficit(groupId);
+            final double cost = getJobCost(stats);
+
+            if (groupId != mCurrentGroupId) {
+                // Group is visited in a new round
+                deficit[0] += mQuantumMillis * getGroupWeight(groupId);
+                mCurrentGroupId = groupId;
+            }
+
+            if (deficit[0] >= cost) {
+                deficit[0] -= cost;
+
+                return groupId;
+            }
+
+            index = (index + 1) % count;
+            if (count == 1) {
+                // Single group is always credited again
+                mCurrentGroupId = GROUP_NONE;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onGroupDrained(int groupId) {
+        mDeficits.remove(groupId);
+    }
+
+    private double getJobCost(JobGroupStats stats) {
+        final double averageExecutionTime = stats.getAverageExecutionTimeMillis();
+
+        return averageExecutionTime > 0 ? averageExecutionTime : mQuantumMillis;
+    }
+
+    private double[] getDeficit(int groupId) {
+        double[] deficit = mDeficits.get(groupId);
+        if (deficit == null) {
+            deficit = new double[1];
+            mDeficits.put(groupId, deficit);
+        }
+
+        return deficit;
+    }
+
+    private void dropIdleDeficits(List<JobGroupStats> readyGroups) {
+        if (mDeficits.size() <= readyGroups.size()) {
+            boolean isAllReady = true;
+            for (JobGroupStats stats : readyGroups) {
+                if (!mDeficits.containsKey(stats.getGroupId())) {
+                    isAllReady = false;
+                    break;
+                }
+            }
+
+            if (isAllReady && mDeficits.size() == readyGroups.size()) {
+                return;
+            }
+        }
+
+        final Map<Integer, double[]> deficits = new HashMap<Integer, double[]>();
+        for (JobGroupStats stats : readyGroups) {
+            final double[] deficit = mDeficits.get(stats.getGroupId());
+            if (deficit != null) {
+                deficits.put(stats.getGroupId(), deficit);
+            }
+        }
+        mDeficits.clear();
+        mDeficits.putAll(deficits);
+    }
+}
@@ -0,0 +1,496 @@
+package com.be.android.library.worker.controllers;
+
+import android.util.Log;
+
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.interfaces.CacheEntryDescriptor;
+import com.be.android.library.worker.interfaces.JobEventSerializer;
+import com.be.android.library.worker.interfaces.JobEventsCache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent job events cache storing serialized job events in append only,
+ * memory mapped log file of fixed capacity.
+ * <p>
+ * Cache keys are indexed in memory. On open the index is rebuilt from record headers
+ * without decoding events, and on lookup event is decoded by {@link JobEventSerializer}
+ * from read only view of the mapped file, without copying. Updates and evictions are
+ * appended to the log; when the log is full, live records are copied to a new log file,
+ * least recently used ones are evicted down to half of the log capacity.
+ * <p>
+ * Expiration timeout is counted from the event put by wall clock time, so it holds across
+ * process restarts. Cache size is bounded by log capacity in bytes, sizes reported by
+ * {@link CacheEntryDescriptor#getJobEventSize(JobEvent)} are not used.
+ * Intended as the second tier behind in memory cache, see {@link TieredJobEventsCache}.
+ */
+public class DiskJobEventsCache implements JobEventsCache {
+
+    private static final String LOG_TAG = DiskJobEventsCache.class.getSimpleName();
+
+    public static final int MIN_LOG_CAPACITY = 4096;
+
+    private static final int FILE_MAGIC = 0x4A455643;
+    private static final int FILE_VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+
+    // Record length, key length, expiration time, payload length
+    private static final int RECORD_HEADER_SIZE = 20;
+    private static final int END_MARKER_SIZE = 4;
+    private static final int TOMBSTONE = -1;
+    private static final long NO_EXPIRATION = -1;
+
+    private static final String KEY_CHARSET = "UTF-8";
+    private static final String COMPACT_FILE_SUFFIX = ".compact";
+
+    private static final class Record {
+        final int offset;
+        final int length;
+        final int keyLength;
+        final long expiresAtMillis;
+
+        Record(int offset, int length, int keyLength, long expiresAtMillis) {
+            this.offset = offset;
+            this.length = length;
+            this.keyLength = keyLength;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        boolean isExpired(long timeMillis) {
+            return expiresAtMillis != NO_EXPIRATION && expiresAtMillis < timeMillis;
+        }
+
+        int getPayloadOffset() {
+            return offset + RECORD_HEADER_SIZE + keyLength;
+        }
+
+        int getPayloadLength() {
+            return length - RECORD_HEADER_SIZE - keyLength;
+        }
+    }
+
+    private final File mFile;
+    private final int mLogCapacity;
+    private final JobEventSerializer mSerializer;
+    private final LinkedHashMap<String, Record> mIndex;
+    private RandomAccessFile mLogFile;
+    private MappedByteBuffer mLog;
+    private int mTail;
+    private int mLiveSize;
+
+    /**
+     * Open cache log file, creating it if necessary
+     *
+     * @param file cache log file
+     * @param logCapacity log file capacity in bytes, at least {@link #MIN_LOG_CAPACITY}
+     * @param serializer converter of cached job events
+     * @throws IOException if log file can't be opened or mapped
+     */
+    public DiskJobEventsCache(File file, int logCapacity, JobEventSerializer serializer)
+            throws IOException {
+
+        if (file == null) {
+            throw new IllegalArgumentException("file == null");
+        }
+
+        if (logCapacity < MIN_LOG_CAPACITY) {
+            throw new IllegalArgumentException("logCapacity < " + MIN_LOG_CAPACITY);
+        }
+
+        if (serializer == null) {
+            throw new IllegalArgumentException("serializer == null");
+        }
+
+        mFile = file;
+        mLogCapacity = logCapacity;
+        mSerializer = serializer;
+        mIndex = new LinkedHashMap<String, Record>(16, 0.75f, true);
+
+        openLog();
+    }
+
+    public File getFile() {
+        return mFile;
+    }
+
+    public int getLogCapacity() {
+        return mLogCapacity;
+    }
+
+    /**
+     * @return summary size of live records in the log, in bytes
+     */
+    public synchronized int getCacheSize() {
+        return mLiveSize;
+    }
+
+    /**
+     * @return number of cached job events, including expired not yet evicted ones
+     */
+    public synchronized int getEntryCount() {
+        return mIndex.size();
+    }
+
+    /**
+     * Write log changes to storage device. Changes are kept by the system
+     * on process death without flush, but may be lost on power loss.
+     */
+    public synchronized void flush() {
+        if (mLog != null) {
+            mLog.force();
+        }
+    }
+
+    /**
+     * Close log file; the cache is not usable after close
+     */
+    public synchronized void close() throws IOException {
+        if (mLogFile == null) {
+            return;
+        }
+
+        mLog.force();
+        mLogFile.close();
+        mLogFile = null;
+        mLog = null;
+        mIndex.clear();
+        mLiveSize = 0;
+    }
+
+    @Override
+    public synchronized JobEvent getEvent(String key) {
+        if (key == null || mLog == null) return null;
+
+        final Record record = mIndex.get(key);
+
+        if (record == null) {
+            return null;
+        }
+
+        if (record.isExpired(currentTimeMillis())) {
+            evictEvent(key);
+
+            return null;
+        }
+
+        final ByteBuffer data = mLog.duplicate();
+        data.limit(record.getPayloadOffset() + record.getPayloadLength());
+        data.position(record.getPayloadOffset());
+
+        try {
+            return mSerializer.readEvent(data.slice().asReadOnlyBuffer());
+
+        } catch (IOException e) {
+            Log.w(LOG_TAG, String.format("unable to read cached job event '%s'", key), e);
+            evictEvent(key);
+
+            return null;
+        }
+    }
+
+    @Override
+    public void putEvent(JobEvent event, String key, CacheEntryDescriptor descriptor) {
+        if (key == null) {
+            throw new IllegalArgumentException("key == null");
+        }
+
+        final int timeoutMillis = descriptor.getExpirationTimeoutMillis();
+        if (timeoutMillis < 0 && timeoutMillis != CacheEntryDescriptor.TIMEOUT_NONE) {
+            throw new IllegalArgumentException("expiration timeout should be >= 0 or TIMEOUT_NONE");
+        }
+
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        try {
+            mSerializer.writeEvent(event, new DataOutputStream(payload));
+
+        } catch (IOException e) {
+            Log.w(LOG_TAG, String.format("unable to write job event '%s'; evicting", key), e);
+            evictEvent(key);
+
+            return;
+        }
+
+        final byte[] keyBytes = encodeKey(key);
+        final byte[] payloadBytes = payload.toByteArray();
+        final int length = RECORD_HEADER_SIZE + keyBytes.length + payloadBytes.length;
+
+        synchronized (this) {
+            if (mLog == null) return;
+
+            final long expiresAtMillis = timeoutMillis == CacheEntryDescriptor.TIMEOUT_NONE
+                    ? NO_EXPIRATION
+                    : currentTimeMillis() + timeoutMillis;
+
+            if (length > getMaxRecordLength()) {
+                Log.w(LOG_TAG, String.format("job event '%s' of %d bytes exceeds " +
+                        "max record length; evicting", key, length));
+                evictEvent(key);
+
+                return;
+            }
+
+            try {
+                if (!hasRoomFor(length)) {
+                    compact(getMaxRecordLength() - length);
+                }
+
+                final Record record = appendRecord(keyBytes, expiresAtMillis, payloadBytes);
+                final Record replacedRecord = mIndex.put(key, record);
+                if (replacedRecord != null) {
+                    mLiveSize -= replacedRecord.length;
+                }
+                mLiveSize += record.length;
+
+            } catch (IOException e) {
+                Log.w(LOG_TAG, String.format("unable to cache job event '%s'", key), e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void evictEvent(String key) {
+        if (key == null || mLog == null) return;
+
+        final Record record = mIndex.remove(key);
+
+        if (record == null) {
+            return;
+        }
+
+        mLiveSize -= record.length;
+
+        final byte[] keyBytes = encodeKey(key);
+
+        try {
+            if (hasRoomFor(RECORD_HEADER_SIZE + keyBytes.length)) {
+                appendRecord(keyBytes, NO_EXPIRATION, null);
+            } else {
+                // Evicted record is not copied to compacted log, so no tombstone needed
+                compact(mLiveSize);
+            }
+
+        } catch (IOException e) {
+            Log.w(LOG_TAG, String.format("unable to evict cached job event '%s'", key), e);
+        }
+    }
+
+    @Override
+    public synchronized void evictAll() {
+        if (mLog == null) return;
+
+        mIndex.clear();
+        mLiveSize = 0;
+
+        try {
+            compact(0);
+
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "unable to reset job events cache log", e);
+        }
+    }
+
+    /**
+     * @return current time base of expiration timeouts, in milliseconds
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    private int getMaxRecordLength() {
+        return (mLogCapacity - FILE_HEADER_SIZE - END_MARKER_SIZE) / 2;
+    }
+
+    private boolean hasRoomFor(int recordLength) {
+        return mTail + recordLength + END_MARKER_SIZE <= mLogCapacity;
+    }
+
+    private void openLog() throws IOException {
+        mLogFile = new RandomAccessFile(mFile, "rw");
+        mLog = mapLog(mLogFile, !hasValidHeader(mLogFile));
+        mTail = FILE_HEADER_SIZE;
+
+        final long timeMillis = currentTimeMillis();
+
+        while (mTail + RECORD_HEADER_SIZE <= mLogCapacity) {
+            final int length = mLog.getInt(mTail);
+            final int keyLength = mLog.getInt(mTail + 4);
+            final long expiresAtMillis = mLog.getLong(mTail + 8);
+            final int payloadLength = mLog.getInt(mTail + 16);
+
+            if (length == 0) {
+                break;
+            }
+
+            if (length > mLogCapacity - mTail
+                    || keyLength < 0
+                    || payloadLength < TOMBSTONE
+                    || length != RECORD_HEADER_SIZE + keyLength + Math.max(payloadLength, 0)) {
+
+                Log.w(LOG_TAG, String.format("corrupted job events cache log record " +
+                        "at %d; discarding log tail", mTail));
+                break;
+            }
+
+            final byte[] keyBytes = new byte[keyLength];
+            final ByteBuffer keyData = mLog.duplicate();
+            keyData.position(mTail + RECORD_HEADER_SIZE);
+            keyData.get(keyBytes);
+            final String key = new String(keyBytes, KEY_CHARSET);
+
+            final Record record = new Record(mTail, length, keyLength, expiresAtMillis);
+            final Record replacedRecord = payloadLength == TOMBSTONE || record.isExpired(timeMillis)
+                    ? mIndex.remove(key)
+                    : mIndex.put(key, record);
+
+            if (replacedRecord != null) {
+                mLiveSize -= replacedRecord.length;
+            }
+
+            if (payloadLength != TOMBSTONE && !record.isExpired(timeMillis)) {
+                mLiveSize += length;
+            }
+
+            mTail += length;
+        }
+    }
+
+    private Record appendRecord(byte[] keyBytes, long expiresAtMillis, byte[] payloadBytes) {
+        final int payloadLength = payloadBytes == null ? 0 : payloadBytes.length;
+        final int length = RECORD_HEADER_SIZE + keyBytes.length + payloadLength;
+        final int offset = mTail;
+
+        final ByteBuffer log = mLog.duplicate();
+        log.position(offset + 4);
+        log.putInt(keyBytes.length);
+        log.putLong(expiresAtMillis);
+        log.putInt(payloadBytes == null ? TOMBSTONE : payloadLength);
+        log.put(keyBytes);
+        if (payloadBytes != null) {
+            log.put(payloadBytes);
+        }
+
+        // Log tail may hold a discarded record, so mark log end before committing the record
+        log.putInt(0);
+        mLog.putInt(offset, length);
+
+        mTail += length;
+
+        return new Record(offset, length, keyBytes.length, expiresAtMillis);
+    }
+
+    /**
+     * Copy live records to a new log file, replacing the current one.
+     * Expired records are dropped, least recently used records are evicted
+     * while live records size exceeds given target.
+     */
+    private void compact(int targetLiveSize) throws IOException {
+        final long timeMillis = currentTimeMillis();
+        final Iterator<Record> iterator = mIndex.values().iterator();
+
+        while (iterator.hasNext()) {
+            final Record record = iterator.next();
+
+            if (mLiveSize > targetLiveSize || record.isExpired(timeMillis)) {
+                iterator.remove();
+                mLiveSize -= record.length;
+            }
+        }
+
+        final File compactFile = new File(mFile.getPath() + COMPACT_FILE_SUFFIX);
+        final RandomAccessFile compactLogFile = new RandomAccessFile(compactFile, "rw");
+        final List<Map.Entry<String, Record>> entries =
+                new ArrayList<Map.Entry<String, Record>>(mIndex.entrySet());
+        final Record[] compactRecords = new Record[entries.size()];
+        final MappedByteBuffer compactLog;
+        int tail = FILE_HEADER_SIZE;
+
+        try {
+            compactLog = mapLog(compactLogFile, true);
+
+            for (int i = 0; i < compactRecords.length; i++) {
+                final Record record = entries.get(i).getValue();
+                final ByteBuffer source = mLog.duplicate();
+                source.limit(record.offset + record.length);
+                source.position(record.offset);
+
+                final ByteBuffer destination = compactLog.duplicate();
+                destination.position(tail);
+                destination.put(source);
+
+                compactRecords[i] = new Record(tail, record.length, record.keyLength, record.expiresAtMillis);
+                tail += record.length;
+            }
+
+            compactLog.force();
+
+            if (!compactFile.renameTo(mFile)) {
+                throw new IOException("unable to replace job events cache log " + mFile);
+            }
+
+        } catch (IOException e) {
+            compactLogFile.close();
+            compactFile.delete();
+
+            throw e;
+        }
+
+        // Buffers handed to serializer keep reading the old log mapping after close
+        mLogFile.close();
+        mLogFile = compactLogFile;
+        mLog = compactLog;
+        mTail = tail;
+
+        for (int i = 0; i < compactRecords.length; i++) {
+            entries.get(i).setValue(compactRecords[i]);
+        }
+    }
+
+    private static byte[] encodeKey(String key) {
+        try {
+            return key.getBytes(KEY_CHARSET);
+
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private boolean hasValidHeader(RandomAccessFile logFile) throws IOException {
+        if (logFile.length() < FILE_HEADER_SIZE) {
+            return false;
+        }
+
+        final ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        logFile.getChannel().read(header, 0);
+
+        return header.getInt(0) == FILE_MAGIC && header.getInt(4) == FILE_VERSION;
+    }
+
+    private MappedByteBuffer mapLog(RandomAccessFile logFile, boolean isReset) throws IOException {
+        if (isReset) {
+            logFile.setLength(0);
+        }
+
+        final MappedByteBuffer log = logFile.getChannel().map(
+                FileChannel.MapMode.READ_WRITE, 0, mLogCapacity);
+
+        if (isReset) {
+            log.putInt(0, FILE_MAGIC);
+            log.putInt(4, FILE_VERSION);
+        }
+
+        return log;
+    }
+}
@@ -7,15 +7,20 @@ import com.be.android.library.worker.base.JobEvent;
 import com.be.android.library.worker.interfaces.CacheEntryDescriptor;
 import com.be.android.library.worker.interfaces.JobEventsCache;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Size bounded job events cache evicting least recently used entries.
+ * <p>
+ * Entries are kept in access ordered map, so lookup moves entry to the tail
+ * and eviction takes entries from the head. Entries with expiration timeout
+ * are additionally scheduled on hashed timer wheel, swept incrementally
+ * on each cache operation. Expiration timeout is counted from the last access
+ * of an entry. Insert, lookup and eviction are amortized O(1).
+ */
 public class InMemoryJobEventsCache implements JobEventsCache {
 
     private static final class CacheEntry {
@@ -25,6 +30,16 @@ public class InMemoryJobEventsCache implements JobEventsCache {
         String key;
         int size;
 
+        // Timer wheel bucket links, bucket is -1 if entry is not scheduled
+        int wheelBucket = -1;
+        CacheEntry wheelPrev;
+        CacheEntry wheelNext;
+
+        boolean isExpired(long timeMillis) {
+            return timeoutMillis != CacheEntryDescriptor.TIMEOUT_NONE
+                    && accessTimeMillis + timeoutMillis < timeMillis;
+        }
+
         @Override
         public String toString() {
             return "CacheEntry{" +
@@ -36,16 +51,27 @@ public class InMemoryJobEventsCache implements JobEventsCache {
 
     private static final String LOG_TAG = InMemoryJobEventsCache.class.getSimpleName();
 
-    private final AtomicInteger mCacheSize;
-    private final Map<String, CacheEntry> mCache;
-    private final ReadWriteLock mCacheLock;
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final long WHEEL_TICK_MILLIS = 128;
+
+    private final LinkedHashMap<String, CacheEntry> mCache;
+    private final CacheEntry[] mWheel;
+    private final Lock mCacheLock;
+    private long mWheelTick;
+    private int mCacheSize;
     private int mMaxCacheSize;
     private boolean mIsTraceEnabled;
 
     public InMemoryJobEventsCache(int maxCacheSize) {
-        mCacheSize = new AtomicInteger(0);
-        mCache = new HashMap<String, CacheEntry>();
-        mCacheLock = new ReentrantReadWriteLock(false);
+        if (maxCacheSize < 0) {
+            throw new IllegalArgumentException("maxCacheSize < 0");
+        }
+
+        mCache = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true);
+        mWheel = new CacheEntry[WHEEL_SIZE];
+        mCacheLock = new ReentrantLock();
+        mWheelTick = -1;
         mMaxCacheSize = maxCacheSize;
     }
 
@@ -61,25 +87,66 @@ public class InMemoryJobEventsCache implements JobEventsCache {
         return mMaxCacheSize;
     }
 
+    /**
+     * Set max cache size, evicting least recently used entries exceeding it
+     *
+     * @param maxCacheSize max summary size of cached job events
+     *                     as reported by {@link CacheEntryDescriptor#getJobEventSize(JobEvent)}
+     */
     public void setMaxCacheSize(int maxCacheSize) {
         if (maxCacheSize < 0) {
             throw new IllegalArgumentException("maxCacheSize < 0");
         }
 
-        this.mMaxCacheSize = maxCacheSize;
+        mCacheLock.lock();
+        try {
+            mMaxCacheSize = maxCacheSize;
+            trimCache(elapsedRealtime());
+
+        } finally {
+            mCacheLock.unlock();
+        }
+    }
+
+    /**
+     * @return summary size of cached job events, including expired not yet evicted ones
+     */
+    public int getCacheSize() {
+        mCacheLock.lock();
+        try {
+            return mCacheSize;
+
+        } finally {
+            mCacheLock.unlock();
+        }
+    }
+
+    /**
+     * @return number of cached job events, including expired not yet evicted ones
+     */
+    public int getEntryCount() {
+        mCacheLock.lock();
+        try {
+            return mCache.size();
+
+        } finally {
+            mCacheLock.unlock();
+        }
     }
 
     @Override
     public void evictAll() {
-        final Lock lock = mCacheLock.writeLock();
-
+        mCacheLock.lock();
         try {
             mCache.clear();
-            mCacheSize.set(0);
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                mWheel[i] = null;
+            }
+            addCacheSize(-mCacheSize);
             trace("evictAll(): job events cache reset");
 
         } finally {
-            lock.unlock();
+            mCacheLock.unlock();
         }
     }
 
@@ -87,14 +154,12 @@ public class InMemoryJobEventsCache implements JobEventsCache {
     public void evictEvent(String key) {
         if (key == null) return;
 
-        final Lock lock = mCacheLock.writeLock();
-
+        mCacheLock.lock();
         try {
-            CacheEntry entry = mCache.get(key);
-            evictEntry(entry);
+            evictEntry(mCache.get(key));
 
         } finally {
-            lock.unlock();
+            mCacheLock.unlock();
         }
     }
 
@@ -102,24 +167,25 @@ public class InMemoryJobEventsCache implements JobEventsCache {
     public JobEvent getEvent(String key) {
         if (key == null) return null;
 
-        final Lock lock = mCacheLock.readLock();
-        lock.lock();
+        mCacheLock.lock();
         try {
-            CacheEntry entry = mCache.get(key);
+            final long accessTime = elapsedRealtime();
+            advanceWheel(accessTime);
+
+            final CacheEntry entry = mCache.get(key);
 
             if (entry == null) {
                 return null;
             }
 
-            long accessTime = SystemClock.elapsedRealtime();
-
-            if (entry.timeoutMillis != -1 &&
-                    (entry.accessTimeMillis + entry.timeoutMillis < accessTime)) {
-
+            if (entry.isExpired(accessTime)) {
                 trace("getEvent(): cache entry expired for key %s", key);
+                evictEntry(entry);
+
                 return null;
             }
 
+            // Entry is rescheduled lazily when its timer wheel bucket is swept
             entry.accessTimeMillis = accessTime;
 
             trace("getEvent(): cache entry retrieved", entry);
@@ -127,95 +193,211 @@ public class InMemoryJobEventsCache implements JobEventsCache {
             return entry.jobEvent;
 
         } finally {
-            lock.unlock();
+            mCacheLock.unlock();
         }
     }
 
     @Override
     public void putEvent(JobEvent event, String key, CacheEntryDescriptor descriptor) {
-        final Lock lock = mCacheLock.writeLock();
-        lock.lock();
+        if (key == null) {
+            throw new IllegalArgumentException("key == null");
+        }
+
+        final int size = descriptor.getJobEventSize(event);
+        if (size < 0) {
+            throw new IllegalArgumentException("job event size should be >= 0");
+        }
+
+        final long timeoutMillis = descriptor.getExpirationTimeoutMillis();
+        if (timeoutMillis < 0 && timeoutMillis != CacheEntryDescriptor.TIMEOUT_NONE) {
+            throw new IllegalArgumentException("expiration timeout should be >= 0 or TIMEOUT_NONE");
+        }
+
+        mCacheLock.lock();
         try {
-            long accessTime = SystemClock.elapsedRealtime();
+            final long accessTime = elapsedRealtime();
+            advanceWheel(accessTime);
 
-            CacheEntry entry = new CacheEntry();
+            final CacheEntry entry = new CacheEntry();
+            entry.key = key;
             entry.jobEvent = event;
-            entry.timeoutMillis = descriptor.getExpirationTimeoutMillis();
+            entry.size = size;
+            entry.timeoutMillis = timeoutMillis;
             entry.accessTimeMillis = accessTime;
 
-            final int sz = descriptor.getJobEventSize(event);
-            if (sz < 0) {
-                throw new IllegalArgumentException("job event size should be >= 0");
+            final CacheEntry replacedEntry = mCache.put(key, entry);
+            if (replacedEntry != null) {
+                unschedule(replacedEntry);
+                addCacheSize(-replacedEntry.size);
             }
 
-            mCacheSize.addAndGet(sz);
-            mCache.put(key, entry);
+            addCacheSize(size);
+            schedule(entry);
+
+            trace("putEvent(): cache entry added; cache size: %s", entry, mCacheSize);
+
+            trimCache(accessTime);
+
+        } finally {
+            mCacheLock.unlock();
+        }
+    }
 
-            trace("putEvent(): cache entry added; cache size: %s", entry, mCacheSize.get());
+    /**
+     * @return current time base of expiration timeouts, in milliseconds
+     */
+    protected long elapsedRealtime() {
+        return SystemClock.elapsedRealtime();
+    }
 
-            trimCache();
+    /**
+     * Evict least recently used entry regardless of max cache size
+     *
+     * @param retainedKey key of entry to leave in cache or null
+     * @return true if an entry was evicted
+     */
+    boolean evictLeastRecentlyUsed(String retainedKey) {
+        mCacheLock.lock();
+        try {
+            for (CacheEntry entry : mCache.values()) {
+                if (!entry.key.equals(retainedKey)) {
+                    evictEntry(entry);
+
+                    return true;
+                }
+            }
+
+            return false;
 
         } finally {
-            lock.unlock();
+            mCacheLock.unlock();
         }
     }
 
+    /**
+     * Called under cache lock whenever summary size of cached job events changes
+     *
+     * @param delta size change
+     */
+    void onCacheSizeChanged(int delta) {
+    }
+
+    private void addCacheSize(int delta) {
+        mCacheSize += delta;
+        onCacheSizeChanged(delta);
+    }
+
     private void evictEntry(CacheEntry entry) {
-        if (entry == null || mCache.containsKey(entry.key) == false) return;
+        if (entry == null || mCache.get(entry.key) != entry) return;
 
         mCache.remove(entry.key);
-        int cacheSize = mCacheSize.getAndAdd(entry.size);
+        unschedule(entry);
+        addCacheSize(-entry.size);
 
-        trace("entry evicted; new cache size '%d'; last cache size: '%d'",
-                entry, mCacheSize.get(), cacheSize);
+        trace("entry evicted; new cache size '%d'", entry, mCacheSize);
     }
 
-    private void trimCache() {
-        int requiredSpace = mMaxCacheSize - mCacheSize.get();
-        final long timeMillis = SystemClock.elapsedRealtime();
-        final List<CacheEntry> entriesToEvict = new ArrayList<CacheEntry>();
+    private void trimCache(long timeMillis) {
+        if (mCacheSize <= mMaxCacheSize) {
+            return;
+        }
 
-        for (CacheEntry cacheEntry : mCache.values()) {
-            if (cacheEntry.accessTimeMillis + cacheEntry.timeoutMillis > timeMillis) {
-                trace("trimCache(): cache entry expired", cacheEntry.key);
-                entriesToEvict.add(cacheEntry);
+        final Iterator<CacheEntry> iterator = mCache.values().iterator();
 
-                if (requiredSpace > 0) {
-                    int newRequiredSpace = requiredSpace - cacheEntry.size;
-                    trace("trimCache(): decrease required space from '%d' to '%d' (-%d)",
-                            cacheEntry, requiredSpace, newRequiredSpace, cacheEntry.size);
-                    requiredSpace = newRequiredSpace;
-                }
+        while (mCacheSize > mMaxCacheSize && iterator.hasNext()) {
+            final CacheEntry entry = iterator.next();
+            iterator.remove();
+            unschedule(entry);
+            addCacheSize(-entry.size);
 
-            } else if (requiredSpace > 0) {
-                cacheEntry = getLeastEntry();
-                trace("trimCache(): required space is '%s' (>0), retrieved least entry",
-                        cacheEntry, requiredSpace);
-                int newRequiredSpace = requiredSpace - cacheEntry.size;
-                trace("trimCache(): decrease required space from '%d' to '%d' (-%d)",
-                        cacheEntry, requiredSpace, newRequiredSpace, cacheEntry.size);
-                requiredSpace = newRequiredSpace;
-                entriesToEvict.add(cacheEntry);
-            }
+            trace("trimCache(): least recently used entry evicted; expired: %s; new cache size '%d'",
+                    entry, entry.isExpired(timeMillis), mCacheSize);
         }
+    }
 
-        for (CacheEntry entry : entriesToEvict) {
-            evictEntry(entry);
+    private void schedule(CacheEntry entry) {
+        if (entry.timeoutMillis == CacheEntryDescriptor.TIMEOUT_NONE) {
+            return;
         }
+
+        // Entry is expired strictly after its deadline, so sweep it at the next tick
+        final long expirationTick = (entry.accessTimeMillis + entry.timeoutMillis) / WHEEL_TICK_MILLIS + 1;
+        final int bucket = (int) (Math.max(expirationTick, mWheelTick + 1) & WHEEL_MASK);
+
+        entry.wheelBucket = bucket;
+        entry.wheelPrev = null;
+        entry.wheelNext = mWheel[bucket];
+        if (entry.wheelNext != null) {
+            entry.wheelNext.wheelPrev = entry;
+        }
+        mWheel[bucket] = entry;
     }
 
-    private CacheEntry getLeastEntry() {
-        long min = Long.MAX_VALUE;
-        CacheEntry leastEntry = null;
+    private void unschedule(CacheEntry entry) {
+        if (entry.wheelBucket == -1) {
+            return;
+        }
 
-        for (CacheEntry entry : mCache.values()) {
-            if (entry.accessTimeMillis < min) {
-                min = entry.accessTimeMillis;
-                leastEntry = entry;
-            }
+        if (entry.wheelPrev != null) {
+            entry.wheelPrev.wheelNext = entry.wheelNext;
+        } else {
+            mWheel[entry.wheelBucket] = entry.wheelNext;
+        }
+
+        if (entry.wheelNext != null) {
+            entry.wheelNext.wheelPrev = entry.wheelPrev;
+        }
+
+        entry.wheelBucket = -1;
+        entry.wheelPrev = null;
+        entry.wheelNext = null;
+    }
+
+    /**
+     * Sweep timer wheel buckets passed since the last cache operation.
+     * Expired entries are evicted, entries accessed since scheduling are rescheduled,
+     * entries due in later wheel rounds are left in place.
+     */
+    private void advanceWheel(long timeMillis) {
+        final long currentTick = timeMillis / WHEEL_TICK_MILLIS;
+
+        if (mWheelTick == -1) {
+            mWheelTick = currentTick;
+            return;
+        }
+
+        // Each bucket is swept at most once, however long cache stayed idle
+        final long tickCount = Math.min(currentTick - mWheelTick, WHEEL_SIZE);
+
+        for (long tick = currentTick - tickCount + 1; tick <= currentTick; tick++) {
+            sweepBucket((int) (tick & WHEEL_MASK), timeMillis);
         }
 
-        return leastEntry;
+        mWheelTick = Math.max(mWheelTick, currentTick);
+    }
+
+    private void sweepBucket(int bucket, long timeMillis) {
+        CacheEntry entry = mWheel[bucket];
+
+        while (entry != null) {
+            final CacheEntry next = entry.wheelNext;
+
+            if (entry.isExpired(timeMillis)) {
+                trace("advanceWheel(): cache entry expired", entry);
+                evictEntry(entry);
+
+            } else {
+                final long expirationTick =
+                        (entry.accessTimeMillis + entry.timeoutMillis) / WHEEL_TICK_MILLIS + 1;
+
+                if ((expirationTick & WHEEL_MASK) != bucket) {
+                    unschedule(entry);
+                    schedule(entry);
+                }
+            }
+
+            entry = next;
+        }
     }
 
     private void trace(String msg, CacheEntry entry, Object... params) {
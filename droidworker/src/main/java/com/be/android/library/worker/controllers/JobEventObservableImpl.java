@@ -7,24 +7,21 @@ import com.be.android.library.worker.interfaces.JobEventListener;
 import com.be.android.library.worker.models.JobListenerEntry;
 import com.be.android.library.worker.interfaces.JobEventObservable;
 
-import java.lang.ref.WeakReference;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-
+/**
+ * Copy-on-write registry of weakly referenced job event listeners.
+ * <p>
+ * Listeners are kept in an immutable array replaced on every update, so
+ * notification takes no lock and allocates nothing. Listeners may be added or removed
+ * from listener callbacks: listener added during notification receives next events only,
+ * while removed listener may still receive the event being delivered.
+ * Cleared listener references are purged at once on the next update
+ * or after notification which encountered them.
+ */
 public class JobEventObservableImpl implements JobEventObservable {
 
     public static final String LOG_TAG = JobEventObservableImpl.class.getSimpleName();
 
-    private List<JobListenerEntry<JobEventListener>> mEventListeners;
-
-    private ReadWriteLock mEventListenersLock;
-    private AtomicBoolean mIsNotifyingEventListeners;
-    private volatile long mThreadId;
+    private volatile JobListenerEntry<?>[] mEventListeners = JobListenerEntries.NO_LISTENERS;
 
     public JobEventObservableImpl() {
     }
@@ -32,41 +29,18 @@ public class JobEventObservableImpl implements JobEventObservable {
     @Override
     public void removeJobEventListeners() {
         synchronized (this) {
-            Lock lock = null;
-            try {
-                if (mEventListenersLock != null) {
-                    lock = mEventListenersLock.writeLock();
-                    lock.lock();
-                }
-                if (mEventListeners != null) {
-                    mEventListeners.clear();
-                }
-            } finally {
-                if (lock != null) {
-                    lock.unlock();
-                }
-            }
+            mEventListeners = JobListenerEntries.NO_LISTENERS;
         }
     }
 
     @Override
     public boolean hasJobEventListener(JobEventListener listener) {
-        if (listener == null || mEventListenersLock == null) return false;
+        if (listener == null) return false;
 
-        Lock lock = mEventListenersLock.readLock();
-        lock.lock();
-        try {
-
-            if (mEventListenersLock == null) return false;
-
-            for (JobListenerEntry<JobEventListener> entry : mEventListeners) {
-                if (listener.equals(entry.getListenerReference().get())) {
-                    return true;
-                }
+        for (JobListenerEntry<?> entry : mEventListeners) {
+            if (listener.equals(entry.getListenerReference().get())) {
+                return true;
             }
-
-        } finally {
-            lock.unlock();
         }
 
         return false;
@@ -74,29 +48,19 @@ public class JobEventObservableImpl implements JobEventObservable {
 
     @Override
     public boolean hasJobEventListener(String listenerTag) {
-        if (listenerTag == null || mEventListenersLock == null) return false;
+        if (listenerTag == null) return false;
 
         return findJobEventListener(listenerTag) != null;
     }
 
     @Override
     public JobEventListener findJobEventListener(String listenerTag) {
-        if (listenerTag == null || mEventListenersLock == null) return null;
+        if (listenerTag == null) return null;
 
-        Lock lock = mEventListenersLock.readLock();
-        lock.lock();
-        try {
-
-            if (mEventListenersLock == null) return null;
-
-            for (JobListenerEntry<JobEventListener> entry : mEventListeners) {
-                if (listenerTag.equals(entry.getListenerTag())) {
-                    return entry.getListenerReference().get();
-                }
+        for (JobListenerEntry<?> entry : mEventListeners) {
+            if (listenerTag.equals(entry.getListenerTag())) {
+                return (JobEventListener) entry.getListenerReference().get();
             }
-
-        } finally {
-            lock.unlock();
         }
 
         return null;
@@ -113,31 +77,11 @@ public class JobEventObservableImpl implements JobEventObservable {
             throw new IllegalArgumentException("cant add null finish listener");
         }
 
-        if (mEventListeners == null) {
-            synchronized (this) {
-                if (mEventListeners == null) {
-                    mEventListeners = new ArrayList<JobListenerEntry<JobEventListener>>(1);
-                    mEventListenersLock = new ReentrantReadWriteLock(false);
-                    mIsNotifyingEventListeners = new AtomicBoolean(false);
-                }
-            }
-        }
+        final JobListenerEntry<JobEventListener> newEntry =
+                new JobListenerEntry<JobEventListener>(listener, listenerTag);
 
-        Lock lock = mEventListenersLock.writeLock();
-        if (lock.tryLock() == false) {
-            if (Thread.currentThread().getId() == mThreadId && mIsNotifyingEventListeners.get()) {
-                throw new IllegalStateException("addJobEventListener() called while job " +
-                        "is notifying it's listeners; don't try to add or remove job event " +
-                        "listeners from listener's callback");
-            } else {
-                lock.lock();
-            }
-        }
-
-        try {
-            mEventListeners.add(new JobListenerEntry(listener, listenerTag));
-        } finally {
-            lock.unlock();
+        synchronized (this) {
+            mEventListeners = JobListenerEntries.copyLiveEntries(mEventListeners, null, newEntry);
         }
     }
 
@@ -162,67 +106,49 @@ public class JobEventObservableImpl implements JobEventObservable {
     }
 
     private boolean removeJobEventListener(String listenerTag, JobEventListener listener) {
-        if (mEventListeners == null) return false;
-
         if (listenerTag == null && listener == null) {
             throw new IllegalArgumentException("unable to remove finish listener: " +
                     "neither tag not listener is provided to compare");
         }
 
-        Lock lock = mEventListenersLock.writeLock();
-        if (lock.tryLock() == false) {
-            if (Thread.currentThread().getId() == mThreadId && mIsNotifyingEventListeners.get()) {
-                throw new IllegalStateException("removeJobEventListener() called while job " +
-                        "is notifying it's listeners; don't try to add or remove job event " +
-                        "listeners from listener's callback");
-            } else {
-                lock.lock();
-            }
-        }
+        synchronized (this) {
+            final JobListenerEntry<?>[] entries = mEventListeners;
 
-        try {
-            Iterator<JobListenerEntry<JobEventListener>> iter = mEventListeners.iterator();
-            while (iter.hasNext()) {
-                JobListenerEntry entry = iter.next();
-                WeakReference<JobEventListener> ref = entry.getListenerReference();
-                JobEventListener item = ref.get();
-
-                if (item == null) {
-                    iter.remove();
-
-                } else if (listener != null && listener.equals(item)) {
-                    iter.remove();
-                    return true;
-
-                } else if (listenerTag != null && listenerTag.equals(entry.getListenerTag())) {
-                    iter.remove();
-                    return true;
+            JobListenerEntry<?> removedEntry = null;
+            for (JobListenerEntry<?> entry : entries) {
+                final Object item = entry.getListenerReference().get();
+
+                if (item != null && ((listener != null && listener.equals(item))
+                        || (listenerTag != null && listenerTag.equals(entry.getListenerTag())))) {
+
+                    removedEntry = entry;
+                    break;
                 }
             }
-        } finally {
-            lock.unlock();
-        }
 
-        return false;
+            mEventListeners = JobListenerEntries.copyLiveEntries(entries, removedEntry, null);
+
+            return removedEntry != null;
+        }
     }
 
     @Override
     public void notifyJobEvent(JobEvent event) {
         checkEventPreconditions(event);
 
-        if (mEventListeners == null) return;
-
-        Lock lock = mEventListenersLock.readLock();
-        lock.lock();
-        mIsNotifyingEventListeners.set(true);
-        mThreadId = Thread.currentThread().getId();
+        final JobListenerEntry<?>[] entries = mEventListeners;
+        if (entries.length == 0) return;
 
+        boolean hasClearedReferences = false;
         try {
-            for (JobListenerEntry<JobEventListener> entry : mEventListeners) {
-                JobEventListener listener = entry.getListenerReference().get();
+            for (JobListenerEntry<?> entry : entries) {
+                final JobEventListener listener =
+                        (JobEventListener) entry.getListenerReference().get();
 
                 if (listener != null) {
                     listener.onJobEvent(event);
+                } else {
+                    hasClearedReferences = true;
                 }
             }
 
@@ -230,10 +156,16 @@ public class JobEventObservableImpl implements JobEventObservable {
             Log.e(LOG_TAG, String.format("error while notifying job finish listeners; " +
                     "message: '%s'", e.getMessage()));
             e.printStackTrace();
+        }
 
-        } finally {
-            mIsNotifyingEventListeners.set(false);
-            lock.unlock();
+        if (hasClearedReferences) {
+            purgeClearedReferences();
+        }
+    }
+
+    private void purgeClearedReferences() {
+        synchronized (this) {
+            mEventListeners = JobListenerEntries.copyLiveEntries(mEventListeners, null, null);
         }
     }
 
@@ -0,0 +1,246 @@
+package com.be.android.library.worker.controllers;
+
+import android.util.Log;
+
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.interfaces.JobEventListener;
+import com.be.android.library.worker.models.JobListenerEntry;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Routes job events to listeners subscribed to particular job ids or job tags.
+ * <p>
+ * Subscriptions are kept in hash indexes of copy-on-write listener arrays, so
+ * routing an event takes no lock and reaches only listeners tracking the job.
+ * Listeners are weakly referenced. A listener subscribed to the job by several
+ * subscriptions receives each event once. Job id subscriptions are dropped
+ * once the job is finished.
+ */
+class JobEventRouter {
+
+    public static final String LOG_TAG = JobEventRouter.class.getSimpleName();
+
+    private final ConcurrentMap<Integer, JobListenerEntry<?>[]> mJobIdListeners;
+    private final ConcurrentMap<String, JobListenerEntry<?>[]> mJobTagListeners;
+    private final Object mUpdateLock;
+
+    JobEventRouter() {
+        mJobIdListeners = new ConcurrentHashMap<Integer, JobListenerEntry<?>[]>();
+        mJobTagListeners = new ConcurrentHashMap<String, JobListenerEntry<?>[]>();
+        mUpdateLock = new Object();
+    }
+
+    void addJobListener(int jobId, JobEventListener listener) {
+        synchronized (mUpdateLock) {
+            addListener(mJobIdListeners, jobId, listener);
+        }
+    }
+
+    boolean removeJobListener(int jobId, JobEventListener listener) {
+        synchronized (mUpdateLock) {
+            return removeListener(mJobIdListeners, jobId, listener);
+        }
+    }
+
+    void addJobTagListener(String jobTag, JobEventListener listener) {
+        synchronized (mUpdateLock) {
+            addListener(mJobTagListeners, jobTag, listener);
+        }
+    }
+
+    boolean removeJobTagListener(String jobTag, JobEventListener listener) {
+        synchronized (mUpdateLock) {
+            return removeListener(mJobTagListeners, jobTag, listener);
+        }
+    }
+
+    /**
+     * Drop all subscriptions to given job id
+     */
+    void removeJob(int jobId) {
+        synchronized (mUpdateLock) {
+            mJobIdListeners.remove(jobId);
+        }
+    }
+
+    void clear() {
+        synchronized (mUpdateLock) {
+            mJobIdListeners.clear();
+            mJobTagListeners.clear();
+        }
+    }
+
+    void route(JobEvent event) {
+        if (mJobIdListeners.isEmpty() && mJobTagListeners.isEmpty()) {
+            return;
+        }
+
+        final JobListenerEntry<?>[] jobListeners = mJobIdListeners.isEmpty()
+                ? null
+                : mJobIdListeners.get(event.getJobId());
+
+        boolean hasClearedReferences = notifyListeners(jobListeners, event, null, 0);
+
+        if (!mJobTagListeners.isEmpty()) {
+            final Collection<String> tags = event.getJobParams().getTags();
+
+            if (!tags.isEmpty()) {
+                JobListenerEntry<?>[][] notifiedEntries = null;
+                int notifiedCount = 0;
+
+                for (String tag : tags) {
+                    final JobListenerEntry<?>[] tagListeners = mJobTagListeners.get(tag);
+                    if (tagListeners == null) {
+                        continue;
+                    }
+
+                    if (notifiedEntries == null) {
+                        notifiedEntries = new JobListenerEntry<?>[tags.size() + 1][];
+                        notifiedEntries[notifiedCount++] = jobListeners;
+                    }
+
+                    hasClearedReferences |= notifyListeners(
+                            tagListeners, event, notifiedEntries, notifiedCount);
+
+                    notifiedEntries[notifiedCount++] = tagListeners;
+                }
+            }
+        }
+
+        if (hasClearedReferences) {
+            purgeClearedReferences();
+        }
+    }
+
+    /**
+     * @param entries listeners to notify or null
+     * @param notifiedEntries listeners already notified, these are skipped
+     * @param notifiedCount number of arrays in notifiedEntries
+     * @return true if cleared listener reference is found
+     */
+    private static boolean notifyListeners(JobListenerEntry<?>[] entries,
+                                           JobEvent event,
+                                           JobListenerEntry<?>[][] notifiedEntries,
+                                           int notifiedCount) {
+
+        if (entries == null) {
+            return false;
+        }
+
+        boolean hasClearedReferences = false;
+        for (JobListenerEntry<?> entry : entries) {
+            final JobEventListener listener = (JobEventListener) entry.getListenerReference().get();
+
+            if (listener == null) {
+                hasClearedReferences = true;
+                continue;
+            }
+
+            if (notifiedEntries != null && isNotified(listener, notifiedEntries, notifiedCount)) {
+                continue;
+            }
+
+            try {
+                listener.onJobEvent(event);
+
+            } catch (Exception e) {
+                Log.e(LOG_TAG, String.format("error while notifying job event listener; " +
+                        "message: '%s'", e.getMessage()), e);
+            }
+        }
+
+        return hasClearedReferences;
+    }
+
+    private static boolean isNotified(JobEventListener listener,
+                                      JobListenerEntry<?>[][] notifiedEntries,
+                                      int notifiedCount) {
+
+        for (int i = 0; i < notifiedCount; i++) {
+            if (notifiedEntries[i] == null) {
+                continue;
+            }
+
+            for (JobListenerEntry<?> entry : notifiedEntries[i]) {
+                if (entry.getListenerReference().get() == listener) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private void purgeClearedReferences() {
+        synchronized (mUpdateLock) {
+            purgeClearedReferences(mJobIdListeners);
+            purgeClearedReferences(mJobTagListeners);
+        }
+    }
+
+    private static <K> void purgeClearedReferences(ConcurrentMap<K, JobListenerEntry<?>[]> index) {
+        for (K key : index.keySet()) {
+            final JobListenerEntry<?>[] entries = JobListenerEntries.copyLiveEntries(index.get(key), null, null);
+
+            if (entries == JobListenerEntries.NO_LISTENERS) {
+                index.remove(key);
+            } else {
+                index.put(key, entries);
+            }
+        }
+    }
+
+    private static <K> void addListener(ConcurrentMap<K, JobListenerEntry<?>[]> index,
+                                        K key,
+                                        JobEventListener listener) {
+
+        if (listener == null) {
+            throw new IllegalArgumentException("cant add null job event listener");
+        }
+
+        final JobListenerEntry<?>[] entries = index.get(key);
+        if (entries != null && indexOf(entries, listener) >= 0) {
+            return;
+        }
+
+        index.put(key, JobListenerEntries.copyLiveEntries(
+                entries != null ? entries : JobListenerEntries.NO_LISTENERS,
+                null,
+                new JobListenerEntry<JobEventListener>(listener, null)));
+    }
+
+    private static <K> boolean removeListener(ConcurrentMap<K, JobListenerEntry<?>[]> index,
+                                              K key,
+                                              JobEventListener listener) {
+
+        final JobListenerEntry<?>[] entries = index.get(key);
+        if (entries == null) {
+            return false;
+        }
+
+        final int position = indexOf(entries, listener);
+        final JobListenerEntry<?>[] liveEntries = JobListenerEntries.copyLiveEntries(entries,
+                position >= 0 ? entries[position] : null, null);
+
+        if (liveEntries == JobListenerEntries.NO_LISTENERS) {
+            index.remove(key);
+        } else {
+            index.put(key, liveEntries);
+        }
+
+        return position >= 0;
+    }
+
+    private static int indexOf(JobListenerEntry<?>[] entries, JobEventListener listener) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i].getListenerReference().get() == listener) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
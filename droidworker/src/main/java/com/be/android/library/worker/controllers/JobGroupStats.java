@@ -0,0 +1,156 @@
+package com.be.android.library.worker.controllers;
+
+/**
+ * Queue statistics of a single job group collected by {@link ThreadPoolWorker}
+ */
+public class JobGroupStats {
+
+    private final int mGroupId;
+    private int mQueueDepth;
+    private int mMaxQueueDepth;
+    private long mEnqueuedCount;
+    private long mDequeuedCount;
+    private long mRejectedCount;
+    private long mDroppedCount;
+    private long mTotalWaitTimeNanos;
+    private long mMaxWaitTimeNanos;
+    private long mFinishedCount;
+    private long mTotalExecutionTimeNanos;
+
+    public JobGroupStats(int groupId) {
+        mGroupId = groupId;
+    }
+
+    JobGroupStats(JobGroupStats other) {
+        mGroupId = other.mGroupId;
+        mQueueDepth = other.mQueueDepth;
+        mMaxQueueDepth = other.mMaxQueueDepth;
+        mEnqueuedCount = other.mEnqueuedCount;
+        mDequeuedCount = other.mDequeuedCount;
+        mRejectedCount = other.mRejectedCount;
+        mDroppedCount = other.mDroppedCount;
+        mTotalWaitTimeNanos = other.mTotalWaitTimeNanos;
+        mMaxWaitTimeNanos = other.mMaxWaitTimeNanos;
+        mFinishedCount = other.mFinishedCount;
+        mTotalExecutionTimeNanos = other.mTotalExecutionTimeNanos;
+    }
+
+    void onJobEnqueued() {
+        mEnqueuedCount++;
+        mQueueDepth++;
+        if (mQueueDepth > mMaxQueueDepth) {
+            mMaxQueueDepth = mQueueDepth;
+        }
+    }
+
+    void onJobDequeued(long waitTimeNanos) {
+        mDequeuedCount++;
+        mQueueDepth--;
+        mTotalWaitTimeNanos += waitTimeNanos;
+        if (waitTimeNanos > mMaxWaitTimeNanos) {
+            mMaxWaitTimeNanos = waitTimeNanos;
+        }
+    }
+
+    void onJobRejected() {
+        mRejectedCount++;
+    }
+
+    void onJobDropped() {
+        mDroppedCount++;
+        mQueueDepth--;
+    }
+
+    void onJobFinished(long executionTimeNanos) {
+        mFinishedCount++;
+        mTotalExecutionTimeNanos += executionTimeNanos;
+    }
+
+    void onQueueCleared() {
+        mQueueDepth = 0;
+    }
+
+    public int getGroupId() {
+        return mGroupId;
+    }
+
+    /**
+     * @return number of jobs currently waiting in group queue
+     */
+    public int getQueueDepth() {
+        return mQueueDepth;
+    }
+
+    public int getMaxQueueDepth() {
+        return mMaxQueueDepth;
+    }
+
+    public long getEnqueuedCount() {
+        return mEnqueuedCount;
+    }
+
+    public long getDequeuedCount() {
+        return mDequeuedCount;
+    }
+
+    /**
+     * @return number of submitted jobs refused because of full queue
+     */
+    public long getRejectedCount() {
+        return mRejectedCount;
+    }
+
+    /**
+     * @return number of queued jobs evicted in favor of newly submitted jobs
+     */
+    public long getDroppedCount() {
+        return mDroppedCount;
+    }
+
+    public long getFinishedCount() {
+        return mFinishedCount;
+    }
+
+    public long getMaxWaitTimeMillis() {
+        return mMaxWaitTimeNanos / 1000000;
+    }
+
+    /**
+     * @return average time jobs of this group spent in queue
+     */
+    public double getAverageWaitTimeMillis() {
+        if (mDequeuedCount == 0) {
+            return 0;
+        }
+
+        return mTotalWaitTimeNanos / 1e6 / mDequeuedCount;
+    }
+
+    /**
+     * @return average time from job dispatch to job finish handling
+     */
+    public double getAverageExecutionTimeMillis() {
+        if (mFinishedCount == 0) {
+            return 0;
+        }
+
+        return mTotalExecutionTimeNanos / 1e6 / mFinishedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "JobGroupStats{" +
+                "mGroupId=" + mGroupId +
+                ", mQueueDepth=" + mQueueDepth +
+                ", mMaxQueueDepth=" + mMaxQueueDepth +
+                ", mEnqueuedCount=" + mEnqueuedCount +
+                ", mDequeuedCount=" + mDequeuedCount +
+                ", mRejectedCount=" + mRejectedCount +
+                ", mDroppedCount=" + mDroppedCount +
+                ", averageWaitTimeMillis=" + getAverageWaitTimeMillis() +
+                ", maxWaitTimeMillis=" + getMaxWaitTimeMillis() +
+                ", mFinishedCount=" + mFinishedCount +
+                ", averageExecutionTimeMillis=" + getAverageExecutionTimeMillis() +
+                '}';
+    }
+}
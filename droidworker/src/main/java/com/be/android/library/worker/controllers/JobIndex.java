@@ -0,0 +1,236 @@
+package com.be.android.library.worker.controllers;
+
+import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.models.JobParams;
+import com.be.android.library.worker.util.JobSelector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent index of submitted jobs.
+ * <p>
+ * Jobs are mapped by job id with secondary indexes by job tag and job group id.
+ * Lookups are lock-free; index updates are serialized so that secondary
+ * index buckets are never dropped while being filled.
+ */
+class JobIndex {
+
+    private static class Entry {
+        final Job job;
+        final int groupId;
+        final String[] tags;
+
+        Entry(Job job, int groupId, String[] tags) {
+            this.job = job;
+            this.groupId = groupId;
+            this.tags = tags;
+        }
+    }
+
+    private final ConcurrentHashMap<Integer, Entry> mJobs;
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Integer, Job>> mTagIndex;
+    private final ConcurrentHashMap<Integer, ConcurrentHashMap<Integer, Job>> mGroupIndex;
+    private final Object mUpdateLock;
+
+    JobIndex() {
+        mJobs = new ConcurrentHashMap<Integer, Entry>();
+        mTagIndex = new ConcurrentHashMap<String, ConcurrentHashMap<Integer, Job>>();
+        mGroupIndex = new ConcurrentHashMap<Integer, ConcurrentHashMap<Integer, Job>>();
+        mUpdateLock = new Object();
+    }
+
+    void add(Job job) {
+        final int jobId = job.getJobId();
+        final JobParams params = job.getParams();
+
+        synchronized (mUpdateLock) {
+            // Tags are read under the lock, so that concurrent reindex is not lost
+            final Collection<String> tags = params.getTags();
+            final Entry entry = new Entry(job, params.getGroupId(), tags.toArray(new String[tags.size()]));
+            final Entry previous = mJobs.put(jobId, entry);
+
+            for (String tag : entry.tags) {
+                ConcurrentHashMap<Integer, Job> bucket = mTagIndex.get(tag);
+                if (bucket == null) {
+                    bucket = new ConcurrentHashMap<Integer, Job>(4);
+                    mTagIndex.put(tag, bucket);
+                }
+                bucket.put(jobId, job);
+            }
+
+            ConcurrentHashMap<Integer, Job> bucket = mGroupIndex.get(entry.groupId);
+            if (bucket == null) {
+                bucket = new ConcurrentHashMap<Integer, Job>();
+                mGroupIndex.put(entry.groupId, bucket);
+            }
+            bucket.put(jobId, job);
+
+            if (previous != null) {
+                removeFromIndexes(jobId, previous, entry);
+            }
+        }
+    }
+
+    /**
+     * Update secondary indexes of job already added after its tags were changed.
+     * Job stays in indexes of its retained tags while being updated.
+     *
+     * @param job indexed job
+     */
+    void reindex(Job job) {
+        synchronized (mUpdateLock) {
+            final Entry entry = mJobs.get(job.getJobId());
+            if (entry != null && entry.job == job) {
+                add(job);
+            }
+        }
+    }
+
+    Job remove(int jobId) {
+        synchronized (mUpdateLock) {
+            final Entry entry = mJobs.remove(jobId);
+            if (entry == null) {
+                return null;
+            }
+
+            removeFromIndexes(jobId, entry, null);
+
+            return entry.job;
+        }
+    }
+
+    Job get(int jobId) {
+        final Entry entry = mJobs.get(jobId);
+
+        return entry == null ? null : entry.job;
+    }
+
+    int size() {
+        return mJobs.size();
+    }
+
+    /**
+     * Get jobs that may match given selector.
+     * <p>
+     * Selector job ids, groups or tags are used to narrow lookup if defined;
+     * all indexed jobs are returned otherwise. Returned jobs are not checked
+     * against selector and are not ordered.
+     *
+     * @param selector selector to get candidates for
+     * @return candidate jobs
+     */
+    Collection<Job> getCandidates(JobSelector selector) {
+        final int[] jobIds = selector.getJobIds();
+        if (jobIds != null) {
+            final List<Job> result = new ArrayList<Job>(jobIds.length);
+            for (int jobId : jobIds) {
+                final Job job = get(jobId);
+                if (job != null) {
+                    result.add(job);
+                }
+            }
+
+            return result;
+        }
+
+        final int[] groupIds = selector.getJobGroups();
+        if (groupIds != null) {
+            if (groupIds.length == 1) {
+                return getBucket(mGroupIndex, groupIds[0]);
+            }
+
+            final List<Job> result = new ArrayList<Job>();
+            for (int groupId : groupIds) {
+                result.addAll(getBucket(mGroupIndex, groupId));
+            }
+
+            return result;
+        }
+
+        final String[] tags = selector.getTags();
+        if (tags != null && tags.length > 0) {
+            if (!selector.isAnyTag()) {
+                // Every tag is required, so the smallest bucket suffices
+                Collection<Job> smallest = null;
+                for (String tag : tags) {
+                    final Collection<Job> bucket = getBucket(mTagIndex, tag);
+                    if (smallest == null || bucket.size() < smallest.size()) {
+                        smallest = bucket;
+                    }
+                }
+
+                return smallest;
+            }
+
+            final Map<Integer, Job> result = new HashMap<Integer, Job>();
+            for (String tag : tags) {
+                final ConcurrentHashMap<Integer, Job> bucket = mTagIndex.get(tag);
+                if (bucket != null) {
+                    result.putAll(bucket);
+                }
+            }
+
+            return result.values();
+        }
+
+        return getAll();
+    }
+
+    Collection<Job> getAll() {
+        final List<Job> result = new ArrayList<Job>(mJobs.size());
+        for (Entry entry : mJobs.values()) {
+            result.add(entry.job);
+        }
+
+        return result;
+    }
+
+    /**
+     * @param retainedEntry entry replacing removed one or null; indexes it shares are kept
+     */
+    private void removeFromIndexes(int jobId, Entry entry, Entry retainedEntry) {
+        for (String tag : entry.tags) {
+            if (retainedEntry != null && Arrays.asList(retainedEntry.tags).contains(tag)) {
+                continue;
+            }
+
+            final ConcurrentHashMap<Integer, Job> bucket = mTagIndex.get(tag);
+            if (bucket != null) {
+                bucket.remove(jobId, entry.job);
+                if (bucket.isEmpty()) {
+                    mTagIndex.remove(tag);
+                }
+            }
+        }
+
+        if (retainedEntry != null && retainedEntry.groupId == entry.groupId) {
+            return;
+        }
+
+        final ConcurrentHashMap<Integer, Job> bucket = mGroupIndex.get(entry.groupId);
+        if (bucket != null) {
+            bucket.remove(jobId, entry.job);
+            if (bucket.isEmpty()) {
+                mGroupIndex.remove(entry.groupId);
+            }
+        }
+    }
+
+    private static <K> Collection<Job> getBucket(
+            ConcurrentHashMap<K, ConcurrentHashMap<Integer, Job>> index, K key) {
+
+        final ConcurrentHashMap<Integer, Job> bucket = index.get(key);
+        if (bucket == null) {
+            return Collections.emptyList();
+        }
+
+        return bucket.values();
+    }
+}
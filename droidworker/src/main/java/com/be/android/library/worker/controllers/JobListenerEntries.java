@@ -0,0 +1,51 @@
+package com.be.android.library.worker.controllers;
+
+import com.be.android.library.worker.models.JobListenerEntry;
+
+/**
+ * Copy-on-write operations on immutable arrays of weakly referenced listener entries
+ */
+final class JobListenerEntries {
+
+    static final JobListenerEntry<?>[] NO_LISTENERS = new JobListenerEntry<?>[0];
+
+    private JobListenerEntries() {
+    }
+
+    /**
+     * @param entries current listener entries
+     * @param removedEntry entry to leave out or null
+     * @param addedEntry entry to append or null
+     * @return new entries array without cleared listener references
+     * or {@link #NO_LISTENERS} if no entries are left
+     */
+    static JobListenerEntry<?>[] copyLiveEntries(JobListenerEntry<?>[] entries,
+                                                 JobListenerEntry<?> removedEntry,
+                                                 JobListenerEntry<?> addedEntry) {
+
+        final JobListenerEntry<?>[] buffer =
+                new JobListenerEntry<?>[entries.length + (addedEntry != null ? 1 : 0)];
+
+        int count = 0;
+        for (JobListenerEntry<?> entry : entries) {
+            if (entry != removedEntry && entry.getListenerReference().get() != null) {
+                buffer[count++] = entry;
+            }
+        }
+        if (addedEntry != null) {
+            buffer[count++] = addedEntry;
+        }
+
+        if (count == 0) {
+            return NO_LISTENERS;
+        }
+        if (count == buffer.length) {
+            return buffer;
+        }
+
+        final JobListenerEntry<?>[] result = new JobListenerEntry<?>[count];
+        System.arraycopy(buffer, 0, result, 0, count);
+
+        return result;
+    }
+}
@@ -3,6 +3,7 @@ package com.be.android.library.worker.controllers;
 import android.os.Bundle;
 
 import com.be.android.library.worker.base.JobStatusLock;
+import com.be.android.library.worker.handlers.CoalescingJobEventHandlerInterface;
 import com.be.android.library.worker.handlers.JobEventHandlerInterface;
 import com.be.android.library.worker.interfaces.Job;
 import com.be.android.library.worker.util.JobSelector;
@@ -20,6 +21,7 @@ public class JobLoader {
     private final JobSelector mJobSelector;
     private WeakReference<JobEventHandlerInterface> mEventHandler;
     private WeakReference<JobLoaderCallbacks> mCallbacks;
+    private volatile boolean mIsCoalescingEnabled;
 
     protected JobLoader(JobManager jobManager,
                         JobEventHandlerInterface eventHandler,
@@ -41,6 +43,35 @@ public class JobLoader {
         mCallbacks = new WeakReference<JobLoaderCallbacks>(callbacks);
     }
 
+    public boolean isCoalescingEnabled() {
+        return mIsCoalescingEnabled;
+    }
+
+    /**
+     * Enable to attach to equivalent job requested by any loader
+     * instead of submitting a new one while that job is not finished.
+     * Requires {@link CoalescingJobEventHandlerInterface} event handler;
+     * shared job is given attach tag of every loader attached to it.
+     *
+     * @param isCoalescingEnabled true to coalesce load requests
+     * @throws IllegalStateException if event handler doesn't support coalescing
+     * @see JobManager#submitJobCoalesced(Job, String)
+     */
+    public void setCoalescingEnabled(boolean isCoalescingEnabled) {
+        if (isCoalescingEnabled) {
+            checkCoalescingSupported(mEventHandler.get());
+        }
+
+        mIsCoalescingEnabled = isCoalescingEnabled;
+    }
+
+    private static void checkCoalescingSupported(JobEventHandlerInterface eventHandler) {
+        if (eventHandler != null && !(eventHandler instanceof CoalescingJobEventHandlerInterface)) {
+            throw new IllegalStateException(String.format(
+                    "event handler '%s' doesn't support coalescing", eventHandler));
+        }
+    }
+
     public int requestLoad(Bundle data) {
         final JobEventHandlerInterface eventHandler = mEventHandler.get();
         final JobLoaderCallbacks callbacks = mCallbacks.get();
@@ -49,6 +80,11 @@ public class JobLoader {
             return JobManager.JOB_ID_UNSPECIFIED;
         }
 
+        if (mIsCoalescingEnabled) {
+            // Event handler may have been replaced since coalescing was enabled
+            checkCoalescingSupported(eventHandler);
+        }
+
         Job job = mJobManager.findJob(mJobSelector);
 
         if (job != null && job.hasParams()) {
@@ -82,6 +118,10 @@ public class JobLoader {
         }
         job.setup().addTag(mAttachTag).apply();
 
+        if (mIsCoalescingEnabled) {
+            return ((CoalescingJobEventHandlerInterface) eventHandler).submitJobCoalesced(job, null);
+        }
+
         return eventHandler.submitJob(job);
     }
 }
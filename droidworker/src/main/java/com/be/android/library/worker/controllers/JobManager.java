@@ -3,22 +3,40 @@ package com.be.android.library.worker.controllers;
 import android.os.Handler;
 import android.util.Log;
 
+import com.be.android.library.worker.base.BaseJob;
 import com.be.android.library.worker.base.JobEvent;
 import com.be.android.library.worker.base.JobStatus;
 import com.be.android.library.worker.interfaces.Job;
 import com.be.android.library.worker.interfaces.JobEventListener;
 import com.be.android.library.worker.interfaces.JobEventObservable;
+import com.be.android.library.worker.interfaces.JobEventsCache;
 import com.be.android.library.worker.interfaces.JobFactory;
+import com.be.android.library.worker.interfaces.Predicate;
+import com.be.android.library.worker.jobs.LoadJob;
 import com.be.android.library.worker.models.JobParams;
+import com.be.android.library.worker.models.LoadJobResult;
+import com.be.android.library.worker.models.Params;
 import com.be.android.library.worker.models.Properties;
+import com.be.android.library.worker.util.JobBatchFutureResult;
+import com.be.android.library.worker.util.JobEventCoalescer;
 import com.be.android.library.worker.util.JobFutureResult;
 import com.be.android.library.worker.util.JobSelector;
 import com.be.android.library.worker.util.ReflectiveJobFactory;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class JobManager implements JobEventObservable {
@@ -28,25 +46,252 @@ public abstract class JobManager implements JobEventObservable {
     public static final int JOB_GROUP_UNIQUE = -1;
     public static final int JOB_GROUP_DEDICATED = -2;
 
+    public static final String JOB_TIMER_THREAD_NAME = "WorkerJobTimerThread";
+
+    private static class DelayedJob {
+        final ScheduledFuture<?> future;
+        final String coalesceKey;
+
+        DelayedJob(ScheduledFuture<?> future, String coalesceKey) {
+            this.future = future;
+            this.coalesceKey = coalesceKey;
+        }
+    }
+
+    /**
+     * Job submitted by {@link #submitJobCoalesced(Job, String)} which is not finished yet;
+     * job id is kept apart as the job is indexed after it is registered as in-flight
+     */
+    private static class InFlightJob {
+        final Job job;
+        final int jobId;
+        final Object coalesceKey;
+        volatile boolean isSubmitted;
+
+        InFlightJob(Job job, int jobId, Object coalesceKey) {
+            this.job = job;
+            this.jobId = jobId;
+            this.coalesceKey = coalesceKey;
+        }
+    }
+
+    /**
+     * Coalesce key of job submitted without explicit one:
+     * jobs of the same class with equal extras and payload are equivalent;
+     * tags are not compared, they are merged into the in-flight job instead
+     */
+    private static class ParamsCoalesceKey {
+        private final String mJobClassName;
+        private final Map<String, Object> mExtras;
+        private final Object mPayload;
+
+        ParamsCoalesceKey(Job job) {
+            final JobParams params = job.getParams();
+
+            mJobClassName = job.getClass().getName();
+            mExtras = new HashMap<String, Object>(params.getExtras());
+            mPayload = params.getPayload();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            ParamsCoalesceKey key = (ParamsCoalesceKey) o;
+
+            if (!mJobClassName.equals(key.mJobClassName)) return false;
+            if (!mExtras.equals(key.mExtras)) return false;
+            if (mPayload != null ? !mPayload.equals(key.mPayload) : key.mPayload != null)
+                return false;
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mJobClassName.hashCode();
+            result = 31 * result + mExtras.hashCode();
+            result = 31 * result + (mPayload != null ? mPayload.hashCode() : 0);
+            return result;
+        }
+    }
+
+    /**
+     * Cached result found for load job before the job is registered
+     */
+    private static class CachedLoad {
+        final LoadJobResult<?> result;
+        final String cacheKey;
+        final JobParams refreshParams;
+
+        CachedLoad(LoadJobResult<?> result, String cacheKey, JobParams refreshParams) {
+            this.result = result;
+            this.cacheKey = cacheKey;
+            this.refreshParams = refreshParams;
+        }
+    }
+
+    /**
+     * Submits new job per each run of periodic schedule.
+     * Run is skipped until finished event of the job submitted by the previous run is sent;
+     * cancelled job may be still executing while it's status is already cancelled.
+     */
+    private class PeriodicJob implements Runnable {
+        private final int mPeriodicJobId;
+        private final JobFactory mJobFactory;
+        private final Job mJob;
+        private final JobParams mJobParams;
+        private volatile Job mLastJob;
+        private volatile boolean mIsLastJobFinished;
+        private ScheduledFuture<?> mFuture;
+
+        private final JobEventListener mFinishedListener = new JobEventListener() {
+            @Override
+            public void onJobEvent(JobEvent event) {
+                if (event.isJobFinished()) {
+                    mIsLastJobFinished = true;
+                }
+            }
+        };
+
+        PeriodicJob(int periodicJobId, JobFactory jobFactory) {
+            mPeriodicJobId = periodicJobId;
+            mJobFactory = jobFactory;
+            mJob = null;
+            mJobParams = null;
+        }
+
+        PeriodicJob(int periodicJobId, Job job) {
+            mPeriodicJobId = periodicJobId;
+            mJobFactory = null;
+            mJob = job;
+            mJobParams = job.getParams().copy();
+        }
+
+        @Override
+        public void run() {
+            final Job lastJob = mLastJob;
+            if (lastJob != null && !mIsLastJobFinished) {
+                return;
+            }
+
+            try {
+                final Job job;
+                if (mJobFactory != null) {
+                    job = mJobFactory.createJob();
+
+                } else {
+                    job = mJob;
+                    if (lastJob != null) {
+                        job.reset();
+                        job.setup().params(mJobParams.copy()).apply();
+                    }
+                }
+
+                // Listeners are removed by job reset, so listener is added per each run
+                mIsLastJobFinished = false;
+                job.addJobEventListener(mFinishedListener);
+                mLastJob = job;
+                submitJob(job);
+
+            } catch (RuntimeException e) {
+                Log.e(LOG_TAG, String.format("failed to submit periodic job '%d'; " +
+                        "schedule is cancelled", mPeriodicJobId), e);
+
+                cancelPeriodicJob(mPeriodicJobId);
+            }
+        }
+    }
+
     private final JobEventObservable mJobObservable;
-    private final ConcurrentLinkedQueue<Job> mJobs;
+    private final JobEventRouter mEventRouter;
+    private final JobIndex mJobs;
     private final AtomicInteger mJobIdCounter;
     private final Handler mHandler;
+    private final JobEventCoalescer mEventCoalescer;
     private final Properties mProperties;
 
+    private final Object mScheduleLock = new Object();
+    private final Map<Integer, DelayedJob> mDelayedJobs;
+    private final Map<String, Integer> mCoalescedJobIds;
+    private final Map<Integer, PeriodicJob> mPeriodicJobs;
+    private final AtomicInteger mPeriodicJobIdCounter;
+    private final ConcurrentMap<String, Integer> mRefreshingCacheKeys;
+    private final Map<Object, InFlightJob> mInFlightJobs;
+    private final Map<Integer, InFlightJob> mInFlightJobIds;
+    private volatile JobEventsCache mJobEventsCache;
+    private ScheduledThreadPoolExecutor mJobTimer;
+
     private static JobManager instance;
     private static final Object MUTEX = new Object();
     private static final String LOG_TAG = JobManager.class.getSimpleName();
 
+    private static final ThreadFactory JOB_TIMER_THREAD_FACTORY = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, JOB_TIMER_THREAD_NAME);
+            thread.setDaemon(true);
+
+            return thread;
+        }
+    };
+
+    /**
+     * Job ids are assigned incrementally, so id order is the submit order
+     */
+    private static final Comparator<Job> JOB_ID_COMPARATOR = new Comparator<Job>() {
+        @Override
+        public int compare(Job lhs, Job rhs) {
+            return lhs.getJobId() < rhs.getJobId() ? -1 : (lhs.getJobId() == rhs.getJobId() ? 0 : 1);
+        }
+    };
+
+    /**
+     * Job events are handed over to handler thread; progress and status message updates
+     * are coalesced, so a job reporting progress in a tight loop doesn't flood handler thread
+     */
     private final JobEventListener mJobEventListener = new JobEventListener() {
         @Override
-        public void onJobEvent(final JobEvent event) {
-            mHandler.post(new Runnable() {
-                @Override
-                public void run() {
-                    handleJobEvent(event);
-                }
-            });
+        public void onJobEvent(JobEvent event) {
+            mEventCoalescer.post(event);
+        }
+    };
+
+    /**
+     * Successful results of cacheable load jobs are written to the cache on job thread,
+     * before the result is handed over to handler thread
+     */
+    private final JobEventListener mCacheWriteListener = new JobEventListener() {
+        @Override
+        public void onJobEvent(JobEvent event) {
+            if (!event.isJobFinished()) {
+                return;
+            }
+
+            final Job job = findJob(event.getJobId());
+            if (!(job instanceof LoadJob)) {
+                return;
+            }
+
+            final LoadJob loadJob = (LoadJob) job;
+            final String cacheKey = loadJob.getCacheKey();
+            if (cacheKey != null) {
+                writeCachedLoad(loadJob, cacheKey, event);
+            }
+        }
+    };
+
+    /**
+     * Coalesced job is no longer in-flight once it is finished, so the next
+     * equivalent job is executed again
+     */
+    private final JobEventListener mInFlightJobListener = new JobEventListener() {
+        @Override
+        public void onJobEvent(JobEvent event) {
+            if (event.isJobFinished()) {
+                unregisterInFlightJob(event.getJobId());
+            }
         }
     };
 
@@ -82,10 +327,24 @@ public abstract class JobManager implements JobEventObservable {
 
     protected JobManager() {
         mJobObservable = new JobEventObservableImpl();
-        mJobs = new ConcurrentLinkedQueue<Job>();
+        mEventRouter = new JobEventRouter();
+        mJobs = new JobIndex();
         mJobIdCounter = new AtomicInteger(0);
         mHandler = new Handler();
+        mEventCoalescer = new JobEventCoalescer(mHandler, new JobEventListener() {
+            @Override
+            public void onJobEvent(JobEvent event) {
+                handleJobEvent(event);
+            }
+        });
         mProperties = new Properties();
+        mDelayedJobs = new HashMap<Integer, DelayedJob>();
+        mCoalescedJobIds = new HashMap<String, Integer>();
+        mPeriodicJobs = new HashMap<Integer, PeriodicJob>();
+        mPeriodicJobIdCounter = new AtomicInteger(0);
+        mRefreshingCacheKeys = new ConcurrentHashMap<String, Integer>();
+        mInFlightJobs = new HashMap<Object, InFlightJob>();
+        mInFlightJobIds = new HashMap<Integer, InFlightJob>();
     }
 
     public JobFutureResult submitJobForResult(Job job) {
@@ -97,26 +356,335 @@ public abstract class JobManager implements JobEventObservable {
     }
 
     public int submitJob(Job job) {
-        // Set default params to job if needed
-        if (!job.hasParams()) {
+        prepareJob(job);
+
+        final int jobId = mJobIdCounter.incrementAndGet();
+        submitPreparedJob(job, jobId);
+
+        return jobId;
+    }
+
+    /**
+     * @see #submitJobCoalesced(Job, String)
+     */
+    public int submitJobCoalesced(Job job) {
+        return submitJobCoalesced(job, null);
+    }
+
+    /**
+     * Submit job unless equivalent job is already in-flight.
+     * <br>
+     * Jobs are equivalent if they are submitted with the same coalesce key, or, if no key
+     * is given, if they are of the same class and have equal extras and payload.
+     * While equivalent job submitted by this method is not finished, given job is not
+     * submitted at all and id of in-flight job is returned instead, so one may subscribe
+     * to its events by {@link #addJobEventListener(int, JobEventListener)}.
+     * Tags of given job are added to the in-flight job, so that it matches selectors
+     * and event handler tag filters of every submitter.
+     * <br>
+     * <br>
+     * Unlike {@link #submitJobDelayed(Job, long, String)}, the first job wins:
+     * a burst of equivalent submissions results in a single execution.
+     *
+     * @param job job to submit
+     * @param coalesceKey key to coalesce jobs by or null to coalesce equivalent job params
+     * @return id of submitted or in-flight equivalent job
+     */
+    public int submitJobCoalesced(Job job, String coalesceKey) {
+        prepareJob(job);
+
+        final Object key = coalesceKey != null ? coalesceKey : new ParamsCoalesceKey(job);
+        InFlightJob inFlightJob;
+        synchronized (mInFlightJobs) {
+            inFlightJob = findInFlightJob(key);
+            if (inFlightJob != null && mergeJobTags(inFlightJob, job)) {
+                return inFlightJob.jobId;
+            }
+
+            inFlightJob = registerInFlightJob(job, key);
+        }
+
+        submitInFlightJob(inFlightJob);
+
+        return inFlightJob.jobId;
+    }
+
+    /**
+     * Submit job unless equivalent job is already in-flight and get pending result
+     * of either job
+     *
+     * @see #submitJobCoalesced(Job, String)
+     */
+    public JobFutureResult submitJobCoalescedForResult(Job job, String coalesceKey) {
+        prepareJob(job);
+
+        final Object key = coalesceKey != null ? coalesceKey : new ParamsCoalesceKey(job);
+        final JobFutureResult pendingResult;
+        InFlightJob inFlightJob;
+        synchronized (mInFlightJobs) {
+            inFlightJob = findInFlightJob(key);
+            if (inFlightJob != null && mergeJobTags(inFlightJob, job)) {
+                final JobFutureResult sharedResult = JobFutureResult.forSubmittedJob(
+                        inFlightJob.job, inFlightJob.jobId, this);
+
+                if (sharedResult != null) {
+                    return sharedResult;
+                }
+
+                // In-flight job has finished meanwhile, so given job replaces it
+            }
+
+            pendingResult = new JobFutureResult(job, this);
+            inFlightJob = registerInFlightJob(job, key);
+        }
+
+        submitInFlightJob(inFlightJob);
+
+        return pendingResult;
+    }
+
+    /**
+     * Submit several jobs at once.
+     * <br>
+     * Jobs are assigned successive ids in collection order and passed to worker
+     * in a single call, so that worker may dispatch the whole batch at once.
+     * Jobs are validated before submission, so either all jobs are submitted or none of them.
+     *
+     * @param jobs jobs to submit
+     * @return compound pending result of all submitted jobs
+     */
+    public JobBatchFutureResult submitJobs(Collection<? extends Job> jobs) {
+        if (jobs == null) {
+            throw new IllegalArgumentException("jobs is null");
+        }
+
+        final List<Job> batch = new ArrayList<Job>(jobs);
+        final Map<Job, Boolean> preparedJobs = new IdentityHashMap<Job, Boolean>(batch.size());
+        for (Job job : batch) {
+            prepareJob(job);
+
+            if (preparedJobs.put(job, Boolean.TRUE) != null) {
+                throw new IllegalArgumentException("job is passed more than once");
+            }
+        }
+
+        final List<JobFutureResult> pendingResults = new ArrayList<JobFutureResult>(batch.size());
+        for (Job job : batch) {
+            pendingResults.add(new JobFutureResult(job, this));
+        }
+
+        if (batch.isEmpty()) {
+            return new JobBatchFutureResult(pendingResults);
+        }
+
+        final CachedLoad[] cachedLoads = new CachedLoad[batch.size()];
+        boolean hasCachedLoads = false;
+        for (int i = 0; i < cachedLoads.length; i++) {
+            cachedLoads[i] = applyJobEventsCache(batch.get(i));
+            hasCachedLoads |= cachedLoads[i] != null;
+        }
+
+        int jobId = mJobIdCounter.addAndGet(batch.size()) - batch.size();
+        for (Job job : batch) {
+            indexJob(job, ++jobId);
+        }
+
+        if (!hasCachedLoads) {
+            submitJobsImpl(batch);
+
+            return new JobBatchFutureResult(pendingResults);
+        }
+
+        final List<Job> executedJobs = new ArrayList<Job>(batch.size());
+        for (int i = 0; i < cachedLoads.length; i++) {
+            if (cachedLoads[i] != null) {
+                completeFromCache(batch.get(i), cachedLoads[i]);
+            } else {
+                executedJobs.add(batch.get(i));
+            }
+        }
+
+        if (!executedJobs.isEmpty()) {
+            submitJobsImpl(executedJobs);
+        }
+
+        return new JobBatchFutureResult(pendingResults);
+    }
+
+    /**
+     * Submit job once delay elapses
+     *
+     * @see #submitJobDelayed(Job, long, String)
+     */
+    public int submitJobDelayed(Job job, long delayMillis) {
+        return submitJobDelayed(job, delayMillis, null);
+    }
+
+    /**
+     * Submit job once delay elapses.
+     * <br>
+     * Job is assigned an id right away, so it may be found or cancelled while it is waiting,
+     * but it doesn't hold any worker thread until it is due. All delayed jobs are
+     * timed by a single timer thread.
+     * <br>
+     * <br>
+     * Pending delayed job with the same coalesce key is cancelled and replaced by the new one,
+     * so a burst of submissions results in a single execution of the latest job
+     * once the delay passes without new submissions.
+     *
+     * @param job job to submit
+     * @param delayMillis delay before job is submitted
+     * @param coalesceKey key to coalesce delayed jobs by or null
+     * @return assigned job id
+     */
+    public int submitJobDelayed(Job job, long delayMillis, final String coalesceKey) {
+        if (delayMillis < 0) {
+            throw new IllegalArgumentException("delayMillis < 0");
+        }
+
+        final int jobId = registerJob(job);
+
+        Integer replacedJobId = null;
+        synchronized (mScheduleLock) {
+            if (coalesceKey != null) {
+                replacedJobId = mCoalescedJobIds.put(coalesceKey, jobId);
+            }
+
+            final ScheduledFuture<?> future = getJobTimer().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    onDelayedJobDue(jobId);
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+
+            mDelayedJobs.put(jobId, new DelayedJob(future, coalesceKey));
+        }
+
+        if (replacedJobId != null) {
+            cancelDelayedJob(replacedJobId);
+        }
+
+        return jobId;
+    }
+
+    /**
+     * Submit new job created by factory per each period.
+     * <br>
+     * Runs don't overlap: run is skipped until job submitted by the previous one sends
+     * it's finished event, so cancelled job which is still executing is waited for as well.
+     *
+     * @param jobFactory factory creating job per each run
+     * @param initialDelayMillis delay before the first run
+     * @param periodMillis period between runs
+     * @return periodic job id to cancel schedule with
+     * @see #cancelPeriodicJob(int)
+     */
+    public int submitJobAtFixedRate(JobFactory jobFactory, long initialDelayMillis, long periodMillis) {
+        if (jobFactory == null) {
+            throw new IllegalArgumentException("jobFactory is null");
+        }
+
+        final int periodicJobId = mPeriodicJobIdCounter.incrementAndGet();
+
+        return schedulePeriodicJob(new PeriodicJob(periodicJobId, jobFactory),
+                initialDelayMillis, periodMillis);
+    }
+
+    /**
+     * Submit the same job per each period.
+     * <br>
+     * Job is reset and configured with its initial params before each run after the first one,
+     * so it has to override {@link com.be.android.library.worker.base.BaseJob#onReset()}.
+     * Runs don't overlap: run is skipped while the previous one is not finished.
+     * Cancelled job can't be reset, so cancelling any run stops the schedule.
+     *
+     * @param job job to run periodically
+     * @param initialDelayMillis delay before the first run
+     * @param periodMillis period between runs
+     * @return periodic job id to cancel schedule with
+     * @see #cancelPeriodicJob(int)
+     */
+    public int submitJobAtFixedRate(Job job, long initialDelayMillis, long periodMillis) {
+        if (job != null && !job.hasParams()) {
             job.setup().apply();
         }
 
         checkJobPreconditions(job);
 
-        final int jobId = mJobIdCounter.incrementAndGet();
-        job.getParams().assignJobId(jobId);
-        job.addJobEventListener(mJobEventListener);
+        final int periodicJobId = mPeriodicJobIdCounter.incrementAndGet();
 
-        mJobs.add(job);
+        return schedulePeriodicJob(new PeriodicJob(periodicJobId, job),
+                initialDelayMillis, periodMillis);
+    }
 
-        submitJobImpl(job);
+    /**
+     * Stop periodic job schedule; job submitted by the last run is not affected
+     *
+     * @param periodicJobId id returned by one of <i>submitJobAtFixedRate</i> methods
+     * @return true if schedule was active
+     */
+    public boolean cancelPeriodicJob(int periodicJobId) {
+        final PeriodicJob periodicJob;
+        synchronized (mScheduleLock) {
+            periodicJob = mPeriodicJobs.remove(periodicJobId);
+            if (periodicJob == null) {
+                return false;
+            }
 
-        return jobId;
+            periodicJob.mFuture.cancel(false);
+            mJobTimer.purge();
+        }
+
+        return true;
+    }
+
+    /**
+     * Cancel all delayed jobs and stop all periodic job schedules
+     *
+     * @return number of cancelled delayed jobs and periodic schedules
+     */
+    public int cancelScheduledJobs() {
+        final List<Integer> delayedJobIds;
+        final List<Integer> periodicJobIds;
+        synchronized (mScheduleLock) {
+            delayedJobIds = new ArrayList<Integer>(mDelayedJobs.keySet());
+            periodicJobIds = new ArrayList<Integer>(mPeriodicJobs.keySet());
+        }
+
+        int count = 0;
+        for (Integer jobId : delayedJobIds) {
+            if (cancelDelayedJob(jobId)) {
+                count++;
+            }
+        }
+        for (Integer periodicJobId : periodicJobIds) {
+            if (cancelPeriodicJob(periodicJobId)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    public boolean isJobDelayed(int jobId) {
+        synchronized (mScheduleLock) {
+            return mDelayedJobs.containsKey(jobId);
+        }
     }
 
     protected abstract void submitJobImpl(Job job);
 
+    /**
+     * Submit registered jobs batch; submits jobs one by one by default
+     *
+     * @param jobs jobs in submit order
+     */
+    protected void submitJobsImpl(List<Job> jobs) {
+        for (Job job : jobs) {
+            submitJobImpl(job);
+        }
+    }
+
     public Properties getProperties() {
         return mProperties;
     }
@@ -150,36 +718,53 @@ public abstract class JobManager implements JobEventObservable {
     }
 
     public Job findJob(int jobId) {
-        for (Job job : mJobs) {
-            if (job.getJobId() == jobId) {
-                return job;
-            }
-        }
-
-        return null;
+        return mJobs.get(jobId);
     }
 
+    /**
+     * Find earliest submitted job matching selector
+     *
+     * @param selector job selector
+     * @return matching job or null
+     */
     public Job findJob(JobSelector selector) {
-        for (Job job : mJobs) {
-            if (selector.apply(job)) {
-                return job;
+        final Predicate<Job> predicate = selector.compile();
+        Job result = null;
+        for (Job job : mJobs.getCandidates(selector)) {
+            if ((result == null || job.getJobId() < result.getJobId()) && predicate.apply(job)) {
+                result = job;
             }
         }
 
-        return null;
+        return result;
     }
 
+    /**
+     * Find all jobs matching selector
+     *
+     * @param selector job selector
+     * @return matching jobs in submit order
+     */
     public List<Job> findAll(JobSelector selector) {
+        final Predicate<Job> predicate = selector.compile();
         List<Job> result = new ArrayList<Job>();
-        for (Job job : mJobs) {
-            if (selector.apply(job)) {
+        for (Job job : mJobs.getCandidates(selector)) {
+            if (predicate.apply(job)) {
                 result.add(job);
             }
         }
+        Collections.sort(result, JOB_ID_COMPARATOR);
 
         return result;
     }
 
+    /**
+     * @return number of submitted jobs which are not finished or discarded yet
+     */
+    public int getJobCount() {
+        return mJobs.size();
+    }
+
     public boolean isJobCancelled(int jobId) {
         Job job = findJob(jobId);
 
@@ -187,8 +772,9 @@ public abstract class JobManager implements JobEventObservable {
     }
 
     public boolean isAllCancelled(JobSelector selector) {
-        for (Job job : mJobs) {
-            if (selector.apply(job)) {
+        final Predicate<Job> predicate = selector.compile();
+        for (Job job : mJobs.getCandidates(selector)) {
+            if (predicate.apply(job)) {
                 if (job.isCancelled() == false) {
                     return false;
                 }
@@ -199,6 +785,10 @@ public abstract class JobManager implements JobEventObservable {
     }
 
     public boolean cancelJob(int jobId) {
+        if (cancelDelayedJob(jobId)) {
+            return true;
+        }
+
         Job job = findJob(jobId);
         if (job != null && job.isCancelled() == false) {
             job.cancel();
@@ -210,12 +800,15 @@ public abstract class JobManager implements JobEventObservable {
     }
 
     public int cancelAll(JobSelector selector) {
+        final Predicate<Job> predicate = selector.compile();
         int count = 0;
 
-        for (Job job : mJobs) {
-            if (selector.apply(job)) {
-                if (job != null && job.isCancelled() == false) {
-                    job.cancel();
+        for (Job job : mJobs.getCandidates(selector)) {
+            if (predicate.apply(job)) {
+                if (job.isCancelled() == false) {
+                    if (!cancelDelayedJob(job.getJobId())) {
+                        job.cancel();
+                    }
 
                     count++;
                 }
@@ -226,28 +819,15 @@ public abstract class JobManager implements JobEventObservable {
     }
 
     public boolean discardJob(int jobId) {
-        Iterator<Job> iter = mJobs.iterator();
-        while (iter.hasNext()) {
-            Job next = iter.next();
-
-            if (next.getJobId() == jobId) {
-                iter.remove();
-                return true;
-            }
-        }
-
-        return false;
+        return mJobs.remove(jobId) != null;
     }
 
     public int discardAll(JobSelector selector) {
+        final Predicate<Job> predicate = selector.compile();
         int count = 0;
 
-        Iterator<Job> iter = mJobs.iterator();
-        while (iter.hasNext()) {
-            Job next = iter.next();
-
-            if (selector.apply(next)) {
-                iter.remove();
+        for (Job job : mJobs.getCandidates(selector)) {
+            if (predicate.apply(job) && mJobs.remove(job.getJobId()) != null) {
                 count++;
             }
         }
@@ -259,6 +839,369 @@ public abstract class JobManager implements JobEventObservable {
         return new ReflectiveJobFactory(params);
     }
 
+    /**
+     * Set cache of {@link LoadJob} results.
+     * <br>
+     * Load job declaring {@link LoadJob#getCacheKey()} and submitted by {@link #submitJob(Job)}
+     * or {@link #submitJobs(Collection)} is finished with cached result without being passed
+     * to worker; on cache miss successful job result is written to the cache.
+     * Cached result older than {@link LoadJob#getCacheRefreshIntervalMillis()} is delivered
+     * as well, while the job is recreated by {@link #getJobFactory(JobParams)} and executed
+     * to refresh the cache.
+     *
+     * @param cache cache of load job results or null to disable caching
+     */
+    public void setJobEventsCache(JobEventsCache cache) {
+        mJobEventsCache = cache;
+    }
+
+    public JobEventsCache getJobEventsCache() {
+        return mJobEventsCache;
+    }
+
+    private int registerJob(Job job) {
+        prepareJob(job);
+
+        final int jobId = mJobIdCounter.incrementAndGet();
+        indexJob(job, jobId);
+
+        return jobId;
+    }
+
+    private void prepareJob(Job job) {
+        // Set default params to job if needed
+        if (job != null && !job.hasParams()) {
+            job.setup().apply();
+        }
+
+        checkJobPreconditions(job);
+    }
+
+    /**
+     * Look up cached result of load job before the job is registered;
+     * on cache miss job is subscribed to write its result to the cache
+     *
+     * @return cached result or null if job is not finished from cache
+     */
+    private CachedLoad applyJobEventsCache(Job job) {
+        final JobEventsCache cache = mJobEventsCache;
+        if (cache == null || !(job instanceof LoadJob)) {
+            return null;
+        }
+
+        final LoadJob loadJob = (LoadJob) job;
+        final String cacheKey = loadJob.getCacheKey();
+        if (cacheKey == null) {
+            return null;
+        }
+
+        final JobEvent cachedEvent = cache.getEvent(cacheKey);
+        if (!(cachedEvent instanceof LoadJobResult) || cachedEvent.getJobStatus() != JobStatus.OK) {
+            job.addJobEventListener(mCacheWriteListener);
+
+            return null;
+        }
+
+        final LoadJobResult<?> cachedResult = (LoadJobResult<?>) cachedEvent;
+        final long refreshIntervalMillis = loadJob.getCacheRefreshIntervalMillis();
+        final boolean isStale = refreshIntervalMillis != LoadJob.REFRESH_INTERVAL_NONE
+                && System.currentTimeMillis() - cachedResult.getLoadTimeMillis() > refreshIntervalMillis;
+
+        // Params are copied before job id is assigned, so the job may be recreated from them
+        return new CachedLoad(cachedResult, cacheKey, isStale ? copyRefreshParams(job.getParams()) : null);
+    }
+
+    /**
+     * Refresh job only writes the cache, so it doesn't take tags of the job it is copied from
+     */
+    private static JobParams copyRefreshParams(JobParams params) {
+        if (params instanceof Params) {
+            return ((Params) params).copyWithBuilder()
+                    .tags(Collections.<String>emptySet())
+                    .build();
+        }
+
+        return params.copy();
+    }
+
+    private void submitPreparedJob(Job job, int jobId) {
+        final CachedLoad cachedLoad = applyJobEventsCache(job);
+        indexJob(job, jobId);
+
+        if (cachedLoad != null) {
+            completeFromCache(job, cachedLoad);
+        } else {
+            submitJobImpl(job);
+        }
+    }
+
+    /**
+     * @return unfinished job registered with given coalesce key or null
+     */
+    private InFlightJob findInFlightJob(Object coalesceKey) {
+        final InFlightJob inFlightJob = mInFlightJobs.get(coalesceKey);
+        if (inFlightJob == null) {
+            return null;
+        }
+
+        // Cancelled or discarded job is replaced by the next one;
+        // job id is assigned before the job is indexed, so missing job is discarded once submitted
+        if (isJobTerminated(inFlightJob.job) || inFlightJob.job.isCancelled()
+                || (inFlightJob.isSubmitted && findJob(inFlightJob.jobId) == null)) {
+
+            mInFlightJobs.remove(coalesceKey);
+            mInFlightJobIds.remove(inFlightJob.jobId);
+
+            return null;
+        }
+
+        return inFlightJob;
+    }
+
+    /**
+     * Add tags of coalesced job to in-flight job params
+     *
+     * @return false if in-flight job lacks some tags and its params can't be extended
+     */
+    private boolean mergeJobTags(InFlightJob inFlightJob, Job job) {
+        final Collection<String> tags = job.getParams().getTags();
+        final JobParams params = inFlightJob.job.getParams();
+        if (tags.isEmpty() || params.hasTags(tags)) {
+            return true;
+        }
+
+        if (!(params instanceof Params)) {
+            return false;
+        }
+
+        ((Params) params).addTags(tags);
+        mJobs.reindex(inFlightJob.job);
+
+        return true;
+    }
+
+    private InFlightJob registerInFlightJob(Job job, Object coalesceKey) {
+        final int jobId = mJobIdCounter.incrementAndGet();
+        final InFlightJob inFlightJob = new InFlightJob(job, jobId, coalesceKey);
+
+        mInFlightJobs.put(coalesceKey, inFlightJob);
+        mInFlightJobIds.put(jobId, inFlightJob);
+
+        return inFlightJob;
+    }
+
+    private void unregisterInFlightJob(int jobId) {
+        synchronized (mInFlightJobs) {
+            final InFlightJob inFlightJob = mInFlightJobIds.remove(jobId);
+            if (inFlightJob != null && mInFlightJobs.get(inFlightJob.coalesceKey) == inFlightJob) {
+                mInFlightJobs.remove(inFlightJob.coalesceKey);
+            }
+        }
+    }
+
+    private void submitInFlightJob(InFlightJob inFlightJob) {
+        final Job job = inFlightJob.job;
+        job.addJobEventListener(mInFlightJobListener);
+
+        try {
+            submitPreparedJob(job, inFlightJob.jobId);
+            inFlightJob.isSubmitted = true;
+
+        } catch (RuntimeException e) {
+            // Don't let equivalent jobs wait for the job which is never executed
+            unregisterInFlightJob(inFlightJob.jobId);
+            throw e;
+        }
+    }
+
+    private void completeFromCache(Job job, CachedLoad cachedLoad) {
+        abortJob(job, cachedLoad.result.detach());
+
+        if (cachedLoad.refreshParams != null) {
+            refreshCachedLoad(cachedLoad.cacheKey, cachedLoad.refreshParams);
+        }
+    }
+
+    /**
+     * Execute a copy of load job to refresh its cached result,
+     * unless the result is being refreshed already.
+     * <br>
+     * Refresh job is not indexed and its events are not routed to job event listeners,
+     * so subscribers and selectors of the refreshed request see a single job and result.
+     */
+    private void refreshCachedLoad(final String cacheKey, JobParams params) {
+        if (mRefreshingCacheKeys.putIfAbsent(cacheKey, JOB_ID_UNSPECIFIED) != null) {
+            return;
+        }
+
+        final Job refreshJob;
+        try {
+            refreshJob = getJobFactory(params).createJob();
+            prepareJob(refreshJob);
+
+        } catch (RuntimeException e) {
+            mRefreshingCacheKeys.remove(cacheKey);
+            Log.w(LOG_TAG, String.format("unable to refresh cached result '%s'", cacheKey), e);
+
+            return;
+        }
+
+        final int jobId = mJobIdCounter.incrementAndGet();
+        mRefreshingCacheKeys.put(cacheKey, jobId);
+        refreshJob.getParams().assignJobId(jobId);
+        refreshJob.addJobEventListener(new JobEventListener() {
+            @Override
+            public void onJobEvent(JobEvent event) {
+                if (!event.isJobFinished()) {
+                    return;
+                }
+
+                if (refreshJob instanceof LoadJob) {
+                    writeCachedLoad((LoadJob) refreshJob, cacheKey, event);
+                } else {
+                    mRefreshingCacheKeys.remove(cacheKey, jobId);
+                }
+            }
+        });
+
+        submitJobImpl(refreshJob);
+    }
+
+    /**
+     * Write successful result of finished load job to the cache
+     */
+    private void writeCachedLoad(LoadJob loadJob, String cacheKey, JobEvent event) {
+        mRefreshingCacheKeys.remove(cacheKey, event.getJobId());
+
+        final JobEventsCache cache = mJobEventsCache;
+        if (cache != null
+                && event.getJobStatus() == JobStatus.OK
+                && event instanceof LoadJobResult) {
+
+            cache.putEvent(((LoadJobResult<?>) event).detach(),
+                    cacheKey, loadJob.getCacheEntryDescriptor());
+        }
+    }
+
+    private void indexJob(Job job, int jobId) {
+        job.getParams().assignJobId(jobId);
+        job.addJobEventListener(mJobEventListener);
+
+        mJobs.add(job);
+    }
+
+    private ScheduledThreadPoolExecutor getJobTimer() {
+        synchronized (mScheduleLock) {
+            if (mJobTimer == null) {
+                mJobTimer = new ScheduledThreadPoolExecutor(1, JOB_TIMER_THREAD_FACTORY);
+            }
+
+            return mJobTimer;
+        }
+    }
+
+    private int schedulePeriodicJob(PeriodicJob periodicJob, long initialDelayMillis, long periodMillis) {
+        if (initialDelayMillis < 0) {
+            throw new IllegalArgumentException("initialDelayMillis < 0");
+        }
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException("periodMillis <= 0");
+        }
+
+        synchronized (mScheduleLock) {
+            periodicJob.mFuture = getJobTimer().scheduleAtFixedRate(periodicJob,
+                    initialDelayMillis, periodMillis, TimeUnit.MILLISECONDS);
+
+            mPeriodicJobs.put(periodicJob.mPeriodicJobId, periodicJob);
+        }
+
+        return periodicJob.mPeriodicJobId;
+    }
+
+    private DelayedJob removeDelayedJob(int jobId) {
+        synchronized (mScheduleLock) {
+            final DelayedJob delayedJob = mDelayedJobs.remove(jobId);
+            if (delayedJob != null && delayedJob.coalesceKey != null) {
+                final Integer coalescedJobId = mCoalescedJobIds.get(delayedJob.coalesceKey);
+                if (coalescedJobId != null && coalescedJobId == jobId) {
+                    mCoalescedJobIds.remove(delayedJob.coalesceKey);
+                }
+            }
+
+            return delayedJob;
+        }
+    }
+
+    private void onDelayedJobDue(int jobId) {
+        if (removeDelayedJob(jobId) == null) {
+            return;
+        }
+
+        final Job job = findJob(jobId);
+        if (job == null) {
+            return;
+        }
+
+        if (job.isCancelled()) {
+            abortCancelledJob(job);
+
+        } else {
+            submitJobImpl(job);
+        }
+    }
+
+    private boolean cancelDelayedJob(int jobId) {
+        final DelayedJob delayedJob = removeDelayedJob(jobId);
+        if (delayedJob == null) {
+            return false;
+        }
+
+        delayedJob.future.cancel(false);
+        synchronized (mScheduleLock) {
+            mJobTimer.purge();
+        }
+
+        final Job job = findJob(jobId);
+        if (job != null) {
+            job.cancel();
+            abortCancelledJob(job);
+        }
+
+        return true;
+    }
+
+    private void abortCancelledJob(Job job) {
+        if (job.getStatus() == JobStatus.PENDING) {
+            abortJob(job, new JobEvent.Builder()
+                    .eventCode(JobEvent.EVENT_CODE_CANCELLED)
+                    .jobStatus(JobStatus.CANCELLED)
+                    .build());
+        }
+    }
+
+    /**
+     * Finish pending job without execution.
+     * <br>
+     * Job not derived from {@link BaseJob} can't be finished from outside,
+     * so it is cancelled and its listeners are notified with passed result.
+     *
+     * @param job pending job
+     * @param result event defining one of finished job statuses
+     */
+    static void abortJob(Job job, JobEvent result) {
+        if (job instanceof BaseJob) {
+            ((BaseJob) job).abort(result);
+
+        } else {
+            job.cancel();
+            job.notifyJobEvent(result);
+        }
+    }
+
+    private static boolean isJobTerminated(Job job) {
+        return job.isFinished() || job.getStatus() == JobStatus.CANCELLED;
+    }
+
     private void checkJobPreconditions(Job job) {
         if (job == null) {
             throw new IllegalArgumentException("job is null");
@@ -280,6 +1223,8 @@ public abstract class JobManager implements JobEventObservable {
                 job.removeJobEventListener(mJobEventListener);
             }
 
+            mEventRouter.removeJob(event.getJobId());
+
             final int jobId = event.getJobId();
             mHandler.post(new Runnable() {
                 @Override
@@ -325,13 +1270,56 @@ public abstract class JobManager implements JobEventObservable {
         return mJobObservable.removeJobEventListener(tag);
     }
 
+    /**
+     * Subscribe listener to events of given job only.
+     * Subscription is dropped once the job is finished.
+     *
+     * @param jobId id of the job to listen
+     * @param listener weakly referenced listener to notify
+     */
+    public void addJobEventListener(int jobId, JobEventListener listener) {
+        mEventRouter.addJobListener(jobId, listener);
+    }
+
+    public boolean removeJobEventListener(int jobId, JobEventListener listener) {
+        return mEventRouter.removeJobListener(jobId, listener);
+    }
+
+    /**
+     * Subscribe listener to events of jobs tagged with given tag
+     *
+     * @param jobTag tag of jobs to listen
+     * @param listener weakly referenced listener to notify
+     */
+    public void addJobTagEventListener(String jobTag, JobEventListener listener) {
+        if (jobTag == null) {
+            throw new IllegalArgumentException("job tag is null");
+        }
+
+        mEventRouter.addJobTagListener(jobTag, listener);
+    }
+
+    public boolean removeJobTagEventListener(String jobTag, JobEventListener listener) {
+        if (jobTag == null) {
+            throw new IllegalArgumentException("job tag is null");
+        }
+
+        return mEventRouter.removeJobTagListener(jobTag, listener);
+    }
+
+    /**
+     * Notify listeners subscribed to all jobs, then listeners subscribed
+     * to job id or to any of job tags
+     */
     @Override
     public void notifyJobEvent(JobEvent result) {
         mJobObservable.notifyJobEvent(result);
+        mEventRouter.route(result);
     }
 
     @Override
     public void removeJobEventListeners() {
         mJobObservable.removeJobEventListeners();
+        mEventRouter.clear();
     }
 }
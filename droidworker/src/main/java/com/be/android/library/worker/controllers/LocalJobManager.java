@@ -0,0 +1,68 @@
+package com.be.android.library.worker.controllers;
+
+import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.interfaces.Worker;
+import com.be.android.library.worker.service.ThreadPoolWorkerService;
+import com.be.android.library.worker.util.Workers;
+
+import java.util.List;
+
+/**
+ * Job manager submitting jobs directly to it's own worker without any worker service.
+ * <br>
+ * Intended for processes which don't need a service to stay alive, such as tests,
+ * JVM tools or servers, and for components bound to their own lifecycle.
+ */
+public class LocalJobManager extends JobManager {
+
+    private final Worker mWorker;
+
+    /**
+     * Create job manager with {@link ThreadPoolWorker} handling finished jobs
+     * on it's dispatcher thread, so that no main looper is required
+     */
+    public LocalJobManager() {
+        this(ThreadPoolWorkerService.THREAD_POOL_SIZE_DEFAULT);
+    }
+
+    public LocalJobManager(int threadPoolSize) {
+        this(createWorker(threadPoolSize));
+    }
+
+    public LocalJobManager(Worker worker) {
+        if (worker == null) {
+            throw new IllegalArgumentException("worker is null");
+        }
+
+        mWorker = worker;
+    }
+
+    public Worker getWorker() {
+        return mWorker;
+    }
+
+    /**
+     * Cancel scheduled jobs and finish worker
+     */
+    public void finish() {
+        cancelScheduledJobs();
+        mWorker.finish();
+    }
+
+    @Override
+    protected void submitJobImpl(Job job) {
+        mWorker.submitJob(job);
+    }
+
+    @Override
+    protected void submitJobsImpl(List<Job> jobs) {
+        Workers.submitJobs(mWorker, jobs);
+    }
+
+    private static ThreadPoolWorker createWorker(int threadPoolSize) {
+        final ThreadPoolWorker worker = new ThreadPoolWorker(threadPoolSize);
+        worker.setCompletionMode(ThreadPoolWorker.COMPLETION_MODE_DISPATCHER_THREAD);
+
+        return worker;
+    }
+}
@@ -0,0 +1,64 @@
+package com.be.android.library.worker.controllers;
+
+import com.be.android.library.worker.interfaces.JobSchedulingPolicy;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Always serves group with the highest priority.
+ * <p>
+ * Group that has just finished a job keeps being served while it has queued jobs.
+ * Otherwise group with the highest assigned priority is selected; groups
+ * of equal priority are served in group id order. With no priorities assigned
+ * this is the default {@link ThreadPoolWorker} behavior.
+ * <p>
+ * Lower priority groups may starve under sustained load.
+ */
+public class StrictPrioritySchedulingPolicy implements JobSchedulingPolicy {
+
+    private final Map<Integer, Integer> mGroupPriorities;
+
+    public StrictPrioritySchedulingPolicy() {
+        mGroupPriorities = new HashMap<Integer, Integer>();
+    }
+
+    public synchronized StrictPrioritySchedulingPolicy setGroupPriority(int groupId, int priority) {
+        mGroupPriorities.put(groupId, priority);
+
+        return this;
+    }
+
+    public synchronized int getGroupPriority(int groupId) {
+        final Integer priority = mGroupPriorities.get(groupId);
+
+        return priority == null ? 0 : priority;
+    }
+
+    @Override
+    public synchronized int selectGroup(List<JobGroupStats> readyGroups, int releasedGroupId) {
+        int selectedGroupId = GROUP_NONE;
+        int selectedPriority = Integer.MIN_VALUE;
+
+        for (JobGroupStats stats : readyGroups) {
+            final int groupId = stats.getGroupId();
+
+            if (groupId == releasedGroupId && groupId != JobManager.JOB_GROUP_UNIQUE) {
+                return groupId;
+            }
+
+            final int priority = getGroupPriority(groupId);
+            if (selectedGroupId == GROUP_NONE || priority > selectedPriority) {
+                selectedGroupId = groupId;
+                selectedPriority = priority;
+            }
+        }
+
+        return selectedGroupId;
+    }
+
+    @Override
+    public void onGroupDrained(int groupId) {
+    }
+}
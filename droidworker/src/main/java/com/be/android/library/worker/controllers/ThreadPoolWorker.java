@@ -1,40 +1,51 @@
 package com.be.android.library.worker.controllers;
 
 import android.os.AsyncTask;
-import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
-import android.util.SparseArray;
 
 import com.be.android.library.worker.base.JobEvent;
 import com.be.android.library.worker.base.JobStatus;
 import com.be.android.library.worker.base.ProfilerJob;
+import com.be.android.library.worker.interfaces.BatchWorker;
 import com.be.android.library.worker.interfaces.Job;
 import com.be.android.library.worker.interfaces.JobEventListener;
-import com.be.android.library.worker.interfaces.Worker;
+import com.be.android.library.worker.interfaces.JobSchedulingPolicy;
 import com.be.android.library.worker.models.JobParams;
+import com.be.android.library.worker.util.IntObjectMap;
+import com.be.android.library.worker.util.IntSet;
+import com.be.android.library.worker.util.JobEventBus;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-public class ThreadPoolWorker implements Worker {
+public class ThreadPoolWorker implements BatchWorker {
 
     public static final String LOG_TAG = ThreadPoolWorker.class.getSimpleName();
 
@@ -42,8 +53,84 @@ public class ThreadPoolWorker implements Worker {
     public static final String BASE_EXCLUSIVE_JOB_THREAD_NAME = "ExclusiveJobThread.";
     public static final String BASE_ALLOCATED_THREAD_NAME = "AllocatedWorkerThread.";
     public static final String BASE_DEDICATED_THREAD_NAME = "DedicatedWorkerThread.";
+    public static final String BASE_VIRTUAL_THREAD_NAME = "VirtualWorkerThread.";
+    public static final String BASE_BLOCKING_THREAD_NAME = "BlockingWorkerThread.";
+    public static final String DISPATCHER_THREAD_NAME = "WorkerDispatcherThread";
+    public static final String POOL_SIZE_SAMPLER_THREAD_NAME = "WorkerPoolSizeSamplerThread";
+
+    /**
+     * Jobs are executed on shared thread pool, jobs waiting for
+     * busy group or thread are kept in global job queue
+     */
+    public static final int SCHEDULER_MODE_QUEUED = 0;
+
+    /**
+     * Jobs are executed on pool threads with own work deques;
+     * idle threads steal work from busy threads
+     */
+    public static final int SCHEDULER_MODE_WORK_STEALING = 1;
+
+    /**
+     * Finished job handling and next job dispatch are performed on the main thread
+     */
+    public static final int COMPLETION_MODE_MAIN_THREAD = 0;
+
+    /**
+     * Finished job handling and next job dispatch are performed on a dedicated dispatcher thread
+     */
+    public static final int COMPLETION_MODE_DISPATCHER_THREAD = 1;
+
+    /**
+     * Finished job handling and next job dispatch are performed right on the worker
+     * thread that finished the job
+     */
+    public static final int COMPLETION_MODE_WORKER_THREAD = 2;
+
+    /**
+     * Group jobs are executed on common thread pool
+     * or by the rules of their group
+     */
+    public static final int EXECUTION_MODE_POOLED = 0;
+
+    /**
+     * Group jobs are executed on virtual threads if runtime supports them
+     * or on a separate pool of blocking job threads otherwise
+     *
+     * @see JobParams#FLAG_VIRTUAL_THREAD_EXECUTION
+     */
+    public static final int EXECUTION_MODE_VIRTUAL_THREAD = 1;
+
+    public static final int QUEUE_CAPACITY_UNBOUNDED = -1;
+    public static final int THREAD_COUNT_UNBOUNDED = -1;
+
+    /**
+     * Job submitted to a full queue is finished with failure event
+     * of {@link JobEvent#EXTRA_CODE_JOB_REJECTED}
+     */
+    public static final int OVERFLOW_POLICY_REJECT = 0;
+
+    /**
+     * Job queued for the longest time is finished with failure event
+     * in favor of submitted job
+     */
+    public static final int OVERFLOW_POLICY_DROP_OLDEST = 1;
+
+    /**
+     * Queued job of the lowest priority is finished with failure event in favor
+     * of submitted job; submitted job is rejected if it's priority is not higher
+     */
+    public static final int OVERFLOW_POLICY_DROP_LOWEST_PRIORITY = 2;
+
+    /**
+     * Submitting thread is blocked until queue has free capacity;
+     * job is rejected once block timeout is elapsed
+     */
+    public static final int OVERFLOW_POLICY_BLOCK = 3;
 
     private static final int THREAD_KEEP_ALIVE_TIME_MILLIS = 10000;
+    private static final long QUEUE_BLOCK_TIMEOUT_MILLIS_DEFAULT = 5000;
+    private static final long POOL_SIZE_SAMPLE_INTERVAL_MILLIS_DEFAULT = 500;
+    private static final int BLOCKING_THREAD_COUNT_DEFAULT = 32;
     private static final int MAX_FREE_EXCLUSIVE_EXECUTORS_DEFAULT = 10;
     private static final int MAX_FREE_EXCLUSIVE_EXECUTORS_UNLIMITED = -1;
 
@@ -57,6 +144,7 @@ public class ThreadPoolWorker implements Worker {
                     ")";
 
             Thread thread = new Thread(runnable, threadName);
+            mCoreThreads.put(thread, Boolean.TRUE);
 
             logTrace("+ created new pool thread '%s'", threadName);
 
@@ -109,6 +197,47 @@ public class ThreadPoolWorker implements Worker {
         }
     }
 
+    private final ThreadFactory mBlockingThreadFactory = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            String threadName = BASE_BLOCKING_THREAD_NAME +
+                    mBlockingThreadCounter.incrementAndGet() +
+                    "(" +
+                    mThreadCounter.incrementAndGet() +
+                    ")";
+
+            Thread thread = new Thread(runnable, threadName);
+            logTrace("+ created new blocking job thread '%s'", threadName);
+
+            return thread;
+        }
+    };
+
+    private final ThreadFactory mPoolSizeSamplerThreadFactory = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, POOL_SIZE_SAMPLER_THREAD_NAME +
+                    "(" + mThreadCounter.incrementAndGet() + ")");
+            thread.setDaemon(true);
+
+            return thread;
+        }
+    };
+
+    private final ThreadFactory mDispatcherThreadFactory = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, DISPATCHER_THREAD_NAME +
+                    "(" + mThreadCounter.incrementAndGet() + ")");
+            thread.setDaemon(true);
+            mDispatcherThread = thread;
+
+            logTrace("+ created dispatcher thread '%s'", thread.getName());
+
+            return thread;
+        }
+    };
+
     private class DedicatedThreadFactory implements ThreadFactory {
 
         private int jobId;
@@ -144,15 +273,21 @@ public class ThreadPoolWorker implements Worker {
      */
     private final ThreadPoolExecutor mCoreExecutor;
 
+    /**
+     * Work-stealing job pool used instead of core executor
+     * in {@link #SCHEDULER_MODE_WORK_STEALING}
+     */
+    private final WorkStealingJobPool mWorkStealingPool;
+
     /**
      * Executors mapped to specific job group id
      */
-    private final SparseArray<ExecutorProvider> mAllocatedExecutors;
+    private final Map<Integer, ExecutorProvider> mAllocatedExecutors;
 
     /**
      * Executors mapped to specific job id
      */
-    private final SparseArray<ExecutorProvider> mExclusiveJobExecutors;
+    private final Map<Integer, ExecutorProvider> mExclusiveJobExecutors;
 
     /**
      * Queued jobs mapped to certain job group id
@@ -160,17 +295,77 @@ public class ThreadPoolWorker implements Worker {
      * Once job is executed, corresponding entry is evicted.
      *
      */
-    private final SparseArray<TreeSet<Job>> mQueuedJobs;
+    private final TreeMap<Integer, TreeSet<Job>> mQueuedJobs;
+
+    /**
+     * Queue statistics mapped to job group id and enqueue time mapped to queued job id;
+     * guarded by queued jobs lock
+     */
+    private final Map<Integer, JobGroupStats> mGroupStats;
+    private final LinkedHashMap<Integer, Long> mJobEnqueueTimes;
+
+    /**
+     * Queue capacity mapped to job group id; guarded by queued jobs lock
+     */
+    private final Map<Integer, Integer> mGroupQueueCapacities;
+    private volatile int mQueueCapacity = QUEUE_CAPACITY_UNBOUNDED;
+    private volatile int mOverflowPolicy = OVERFLOW_POLICY_REJECT;
+    private volatile long mQueueBlockTimeoutMillis = QUEUE_BLOCK_TIMEOUT_MILLIS_DEFAULT;
+    private volatile int mMaxThreadCount = THREAD_COUNT_UNBOUNDED;
+
+    /**
+     * Overflow counters indexed by overflow policy
+     */
+    private final AtomicLong[] mOverflowCounters;
+    private final AtomicLong mQueueBlockTimeoutCount;
+    private final AtomicInteger mBlockedSubmitterCount;
+    private final Object mQueueCapacityMonitor;
+
+    /**
+     * Common pool threads used to sample blocked thread count
+     */
+    private final ConcurrentHashMap<Thread, Boolean> mCoreThreads;
+    private final AtomicLong mCompletedJobCount;
+    private final AtomicLong mTotalQueueWaitTimeNanos;
+    private final AtomicLong mTotalExecutionTimeNanos;
+    private final Object mPoolSizeControllerLock;
+    private AdaptivePoolSizeController mPoolSizeController;
+    private ScheduledExecutorService mPoolSizeSampler;
+
+    /**
+     * Executor of jobs running on virtual threads; created on demand
+     */
+    private ExecutorService mVirtualThreadExecutor;
+    private final Object mVirtualThreadExecutorLock;
+    private int mBlockingThreadCount = BLOCKING_THREAD_COUNT_DEFAULT;
+    private final ConcurrentHashMap<Integer, Boolean> mVirtualThreadGroups;
+    private final AtomicInteger mBlockingThreadCounter;
+
+    /**
+     * Execution start time mapped to pending job id
+     */
+    private final ConcurrentHashMap<Integer, Long> mJobExecutionStartTimes;
 
     /**
      * Job group id mapped to each executed job.
      * Once job execution finished, corresponding entry is evicted.
      */
-    private final SparseArray<Job> mPendingJobs;
-    private final LinkedList<Job> mUniquePendingJobs;
+    private final IntObjectMap<Job> mPendingJobs;
+    private final Map<Integer, Job> mUniquePendingJobs;
+
+    /**
+     * Queued and executing jobs mapped to job id
+     */
+    private final ConcurrentHashMap<Integer, Job> mQueuedJobIndex;
+    private final ConcurrentHashMap<Integer, Job> mPendingJobIndex;
+
     private final LinkedList<ExecutorProvider> mFreeExecutors;
 
-    private final Handler mHandler;
+    private final JobEventBus mMainThreadBus;
+    private final ExecutorProvider mDispatcherExecutor;
+    private volatile Thread mDispatcherThread;
+    private volatile int mCompletionMode = COMPLETION_MODE_MAIN_THREAD;
+    private volatile JobSchedulingPolicy mSchedulingPolicy;
     private final String mJobFinishListenerTag;
     private final ReadWriteLock mQueuedJobsLock;
     private final ReadWriteLock mPendingJobsLock;
@@ -191,9 +386,10 @@ public class ThreadPoolWorker implements Worker {
      * Contains fully-qualified type names.
      */
     private final Set<String> mTraceJobs;
-    private final Set<Integer> mTraceJobGroups;
+    private final IntSet mTraceJobGroups;
     private final Lock mTraceLock;
     private final BlockingQueue<Runnable> mCoreExecutorQueue;
+    private final int mSchedulerMode;
 
     private final Comparator<Job> mJobPriorityComparator =
             new Comparator<Job>() {
@@ -208,12 +404,62 @@ public class ThreadPoolWorker implements Worker {
                 }
             };
 
+    private final Runnable mDispatchNextQueuedJobTask = new Runnable() {
+        @Override
+        public void run() {
+            dispatchNextQueuedJob();
+        }
+    };
+
+    private final AdaptivePoolSizeController.PoolMetrics mPoolMetrics =
+            new AdaptivePoolSizeController.PoolMetrics() {
+                @Override
+                public int getCorePoolSize() {
+                    return mCoreExecutor.getCorePoolSize();
+                }
+
+                @Override
+                public void setCorePoolSize(int size) {
+                    setCoreThreadCount(size);
+                }
+
+                @Override
+                public int getActiveThreadCount() {
+                    return mCoreExecutor.getActiveCount();
+                }
+
+                @Override
+                public int getBlockedThreadCount() {
+                    return ThreadPoolWorker.this.getBlockedThreadCount();
+                }
+
+                @Override
+                public int getQueuedJobCount() {
+                    return ThreadPoolWorker.this.getQueuedJobCount();
+                }
+
+                @Override
+                public long getCompletedJobCount() {
+                    return mCompletedJobCount.get();
+                }
+
+                @Override
+                public long getTotalQueueWaitTimeNanos() {
+                    return mTotalQueueWaitTimeNanos.get();
+                }
+
+                @Override
+                public long getTotalExecutionTimeNanos() {
+                    return mTotalExecutionTimeNanos.get();
+                }
+            };
+
     private final JobEventListener mJobEventListener = new JobEventListener() {
         @Override
         public void onJobEvent(final JobEvent event) {
             if (event.isJobFinished() == false) return;
 
-            mHandler.post(new Runnable() {
+            postJobResultHandler(new Runnable() {
 
                 @Override
                 public void run() {
@@ -223,16 +469,50 @@ public class ThreadPoolWorker implements Worker {
         }
     };
 
+    private final WorkStealingJobPool.Callbacks mWorkStealingPoolCallbacks =
+            new WorkStealingJobPool.Callbacks() {
+                @Override
+                public void onJobStarted(Job job) {
+                    logTrace("+ job started on work-stealing pool", job);
+                }
+
+                @Override
+                public void onJobFinished(Job job) {
+                    final boolean isTraceEnabled = logTrace("+ job finished;", job);
+                    if (isTraceEnabled && job instanceof ProfilerJob) {
+                        logTraceForce("Profile job dump:\n%s", job, ((ProfilerJob) job).dumpProfile());
+                    }
+                    if (job.getParams().checkFlag(JobParams.FLAG_FORCE_EXECUTE)) {
+                        removeExclusiveJobExecutor(job.getJobId());
+                    }
+                }
+            };
+
     public ThreadPoolWorker(int threadCount) {
+        this(threadCount, SCHEDULER_MODE_QUEUED);
+    }
+
+    /**
+     * @param threadCount core thread count
+     * @param schedulerMode one of {@link #SCHEDULER_MODE_QUEUED}
+     *                      or {@link #SCHEDULER_MODE_WORK_STEALING}
+     */
+    public ThreadPoolWorker(int threadCount, int schedulerMode) {
         if (threadCount < 1) {
             throw new IllegalArgumentException("threadCount < 1");
         }
+        if (schedulerMode != SCHEDULER_MODE_QUEUED
+                && schedulerMode != SCHEDULER_MODE_WORK_STEALING) {
+
+            throw new IllegalArgumentException("unknown scheduler mode");
+        }
 
-        mHandler = new Handler(Looper.getMainLooper());
+        mMainThreadBus = JobEventBus.getMainThreadBus();
+        mDispatcherExecutor = new ExecutorProvider(mDispatcherThreadFactory);
         mJobFinishListenerTag = getClass().getSimpleName() + "_listener_tag_" + String.valueOf(System.currentTimeMillis());
         mTraceJobs = new HashSet<String>();
         mIsStopped = new AtomicBoolean(false);
-        mTraceJobGroups = new HashSet<Integer>();
+        mTraceJobGroups = new IntSet();
         mTraceLock = new ReentrantLock(false);
         mThreadCounter = new AtomicInteger(0);
         mPoolThreadCounter = new AtomicInteger(0);
@@ -241,125 +521,580 @@ public class ThreadPoolWorker implements Worker {
         mExclusiveThreadCounter = new AtomicInteger(0);
         mQueuedJobsLock = new ReentrantReadWriteLock();
         mPendingJobsLock = new ReentrantReadWriteLock();
-        mPendingJobs = new SparseArray<Job>();
-        mUniquePendingJobs = new LinkedList<Job>();
+        mPendingJobs = new IntObjectMap<Job>();
+        mUniquePendingJobs = new HashMap<Integer, Job>();
+        mQueuedJobIndex = new ConcurrentHashMap<Integer, Job>();
+        mPendingJobIndex = new ConcurrentHashMap<Integer, Job>();
         mFreeExecutors = new LinkedList<ExecutorProvider>();
-        mAllocatedExecutors = new SparseArray<ExecutorProvider>(1);
-        mExclusiveJobExecutors = new SparseArray<ExecutorProvider>(0);
-        mQueuedJobs = new SparseArray<TreeSet<Job>>();
+        mAllocatedExecutors = new HashMap<Integer, ExecutorProvider>(1);
+        mExclusiveJobExecutors = new HashMap<Integer, ExecutorProvider>(0);
+        mQueuedJobs = new TreeMap<Integer, TreeSet<Job>>();
+        mGroupStats = new HashMap<Integer, JobGroupStats>();
+        mJobEnqueueTimes = new LinkedHashMap<Integer, Long>();
+        mGroupQueueCapacities = new HashMap<Integer, Integer>();
+        mOverflowCounters = new AtomicLong[] {
+                new AtomicLong(), new AtomicLong(), new AtomicLong(), new AtomicLong() };
+        mQueueBlockTimeoutCount = new AtomicLong();
+        mBlockedSubmitterCount = new AtomicInteger(0);
+        mQueueCapacityMonitor = new Object();
+        mCoreThreads = new ConcurrentHashMap<Thread, Boolean>();
+        mCompletedJobCount = new AtomicLong();
+        mTotalQueueWaitTimeNanos = new AtomicLong();
+        mTotalExecutionTimeNanos = new AtomicLong();
+        mPoolSizeControllerLock = new Object();
+        mVirtualThreadExecutorLock = new Object();
+        mVirtualThreadGroups = new ConcurrentHashMap<Integer, Boolean>();
+        mBlockingThreadCounter = new AtomicInteger(0);
+        mJobExecutionStartTimes = new ConcurrentHashMap<Integer, Long>();
+        mSchedulingPolicy = new StrictPrioritySchedulingPolicy();
         mExecuteLock = new ReentrantLock(false);
         mDispatchLock = new ReentrantLock(false);
         mCoreExecutorQueue = new SynchronousQueue<Runnable>(false);
         mCoreExecutor = new ThreadPoolExecutor(threadCount, threadCount + 1,
                 THREAD_KEEP_ALIVE_TIME_MILLIS, TimeUnit.MILLISECONDS, mCoreExecutorQueue, mCoreThreadFactory);
+        mSchedulerMode = schedulerMode;
+
+        if (schedulerMode == SCHEDULER_MODE_WORK_STEALING) {
+            mWorkStealingPool = new WorkStealingJobPool(threadCount, THREAD_KEEP_ALIVE_TIME_MILLIS,
+                    mCoreThreadFactory, mJobPriorityComparator, mWorkStealingPoolCallbacks);
+        } else {
+            mWorkStealingPool = null;
+        }
+
+        Log.d(LOG_TAG, String.format("thread pool worker created; core pool size: '%d'; " +
+                "scheduler mode: '%d'", threadCount, schedulerMode));
+    }
 
-        Log.d(LOG_TAG, String.format("thread pool worker created; core pool size: '%d'", threadCount));
+    public int getSchedulerMode() {
+        return mSchedulerMode;
     }
 
     /**
-     * Get current number of free exclusive executors
-     * @return count of free exclusive executors
+     * Set where finished jobs are handled and next queued jobs are dispatched.
+     * Job event listeners are not affected.
+     * <p>
+     * {@link #SCHEDULER_MODE_WORK_STEALING} always handles finished jobs on worker threads.
+     *
+     * @param completionMode one of {@link #COMPLETION_MODE_MAIN_THREAD},
+     *                       {@link #COMPLETION_MODE_DISPATCHER_THREAD}
+     *                       or {@link #COMPLETION_MODE_WORKER_THREAD}
      */
-    public int getFreeExclusiveExecutorsCount() {
-        mExecuteLock.lock();
-        try {
-            return mFreeExecutors.size();
+    public void setCompletionMode(int completionMode) {
+        if (completionMode != COMPLETION_MODE_MAIN_THREAD
+                && completionMode != COMPLETION_MODE_DISPATCHER_THREAD
+                && completionMode != COMPLETION_MODE_WORKER_THREAD) {
 
-        } finally {
-            mExecuteLock.unlock();
+            throw new IllegalArgumentException("unknown completion mode");
         }
+
+        mCompletionMode = completionMode;
+    }
+
+    public int getCompletionMode() {
+        return mCompletionMode;
     }
 
     /**
-     * Set maximum number of free exclusive executors to keep
-     * @param count count of executors
+     * Set policy defining which job group is served next when queued job
+     * may be executed. Applies to {@link #SCHEDULER_MODE_QUEUED} only.
+     * <p>
+     * {@link StrictPrioritySchedulingPolicy} is used by default.
+     *
+     * @param policy scheduling policy to use
      */
-    public void setMaxFreeExclusiveExecutorsCount(int count) {
-        if (count < 0 && count != MAX_FREE_EXCLUSIVE_EXECUTORS_UNLIMITED) {
-            throw new IllegalArgumentException("invalid count");
+    public void setSchedulingPolicy(JobSchedulingPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("policy is null");
         }
 
-        if (mMaxFreeExclusiveExecutorsCount == count) {
-            return;
-        }
+        mSchedulingPolicy = policy;
+    }
 
-        mMaxFreeExclusiveExecutorsCount = count;
+    public JobSchedulingPolicy getSchedulingPolicy() {
+        return mSchedulingPolicy;
+    }
 
-        if (count == MAX_FREE_EXCLUSIVE_EXECUTORS_UNLIMITED) {
-            return;
+    /**
+     * Get queue statistics snapshot of specified job group.
+     * Statistics are collected in {@link #SCHEDULER_MODE_QUEUED} only.
+     *
+     * Statistics of a group are dropped once it's last job is finished with no jobs queued.
+     *
+     * @param groupId job group id
+     * @return statistics snapshot or null if group has no queued or executing jobs
+     */
+    public JobGroupStats getJobGroupStats(int groupId) {
+        final Lock lock = mQueuedJobsLock.readLock();
+        lock.lock();
+        try {
+            final JobGroupStats stats = mGroupStats.get(groupId);
+
+            return stats == null ? null : new JobGroupStats(stats);
+
+        } finally {
+            lock.unlock();
         }
+    }
 
-        mExecuteLock.lock();
+    /**
+     * Get queue statistics snapshot of every job group having queued or executing jobs
+     *
+     * @return statistics snapshots ordered by group id
+     */
+    public List<JobGroupStats> getJobGroupStats() {
+        final Lock lock = mQueuedJobsLock.readLock();
+        lock.lock();
         try {
-            while (mFreeExecutors.size() > count) {
-                mFreeExecutors.poll().get().shutdown();
-
-                logTrace("truncated free executors count to %d", mFreeExecutors.size());
+            final TreeMap<Integer, JobGroupStats> sorted = new TreeMap<Integer, JobGroupStats>();
+            for (JobGroupStats stats : mGroupStats.values()) {
+                sorted.put(stats.getGroupId(), new JobGroupStats(stats));
             }
 
+            return new ArrayList<JobGroupStats>(sorted.values());
+
         } finally {
-            mExecuteLock.unlock();
+            lock.unlock();
         }
     }
 
     /**
-     * Get maximum number of free exclusive executors to keep
-     * @return maximum number if free exclusive executors
+     * Drop collected statistics of groups having no queued jobs
+     * and reset counters of the rest
      */
-    public int getMaxFreeExclusiveExecutorsCount() {
-        return mMaxFreeExclusiveExecutorsCount;
-    }
+    public void resetJobGroupStats() {
+        final Lock lock = mQueuedJobsLock.writeLock();
+        lock.lock();
+        try {
+            mGroupStats.clear();
+            for (Map.Entry<Integer, TreeSet<Job>> entry : mQueuedJobs.entrySet()) {
+                final int queueDepth = entry.getValue().size();
+                if (queueDepth == 0) continue;
+
+                final JobGroupStats stats = getGroupStatsLocked(entry.getKey());
+                for (int i = 0; i < queueDepth; i++) {
+                    stats.onJobEnqueued();
+                }
+            }
 
-    public void setTraceEnabled(boolean isTraceEnabled) {
-        mIsTraceEnabled = isTraceEnabled;
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public boolean isTraceEnabled() {
-        return mIsTraceEnabled;
-    }
+    /**
+     * Set maximum number of jobs waiting in the queue of all groups.
+     * Applies to {@link #SCHEDULER_MODE_QUEUED} only; job queues of
+     * {@link #SCHEDULER_MODE_WORK_STEALING} are unbounded.
+     *
+     * @param capacity maximum number of queued jobs or {@link #QUEUE_CAPACITY_UNBOUNDED}
+     * @throws IllegalStateException if bounded capacity is set in {@link #SCHEDULER_MODE_WORK_STEALING}
+     * @see #setQueueOverflowPolicy(int)
+     */
+    public void setQueueCapacity(int capacity) {
+        checkQueueCapacity(capacity);
 
-    public void setIsSelectiveTraceEnabled(boolean isSelectiveTraceEnabled) {
-        mIsSelectiveTraceEnabled = isSelectiveTraceEnabled;
+        mQueueCapacity = capacity;
     }
 
-    public boolean isIsSelectiveTraceEnabled() {
-        return mIsSelectiveTraceEnabled;
+    public int getQueueCapacity() {
+        return mQueueCapacity;
     }
 
-    public boolean isJobTypeTraced(Class<? extends Job> jobType) {
-        mTraceLock.lock();
+    /**
+     * Set maximum number of jobs waiting in the queue of specified group.
+     * Applies to {@link #SCHEDULER_MODE_QUEUED} only.
+     *
+     * @param groupId job group id
+     * @param capacity maximum number of queued jobs or {@link #QUEUE_CAPACITY_UNBOUNDED}
+     * @throws IllegalStateException if bounded capacity is set in {@link #SCHEDULER_MODE_WORK_STEALING}
+     * @see #setQueueOverflowPolicy(int)
+     */
+    public void setGroupQueueCapacity(int groupId, int capacity) {
+        checkQueueCapacity(capacity);
+
+        final Lock lock = mQueuedJobsLock.writeLock();
+        lock.lock();
         try {
-            return mTraceJobs.contains(jobType.getName());
+            if (capacity == QUEUE_CAPACITY_UNBOUNDED) {
+                mGroupQueueCapacities.remove(groupId);
+            } else {
+                mGroupQueueCapacities.put(groupId, capacity);
+            }
+
         } finally {
-            mTraceLock.unlock();
+            lock.unlock();
         }
     }
 
-    public void setupJobTrace(Class<? extends Job> jobType) {
-        mTraceLock.lock();
+    public int getGroupQueueCapacity(int groupId) {
+        final Lock lock = mQueuedJobsLock.readLock();
+        lock.lock();
         try {
-            mTraceJobs.add(jobType.getName());
+            final Integer capacity = mGroupQueueCapacities.get(groupId);
+
+            return capacity == null ? QUEUE_CAPACITY_UNBOUNDED : capacity;
+
         } finally {
-            mTraceLock.unlock();
+            lock.unlock();
         }
     }
 
-    public boolean removeJobTrace(Class<? extends Job> jobType) {
-        mTraceLock.lock();
-        try {
-            return mTraceJobs.remove(jobType.getName());
-        } finally {
-            mTraceLock.unlock();
-        }
+    /**
+     * Set how job submitted to a full queue is handled
+     *
+     * @param overflowPolicy one of {@link #OVERFLOW_POLICY_REJECT},
+     *                       {@link #OVERFLOW_POLICY_DROP_OLDEST},
+     *                       {@link #OVERFLOW_POLICY_DROP_LOWEST_PRIORITY}
+     *                       or {@link #OVERFLOW_POLICY_BLOCK}
+     */
+    public void setQueueOverflowPolicy(int overflowPolicy) {
+        checkOverflowPolicy(overflowPolicy);
+
+        mOverflowPolicy = overflowPolicy;
     }
 
-    public boolean isJobGroupTraced(int jobGroupId) {
-        mTraceLock.lock();
-        try {
-            return mTraceJobGroups.contains(jobGroupId);
-        } finally {
-            mTraceLock.unlock();
-        }
+    public int getQueueOverflowPolicy() {
+        return mOverflowPolicy;
+    }
+
+    /**
+     * Set how long submitting thread is blocked in {@link #OVERFLOW_POLICY_BLOCK}.
+     * <p>
+     * Queued jobs are released by finished job handling, so jobs submitted
+     * on the completion thread are never blocked and are rejected if queue is full.
+     *
+     * @param timeoutMillis block timeout
+     */
+    public void setQueueBlockTimeout(long timeoutMillis) {
+        if (timeoutMillis < 0) {
+            throw new IllegalArgumentException("timeoutMillis < 0");
+        }
+
+        mQueueBlockTimeoutMillis = timeoutMillis;
+    }
+
+    public long getQueueBlockTimeout() {
+        return mQueueBlockTimeoutMillis;
+    }
+
+    /**
+     * Get number of times specified overflow policy was applied.
+     * <p>
+     * For {@link #OVERFLOW_POLICY_BLOCK} returns number of blocked submissions;
+     * submissions rejected after block timeout are counted by {@link #getQueueBlockTimeoutCount()}.
+     *
+     * @param overflowPolicy overflow policy
+     * @return number of affected jobs
+     */
+    public long getOverflowCount(int overflowPolicy) {
+        checkOverflowPolicy(overflowPolicy);
+
+        return mOverflowCounters[overflowPolicy].get();
+    }
+
+    public long getQueueBlockTimeoutCount() {
+        return mQueueBlockTimeoutCount.get();
+    }
+
+    /**
+     * Set upper bound of common thread pool size.
+     * <p>
+     * Common pool grows beyond it's core size to execute jobs of different groups
+     * in parallel. Once limit is reached, jobs wait in the queue for free thread.
+     * In {@link #SCHEDULER_MODE_WORK_STEALING} mode limits threads started for serial groups
+     * when pool has no idle thread.
+     *
+     * @param count maximum thread count or {@link #THREAD_COUNT_UNBOUNDED}
+     */
+    public void setMaximumThreadCount(int count) {
+        if (count != THREAD_COUNT_UNBOUNDED && count < mCoreExecutor.getCorePoolSize()) {
+            throw new IllegalArgumentException("count is less than core thread count");
+        }
+
+        final Lock lock = mPendingJobsLock.writeLock();
+        lock.lock();
+        try {
+            mMaxThreadCount = count;
+            if (count != THREAD_COUNT_UNBOUNDED && mCoreExecutor.getMaximumPoolSize() > count) {
+                mCoreExecutor.setMaximumPoolSize(count);
+            }
+            if (mWorkStealingPool != null) {
+                mWorkStealingPool.setMaximumThreadCount(count);
+            }
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaximumThreadCount() {
+        return mMaxThreadCount;
+    }
+
+    /**
+     * Let worker adjust common thread pool core size between specified bounds
+     * according to measured job throughput, queue wait and execution times
+     * and share of blocked pool threads.
+     * Applies to {@link #SCHEDULER_MODE_QUEUED} only.
+     *
+     * @param minThreadCount minimum core thread count
+     * @param maxThreadCount maximum core thread count
+     * @see #setAdaptivePoolSizing(int, int, long)
+     */
+    public void setAdaptivePoolSizing(int minThreadCount, int maxThreadCount) {
+        setAdaptivePoolSizing(minThreadCount, maxThreadCount, POOL_SIZE_SAMPLE_INTERVAL_MILLIS_DEFAULT);
+    }
+
+    /**
+     * Let worker adjust common thread pool core size between specified bounds.
+     * Pool size is changed at most by one thread per sample.
+     *
+     * @param minThreadCount minimum core thread count
+     * @param maxThreadCount maximum core thread count
+     * @param sampleIntervalMillis interval between pool metrics samples
+     */
+    public void setAdaptivePoolSizing(int minThreadCount, int maxThreadCount, long sampleIntervalMillis) {
+        if (mWorkStealingPool != null) {
+            throw new IllegalStateException("adaptive pool sizing is not supported " +
+                    "in work-stealing scheduler mode");
+        }
+        if (sampleIntervalMillis < 1) {
+            throw new IllegalArgumentException("sampleIntervalMillis < 1");
+        }
+        if (mMaxThreadCount != THREAD_COUNT_UNBOUNDED && maxThreadCount > mMaxThreadCount) {
+            throw new IllegalArgumentException("maxThreadCount exceeds maximum thread count");
+        }
+
+        final AdaptivePoolSizeController controller =
+                new AdaptivePoolSizeController(mPoolMetrics, minThreadCount, maxThreadCount);
+
+        synchronized (mPoolSizeControllerLock) {
+            if (isStopped()) {
+                throw new IllegalStateException("worker is already stopped");
+            }
+
+            stopPoolSizeSampler();
+
+            mPoolSizeController = controller;
+            mPoolSizeSampler = new ScheduledThreadPoolExecutor(1, mPoolSizeSamplerThreadFactory);
+            mPoolSizeSampler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    samplePoolSize(controller);
+                }
+            }, 0, sampleIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+
+        Log.d(LOG_TAG, String.format("adaptive pool sizing enabled; " +
+                "thread count: '%d'..'%d'", minThreadCount, maxThreadCount));
+    }
+
+    /**
+     * Stop adjusting pool size; current core thread count is kept
+     */
+    public void disableAdaptivePoolSizing() {
+        synchronized (mPoolSizeControllerLock) {
+            stopPoolSizeSampler();
+        }
+    }
+
+    public boolean isAdaptivePoolSizingEnabled() {
+        synchronized (mPoolSizeControllerLock) {
+            return mPoolSizeController != null;
+        }
+    }
+
+    /**
+     * @return current core thread count of common thread pool
+     */
+    public int getCoreThreadCount() {
+        if (mWorkStealingPool != null) {
+            return mWorkStealingPool.getThreadCount();
+        }
+
+        return mCoreExecutor.getCorePoolSize();
+    }
+
+    /**
+     * @return true if jobs may be executed on virtual threads on this runtime
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreadExecutors.isVirtualThreadSupported();
+    }
+
+    /**
+     * Set how jobs of specified group are executed.
+     * <p>
+     * Jobs of the same group are still executed one by one unless group
+     * is {@link JobManager#JOB_GROUP_UNIQUE} or {@link JobManager#JOB_GROUP_DEDICATED}.
+     *
+     * @param groupId job group id
+     * @param executionMode {@link #EXECUTION_MODE_POOLED}
+     *                      or {@link #EXECUTION_MODE_VIRTUAL_THREAD}
+     */
+    public void setGroupExecutionMode(int groupId, int executionMode) {
+        if (executionMode == EXECUTION_MODE_VIRTUAL_THREAD) {
+            mVirtualThreadGroups.put(groupId, Boolean.TRUE);
+            if (mWorkStealingPool != null && !JobManager.isSpecialJobGroup(groupId)) {
+                mWorkStealingPool.setGroupExecutor(groupId, getVirtualThreadExecutor());
+            }
+
+        } else if (executionMode == EXECUTION_MODE_POOLED) {
+            mVirtualThreadGroups.remove(groupId);
+            if (mWorkStealingPool != null && !JobManager.isSpecialJobGroup(groupId)) {
+                mWorkStealingPool.setGroupExecutor(groupId, null);
+            }
+
+        } else {
+            throw new IllegalArgumentException("unknown execution mode");
+        }
+    }
+
+    public int getGroupExecutionMode(int groupId) {
+        return mVirtualThreadGroups.containsKey(groupId)
+                ? EXECUTION_MODE_VIRTUAL_THREAD
+                : EXECUTION_MODE_POOLED;
+    }
+
+    /**
+     * Set number of threads used for {@link #EXECUTION_MODE_VIRTUAL_THREAD}
+     * when runtime does not support virtual threads.
+     * Should be called before any such job is executed.
+     *
+     * @param count blocking job thread count
+     */
+    public void setBlockingThreadCount(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count < 1");
+        }
+
+        synchronized (mVirtualThreadExecutorLock) {
+            if (mVirtualThreadExecutor != null) {
+                throw new IllegalStateException("blocking job executor is already created");
+            }
+
+            mBlockingThreadCount = count;
+        }
+    }
+
+    public int getBlockingThreadCount() {
+        synchronized (mVirtualThreadExecutorLock) {
+            return mBlockingThreadCount;
+        }
+    }
+
+    public int getQueuedJobCount() {
+        if (mWorkStealingPool != null) {
+            return mWorkStealingPool.getQueuedJobCount();
+        }
+
+        return mQueuedJobIndex.size();
+    }
+
+    /**
+     * Get current number of free exclusive executors
+     * @return count of free exclusive executors
+     */
+    public int getFreeExclusiveExecutorsCount() {
+        mExecuteLock.lock();
+        try {
+            return mFreeExecutors.size();
+
+        } finally {
+            mExecuteLock.unlock();
+        }
+    }
+
+    /**
+     * Set maximum number of free exclusive executors to keep
+     * @param count count of executors
+     */
+    public void setMaxFreeExclusiveExecutorsCount(int count) {
+        if (count < 0 && count != MAX_FREE_EXCLUSIVE_EXECUTORS_UNLIMITED) {
+            throw new IllegalArgumentException("invalid count");
+        }
+
+        if (mMaxFreeExclusiveExecutorsCount == count) {
+            return;
+        }
+
+        mMaxFreeExclusiveExecutorsCount = count;
+
+        if (count == MAX_FREE_EXCLUSIVE_EXECUTORS_UNLIMITED) {
+            return;
+        }
+
+        mExecuteLock.lock();
+        try {
+            while (mFreeExecutors.size() > count) {
+                mFreeExecutors.poll().get().shutdown();
+
+                logTrace("truncated free executors count to %d", mFreeExecutors.size());
+            }
+
+        } finally {
+            mExecuteLock.unlock();
+        }
+    }
+
+    /**
+     * Get maximum number of free exclusive executors to keep
+     * @return maximum number if free exclusive executors
+     */
+    public int getMaxFreeExclusiveExecutorsCount() {
+        return mMaxFreeExclusiveExecutorsCount;
+    }
+
+    public void setTraceEnabled(boolean isTraceEnabled) {
+        mIsTraceEnabled = isTraceEnabled;
+    }
+
+    public boolean isTraceEnabled() {
+        return mIsTraceEnabled;
+    }
+
+    public void setIsSelectiveTraceEnabled(boolean isSelectiveTraceEnabled) {
+        mIsSelectiveTraceEnabled = isSelectiveTraceEnabled;
+    }
+
+    public boolean isIsSelectiveTraceEnabled() {
+        return mIsSelectiveTraceEnabled;
+    }
+
+    public boolean isJobTypeTraced(Class<? extends Job> jobType) {
+        mTraceLock.lock();
+        try {
+            return mTraceJobs.contains(jobType.getName());
+        } finally {
+            mTraceLock.unlock();
+        }
+    }
+
+    public void setupJobTrace(Class<? extends Job> jobType) {
+        mTraceLock.lock();
+        try {
+            mTraceJobs.add(jobType.getName());
+        } finally {
+            mTraceLock.unlock();
+        }
+    }
+
+    public boolean removeJobTrace(Class<? extends Job> jobType) {
+        mTraceLock.lock();
+        try {
+            return mTraceJobs.remove(jobType.getName());
+        } finally {
+            mTraceLock.unlock();
+        }
+    }
+
+    public boolean isJobGroupTraced(int jobGroupId) {
+        mTraceLock.lock();
+        try {
+            return mTraceJobGroups.contains(jobGroupId);
+        } finally {
+            mTraceLock.unlock();
+        }
     }
 
     public void setupJobGroupTrace(int jobGroupId) {
@@ -383,7 +1118,7 @@ public class ThreadPoolWorker implements Worker {
     private void allocateExclusiveJobExecutor(int jobId) {
         mExecuteLock.lock();
         try {
-            if (mExclusiveJobExecutors.indexOfKey(jobId) > -1) {
+            if (mExclusiveJobExecutors.containsKey(jobId)) {
                 throw new IllegalArgumentException(String.format(
                         "exclusive executor is already allocated to job id:'%d'", jobId));
             }
@@ -408,14 +1143,11 @@ public class ThreadPoolWorker implements Worker {
     private void removeExclusiveJobExecutor(int jobId) {
         mExecuteLock.lock();
         try {
-            int index = mExclusiveJobExecutors.indexOfKey(jobId);
-            if (index < 0) {
+            ExecutorProvider provider = mExclusiveJobExecutors.remove(jobId);
+            if (provider == null) {
                 return;
             }
 
-            ExecutorProvider provider = mExclusiveJobExecutors.valueAt(index);
-            mExclusiveJobExecutors.remove(jobId);
-
             if (mMaxFreeExclusiveExecutorsCount == MAX_FREE_EXCLUSIVE_EXECUTORS_UNLIMITED
                     || mFreeExecutors.size() < mMaxFreeExclusiveExecutorsCount) {
 
@@ -452,13 +1184,17 @@ public class ThreadPoolWorker implements Worker {
 
         mExecuteLock.lock();
         try {
-            if (mAllocatedExecutors.indexOfKey(jobGroupId) > -1) {
+            if (mAllocatedExecutors.containsKey(jobGroupId)) {
                 throw new IllegalArgumentException(String.format(
                         "executor is already allocated to job group '%d'", jobGroupId));
             }
 
-            mAllocatedExecutors.put(jobGroupId, new ExecutorProvider(
-                    new AllocatedThreadFactory(jobGroupId)));
+            final ExecutorProvider provider = new ExecutorProvider(
+                    new AllocatedThreadFactory(jobGroupId));
+            mAllocatedExecutors.put(jobGroupId, provider);
+            if (mWorkStealingPool != null) {
+                mWorkStealingPool.setGroupExecutor(jobGroupId, provider.get());
+            }
             Log.d(LOG_TAG, String.format("executor allocated for group: '%s'", jobGroupId));
 
         } finally {
@@ -475,69 +1211,107 @@ public class ThreadPoolWorker implements Worker {
             throw new IllegalStateException("worker is already stopped");
         }
 
-        dispatchJob(job);
+        if (mOverflowPolicy == OVERFLOW_POLICY_BLOCK
+                && mWorkStealingPool == null
+                && !isCompletionThread()
+                && !awaitQueueCapacity(job)) {
+
+            mQueueBlockTimeoutCount.incrementAndGet();
+            rejectJob(job, "timed out waiting for job queue capacity");
+
+            return;
+        }
+
+        dispatchJob(job, true);
         logTrace("<job submitted", job);
     }
 
     /**
-     * Find job that is enqueued or executing.
+     * Submit jobs batch.
+     * <p>
+     * Batch is dispatched under a single dispatch lock acquisition, and jobs of the same
+     * serial group are enqueued under a single job queue lock acquisition.
+     * In {@link #SCHEDULER_MODE_WORK_STEALING} mode and with {@link #OVERFLOW_POLICY_BLOCK}
+     * jobs are submitted one by one.
      *
-     * @param jobId job identifier
-     * @return job, if found, or null
+     * @param jobs jobs to submit
      */
-    public Job findJobForId(int jobId) {
-        Lock lock = mQueuedJobsLock.readLock();
-        lock.lock();
+    @Override
+    public void submitJobs(List<Job> jobs) {
+        for (Job job : jobs) {
+            checkSubmitPreconditions(job);
+        }
+
+        if (isStopped()) {
+            throw new IllegalStateException("worker is already stopped");
+        }
+
+        if (mWorkStealingPool != null || mOverflowPolicy == OVERFLOW_POLICY_BLOCK) {
+            for (Job job : jobs) {
+                submitJob(job);
+            }
+
+            return;
+        }
+
+        // Keep submit order within each group
+        final Map<Integer, List<Job>> groupBatches = new LinkedHashMap<Integer, List<Job>>();
+        for (Job job : jobs) {
+            final int groupId = job.getParams().getGroupId();
+            List<Job> groupBatch = groupBatches.get(groupId);
+            if (groupBatch == null) {
+                groupBatch = new ArrayList<Job>();
+                groupBatches.put(groupId, groupBatch);
+            }
+            groupBatch.add(job);
+        }
+
+        logTrace(">submitting batch of '%d' jobs..", jobs.size());
+        mDispatchLock.lock();
         try {
-            int sz = mQueuedJobs.size();
-            for (int i = 0; i < sz; i++) {
-                TreeSet<Job> queue = mQueuedJobs.valueAt(i);
-                for (Job job : queue) {
-                    if (job.getJobId() == jobId) {
-                        return job;
-                    }
-                }
+            for (Map.Entry<Integer, List<Job>> entry : groupBatches.entrySet()) {
+                dispatchGroupBatch(entry.getKey(), entry.getValue());
             }
 
         } finally {
-            lock.unlock();
+            mDispatchLock.unlock();
         }
-
-        return findPendingJobForId(jobId);
+        logTrace("<jobs batch submitted");
     }
 
     /**
-     * Find job that is already executing.
-     * <p>
-     * Jobs with group id of {@link JobManager#JOB_GROUP_DEDICATED}
-     * are out of lookup scope and cannot be returned.
+     * Find job that is enqueued or executing.
      *
-     * @param jobId unique job identifier to perform lookup
-     * @return previously executed job or null if none found
+     * @param jobId job identifier
+     * @return job, if found, or null
      */
-    public Job findPendingJobForId(int jobId) {
-        final Lock lock = mPendingJobsLock.readLock();
-        lock.lock();
-        try {
-            for (Job job : mUniquePendingJobs) {
-                if (job.getJobId() == jobId) {
-                    return job;
-                }
-            }
+    public Job findJobForId(int jobId) {
+        if (mWorkStealingPool != null) {
+            final Job job = mWorkStealingPool.findQueuedJob(jobId);
 
-            final int sz = mPendingJobs.size();
-            for (int i = 0; i < sz; i++) {
-                Job job = mPendingJobs.valueAt(i);
-                if (job.getJobId() == jobId) {
-                    return job;
-                }
-            }
+            return job != null ? job : findPendingJobForId(jobId);
+        }
 
-        } finally {
-            lock.unlock();
+        final Job job = mQueuedJobIndex.get(jobId);
+
+        return job != null ? job : findPendingJobForId(jobId);
+    }
+
+    /**
+     * Find job that is already executing.
+     * <p>
+     * Jobs with group id of {@link JobManager#JOB_GROUP_DEDICATED}
+     * are out of lookup scope and cannot be returned.
+     *
+     * @param jobId unique job identifier to perform lookup
+     * @return previously executed job or null if none found
+     */
+    public Job findPendingJobForId(int jobId) {
+        if (mWorkStealingPool != null) {
+            return mWorkStealingPool.findRunningJob(jobId);
         }
 
-        return null;
+        return mPendingJobIndex.get(jobId);
     }
 
     /**
@@ -556,10 +1330,14 @@ public class ThreadPoolWorker implements Worker {
             return null;
         }
 
+        if (mWorkStealingPool != null) {
+            return mWorkStealingPool.findRunningJobForGroupId(jobGroupId);
+        }
+
         final Lock lock = mPendingJobsLock.readLock();
         lock.lock();
         try {
-            return mPendingJobs.get(jobGroupId, null);
+            return mPendingJobs.get(jobGroupId);
 
         } finally {
             lock.unlock();
@@ -581,257 +1359,878 @@ public class ThreadPoolWorker implements Worker {
             queuedJobsLock.lock();
             try {
                 mQueuedJobs.clear();
+                mQueuedJobIndex.clear();
+                mJobEnqueueTimes.clear();
+                for (JobGroupStats stats : mGroupStats.values()) {
+                    stats.onQueueCleared();
+                }
+
+            } finally {
+                queuedJobsLock.unlock();
+            }
+            signalQueueCapacity();
+
+            if (mWorkStealingPool != null) {
+                mWorkStealingPool.shutdown();
+            }
+
+            synchronized (mPoolSizeControllerLock) {
+                stopPoolSizeSampler();
+            }
+
+            performShutdown();
+
+        } finally {
+            mDispatchLock.unlock();
+        }
+
+        logTrace("<thread pool worker stopped");
+    }
+
+    protected void performShutdown() {
+        shutdownAsync();
+    }
+
+    protected void shutdownImpl() {
+        logTrace(">(async) shutdown job executors..");
+        mExecuteLock.lock();
+        try {
+            mCoreExecutor.shutdown();
+            logTrace("+ main thread pool executor stopped");
+            for (Map.Entry<Integer, ExecutorProvider> entry : mAllocatedExecutors.entrySet()) {
+                ExecutorService executor = entry.getValue().get();
+                executor.shutdown();
+                logTrace("+ allocated executor '%d' stopped", entry.getKey());
+            }
+            for (Map.Entry<Integer, ExecutorProvider> entry : mExclusiveJobExecutors.entrySet()) {
+                ExecutorService executor = entry.getValue().get();
+                executor.shutdown();
+                logTrace("+ exclusive job executor '%d' stopped", entry.getKey());
+            }
+            synchronized (mDispatcherExecutor) {
+                mDispatcherExecutor.get().shutdown();
+            }
+            logTrace("+ dispatcher executor stopped");
+            synchronized (mVirtualThreadExecutorLock) {
+                if (mVirtualThreadExecutor != null) {
+                    mVirtualThreadExecutor.shutdown();
+                    logTrace("+ virtual thread executor stopped");
+                }
+            }
+            logTrace("<job executors stopped");
+        } finally {
+            mExecuteLock.unlock();
+        }
+    }
+
+    /**
+     * Run finished job handling according to current completion mode.
+     *
+     * @param resultHandler runnable releasing finished job and dispatching next queued job
+     * @see #setCompletionMode(int)
+     */
+    protected void postJobResultHandler(Runnable resultHandler) {
+        switch (mCompletionMode) {
+            case COMPLETION_MODE_WORKER_THREAD:
+                resultHandler.run();
+                break;
+
+            case COMPLETION_MODE_DISPATCHER_THREAD:
+                postToDispatcherThread(resultHandler);
+                break;
+
+            default:
+                mMainThreadBus.post(resultHandler);
+                break;
+        }
+    }
+
+    private void postToDispatcherThread(Runnable runnable) {
+        try {
+            final ExecutorService executor;
+            synchronized (mDispatcherExecutor) {
+                executor = mDispatcherExecutor.get();
+            }
+            executor.execute(runnable);
+
+        } catch (RejectedExecutionException e) {
+            logTrace("+ dispatcher is stopped; task is ignored");
+        }
+    }
+
+    private void shutdownAsync() {
+        new AsyncTask<Void, Void, Void>() {
+            @Override
+            protected Void doInBackground(Void... voids) {
+                shutdownImpl();
+                return null;
+            }
+        }.execute();
+    }
+
+    /**
+     * @param isNewJob true if job is just submitted and is subject to queue capacity
+     */
+    private void dispatchJob(Job job, boolean isNewJob) {
+        logTrace(">dispatching job..", job);
+
+        if (isStopped()) {
+            Log.e(LOG_TAG, String.format("unable to dispatch job: worker is stopped; %s", job));
+            return;
+        }
+
+        final int groupId = job.getParams().getGroupId();
+
+        if (mWorkStealingPool != null) {
+            dispatchWorkStealingJob(job);
+            return;
+        }
+
+        mDispatchLock.lock();
+
+        try {
+            if (!job.hasJobEventListener(mJobFinishListenerTag)) {
+                job.addJobEventListener(mJobFinishListenerTag, mJobEventListener);
+            }
+
+            Job pendingJob = findPendingJobForGroupId(groupId);
+            if (pendingJob != null) {
+                enqueueDispatchedJob(job, isNewJob);
+
+                logTrace("<job dispatched", job);
+
+                return;
+            }
+
+            if (groupId == JobManager.JOB_GROUP_UNIQUE && !isVirtualThreadJob(job)) {
+                if (mCoreExecutor.getActiveCount() >= mCoreExecutor.getCorePoolSize()) {
+                    if (job.getParams().checkFlag(JobParams.FLAG_FORCE_EXECUTE)) {
+
+                        allocateExclusiveJobExecutor(job.getJobId());
+                        executeJob(job);
+                    } else {
+                        if (enqueueDispatchedJob(job, isNewJob)) {
+                            ensureQueuedJobsDispatched();
+                        }
+                    }
+                    logTrace("<job dispatched (all threads are busy)", job);
+                    return;
+                }
+            }
+
+            executeJob(job);
+            logTrace("<job dispatched", job);
+
+        } finally {
+            mDispatchLock.unlock();
+        }
+    }
+
+    /**
+     * Dispatch just submitted jobs of the same group; caller should hold dispatch lock
+     */
+    private void dispatchGroupBatch(int groupId, List<Job> jobs) {
+        if (JobManager.isDefaultJobGroup(groupId) || JobManager.isSpecialJobGroup(groupId)) {
+            // Jobs are not enqueued while there are free threads
+            for (Job job : jobs) {
+                dispatchJob(job, true);
+            }
+
+            return;
+        }
+
+        int index = 0;
+        if (findPendingJobForGroupId(groupId) == null) {
+            dispatchJob(jobs.get(index++), true);
+        }
+
+        final List<Job> queuedJobs = jobs.subList(index, jobs.size());
+        if (queuedJobs.isEmpty()) {
+            return;
+        }
+
+        if (findPendingJobForGroupId(groupId) == null || isStopped()) {
+            for (Job job : queuedJobs) {
+                dispatchJob(job, true);
+            }
+
+            return;
+        }
+
+        for (Job job : queuedJobs) {
+            if (!job.hasJobEventListener(mJobFinishListenerTag)) {
+                job.addJobEventListener(mJobFinishListenerTag, mJobEventListener);
+            }
+        }
+
+        final List<Job> rejectedJobs = new ArrayList<Job>();
+        final Lock lock = mQueuedJobsLock.writeLock();
+        lock.lock();
+        try {
+            for (Job job : queuedJobs) {
+                final Job rejectedJob = enqueueBoundedJobLocked(job);
+                if (rejectedJob != null) {
+                    rejectedJobs.add(rejectedJob);
+                }
+            }
+
+        } finally {
+            lock.unlock();
+        }
+
+        for (Job rejectedJob : rejectedJobs) {
+            rejectJob(rejectedJob, "job queue is full");
+        }
+        logTrace("+ '%d' jobs of group '%d' enqueued", queuedJobs.size(), groupId);
+    }
+
+    private void dispatchWorkStealingJob(Job job) {
+        final int groupId = job.getParams().getGroupId();
+
+        if (JobManager.isSpecialJobGroup(groupId) && isVirtualThreadJob(job)) {
+            // Serial groups are moved to virtual threads as a whole by group executor
+            job.getParams().getFlags().setFlag(JobParams.FLAG_JOB_SUBMITTED, true);
+            logTrace("+ executing job on virtual thread executor", job);
+            try {
+                mWorkStealingPool.execute(job, getVirtualThreadExecutor());
+                logTrace("<job dispatched", job);
+
+            } catch (RejectedExecutionException e) {
+                Log.e(LOG_TAG, String.format("unable to execute submitted job %s: " +
+                        "virtual thread executor is shut down", job));
+                job.notifyJobEvent(JobEvent.failure(e.getMessage(), e));
+            }
+
+            return;
+        }
+
+        if (groupId == JobManager.JOB_GROUP_DEDICATED) {
+            job.getParams().getFlags().setFlag(JobParams.FLAG_JOB_SUBMITTED, true);
+            logTrace("+ executing job on dedicated executor", job);
+            new DedicatedThreadFactory(job.getJobId(), groupId).newThread(job).start();
+            logTrace("<job dispatched", job);
+
+            return;
+        }
+
+        if (groupId == JobManager.JOB_GROUP_UNIQUE
+                && job.getParams().checkFlag(JobParams.FLAG_FORCE_EXECUTE)
+                && !mWorkStealingPool.hasIdleThreads()) {
+
+            executeExclusiveJob(job);
+            logTrace("<job dispatched (all threads are busy)", job);
+
+            return;
+        }
+
+        try {
+            mWorkStealingPool.submit(job);
+            logTrace("<job dispatched", job);
+
+        } catch (RejectedExecutionException e) {
+            Log.e(LOG_TAG, String.format("unable to execute submitted job %s: " +
+                    "pool is shut down", job));
+            job.notifyJobEvent(JobEvent.failure(e.getMessage(), e));
+        }
+    }
+
+    private void executeExclusiveJob(Job job) {
+        final int jobId = job.getJobId();
+        allocateExclusiveJobExecutor(jobId);
+        job.getParams().getFlags().setFlag(JobParams.FLAG_JOB_SUBMITTED, true);
+
+        mExecuteLock.lock();
+        try {
+            logTrace("+ executing job on exclusive executor", job);
+            mWorkStealingPool.execute(job, mExclusiveJobExecutors.get(jobId).get());
+
+        } catch (RejectedExecutionException e) {
+            Log.e(LOG_TAG, String.format("unable to execute submitted job %s: " +
+                    "thread pool exceeded", job));
+            job.notifyJobEvent(JobEvent.failure(e.getMessage(), e));
+
+        } finally {
+            mExecuteLock.unlock();
+        }
+    }
+
+    private void handleJobResult(JobEvent jobEvent) {
+        final int jobId = jobEvent.getJobParams().getJobId();
+        final int jobGroupId = jobEvent.getJobParams().getGroupId();
+
+        final Job job = findPendingJobForId(jobId);
+        final boolean isTraceEnabled = logTrace("+ job finished;", job);
+
+        if (isStopped()) {
+            logTrace("+ ignored job finish: worker is stopped", job);
+            return;
+        }
+
+        if (jobGroupId == JobManager.JOB_GROUP_DEDICATED) {
+            logTrace("+ handled dedicated job", job);
+            return;
+        }
+
+        if (job != null) {
+            removePendingJob(job);
+            onJobExecutionFinished(job);
+            if (isTraceEnabled) {
+                if (job instanceof ProfilerJob) {
+                    logTraceForce("Profile job dump:\n%s", job, ((ProfilerJob) job).dumpProfile());
+                }
+            }
+
+            if (job.getParams().checkFlag(JobParams.FLAG_FORCE_EXECUTE)) {
+                removeExclusiveJobExecutor(job.getJobId());
+            }
+
+        } else {
+            Log.w(LOG_TAG, String.format("can't find pending job to " +
+                    "remove on finish: job id:'%s' not found", jobId));
+        }
+
+        // Synchronize with job dispatch to ensure serial job enqueue/deque
+        mDispatchLock.lock();
+
+        Job pendingJob;
+        try {
+            pendingJob = getNextQueuedJob(jobGroupId);
+
+            if (pendingJob != null) {
+                if (job != null) {
+                    logTrace("+ dispatching next queued job..", job);
+                }
+                dispatchJob(pendingJob, false);
+            } else {
+                logTrace("+ no more jobs to execute");
+            }
+        } finally {
+            mDispatchLock.unlock();
+        }
+    }
+
+    private void executeJob(Job job) {
+        logTrace(">executing job..", job);
+        final int groupId = job.getParams().getGroupId();
+        addPendingJob(job);
+
+        if (mIsStopped.get()) {
+            Log.w(LOG_TAG, String.format("unable to execute job: thread pool worker " +
+                    "has been stopped after job is dispatched; %s", job));
+
+            return;
+        }
+
+        job.getParams().getFlags().setFlag(JobParams.FLAG_JOB_SUBMITTED, true);
+        mJobExecutionStartTimes.put(job.getJobId(), System.nanoTime());
+
+        try {
+            mExecuteLock.lock();
+
+            if (isVirtualThreadJob(job)) {
+                logTrace("+ executing job on virtual thread executor", job);
+                getVirtualThreadExecutor().submit((Runnable) job);
+
+            } else if (groupId == JobManager.JOB_GROUP_DEDICATED) {
+                logTrace("+ executing job on dedicated executor", job);
+                new DedicatedThreadFactory(job.getJobId(), groupId).newThread(job).start();
+
+            } else {
+                ExecutorProvider provider = mAllocatedExecutors.get(groupId);
+
+                if (provider != null) {
+                    logTrace("+ executing job on allocated executor", job);
+                    provider.get().submit((Runnable) job);
+
+                } else {
+                    provider = mExclusiveJobExecutors.get(job.getJobId());
+
+                    if (provider != null) {
+                        logTrace("+ executing job on exclusive executor", job);
+                        provider.get().submit((Runnable) job);
+
+                    } else {
+                        logTrace("+ executing job on common thread pool", job);
+                        submitCoreJob(job);
+                    }
+                }
+            }
+
+            logTrace("<job submitted on execution", job);
+
+        } catch (RejectedExecutionException e) {
+            Log.e(LOG_TAG, String.format("unable to execute submitted job %s: " +
+                    "thread pool exceeded", job));
+            e.printStackTrace();
+            job.notifyJobEvent(JobEvent.failure(e.getMessage(), e));
+
+        } finally {
+            mExecuteLock.unlock();
+        }
+    }
+
+    private void submitCoreJob(Job job) {
+        try {
+            mCoreExecutor.submit((Runnable) job);
+
+        } catch (RejectedExecutionException e) {
+            if (mCoreExecutor.isShutdown()) {
+                throw e;
+            }
+
+            // Saturated pool threads are about to be released, so return
+            // job back to the queue rather than fail it; failed job would
+            // never be released and stall it's group otherwise
+            Log.w(LOG_TAG, String.format("thread pool is saturated; " +
+                    "job is returned to the queue: %s", job));
+
+            removePendingJob(job);
+            mJobExecutionStartTimes.remove(job.getJobId());
+            enqueueJob(job);
+            ensureQueuedJobsDispatched();
+        }
+    }
+
+    /**
+     * Queued jobs are dispatched once any pending job is finished;
+     * if there is no pending job left, request dispatch explicitly.
+     */
+    private void ensureQueuedJobsDispatched() {
+        if (getPendingJobCount() > 0) {
+            return;
+        }
+
+        if (mCompletionMode == COMPLETION_MODE_WORKER_THREAD) {
+            // Current thread may be the one holding saturated pool, so retry elsewhere
+            postToDispatcherThread(mDispatchNextQueuedJobTask);
+        } else {
+            postJobResultHandler(mDispatchNextQueuedJobTask);
+        }
+    }
+
+    private void dispatchNextQueuedJob() {
+        if (isStopped()) return;
+
+        mDispatchLock.lock();
+        try {
+            Job job = getNextQueuedJob(JobSchedulingPolicy.GROUP_NONE);
+            if (job != null) {
+                dispatchJob(job, false);
+            }
+
+        } finally {
+            mDispatchLock.unlock();
+        }
+    }
+
+    private void enqueueJob(Job job) {
+        logTrace(">enqueue job..", job);
+
+        final int groupId = job.getParams().getGroupId();
+
+        final Lock lock = mQueuedJobsLock.writeLock();
+        lock.lock();
+        try {
+
+            TreeSet<Job> queue = mQueuedJobs.get(groupId);
+            if (queue == null) {
+                queue = new TreeSet<Job>(mJobPriorityComparator);
+                mQueuedJobs.put(groupId, queue);
+            }
+            final int sz = queue.size();
+            queue.add(job);
+            if (queue.size() == sz) {
+                throw new RuntimeException("job comparator collision detected");
+            }
+
+            mQueuedJobIndex.put(job.getJobId(), job);
+            mJobEnqueueTimes.put(job.getJobId(), System.nanoTime());
+            getGroupStatsLocked(groupId).onJobEnqueued();
+            job.getParams().getFlags().setFlag(JobParams.FLAG_JOB_ENQUEUED, true);
+
+            logTrace("<job added to job queue", job);
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true if job is enqueued, false if it is rejected
+     */
+    private boolean enqueueDispatchedJob(Job job, boolean isNewJob) {
+        if (isNewJob) {
+            return enqueueBoundedJob(job);
+        }
+
+        // Job is already accepted once, so it is not subject to queue capacity
+        enqueueJob(job);
+
+        return true;
+    }
+
+    /**
+     * Enqueue just submitted job respecting queue capacity and overflow policy
+     *
+     * @return true if job is enqueued
+     */
+    private boolean enqueueBoundedJob(Job job) {
+        final Job rejectedJob;
+
+        final Lock lock = mQueuedJobsLock.writeLock();
+        lock.lock();
+        try {
+            rejectedJob = enqueueBoundedJobLocked(job);
+
+        } finally {
+            lock.unlock();
+        }
+
+        if (rejectedJob != null) {
+            rejectJob(rejectedJob, "job queue is full");
+        }
+
+        return rejectedJob != job;
+    }
+
+    /**
+     * Enqueue job respecting queue capacity and overflow policy; caller should hold queue write lock
+     *
+     * @return job to reject, either passed one or dropped queued job, or null
+     */
+    private Job enqueueBoundedJobLocked(Job job) {
+        final int groupId = job.getParams().getGroupId();
+        final int overflowPolicy = mOverflowPolicy;
+        Job rejectedJob;
+
+        final boolean isGroupQueueFull = isGroupQueueFullLocked(groupId);
+        if (!isGroupQueueFull && !isQueueFullLocked()) {
+            enqueueJob(job);
+
+            return null;
+        }
+
+        final int scopeGroupId = isGroupQueueFull ? groupId : JobSchedulingPolicy.GROUP_NONE;
+        switch (overflowPolicy) {
+            case OVERFLOW_POLICY_DROP_OLDEST:
+                rejectedJob = findOldestQueuedJobLocked(scopeGroupId);
+                break;
+
+            case OVERFLOW_POLICY_DROP_LOWEST_PRIORITY:
+                rejectedJob = findLowestPriorityQueuedJobLocked(scopeGroupId);
+                if (rejectedJob != null && mJobPriorityComparator.compare(job, rejectedJob) >= 0) {
+                    rejectedJob = job;
+                }
+                break;
+
+            default:
+                // Blocked submitter may lose the race for free capacity
+                rejectedJob = job;
+                break;
+        }
+
+        if (rejectedJob == null) {
+            rejectedJob = job;
+        }
+
+        mOverflowCounters[overflowPolicy == OVERFLOW_POLICY_BLOCK
+                ? OVERFLOW_POLICY_REJECT : overflowPolicy].incrementAndGet();
+
+        if (rejectedJob != job) {
+            removeQueuedJobLocked(rejectedJob);
+            enqueueJob(job);
+        } else {
+            getGroupStatsLocked(groupId).onJobRejected();
+        }
+
+        return rejectedJob;
+    }
+
+    private boolean isQueueFullLocked() {
+        final int capacity = mQueueCapacity;
+
+        return capacity != QUEUE_CAPACITY_UNBOUNDED && mQueuedJobIndex.size() >= capacity;
+    }
+
+    private boolean isGroupQueueFullLocked(int groupId) {
+        final Integer capacity = mGroupQueueCapacities.get(groupId);
+        if (capacity == null) {
+            return false;
+        }
+
+        final TreeSet<Job> queue = mQueuedJobs.get(groupId);
+
+        return (queue == null ? 0 : queue.size()) >= capacity;
+    }
+
+    private boolean isQueueFull(int groupId) {
+        final Lock lock = mQueuedJobsLock.readLock();
+        lock.lock();
+        try {
+            return isGroupQueueFullLocked(groupId) || isQueueFullLocked();
+
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            } finally {
-                queuedJobsLock.unlock();
-            }
+    /**
+     * @param groupId group to search in or {@link JobSchedulingPolicy#GROUP_NONE} for any group
+     */
+    private Job findOldestQueuedJobLocked(int groupId) {
+        for (Integer jobId : mJobEnqueueTimes.keySet()) {
+            final Job job = mQueuedJobIndex.get(jobId);
 
-            performShutdown();
+            if (job != null && (groupId == JobSchedulingPolicy.GROUP_NONE
+                    || job.getParams().getGroupId() == groupId)) {
 
-        } finally {
-            mDispatchLock.unlock();
+                return job;
+            }
         }
 
-        logTrace("<thread pool worker stopped");
+        return null;
     }
 
-    protected void performShutdown() {
-        shutdownAsync();
-    }
+    /**
+     * @param groupId group to search in or {@link JobSchedulingPolicy#GROUP_NONE} for any group
+     */
+    private Job findLowestPriorityQueuedJobLocked(int groupId) {
+        if (groupId != JobSchedulingPolicy.GROUP_NONE) {
+            final TreeSet<Job> queue = mQueuedJobs.get(groupId);
 
-    protected void shutdownImpl() {
-        logTrace(">(async) shutdown job executors..");
-        mExecuteLock.lock();
-        try {
-            mCoreExecutor.shutdown();
-            logTrace("+ main thread pool executor stopped");
-            final int sz = mAllocatedExecutors.size();
-            for (int i = 0; i < sz; i++) {
-                ExecutorService executor = mAllocatedExecutors.valueAt(i).get();
-                executor.shutdown();
-                logTrace("+ allocated executor '%d' stopped", i);
-            }
-            final int jobExecutorsCount = mExclusiveJobExecutors.size();
-            for (int i = 0; i < jobExecutorsCount; i++) {
-                ExecutorService executor = mExclusiveJobExecutors.valueAt(i).get();
-                executor.shutdown();
-                logTrace("+ exclusive job executor '%d' stopped", i);
+            return queue == null || queue.isEmpty() ? null : queue.last();
+        }
+
+        Job lowestPriorityJob = null;
+        for (TreeSet<Job> queue : mQueuedJobs.values()) {
+            if (queue.isEmpty()) continue;
+
+            final Job job = queue.last();
+            if (lowestPriorityJob == null || mJobPriorityComparator.compare(job, lowestPriorityJob) > 0) {
+                lowestPriorityJob = job;
             }
-            logTrace("<job executors stopped");
-        } finally {
-            mExecuteLock.unlock();
         }
+
+        return lowestPriorityJob;
     }
 
-    private void shutdownAsync() {
-        new AsyncTask<Void, Void, Void>() {
-            @Override
-            protected Void doInBackground(Void... voids) {
-                shutdownImpl();
-                return null;
+    private void removeQueuedJobLocked(Job job) {
+        final int groupId = job.getParams().getGroupId();
+        final TreeSet<Job> queue = mQueuedJobs.get(groupId);
+
+        if (queue != null && queue.remove(job)) {
+            mQueuedJobIndex.remove(job.getJobId());
+            mJobEnqueueTimes.remove(job.getJobId());
+            getGroupStatsLocked(groupId).onJobDropped();
+            if (queue.isEmpty()) {
+                mSchedulingPolicy.onGroupDrained(groupId);
             }
-        }.execute();
+        }
     }
 
-    private void dispatchJob(Job job) {
-        logTrace(">dispatching job..", job);
+    /**
+     * Block until queue of job's group has free capacity
+     *
+     * @return true if job may be dispatched, false if timed out
+     */
+    private boolean awaitQueueCapacity(Job job) {
+        final int groupId = job.getParams().getGroupId();
 
-        if (isStopped()) {
-            Log.e(LOG_TAG, String.format("unable to dispatch job: worker is stopped; %s", job));
-            return;
+        if (!isQueueFull(groupId)) {
+            return true;
         }
 
-        final int groupId = job.getParams().getGroupId();
+        mOverflowCounters[OVERFLOW_POLICY_BLOCK].incrementAndGet();
+        logTrace("+ queue is full; waiting for free capacity..", job);
 
-        mDispatchLock.lock();
+        final long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(mQueueBlockTimeoutMillis);
 
+        mBlockedSubmitterCount.incrementAndGet();
         try {
-            if (!job.hasJobEventListener(mJobFinishListenerTag)) {
-                job.addJobEventListener(mJobFinishListenerTag, mJobEventListener);
-            }
-
-            Job pendingJob = findPendingJobForGroupId(groupId);
-            if (pendingJob != null) {
-                enqueueJob(job);
+            synchronized (mQueueCapacityMonitor) {
+                while (isQueueFull(groupId) && !isStopped()) {
+                    final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(
+                            deadline - System.nanoTime());
 
-                logTrace("<job dispatched", job);
+                    if (remainingMillis <= 0) {
+                        return false;
+                    }
 
-                return;
+                    mQueueCapacityMonitor.wait(remainingMillis);
+                }
             }
 
-            if (groupId == JobManager.JOB_GROUP_UNIQUE) {
-                if (mCoreExecutor.getActiveCount() >= mCoreExecutor.getCorePoolSize()) {
-                    if (job.getParams().checkFlag(JobParams.FLAG_FORCE_EXECUTE)) {
+            return true;
 
-                        allocateExclusiveJobExecutor(job.getJobId());
-                        executeJob(job);
-                    } else {
-                        enqueueJob(job);
-                    }
-                    logTrace("<job dispatched (all threads are busy)", job);
-                    return;
-                }
-            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
 
-            executeJob(job);
-            logTrace("<job dispatched", job);
+            return false;
 
         } finally {
-            mDispatchLock.unlock();
+            mBlockedSubmitterCount.decrementAndGet();
         }
     }
 
-    private void handleJobResult(JobEvent jobEvent) {
-        final int jobId = jobEvent.getJobParams().getJobId();
-        final int jobGroupId = jobEvent.getJobParams().getGroupId();
+    /**
+     * @return true if current thread handles finished jobs, so it can't wait for
+     * queue capacity to be released
+     */
+    private boolean isCompletionThread() {
+        switch (mCompletionMode) {
+            case COMPLETION_MODE_WORKER_THREAD:
+                return false;
 
-        final Job job = findPendingJobForId(jobId);
-        final boolean isTraceEnabled = logTrace("+ job finished;", job);
+            case COMPLETION_MODE_DISPATCHER_THREAD:
+                return Thread.currentThread() == mDispatcherThread;
 
-        if (isStopped()) {
-            logTrace("+ ignored job finish: worker is stopped", job);
-            return;
+            default:
+                return Looper.myLooper() == Looper.getMainLooper();
         }
+    }
 
-        if (jobGroupId == JobManager.JOB_GROUP_DEDICATED) {
-            logTrace("+ handled dedicated job", job);
+    private void signalQueueCapacity() {
+        if (mBlockedSubmitterCount.get() == 0) {
             return;
         }
 
-        if (job != null) {
-            removePendingJob(job);
-            if (isTraceEnabled) {
-                if (job instanceof ProfilerJob) {
-                    logTraceForce("Profile job dump:\n%s", job, ((ProfilerJob) job).dumpProfile());
-                }
-            }
+        synchronized (mQueueCapacityMonitor) {
+            mQueueCapacityMonitor.notifyAll();
+        }
+    }
 
-            if (job.getParams().checkFlag(JobParams.FLAG_FORCE_EXECUTE)) {
-                removeExclusiveJobExecutor(job.getJobId());
+    private boolean isVirtualThreadJob(Job job) {
+        return job.getParams().checkFlag(JobParams.FLAG_VIRTUAL_THREAD_EXECUTION)
+                || (!mVirtualThreadGroups.isEmpty()
+                        && mVirtualThreadGroups.containsKey(job.getParams().getGroupId()));
+    }
+
+    private ExecutorService getVirtualThreadExecutor() {
+        synchronized (mVirtualThreadExecutorLock) {
+            if (mVirtualThreadExecutor == null) {
+                mVirtualThreadExecutor = VirtualThreadExecutors.create(
+                        mBlockingThreadFactory, mBlockingThreadCount);
+
+                Log.d(LOG_TAG, String.format("virtual thread executor created; " +
+                        "virtual threads supported: '%s'", isVirtualThreadSupported()));
             }
 
-        } else {
-            Log.w(LOG_TAG, String.format("can't find pending job to " +
-                    "remove on finish: job id:'%s' not found", jobId));
+            return mVirtualThreadExecutor;
         }
+    }
 
-        // Synchronize with job dispatch to ensure serial job enqueue/deque
-        mDispatchLock.lock();
+    private void samplePoolSize(AdaptivePoolSizeController controller) {
+        if (isStopped()) return;
 
-        Job pendingJob = null;
         try {
-            if (jobGroupId != JobManager.JOB_GROUP_UNIQUE) {
-                pendingJob = getNextQueuedJobForGroupId(jobGroupId);
-
-                if (job != null) {
-                    logTrace("+ dispatching next queued job of the same group..", job);
-                }
-            }
-
-            if (pendingJob == null) {
-                pendingJob = getNextQueuedJob();
-                if (job != null) {
-                    logTrace("+ dispatching next queued job..", job);
-                }
+            final int delta = controller.sample();
+            if (delta != 0) {
+                logTrace("+ adaptive pool size changed by '%d' to '%d'",
+                        delta, mCoreExecutor.getCorePoolSize());
             }
 
-            if (pendingJob != null) {
-                dispatchJob(pendingJob);
-            } else {
-                logTrace("+ no more jobs to execute");
-            }
-        } finally {
-            mDispatchLock.unlock();
+        } catch (RuntimeException e) {
+            Log.e(LOG_TAG, "failed to adjust thread pool size", e);
         }
     }
 
-    private void executeJob(Job job) {
-        logTrace(">executing job..", job);
-        final int groupId = job.getParams().getGroupId();
-        addPendingJob(job);
-
-        if (mIsStopped.get()) {
-            Log.w(LOG_TAG, String.format("unable to execute job: thread pool worker " +
-                    "has been stopped after job is dispatched; %s", job));
-
-            return;
+    private void stopPoolSizeSampler() {
+        if (mPoolSizeSampler != null) {
+            mPoolSizeSampler.shutdownNow();
+            mPoolSizeSampler = null;
         }
+        mPoolSizeController = null;
+    }
 
-        job.getParams().getFlags().setFlag(JobParams.FLAG_JOB_SUBMITTED, true);
+    private void setCoreThreadCount(int count) {
+        final int previousCount;
 
+        final Lock lock = mPendingJobsLock.writeLock();
+        lock.lock();
         try {
-            mExecuteLock.lock();
-
-            if (groupId == JobManager.JOB_GROUP_DEDICATED) {
-                logTrace("+ executing job on dedicated executor", job);
-                new DedicatedThreadFactory(job.getJobId(), groupId).newThread(job).start();
-
-            } else {
-                int index = mAllocatedExecutors.indexOfKey(groupId);
-
-                if (index > -1) {
-                    logTrace("+ executing job on allocated executor", job);
-                    ExecutorProvider provider = mAllocatedExecutors.get(groupId);
-                    provider.get().submit((Runnable) job);
+            previousCount = mCoreExecutor.getCorePoolSize();
+            if (count > mCoreExecutor.getMaximumPoolSize()) {
+                mCoreExecutor.setMaximumPoolSize(count);
+            }
+            mCoreExecutor.setCorePoolSize(count);
 
-                } else {
-                    index = mExclusiveJobExecutors.indexOfKey(job.getJobId());
+        } finally {
+            lock.unlock();
+        }
 
-                    if (index > -1) {
-                        logTrace("+ executing job on exclusive executor", job);
-                        ExecutorProvider provider = mExclusiveJobExecutors.get(job.getJobId());
-                        provider.get().submit((Runnable) job);
+        // Queued jobs are dispatched one per finished job, so use new threads explicitly
+        for (int i = previousCount; i < count; i++) {
+            postJobResultHandler(mDispatchNextQueuedJobTask);
+        }
+    }
 
-                    } else {
-                        logTrace("+ executing job on common thread pool", job);
-                        mCoreExecutor.submit((Runnable) job);
-                    }
-                }
+    /**
+     * @return number of busy common pool threads which are not runnable
+     */
+    private int getBlockedThreadCount() {
+        int waitingCount = 0;
+        for (Thread thread : mCoreThreads.keySet()) {
+            if (!thread.isAlive()) {
+                mCoreThreads.remove(thread);
+                continue;
             }
 
-            logTrace("<job submitted on execution", job);
-
-        } catch (RejectedExecutionException e) {
-            Log.e(LOG_TAG, String.format("unable to execute submitted job %s: " +
-                    "thread pool exceeded", job));
-            e.printStackTrace();
-            job.notifyJobEvent(JobEvent.failure(e.getMessage(), e));
+            final Thread.State state = thread.getState();
+            if (state == Thread.State.BLOCKED
+                    || state == Thread.State.WAITING
+                    || state == Thread.State.TIMED_WAITING) {
 
-        } finally {
-            mExecuteLock.unlock();
+                waitingCount++;
+            }
         }
-    }
 
-    private void enqueueJob(Job job) {
-        logTrace(">enqueue job..", job);
+        // Idle pool threads are waiting for next job as well
+        final int idleCount = mCoreExecutor.getPoolSize() - mCoreExecutor.getActiveCount();
 
-        final int groupId = job.getParams().getGroupId();
+        return Math.max(0, waitingCount - idleCount);
+    }
 
-        final Lock lock = mQueuedJobsLock.writeLock();
-        lock.lock();
-        try {
+    /**
+     * Finish job with failure event without execution
+     */
+    private void rejectJob(Job job, String reason) {
+        Log.w(LOG_TAG, String.format("job rejected: %s; %s", reason, job));
+
+        job.removeJobEventListener(mJobFinishListenerTag);
+        JobManager.abortJob(job, new JobEvent.Builder()
+                .eventCode(JobEvent.EVENT_CODE_FAILED)
+                .extraCode(JobEvent.EXTRA_CODE_JOB_REJECTED)
+                .jobStatus(JobStatus.FAILED)
+                .extraMessage(reason)
+                .build());
+    }
 
-            TreeSet<Job> queue = mQueuedJobs.get(groupId);
-            if (queue == null) {
-                queue = new TreeSet<Job>(mJobPriorityComparator);
-                mQueuedJobs.put(groupId, queue);
-            }
-            final int sz = queue.size();
-            queue.add(job);
-            if (queue.size() == sz) {
-                throw new RuntimeException("job comparator collision detected");
-            }
+    private void checkQueueCapacity(int capacity) {
+        if (capacity < 0 && capacity != QUEUE_CAPACITY_UNBOUNDED) {
+            throw new IllegalArgumentException("invalid capacity");
+        }
 
-            job.getParams().getFlags().setFlag(JobParams.FLAG_JOB_ENQUEUED, true);
+        if (capacity != QUEUE_CAPACITY_UNBOUNDED && mWorkStealingPool != null) {
+            throw new IllegalStateException("queue capacity is not supported in work stealing mode");
+        }
+    }
 
-            logTrace("<job added to job queue", job);
+    private static void checkOverflowPolicy(int overflowPolicy) {
+        if (overflowPolicy != OVERFLOW_POLICY_REJECT
+                && overflowPolicy != OVERFLOW_POLICY_DROP_OLDEST
+                && overflowPolicy != OVERFLOW_POLICY_DROP_LOWEST_PRIORITY
+                && overflowPolicy != OVERFLOW_POLICY_BLOCK) {
 
-        } finally {
-            lock.unlock();
+            throw new IllegalArgumentException("unknown overflow policy");
         }
     }
 
     public int getPendingJobCount() {
+        if (mWorkStealingPool != null) {
+            return mWorkStealingPool.getRunningJobCount();
+        }
+
         final Lock lock = mPendingJobsLock.readLock();
         lock.lock();
         try {
@@ -855,12 +2254,17 @@ public class ThreadPoolWorker implements Worker {
         lock.lock();
         try {
             // JobManager.JOB_GROUP_UNIQUE is also added only to adjust thread pool size
-            mPendingJobs.append(jobGroupId, job);
+            mPendingJobs.put(jobGroupId, job);
+            mPendingJobIndex.put(job.getJobId(), job);
             if (jobGroupId == JobManager.JOB_GROUP_UNIQUE) {
-                mUniquePendingJobs.add(job);
+                mUniquePendingJobs.put(job.getJobId(), job);
             }
 
-            int sz = mPendingJobs.size();
+            int sz = isVirtualThreadJob(job) ? 0 : mPendingJobs.size();
+            final int maxThreadCount = mMaxThreadCount;
+            if (maxThreadCount != THREAD_COUNT_UNBOUNDED && sz > maxThreadCount) {
+                sz = maxThreadCount;
+            }
             if (sz > mCoreExecutor.getMaximumPoolSize()) {
                 Log.d(LOG_TAG, String.format(
                         "+ incrementing maximum thread pool size from '%d' to '%d'..",
@@ -893,12 +2297,8 @@ public class ThreadPoolWorker implements Worker {
         Lock lock = mPendingJobsLock.writeLock();
         lock.lock();
         try {
-            int groupIdIndex = mPendingJobs.indexOfKey(jobGroupId);
-
-            if (groupIdIndex != -1) {
-                mPendingJobs.remove(jobGroupId);
-
-            } else {
+            mPendingJobIndex.remove(job.getJobId());
+            if (mPendingJobs.remove(jobGroupId) == null) {
                 Log.e(LOG_TAG, String.format("unable to remove pending job: " +
                         "job is not pending; %s", job));
             }
@@ -920,14 +2320,8 @@ public class ThreadPoolWorker implements Worker {
         Lock lock = mPendingJobsLock.writeLock();
         lock.lock();
         try {
-            Iterator<Job> iter = mUniquePendingJobs.iterator();
-            while (iter.hasNext()) {
-                Job pendingJob = iter.next();
-                if (pendingJob.getJobId() == uniqueGroupJob.getJobId()) {
-                    iter.remove();
-                    break;
-                }
-            }
+            mUniquePendingJobs.remove(uniqueGroupJob.getJobId());
+            mPendingJobIndex.remove(uniqueGroupJob.getJobId());
 
             if (mUniquePendingJobs.isEmpty()) {
                 mPendingJobs.remove(JobManager.JOB_GROUP_UNIQUE);
@@ -940,41 +2334,112 @@ public class ThreadPoolWorker implements Worker {
         logTrace("<unique-group pending job removed", uniqueGroupJob);
     }
 
-    private Job getNextQueuedJob() {
-        final Lock lock = mQueuedJobsLock.readLock();
+    /**
+     * Take next job to execute from the queue of a group selected by scheduling policy
+     *
+     * @param releasedGroupId group of the job just finished
+     *                        or {@link JobSchedulingPolicy#GROUP_NONE}
+     * @return next job to execute or null if there is no job ready for execution
+     */
+    private Job getNextQueuedJob(int releasedGroupId) {
+        final Lock lock = mQueuedJobsLock.writeLock();
         lock.lock();
         try {
-            int sz = mQueuedJobs.size();
-            for (int i = 0; i < sz; i++) {
-                TreeSet<Job> queue = mQueuedJobs.valueAt(i);
+            final List<JobGroupStats> readyGroups = getReadyGroupStatsLocked();
+            if (readyGroups.isEmpty()) {
+                return null;
+            }
 
-                if (queue.isEmpty()) continue;
+            final int groupId = mSchedulingPolicy.selectGroup(readyGroups, releasedGroupId);
+            TreeSet<Job> queue = mQueuedJobs.get(groupId);
 
-                Job job = queue.first();
-                queue.remove(job);
+            if (queue == null || queue.isEmpty()) {
+                Log.w(LOG_TAG, String.format("scheduling policy selected group " +
+                        "with no queued jobs: '%d'", groupId));
+                queue = mQueuedJobs.get(readyGroups.get(0).getGroupId());
+            }
 
-                return job;
+            final Job job = queue.first();
+            queue.remove(job);
+            mQueuedJobIndex.remove(job.getJobId());
+            if (queue.isEmpty()) {
+                mSchedulingPolicy.onGroupDrained(job.getParams().getGroupId());
             }
 
-            return null;
+            final Long enqueueTime = mJobEnqueueTimes.remove(job.getJobId());
+            final long waitTime = enqueueTime == null ? 0 : System.nanoTime() - enqueueTime;
+            getGroupStatsLocked(job.getParams().getGroupId()).onJobDequeued(waitTime);
+            mTotalQueueWaitTimeNanos.addAndGet(waitTime);
+
+            return job;
 
         } finally {
             lock.unlock();
+            signalQueueCapacity();
         }
     }
 
-    private Job getNextQueuedJobForGroupId(int groupId) {
-        final Lock lock = mQueuedJobsLock.readLock();
+    /**
+     * Collect statistics of groups having queued jobs which are not blocked by
+     * pending job of the same group. Should be called under queued jobs lock.
+     *
+     * @return statistics of ready groups ordered by group id
+     */
+    private List<JobGroupStats> getReadyGroupStatsLocked() {
+        final List<JobGroupStats> readyGroups = new ArrayList<JobGroupStats>(mQueuedJobs.size());
+
+        final Lock lock = mPendingJobsLock.readLock();
         lock.lock();
         try {
-            TreeSet<Job> queue = mQueuedJobs.get(groupId);
+            for (Map.Entry<Integer, TreeSet<Job>> entry : mQueuedJobs.entrySet()) {
+                if (entry.getValue().isEmpty()) continue;
 
-            if (queue == null || queue.isEmpty()) return null;
+                final int groupId = entry.getKey();
+                if (groupId != JobManager.JOB_GROUP_UNIQUE && mPendingJobs.containsKey(groupId)) {
+                    continue;
+                }
 
-            Job job = queue.first();
-            queue.remove(job);
+                readyGroups.add(getGroupStatsLocked(groupId));
+            }
 
-            return job;
+        } finally {
+            lock.unlock();
+        }
+
+        return readyGroups;
+    }
+
+    private JobGroupStats getGroupStatsLocked(int groupId) {
+        JobGroupStats stats = mGroupStats.get(groupId);
+        if (stats == null) {
+            stats = new JobGroupStats(groupId);
+            mGroupStats.put(groupId, stats);
+        }
+
+        return stats;
+    }
+
+    private void onJobExecutionFinished(Job job) {
+        final Long startTime = mJobExecutionStartTimes.remove(job.getJobId());
+        if (startTime == null) {
+            return;
+        }
+
+        final long executionTime = System.nanoTime() - startTime;
+        mCompletedJobCount.incrementAndGet();
+        mTotalExecutionTimeNanos.addAndGet(executionTime);
+
+        final int groupId = job.getParams().getGroupId();
+        final Lock lock = mQueuedJobsLock.writeLock();
+        lock.lock();
+        try {
+            final JobGroupStats stats = getGroupStatsLocked(groupId);
+            stats.onJobFinished(executionTime);
+
+            // Job of a serial group is finished with nothing queued, so group is idle
+            if (stats.getQueueDepth() == 0 && !JobManager.isSpecialJobGroup(groupId)) {
+                mGroupStats.remove(groupId);
+            }
 
         } finally {
             lock.unlock();
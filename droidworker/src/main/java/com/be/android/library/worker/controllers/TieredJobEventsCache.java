@@ -0,0 +1,114 @@
+package com.be.android.library.worker.controllers;
+
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.interfaces.CacheEntryDescriptor;
+import com.be.android.library.worker.interfaces.JobEventsCache;
+
+/**
+ * Two level job events cache, typically in memory cache backed by {@link DiskJobEventsCache}.
+ * <p>
+ * Events are written through to both levels. First level misses are looked up
+ * in the second level and promoted to the first one.
+ */
+public class TieredJobEventsCache implements JobEventsCache {
+
+    private static final int LOCK_STRIPE_COUNT = 16;
+
+    private final JobEventsCache mFirstLevelCache;
+    private final JobEventsCache mSecondLevelCache;
+    private final CacheEntryDescriptor mPromotedEntryDescriptor;
+    private final Object[] mKeyLocks;
+
+    /**
+     * @param firstLevelCache fast cache looked up first
+     * @param secondLevelCache persistent or larger cache looked up on first level miss
+     * @param promotedEntryDescriptor descriptor of events promoted from second level
+     *                                to first level cache
+     */
+    public TieredJobEventsCache(JobEventsCache firstLevelCache,
+                                JobEventsCache secondLevelCache,
+                                CacheEntryDescriptor promotedEntryDescriptor) {
+
+        if (firstLevelCache == null) {
+            throw new IllegalArgumentException("firstLevelCache == null");
+        }
+
+        if (secondLevelCache == null) {
+            throw new IllegalArgumentException("secondLevelCache == null");
+        }
+
+        if (promotedEntryDescriptor == null) {
+            throw new IllegalArgumentException("promotedEntryDescriptor == null");
+        }
+
+        mFirstLevelCache = firstLevelCache;
+        mSecondLevelCache = secondLevelCache;
+        mPromotedEntryDescriptor = promotedEntryDescriptor;
+        mKeyLocks = new Object[LOCK_STRIPE_COUNT];
+        for (int i = 0; i < LOCK_STRIPE_COUNT; i++) {
+            mKeyLocks[i] = new Object();
+        }
+    }
+
+    public JobEventsCache getFirstLevelCache() {
+        return mFirstLevelCache;
+    }
+
+    public JobEventsCache getSecondLevelCache() {
+        return mSecondLevelCache;
+    }
+
+    @Override
+    public JobEvent getEvent(String key) {
+        if (key == null) return null;
+
+        final JobEvent event = mFirstLevelCache.getEvent(key);
+
+        if (event != null) {
+            return event;
+        }
+
+        // Promotion should not overwrite event put concurrently
+        synchronized (getKeyLock(key)) {
+            final JobEvent promotedEvent = mSecondLevelCache.getEvent(key);
+
+            if (promotedEvent != null) {
+                mFirstLevelCache.putEvent(promotedEvent, key, mPromotedEntryDescriptor);
+            }
+
+            return promotedEvent;
+        }
+    }
+
+    @Override
+    public void putEvent(JobEvent event, String key, CacheEntryDescriptor descriptor) {
+        synchronized (getKeyLock(key)) {
+            mSecondLevelCache.putEvent(event, key, descriptor);
+            mFirstLevelCache.putEvent(event, key, descriptor);
+        }
+    }
+
+    @Override
+    public void evictEvent(String key) {
+        if (key == null) return;
+
+        synchronized (getKeyLock(key)) {
+            mFirstLevelCache.evictEvent(key);
+            mSecondLevelCache.evictEvent(key);
+        }
+    }
+
+    @Override
+    public void evictAll() {
+        mFirstLevelCache.evictAll();
+        mSecondLevelCache.evictAll();
+    }
+
+    private Object getKeyLock(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("key == null");
+        }
+
+        return mKeyLocks[(key.hashCode() & 0x7fffffff) % LOCK_STRIPE_COUNT];
+    }
+}
@@ -0,0 +1,77 @@
+package com.be.android.library.worker.controllers;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates executors running each task on a new virtual thread when runtime supports them.
+ * <p>
+ * Virtual threads are looked up reflectively, so this class may be loaded on any runtime;
+ * runtimes without virtual threads get fixed size thread pool instead.
+ */
+class VirtualThreadExecutors {
+
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR_METHOD;
+    private static final ThreadFactory VIRTUAL_THREAD_FACTORY;
+
+    static {
+        Method executorMethod = null;
+        ThreadFactory threadFactory = null;
+
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class)
+                    .invoke(builder, ThreadPoolWorker.BASE_VIRTUAL_THREAD_NAME, 1L);
+
+            threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            executorMethod = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+
+            // Make sure virtual threads are not disabled by runtime
+            threadFactory.newThread(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+
+        } catch (Throwable e) {
+            executorMethod = null;
+            threadFactory = null;
+        }
+
+        NEW_THREAD_PER_TASK_EXECUTOR_METHOD = executorMethod;
+        VIRTUAL_THREAD_FACTORY = threadFactory;
+    }
+
+    private VirtualThreadExecutors() {
+    }
+
+    static boolean isVirtualThreadSupported() {
+        return VIRTUAL_THREAD_FACTORY != null;
+    }
+
+    /**
+     * @param fallbackThreadFactory thread factory of fallback thread pool
+     * @param fallbackThreadCount thread count of fallback thread pool
+     * @return virtual thread per task executor or fixed size thread pool
+     */
+    static ExecutorService create(ThreadFactory fallbackThreadFactory, int fallbackThreadCount) {
+        if (VIRTUAL_THREAD_FACTORY != null) {
+            try {
+                return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR_METHOD.invoke(
+                        null, VIRTUAL_THREAD_FACTORY);
+
+            } catch (Exception e) {
+                // Fall back to thread pool
+            }
+        }
+
+        return new ThreadPoolExecutor(fallbackThreadCount, fallbackThreadCount,
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), fallbackThreadFactory);
+    }
+}
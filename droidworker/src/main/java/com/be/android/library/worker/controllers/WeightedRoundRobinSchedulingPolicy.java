@@ -0,0 +1,90 @@
+package com.be.android.library.worker.controllers;
+
+import com.be.android.library.worker.interfaces.JobSchedulingPolicy;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves ready groups in turn, in proportion to their weights.
+ * <p>
+ * Uses smooth weighted round-robin: a group of weight 3 next to a group
+ * of weight 1 gets three of every four dispatches, interleaved rather than in bursts.
+ */
+public class WeightedRoundRobinSchedulingPolicy implements JobSchedulingPolicy {
+
+    private final int mDefaultWeight;
+    private final Map<Integer, Integer> mGroupWeights;
+    private final Map<Integer, int[]> mCurrentWeights;
+
+    public WeightedRoundRobinSchedulingPolicy() {
+        this(1);
+    }
+
+    /**
+     * @param defaultWeight weight of the groups with no weight assigned
+     */
+    public WeightedRoundRobinSchedulingPolicy(int defaultWeight) {
+        if (defaultWeight < 1) {
+            throw new IllegalArgumentException("defaultWeight < 1");
+        }
+
+        mDefaultWeight = defaultWeight;
+        mGroupWeights = new HashMap<Integer, Integer>();
+        mCurrentWeights = new HashMap<Integer, int[]>();
+    }
+
+    public synchronized WeightedRoundRobinSchedulingPolicy setGroupWeight(int groupId, int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight < 1");
+        }
+
+        mGroupWeights.put(groupId, weight);
+
+        return this;
+    }
+
+    public synchronized int getGroupWeight(int groupId) {
+        final Integer weight = mGroupWeights.get(groupId);
+
+        return weight == null ? mDefaultWeight : weight;
+    }
+
+    @Override
+    public synchronized int selectGroup(List<JobGroupStats> readyGroups, int releasedGroupId) {
+        int totalWeight = 0;
+        int[] selectedWeight = null;
+        int selectedGroupId = GROUP_NONE;
+
+        for (JobGroupStats stats : readyGroups) {
+            final int groupId = stats.getGroupId();
+            final int weight = getGroupWeight(groupId);
+
+            int[] current = mCurrentWeights.get(groupId);
+            if (current == null) {
+                current = new int[1];
+                mCurrentWeights.put(groupId, current);
+            }
+
+            current[0] += weight;
+            totalWeight += weight;
+
+            if (selectedWeight == null || current[0] > selectedWeight[0]) {
+                selectedWeight = current;
+                selectedGroupId = groupId;
+            }
+        }
+
+        if (selectedWeight != null) {
+            selectedWeight[0] -= totalWeight;
+        }
+
+        return selectedGroupId;
+    }
+
+    @Override
+    public synchronized void onGroupDrained(int groupId) {
+        mCurrentWeights.remove(groupId);
+    }
+}
@@ -0,0 +1,628 @@
+package com.be.android.library.worker.controllers;
+
+import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.models.JobParams;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Job pool backed by per-thread work deques with work stealing.
+ * <p>
+ * Each job group is represented by a lane holding group's queued jobs ordered by priority.
+ * Serial group lane may have at most one scheduled task, so jobs of the same group are still
+ * executed one by one. {@link JobManager#JOB_GROUP_UNIQUE} lane may have any number of
+ * scheduled tasks. Lane tasks are pushed to the deque of submitting pool thread or spread
+ * among pool threads when submitted from outside; idle threads steal tasks from other threads.
+ * <p>
+ * No global lock is involved: submit and finish synchronize on a single lane and a single deque.
+ */
+class WorkStealingJobPool {
+
+    interface Callbacks {
+        void onJobStarted(Job job);
+        void onJobFinished(Job job);
+    }
+
+    private static final int DEQUE_CAPACITY_DEFAULT = 16;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final Comparator<Job> mJobPriorityComparator;
+    private final ThreadFactory mThreadFactory;
+    private final Callbacks mCallbacks;
+    private final int mCoreThreadCount;
+    private final long mKeepAliveNanos;
+    private final ConcurrentHashMap<Integer, GroupLane> mLanes;
+    private final ConcurrentHashMap<Integer, Job> mRunningJobs;
+    private final ConcurrentHashMap<Integer, Job> mQueuedJobs;
+    private final Object mWorkersLock;
+    private final AtomicInteger mIdleCount;
+    private final AtomicInteger mActiveSerialLanes;
+    private final AtomicInteger mNextDequeIndex;
+    private final AtomicBoolean mIsStarted;
+    private volatile PoolThread[] mWorkers;
+    private volatile int mMaxThreadCount = ThreadPoolWorker.THREAD_COUNT_UNBOUNDED;
+    private volatile boolean mIsShutdown;
+
+    WorkStealingJobPool(int threadCount,
+                        long keepAliveMillis,
+                        ThreadFactory threadFactory,
+                        Comparator<Job> jobPriorityComparator,
+                        Callbacks callbacks) {
+
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("threadCount < 1");
+        }
+
+        mCoreThreadCount = threadCount;
+        mKeepAliveNanos = TimeUnit.MILLISECONDS.toNanos(keepAliveMillis);
+        mThreadFactory = threadFactory;
+        mJobPriorityComparator = jobPriorityComparator;
+        mCallbacks = callbacks;
+        mLanes = new ConcurrentHashMap<Integer, GroupLane>();
+        mRunningJobs = new ConcurrentHashMap<Integer, Job>();
+        mQueuedJobs = new ConcurrentHashMap<Integer, Job>();
+        mWorkersLock = new Object();
+        mIdleCount = new AtomicInteger(0);
+        mActiveSerialLanes = new AtomicInteger(0);
+        mNextDequeIndex = new AtomicInteger(0);
+        mIsStarted = new AtomicBoolean(false);
+        mWorkers = new PoolThread[0];
+    }
+
+    /**
+     * Add job to it's group lane and schedule lane execution if needed.
+     * <p>
+     * Job is flagged with {@link JobParams#FLAG_JOB_SUBMITTED} if it is going
+     * to be picked up by the pool immediately or {@link JobParams#FLAG_JOB_ENQUEUED}
+     * if it has to wait for the previous job of the same group.
+     *
+     * @param job job to execute
+     */
+    void submit(Job job) {
+        if (mIsShutdown) {
+            throw new RejectedExecutionException("pool is shut down");
+        }
+
+        ensureStarted();
+
+        final int groupId = job.getParams().getGroupId();
+        while (!getLane(groupId).enqueue(job)) {
+            // Lane has been removed as idle meanwhile
+        }
+    }
+
+    /**
+     * Run job on given executor bypassing group lanes.
+     * Job is still tracked as running job of this pool.
+     *
+     * @param job job to execute
+     * @param executor executor to run job on
+     */
+    void execute(final Job job, Executor executor) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                runJob(job);
+            }
+        });
+    }
+
+    /**
+     * Execute jobs of specified group on given executor instead of pool threads.
+     *
+     * @param groupId job group id
+     * @param executor executor to run group jobs on
+     */
+    void setGroupExecutor(int groupId, Executor executor) {
+        while (!getLane(groupId).setExecutor(executor)) {
+            // Lane has been removed as idle meanwhile
+        }
+    }
+
+    /**
+     * Limit number of pool threads started to compensate for blocked serial lanes.
+     *
+     * @param count maximum thread count, not less than core thread count,
+     *              or {@link ThreadPoolWorker#THREAD_COUNT_UNBOUNDED}
+     */
+    void setMaximumThreadCount(int count) {
+        mMaxThreadCount = count;
+    }
+
+    boolean hasIdleThreads() {
+        return mIdleCount.get() > 0;
+    }
+
+    int getThreadCount() {
+        return mWorkers.length;
+    }
+
+    int getRunningJobCount() {
+        return mRunningJobs.size();
+    }
+
+    int getQueuedJobCount() {
+        return mQueuedJobs.size();
+    }
+
+    Job findRunningJob(int jobId) {
+        return mRunningJobs.get(jobId);
+    }
+
+    Job findRunningJobForGroupId(int groupId) {
+        final GroupLane lane = mLanes.get(groupId);
+
+        return lane == null ? null : lane.mRunningJob;
+    }
+
+    Job findQueuedJob(int jobId) {
+        return mQueuedJobs.get(jobId);
+    }
+
+    /**
+     * Stop pool threads. Queued jobs are discarded, running jobs are left to complete.
+     */
+    void shutdown() {
+        mIsShutdown = true;
+
+        for (GroupLane lane : mLanes.values()) {
+            lane.clear();
+        }
+
+        for (PoolThread worker : mWorkers) {
+            LockSupport.unpark(worker.mThread);
+        }
+    }
+
+    private void ensureStarted() {
+        if (mIsStarted.get()) {
+            return;
+        }
+
+        synchronized (mWorkersLock) {
+            if (mIsStarted.get()) {
+                return;
+            }
+
+            final PoolThread[] workers = new PoolThread[mCoreThreadCount];
+            for (int i = 0; i < mCoreThreadCount; i++) {
+                workers[i] = new PoolThread(true);
+            }
+            mWorkers = workers;
+
+            for (PoolThread worker : workers) {
+                worker.mThread.start();
+            }
+            mIsStarted.set(true);
+        }
+    }
+
+    private GroupLane getLane(int groupId) {
+        GroupLane lane = mLanes.get(groupId);
+        if (lane == null) {
+            lane = new GroupLane(groupId);
+            final GroupLane existing = mLanes.putIfAbsent(groupId, lane);
+            if (existing != null) {
+                lane = existing;
+            }
+        }
+
+        return lane;
+    }
+
+    private void schedule(GroupLane lane, boolean isResubmit) {
+        final Executor executor = lane.mExecutor;
+        if (executor != null) {
+            executor.execute(lane);
+            return;
+        }
+
+        final PoolThread current = CURRENT.get();
+        final PoolThread owner = current != null && current.getPool() == this ? current : null;
+
+        if (owner != null) {
+            if (isResubmit) {
+                // Let other lanes of this deque go first
+                owner.mDeque.pushFirst(lane);
+            } else {
+                owner.mDeque.pushLast(lane);
+            }
+
+        } else {
+            final PoolThread[] workers = mWorkers;
+            final int index = (mNextDequeIndex.getAndIncrement() & Integer.MAX_VALUE)
+                    % Math.min(mCoreThreadCount, workers.length);
+
+            workers[index].mDeque.pushLast(lane);
+        }
+
+        signalWork();
+    }
+
+    private void signalWork() {
+        if (mIdleCount.get() == 0) {
+            return;
+        }
+
+        for (PoolThread worker : mWorkers) {
+            if (worker.mIsIdle.compareAndSet(true, false)) {
+                LockSupport.unpark(worker.mThread);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Serial lanes may block on each other (fork/join), so as with
+     * the queued scheduler every active serial group gets it's own thread
+     * when there is no idle thread left, up to maximum thread count.
+     */
+    private void compensateIfNeeded() {
+        if (mIdleCount.get() > 0 || mIsShutdown) {
+            return;
+        }
+
+        synchronized (mWorkersLock) {
+            final PoolThread[] workers = mWorkers;
+            final int maxThreadCount = mMaxThreadCount;
+            if (mActiveSerialLanes.get() <= workers.length
+                    || (maxThreadCount != ThreadPoolWorker.THREAD_COUNT_UNBOUNDED
+                            && workers.length >= maxThreadCount)) {
+                return;
+            }
+
+            final PoolThread[] newWorkers = new PoolThread[workers.length + 1];
+            System.arraycopy(workers, 0, newWorkers, 0, workers.length);
+            final PoolThread worker = new PoolThread(false);
+            newWorkers[workers.length] = worker;
+            mWorkers = newWorkers;
+            worker.mThread.start();
+        }
+    }
+
+    private void removeWorker(PoolThread worker) {
+        synchronized (mWorkersLock) {
+            final PoolThread[] workers = mWorkers;
+            final List<PoolThread> result = new ArrayList<PoolThread>(workers.length);
+            for (PoolThread item : workers) {
+                if (item != worker) {
+                    result.add(item);
+                }
+            }
+            mWorkers = result.toArray(new PoolThread[result.size()]);
+        }
+    }
+
+    private Runnable findTask(PoolThread worker) {
+        final Runnable task = worker.mDeque.popLast();
+        if (task != null) {
+            return task;
+        }
+
+        final PoolThread[] workers = mWorkers;
+        final int count = workers.length;
+        if (count < 2) {
+            return null;
+        }
+
+        final int start = (int) (Thread.currentThread().getId() % count);
+        for (int i = 0; i < count; i++) {
+            final PoolThread victim = workers[(start + i) % count];
+            if (victim == worker) continue;
+
+            final Runnable stolen = victim.mDeque.popFirst();
+            if (stolen != null) {
+                return stolen;
+            }
+        }
+
+        return null;
+    }
+
+    private void runWorker(PoolThread worker) {
+        long idleSinceNanos = 0;
+
+        while (!mIsShutdown) {
+            Runnable task = findTask(worker);
+
+            if (task == null) {
+                worker.mIsIdle.set(true);
+                mIdleCount.incrementAndGet();
+
+                // Re-check after announcing idle state to not miss a concurrent push
+                task = findTask(worker);
+                if (task == null) {
+                    if (idleSinceNanos == 0) {
+                        idleSinceNanos = System.nanoTime();
+                    }
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+
+                worker.mIsIdle.set(false);
+                mIdleCount.decrementAndGet();
+
+                if (task == null) {
+                    if (!worker.mIsCore
+                            && System.nanoTime() - idleSinceNanos > mKeepAliveNanos
+                            && worker.mDeque.isEmpty()) {
+
+                        removeWorker(worker);
+                        // Steal back anything pushed in between
+                        Runnable remaining;
+                        while ((remaining = worker.mDeque.popLast()) != null) {
+                            remaining.run();
+                        }
+                        return;
+                    }
+
+                    continue;
+                }
+            }
+
+            idleSinceNanos = 0;
+            task.run();
+        }
+    }
+
+    private void runJob(Job job) {
+        mRunningJobs.put(job.getJobId(), job);
+        try {
+            mCallbacks.onJobStarted(job);
+            job.run();
+
+        } finally {
+            mRunningJobs.remove(job.getJobId());
+            mCallbacks.onJobFinished(job);
+        }
+    }
+
+    private static final ThreadLocal<PoolThread> CURRENT = new ThreadLocal<PoolThread>();
+
+    private final class PoolThread {
+
+        final WorkDeque mDeque;
+        final AtomicBoolean mIsIdle;
+        final boolean mIsCore;
+        final Thread mThread;
+
+        private PoolThread(boolean isCore) {
+            mDeque = new WorkDeque();
+            mIsIdle = new AtomicBoolean(false);
+            mIsCore = isCore;
+            mThread = mThreadFactory.newThread(new PoolThreadRunnable(this));
+        }
+
+        WorkStealingJobPool getPool() {
+            return WorkStealingJobPool.this;
+        }
+    }
+
+    /**
+     * Runnable executed by thread obtained from thread factory.
+     */
+    private final class PoolThreadRunnable implements Runnable {
+
+        private final PoolThread mPoolThread;
+
+        private PoolThreadRunnable(PoolThread poolThread) {
+            mPoolThread = poolThread;
+        }
+
+        @Override
+        public void run() {
+            CURRENT.set(mPoolThread);
+            try {
+                runWorker(mPoolThread);
+            } finally {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    private final class GroupLane implements Runnable {
+
+        final int mGroupId;
+        final int mMaxScheduled;
+        final PriorityQueue<Job> mQueue;
+        volatile Executor mExecutor;
+        volatile Job mRunningJob;
+        int mScheduledCount;
+        boolean mIsRemoved;
+
+        private GroupLane(int groupId) {
+            mGroupId = groupId;
+            mMaxScheduled = groupId == JobManager.JOB_GROUP_UNIQUE ? Integer.MAX_VALUE : 1;
+            mQueue = new PriorityQueue<Job>(DEQUE_CAPACITY_DEFAULT, mJobPriorityComparator);
+        }
+
+        private boolean isSerial() {
+            return mMaxScheduled == 1;
+        }
+
+        /**
+         * @return false if lane is removed and job is not enqueued
+         */
+        boolean enqueue(Job job) {
+            final boolean shouldSchedule;
+            synchronized (this) {
+                if (mIsRemoved) {
+                    return false;
+                }
+
+                shouldSchedule = mScheduledCount < mMaxScheduled;
+                if (shouldSchedule) {
+                    mScheduledCount++;
+                }
+
+                // Flag job before it may be picked up by lane task
+                job.getParams().getFlags().setFlag(shouldSchedule
+                        ? JobParams.FLAG_JOB_SUBMITTED
+                        : JobParams.FLAG_JOB_ENQUEUED, true);
+
+                mQueue.add(job);
+                mQueuedJobs.put(job.getJobId(), job);
+            }
+
+            if (shouldSchedule) {
+                if (isSerial()) {
+                    mActiveSerialLanes.incrementAndGet();
+                }
+                schedule(this, false);
+                if (isSerial()) {
+                    compensateIfNeeded();
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * @return false if lane is removed and executor is not set
+         */
+        synchronized boolean setExecutor(Executor executor) {
+            if (mIsRemoved) {
+                return false;
+            }
+
+            mExecutor = executor;
+
+            return true;
+        }
+
+        synchronized void clear() {
+            for (Job job : mQueue) {
+                mQueuedJobs.remove(job.getJobId());
+            }
+            mQueue.clear();
+        }
+
+        private boolean release() {
+            synchronized (this) {
+                if (!mQueue.isEmpty() && !mIsShutdown) {
+                    return false;
+                }
+
+                mScheduledCount--;
+
+                // Drop idle lane, so lanes are not kept for every group ever used
+                if (mScheduledCount == 0 && mExecutor == null) {
+                    mIsRemoved = true;
+                    mLanes.remove(mGroupId, this);
+                }
+            }
+
+            if (isSerial()) {
+                mActiveSerialLanes.decrementAndGet();
+            }
+
+            return true;
+        }
+
+        @Override
+        public void run() {
+            final Job job;
+            synchronized (this) {
+                job = mQueue.poll();
+                if (job != null) {
+                    mQueuedJobs.remove(job.getJobId());
+                    job.getParams().getFlags().setFlag(JobParams.FLAG_JOB_SUBMITTED, true);
+                }
+            }
+
+            if (job == null) {
+                if (!release()) {
+                    schedule(this, true);
+                }
+                return;
+            }
+
+            if (isSerial()) {
+                mRunningJob = job;
+            }
+            try {
+                runJob(job);
+
+            } finally {
+                if (isSerial()) {
+                    mRunningJob = null;
+                }
+
+                if (!release()) {
+                    schedule(this, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Array-based deque guarded by it's own monitor.
+     * Owner thread pushes and pops at the tail, thieves take from the head.
+     */
+    private static final class WorkDeque {
+
+        private Runnable[] mTasks = new Runnable[DEQUE_CAPACITY_DEFAULT];
+        private int mHead;
+        private int mSize;
+
+        synchronized void pushLast(Runnable task) {
+            ensureCapacity();
+            mTasks[(mHead + mSize) & (mTasks.length - 1)] = task;
+            mSize++;
+        }
+
+        synchronized void pushFirst(Runnable task) {
+            ensureCapacity();
+            mHead = (mHead - 1) & (mTasks.length - 1);
+            mTasks[mHead] = task;
+            mSize++;
+        }
+
+        synchronized Runnable popLast() {
+            if (mSize == 0) return null;
+
+            mSize--;
+            final int index = (mHead + mSize) & (mTasks.length - 1);
+            final Runnable task = mTasks[index];
+            mTasks[index] = null;
+
+            return task;
+        }
+
+        synchronized Runnable popFirst() {
+            if (mSize == 0) return null;
+
+            final Runnable task = mTasks[mHead];
+            mTasks[mHead] = null;
+            mHead = (mHead + 1) & (mTasks.length - 1);
+            mSize--;
+
+            return task;
+        }
+
+        synchronized boolean isEmpty() {
+            return mSize == 0;
+        }
+
+        private void ensureCapacity() {
+            if (mSize < mTasks.length) return;
+
+            final Runnable[] tasks = new Runnable[mTasks.length * 2];
+            for (int i = 0; i < mSize; i++) {
+                tasks[i] = mTasks[(mHead + i) & (mTasks.length - 1)];
+            }
+            mTasks = tasks;
+            mHead = 0;
+        }
+    }
+}
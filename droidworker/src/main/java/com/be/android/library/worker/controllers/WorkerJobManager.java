@@ -5,8 +5,12 @@ import android.content.Intent;
 import android.util.Log;
 
 import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.interfaces.Worker;
 import com.be.android.library.worker.service.ThreadPoolWorkerService;
 import com.be.android.library.worker.service.WorkerService;
+import com.be.android.library.worker.util.Workers;
+
+import java.util.List;
 
 public class WorkerJobManager extends JobManager {
 
@@ -15,6 +19,16 @@ public class WorkerJobManager extends JobManager {
     private final int mWorkerThreadPoolSize;
     private final Context mContext;
     private final Class<?> mWorkerServiceClass;
+    private int mWorkerSchedulerMode = ThreadPoolWorker.SCHEDULER_MODE_QUEUED;
+    private int mWorkerCompletionMode = ThreadPoolWorker.COMPLETION_MODE_MAIN_THREAD;
+    private int mWorkerMaxThreadPoolSize = ThreadPoolWorker.THREAD_COUNT_UNBOUNDED;
+    private int mWorkerQueueCapacity = ThreadPoolWorker.QUEUE_CAPACITY_UNBOUNDED;
+    private int mWorkerQueueOverflowPolicy = ThreadPoolWorker.OVERFLOW_POLICY_REJECT;
+    private int mWorkerAdaptiveMinThreadPoolSize;
+    private int mWorkerAdaptiveMaxThreadPoolSize;
+    private volatile boolean mIsDirectSubmitEnabled;
+    private volatile Worker mDirectWorker;
+    private final Object mDirectWorkerLock = new Object();
 
     public WorkerJobManager(Context context) {
         this(context, ThreadPoolWorkerService.THREAD_POOL_SIZE_DEFAULT, ThreadPoolWorkerService.class);
@@ -36,16 +50,225 @@ public class WorkerJobManager extends JobManager {
         mWorkerServiceClass = workerServiceClass;
     }
 
+    /**
+     * Set scheduler mode of worker created by {@link ThreadPoolWorkerService}.
+     * Takes effect on the next worker service start.
+     *
+     * @param schedulerMode one of {@link ThreadPoolWorker#SCHEDULER_MODE_QUEUED}
+     *                      or {@link ThreadPoolWorker#SCHEDULER_MODE_WORK_STEALING}
+     * @throws IllegalStateException if work stealing mode is set with bounded worker queue capacity
+     */
+    public void setWorkerSchedulerMode(int schedulerMode) {
+        checkWorkerQueueCapacity(schedulerMode, mWorkerQueueCapacity);
+
+        mWorkerSchedulerMode = schedulerMode;
+    }
+
+    public int getWorkerSchedulerMode() {
+        return mWorkerSchedulerMode;
+    }
+
+    /**
+     * Set completion mode of worker created by {@link ThreadPoolWorkerService}.
+     * Takes effect on the next worker service start.
+     *
+     * @param completionMode one of {@link ThreadPoolWorker#COMPLETION_MODE_MAIN_THREAD},
+     *                       {@link ThreadPoolWorker#COMPLETION_MODE_DISPATCHER_THREAD}
+     *                       or {@link ThreadPoolWorker#COMPLETION_MODE_WORKER_THREAD}
+     * @throws IllegalStateException if main thread completion mode is set with
+     * {@link ThreadPoolWorker#OVERFLOW_POLICY_BLOCK}
+     */
+    public void setWorkerCompletionMode(int completionMode) {
+        checkWorkerQueueOverflowPolicy(completionMode, mWorkerQueueOverflowPolicy);
+
+        mWorkerCompletionMode = completionMode;
+    }
+
+    public int getWorkerCompletionMode() {
+        return mWorkerCompletionMode;
+    }
+
+    /**
+     * Set maximum common thread pool size of worker created by {@link ThreadPoolWorkerService}.
+     * Takes effect on the next worker service start.
+     *
+     * @param maxThreadPoolSize maximum thread count, not less than worker thread pool size,
+     *                          or {@link ThreadPoolWorker#THREAD_COUNT_UNBOUNDED}
+     */
+    public void setWorkerMaxThreadPoolSize(int maxThreadPoolSize) {
+        mWorkerMaxThreadPoolSize = maxThreadPoolSize;
+    }
+
+    public int getWorkerMaxThreadPoolSize() {
+        return mWorkerMaxThreadPoolSize;
+    }
+
+    /**
+     * Set job queue capacity and overflow policy of worker created by {@link ThreadPoolWorkerService}.
+     * Takes effect on the next worker service start.
+     *
+     * @param queueCapacity maximum number of queued jobs
+     *                      or {@link ThreadPoolWorker#QUEUE_CAPACITY_UNBOUNDED}
+     * @param overflowPolicy one of {@link ThreadPoolWorker#OVERFLOW_POLICY_REJECT},
+     *                       {@link ThreadPoolWorker#OVERFLOW_POLICY_DROP_OLDEST},
+     *                       {@link ThreadPoolWorker#OVERFLOW_POLICY_DROP_LOWEST_PRIORITY}
+     *                       or {@link ThreadPoolWorker#OVERFLOW_POLICY_BLOCK}
+     * @throws IllegalStateException if bounded capacity is set for
+     * {@link ThreadPoolWorker#SCHEDULER_MODE_WORK_STEALING}, or if
+     * {@link ThreadPoolWorker#OVERFLOW_POLICY_BLOCK} is set for
+     * {@link ThreadPoolWorker#COMPLETION_MODE_MAIN_THREAD}: jobs submitted on the main thread
+     * would block the thread releasing queue capacity
+     */
+    public void setWorkerQueueCapacity(int queueCapacity, int overflowPolicy) {
+        checkWorkerQueueCapacity(mWorkerSchedulerMode, queueCapacity);
+        checkWorkerQueueOverflowPolicy(mWorkerCompletionMode, overflowPolicy);
+
+        mWorkerQueueCapacity = queueCapacity;
+        mWorkerQueueOverflowPolicy = overflowPolicy;
+    }
+
+    public int getWorkerQueueCapacity() {
+        return mWorkerQueueCapacity;
+    }
+
+    public int getWorkerQueueOverflowPolicy() {
+        return mWorkerQueueOverflowPolicy;
+    }
+
+    /**
+     * Let worker created by {@link ThreadPoolWorkerService} adjust it's thread pool size
+     * between specified bounds. Takes effect on the next worker service start.
+     *
+     * @param minThreadPoolSize minimum thread pool size
+     * @param maxThreadPoolSize maximum thread pool size or 0 to use fixed pool size
+     * @see ThreadPoolWorker#setAdaptivePoolSizing(int, int)
+     */
+    public void setWorkerAdaptivePoolSize(int minThreadPoolSize, int maxThreadPoolSize) {
+        mWorkerAdaptiveMinThreadPoolSize = minThreadPoolSize;
+        mWorkerAdaptiveMaxThreadPoolSize = maxThreadPoolSize;
+    }
+
+    public int getWorkerAdaptiveMinThreadPoolSize() {
+        return mWorkerAdaptiveMinThreadPoolSize;
+    }
+
+    public int getWorkerAdaptiveMaxThreadPoolSize() {
+        return mWorkerAdaptiveMaxThreadPoolSize;
+    }
+
+    /**
+     * Submit jobs directly to a worker owned by job manager instead of sending them
+     * to worker service with intents. Worker service is started only to keep process
+     * alive while there are unfinished jobs.
+     * <br>
+     * Worker is created on the first submission using current worker configuration.
+     * Regardless of this mode jobs are handed to running worker service directly
+     * once it has created it's worker.
+     *
+     * @param isEnabled true to submit jobs directly
+     * @see #finishDirectWorker()
+     */
+    public void setDirectSubmitEnabled(boolean isEnabled) {
+        mIsDirectSubmitEnabled = isEnabled;
+    }
+
+    public boolean isDirectSubmitEnabled() {
+        return mIsDirectSubmitEnabled;
+    }
+
+    /**
+     * Finish worker created for direct submit mode; new one is created on the next direct submission
+     */
+    public void finishDirectWorker() {
+        synchronized (mDirectWorkerLock) {
+            if (mDirectWorker != null) {
+                mDirectWorker.finish();
+                mDirectWorker = null;
+            }
+        }
+    }
+
     @Override
     protected void submitJobImpl(Job job) {
+        if (mIsDirectSubmitEnabled) {
+            getDirectWorker().submitJob(job);
+            keepWorkerServiceAlive();
+
+            return;
+        }
+
+        // Service being destroyed refuses the job, so it is submitted by intent to the next one
         WorkerService service = WorkerService.getInstance();
+        if (service != null && service.trySubmitJob(job)) {
+            return;
+        }
+
+        startWorkerService(createSubmitIntent(mContext, job));
+    }
+
+    /**
+     * Submit jobs batch to worker service at once
+     */
+    @Override
+    protected void submitJobsImpl(List<Job> jobs) {
+        if (mIsDirectSubmitEnabled) {
+            Workers.submitJobs(getDirectWorker(), jobs);
+            keepWorkerServiceAlive();
+
+            return;
+        }
+
+        WorkerService service = WorkerService.getInstance();
+        if (service != null && service.trySubmitJobs(jobs)) {
+            return;
+        }
+
+        startWorkerService(createSubmitIntent(mContext, jobs));
+    }
+
+    /**
+     * Create worker for direct submit mode
+     *
+     * @return worker configured as the one created by {@link ThreadPoolWorkerService}
+     */
+    protected Worker createDirectWorker() {
+        return ThreadPoolWorkerService.createThreadPoolWorker(createWorkerIntent(mContext));
+    }
+
+    private Worker getDirectWorker() {
+        Worker worker = mDirectWorker;
+        if (worker == null) {
+            synchronized (mDirectWorkerLock) {
+                worker = mDirectWorker;
+                if (worker == null) {
+                    worker = createDirectWorker();
+                    mDirectWorker = worker;
+                }
+            }
+        }
+
+        return worker;
+    }
+
+    private void keepWorkerServiceAlive() {
+        final WorkerService service = WorkerService.getInstance();
         if (service != null && service.isRunning()) {
-            service.submitJob(job);
+            service.keepAlive();
 
             return;
         }
 
-        Intent submitIntent = createSubmitIntent(mContext, job);
+        Intent intent = new Intent(WorkerService.ACTION_KEEP_ALIVE);
+        intent.setClass(mContext.getApplicationContext(), mWorkerServiceClass);
+        try {
+            mContext.startService(intent);
+
+        } catch (Exception e) {
+            Log.w(LOG_TAG, "unable to start worker service to keep process alive", e);
+        }
+    }
+
+    private void startWorkerService(Intent submitIntent) {
         try {
             if (mContext.startService(submitIntent) == null) {
                 Log.e(LOG_TAG, "unable to start worker service");
@@ -61,16 +284,65 @@ public class WorkerJobManager extends JobManager {
     }
 
     private Intent createSubmitIntent(Context context, Job job) {
-        Intent intent = new Intent(WorkerService.ACTION_SUBMIT_JOB);
-        intent.setClass(context.getApplicationContext(), mWorkerServiceClass);
+        Intent intent = createWorkerIntent(context);
         intent.putExtra(WorkerService.EXTRA_JOB_ID, job.getJobId());
-        intent.putExtra(ThreadPoolWorkerService.EXTRA_THREAD_POOL_SIZE, mWorkerThreadPoolSize);
 
         addSubmitIntentParams(intent, job);
 
         return intent;
     }
 
+    private Intent createSubmitIntent(Context context, List<Job> jobs) {
+        Intent intent = createWorkerIntent(context);
+
+        final int[] jobIds = new int[jobs.size()];
+        for (int i = 0; i < jobIds.length; i++) {
+            jobIds[i] = jobs.get(i).getJobId();
+        }
+        intent.putExtra(WorkerService.EXTRA_JOB_IDS, jobIds);
+
+        for (Job job : jobs) {
+            addSubmitIntentParams(intent, job);
+        }
+
+        return intent;
+    }
+
+    private static void checkWorkerQueueCapacity(int schedulerMode, int queueCapacity) {
+        if (schedulerMode == ThreadPoolWorker.SCHEDULER_MODE_WORK_STEALING
+                && queueCapacity != ThreadPoolWorker.QUEUE_CAPACITY_UNBOUNDED) {
+
+            throw new IllegalStateException("queue capacity is not supported in work stealing mode");
+        }
+    }
+
+    private static void checkWorkerQueueOverflowPolicy(int completionMode, int overflowPolicy) {
+        if (overflowPolicy == ThreadPoolWorker.OVERFLOW_POLICY_BLOCK
+                && completionMode != ThreadPoolWorker.COMPLETION_MODE_DISPATCHER_THREAD
+                && completionMode != ThreadPoolWorker.COMPLETION_MODE_WORKER_THREAD) {
+
+            throw new IllegalStateException("blocking overflow policy requires " +
+                    "dispatcher or worker thread completion mode");
+        }
+    }
+
+    private Intent createWorkerIntent(Context context) {
+        Intent intent = new Intent(WorkerService.ACTION_SUBMIT_JOB);
+        intent.setClass(context.getApplicationContext(), mWorkerServiceClass);
+        intent.putExtra(ThreadPoolWorkerService.EXTRA_THREAD_POOL_SIZE, mWorkerThreadPoolSize);
+        intent.putExtra(ThreadPoolWorkerService.EXTRA_SCHEDULER_MODE, mWorkerSchedulerMode);
+        intent.putExtra(ThreadPoolWorkerService.EXTRA_COMPLETION_MODE, mWorkerCompletionMode);
+        intent.putExtra(ThreadPoolWorkerService.EXTRA_MAX_THREAD_POOL_SIZE, mWorkerMaxThreadPoolSize);
+        intent.putExtra(ThreadPoolWorkerService.EXTRA_QUEUE_CAPACITY, mWorkerQueueCapacity);
+        intent.putExtra(ThreadPoolWorkerService.EXTRA_QUEUE_OVERFLOW_POLICY, mWorkerQueueOverflowPolicy);
+        intent.putExtra(ThreadPoolWorkerService.EXTRA_ADAPTIVE_MIN_THREAD_POOL_SIZE,
+                mWorkerAdaptiveMinThreadPoolSize);
+        intent.putExtra(ThreadPoolWorkerService.EXTRA_ADAPTIVE_MAX_THREAD_POOL_SIZE,
+                mWorkerAdaptiveMaxThreadPoolSize);
+
+        return intent;
+    }
+
     protected void addSubmitIntentParams(Intent submitIntent, Job job) {
     }
 }
@@ -1,75 +1,101 @@
 package com.be.android.library.worker.handlers;
 
-import android.annotation.TargetApi;
-import android.os.Build;
-
 import com.be.android.library.worker.base.JobEvent;
 import com.be.android.library.worker.interfaces.JobEventListener;
 
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 
 /**
- * Job event listener used to retain job events for short period of time
+ * Job event listener used to retain job events for short period of time.
+ * <p>
+ * Only the last event of each job is retained, so events of busy jobs
+ * don't push out results of quiet jobs. Number of retained events is bounded:
+ * when capacity is exceeded, the oldest pending job event is dropped first,
+ * while events of finished jobs are dropped only if no pending job events are left.
  */
 public abstract class CachedJobEventListener implements JobEventListener {
 
-    private static final int MAX_SIZE_THRESHOLD = 10;
+    public static final int DEFAULT_CAPACITY = 16;
 
-    private final LinkedList<JobEvent> mLastJobEvents;
+    private final int mCapacity;
+    private final LinkedHashMap<Integer, JobEvent> mPendingJobEvents;
+    private final LinkedHashMap<Integer, JobEvent> mFinishedJobEvents;
 
     public CachedJobEventListener() {
-        mLastJobEvents = new LinkedList<JobEvent>();
+        this(DEFAULT_CAPACITY);
     }
 
-    @Override
-    public final void onJobEvent(JobEvent event) {
-        if (mLastJobEvents.size() >= MAX_SIZE_THRESHOLD) {
-            mLastJobEvents.removeFirst();
+    /**
+     * @param capacity max number of retained job events
+     */
+    public CachedJobEventListener(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity should be positive");
         }
 
+        mCapacity = capacity;
+        mPendingJobEvents = new LinkedHashMap<Integer, JobEvent>();
+        mFinishedJobEvents = new LinkedHashMap<Integer, JobEvent>();
+    }
+
+    @Override
+    public final void onJobEvent(JobEvent event) {
         if (!onJobEventImpl(event)) {
-            mLastJobEvents.addLast(event);
+            putEvent(event);
         }
     }
 
-    public JobEvent getLastJobEvent(int jobId) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.GINGERBREAD) {
-            return getLastJobEventApi9(jobId);
+    private void putEvent(JobEvent event) {
+        final Integer jobId = event.getJobId();
+
+        if (mFinishedJobEvents.containsKey(jobId)) {
+            // Result of the job is kept in preference to any later event
+            return;
         }
 
-        // API 8
-        final int sz = mLastJobEvents.size();
-        for (int i = sz - 1; i >= 0; i--) {
-            JobEvent event = mLastJobEvents.get(i);
+        // Re-insert to move job to the end of eviction order
+        mPendingJobEvents.remove(jobId);
 
-            if (event.getJobId() == jobId) {
-                return event;
-            }
+        if (event.isJobFinished()) {
+            mFinishedJobEvents.put(jobId, event);
+        } else {
+            mPendingJobEvents.put(jobId, event);
         }
 
-        return null;
+        trimToCapacity();
+    }
+
+    private void trimToCapacity() {
+        while (mPendingJobEvents.size() + mFinishedJobEvents.size() > mCapacity) {
+            final Iterator<JobEvent> iter = mPendingJobEvents.isEmpty()
+                    ? mFinishedJobEvents.values().iterator()
+                    : mPendingJobEvents.values().iterator();
+
+            iter.next();
+            iter.remove();
+        }
     }
 
-    @TargetApi(Build.VERSION_CODES.GINGERBREAD)
-    private JobEvent getLastJobEventApi9(int jobId) {
-        final Iterator<JobEvent> iter = mLastJobEvents.descendingIterator();
+    public int getCapacity() {
+        return mCapacity;
+    }
 
-        while (iter.hasNext()) {
-            JobEvent event = iter.next();
-            if (event.getJobId() == jobId) {
-                return event;
-            }
+    public JobEvent getLastJobEvent(int jobId) {
+        final JobEvent finishedEvent = mFinishedJobEvents.get(jobId);
+        if (finishedEvent != null) {
+            return finishedEvent;
         }
 
-        return null;
+        return mPendingJobEvents.get(jobId);
     }
 
     /**
      * Remove all events from cache
      */
     public void clearCachedEvents() {
-        mLastJobEvents.clear();
+        mPendingJobEvents.clear();
+        mFinishedJobEvents.clear();
     }
 
     /**
@@ -78,7 +104,14 @@ public abstract class CachedJobEventListener implements JobEventListener {
      * @param event event to remove
      */
     public void consumeEvent(JobEvent event) {
-        mLastJobEvents.remove(event);
+        final Integer jobId = event.getJobId();
+
+        if (mFinishedJobEvents.get(jobId) == event) {
+            mFinishedJobEvents.remove(jobId);
+
+        } else if (mPendingJobEvents.get(jobId) == event) {
+            mPendingJobEvents.remove(jobId);
+        }
     }
 
     /**
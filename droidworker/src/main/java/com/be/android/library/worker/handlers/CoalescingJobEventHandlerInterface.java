@@ -0,0 +1,12 @@
+package com.be.android.library.worker.handlers;
+
+import com.be.android.library.worker.interfaces.Job;
+
+/**
+ * Event handler able to attach to equivalent in-flight job instead of submitting a new one
+ *
+ * @see com.be.android.library.worker.controllers.JobManager#submitJobCoalesced(Job, String)
+ */
+public interface CoalescingJobEventHandlerInterface extends JobEventHandlerInterface {
+    int submitJobCoalesced(Job job, String coalesceKey);
+}
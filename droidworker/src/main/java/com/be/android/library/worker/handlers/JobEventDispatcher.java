@@ -19,23 +19,25 @@ import com.be.android.library.worker.base.JobFailureInvocationHandlerProvider;
 import com.be.android.library.worker.base.JobResultInvocationHandlerProvider;
 import com.be.android.library.worker.base.JobSuccessInvocationHandlerProvider;
 import com.be.android.library.worker.controllers.JobManager;
+import com.be.android.library.worker.interfaces.EventHandlerDispatcher;
 import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.interfaces.JobEventListener;
+import com.be.android.library.worker.util.IntSet;
+import com.be.android.library.worker.util.JobEventCoalescer;
 import com.be.android.library.worker.util.JobSelector;
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
-import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 
-public class JobEventDispatcher implements JobEventHandlerInterface {
+public class JobEventDispatcher implements CoalescingJobEventHandlerInterface {
 
     public static final String LOG_TAG = JobEventDispatcher.class.getSimpleName();
 
@@ -46,8 +48,8 @@ public class JobEventDispatcher implements JobEventHandlerInterface {
     private static Executor sAsyncExecutor;
 
     private final LinkedList<ListenerEntry> mListeners;
-    private final Set<Integer> mPendingJobs;
-    private final Handler mHandler;
+    private final IntSet mPendingJobs;
+    private final JobEventCoalescer mEventCoalescer;
     private final String mListenerTag;
     private final HierarchyViewer mHierarchyViewer;
     private final JobManager mJobManager;
@@ -59,12 +61,7 @@ public class JobEventDispatcher implements JobEventHandlerInterface {
         @Override
         public boolean onJobEventImpl(final JobEvent event) {
             if (mPendingJobs.contains(event.getJobId())) {
-                mHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        handleJobEvent(event);
-                    }
-                });
+                mEventCoalescer.post(event);
 
                 return false;
             }
@@ -92,20 +89,82 @@ public class JobEventDispatcher implements JobEventHandlerInterface {
         }
 
         mListeners = new LinkedList<ListenerEntry>();
-        mPendingJobs = new HashSet<Integer>();
-        mHandler = new Handler(Looper.getMainLooper());
+        mPendingJobs = new IntSet();
+        mEventCoalescer = new JobEventCoalescer(new Handler(Looper.getMainLooper()), new JobEventListener() {
+            @Override
+            public void onJobEvent(JobEvent event) {
+                handleJobEvent(event);
+            }
+        });
         mListenerTag = String.format(Locale.US, "%s_%d_%d",
                 listenerName,
                 getClass().hashCode(),
                 System.currentTimeMillis());
 
         mPendingListeners = new ConcurrentLinkedQueue<WeakReference<Object>>();
-        mHierarchyViewer = new HierarchyViewer(context);
-        mHierarchyViewer.registerInvocationHandlerProvider(new JobEventInvocationHandlerProvider());
-        mHierarchyViewer.registerInvocationHandlerProvider(new JobResultInvocationHandlerProvider());
-        mHierarchyViewer.registerInvocationHandlerProvider(new JobSuccessInvocationHandlerProvider());
-        mHierarchyViewer.registerInvocationHandlerProvider(new JobFailureInvocationHandlerProvider());
-        mHierarchyViewer.registerInvocationHandlerProvider(new JobCancelInvocationHandlerProvider());
+        mHierarchyViewer = createHierarchyViewer(context);
+    }
+
+    private static HierarchyViewer createHierarchyViewer(Context context) {
+        final HierarchyViewer hierarchyViewer = new HierarchyViewer(context);
+        hierarchyViewer.registerInvocationHandlerProvider(new JobEventInvocationHandlerProvider());
+        hierarchyViewer.registerInvocationHandlerProvider(new JobResultInvocationHandlerProvider());
+        hierarchyViewer.registerInvocationHandlerProvider(new JobSuccessInvocationHandlerProvider());
+        hierarchyViewer.registerInvocationHandlerProvider(new JobFailureInvocationHandlerProvider());
+        hierarchyViewer.registerInvocationHandlerProvider(new JobCancelInvocationHandlerProvider());
+
+        return hierarchyViewer;
+    }
+
+    /**
+     * Resolve event handlers of given listener types on calling thread,
+     * so that listeners of these types are registered without inspecting their types.
+     *
+     * @param listenerTypes types of listeners to be registered later
+     * @throws IllegalArgumentException if any of given types declares no event handlers
+     */
+    public static void prefetchListenerTypes(Class<?>... listenerTypes) {
+        createHierarchyViewer(null).prefetch(listenerTypes);
+    }
+
+    /**
+     * Resolve event handlers of given listener types on the background thread used for
+     * asynchronous listener registration, e.g. for all application screens at startup.
+     * Types declaring no event handlers are skipped.
+     *
+     * @param listenerTypes types of listeners to be registered later
+     */
+    public static void prefetchListenerTypesAsync(final Class<?>... listenerTypes) {
+        getAsyncExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final HierarchyViewer hierarchyViewer = createHierarchyViewer(null);
+
+                for (Class<?> type : listenerTypes) {
+                    try {
+                        hierarchyViewer.prefetch(type);
+
+                    } catch (IllegalArgumentException e) {
+                        Log.w(LOG_TAG, String.format("unable to prefetch listener type '%s'", type), e);
+                    }
+                }
+            }
+        });
+    }
+
+    private static Executor getAsyncExecutor() {
+        synchronized (JobEventDispatcher.class) {
+            if (sAsyncExecutor == null) {
+                sAsyncExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        return new Thread(r, THREAD_NAME);
+                    }
+                });
+            }
+
+            return sAsyncExecutor;
+        }
     }
 
     /**
@@ -137,25 +196,25 @@ public class JobEventDispatcher implements JobEventHandlerInterface {
     }
 
     public boolean removePendingJob(int jobId) {
-        final boolean removed = mPendingJobs.remove(jobId);
-
-        if (mPendingJobs.isEmpty()) {
-            mJobManager.removeJobEventListener(mJobFinishedListener);
-        }
+        mJobManager.removeJobEventListener(jobId, mJobFinishedListener);
 
-        return removed;
+        return mPendingJobs.remove(jobId);
     }
 
     public void removePendingJobs() {
+        for (int i = 0; i < mPendingJobs.size(); i++) {
+            mJobManager.removeJobEventListener(mPendingJobs.valueAt(i), mJobFinishedListener);
+        }
+
         mPendingJobs.clear();
-        mJobManager.removeJobEventListener(mJobFinishedListener);
     }
 
+    /**
+     * Subscribe to events of given job only, so this dispatcher
+     * is not notified about jobs it doesn't track
+     */
     private void addPendingJobImpl(int jobId) {
-        if (mPendingJobs.isEmpty()) {
-            mJobManager.addJobEventListener(mListenerTag, mJobFinishedListener);
-        }
-
+        mJobManager.addJobEventListener(jobId, mJobFinishedListener);
         mPendingJobs.add(jobId);
     }
 
@@ -184,18 +243,16 @@ public class JobEventDispatcher implements JobEventHandlerInterface {
     }
 
     public int[] getPendingJobs() {
-        int i = 0;
-        int[] ids = new int[mPendingJobs.size()];
-        for (int jobId : mPendingJobs) {
-            ids[i] = jobId;
-            i++;
-        }
-
-        return ids;
+        return mPendingJobs.toArray();
     }
 
     public List<Integer> getPendingJobList() {
-        return new ArrayList<Integer>(mPendingJobs);
+        final List<Integer> jobs = new ArrayList<Integer>(mPendingJobs.size());
+        for (int i = 0; i < mPendingJobs.size(); i++) {
+            jobs.add(mPendingJobs.valueAt(i));
+        }
+
+        return jobs;
     }
 
     public void saveState(Bundle outState) {
@@ -234,15 +291,10 @@ public class JobEventDispatcher implements JobEventHandlerInterface {
             return;
         }
 
-        for (int jobId : mPendingJobs) {
+        for (int jobId : mPendingJobs.toArray()) {
             final JobEvent event = mJobFinishedListener.getLastJobEvent(jobId);
             if (event != null) {
-                mHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        handleJobEvent(event);
-                    }
-                });
+                mEventCoalescer.post(event);
             }
         }
     }
@@ -255,6 +307,22 @@ public class JobEventDispatcher implements JobEventHandlerInterface {
         mIsFlushEnabled = isFlushEnabled;
     }
 
+    public long getMinUpdateIntervalMillis() {
+        return mEventCoalescer.getMinUpdateIntervalMillis();
+    }
+
+    /**
+     * Limit rate of job progress and status message updates dispatched to listeners.
+     * Only the latest update of each job is dispatched once interval is elapsed;
+     * other job events are dispatched without delay.
+     *
+     * @param minUpdateIntervalMillis minimum interval between updates of a job,
+     *                                or 0 to dispatch every update
+     */
+    public void setMinUpdateIntervalMillis(long minUpdateIntervalMillis) {
+        mEventCoalescer.setMinUpdateIntervalMillis(minUpdateIntervalMillis);
+    }
+
     public int submitJob(Job job) {
         int jobId = mJobManager.submitJob(job);
         addPendingJobImpl(jobId);
@@ -262,15 +330,38 @@ public class JobEventDispatcher implements JobEventHandlerInterface {
         return jobId;
     }
 
+    /**
+     * Submit job unless equivalent job is already in-flight and register
+     * either job to be pending by this handler
+     *
+     * @see JobManager#submitJobCoalesced(Job, String)
+     */
+    public int submitJobCoalesced(Job job, String coalesceKey) {
+        int jobId = mJobManager.submitJobCoalesced(job, coalesceKey);
+        addPendingJobImpl(jobId);
+
+        return jobId;
+    }
+
     public void register(Object listener) {
         if (listener == null) {
             throw new IllegalArgumentException("listener should not be null");
         }
 
-        List<InvocationHandler> registry =
-                mHierarchyViewer.fetchInvocationHandlers(listener.getClass());
-        ListenerEntry entry = new ListenerEntry(new WeakReference<Object>(listener), registry);
-        registerImpl(listener, entry);
+        registerImpl(listener, createListenerEntry(listener));
+    }
+
+    private ListenerEntry createListenerEntry(Object listener) {
+        final WeakReference<Object> listenerRef = new WeakReference<Object>(listener);
+        final EventHandlerDispatcher<Object> dispatcher =
+                mHierarchyViewer.fetchEventHandlerDispatcher(listener.getClass());
+
+        if (dispatcher != null) {
+            return new ListenerEntry(listenerRef, dispatcher);
+        }
+
+        return new ListenerEntry(listenerRef,
+                mHierarchyViewer.fetchInvocationHandlers(listener.getClass()));
     }
 
     private void registerImpl(Object listener, ListenerEntry listenerEntry) {
@@ -312,20 +403,7 @@ public class JobEventDispatcher implements JobEventHandlerInterface {
 
     @TargetApi(Build.VERSION_CODES.HONEYCOMB)
     protected void registerAsyncApi11(final Object listener) {
-        if (sAsyncExecutor == null) {
-            synchronized (this) {
-                if (sAsyncExecutor == null) {
-                    sAsyncExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
-                        @Override
-                        public Thread newThread(Runnable r) {
-                            return new Thread(r, THREAD_NAME);
-                        }
-                    });
-                }
-            }
-        }
-
-        newRegisterTask(listener).executeOnExecutor(sAsyncExecutor);
+        newRegisterTask(listener).executeOnExecutor(getAsyncExecutor());
     }
 
     private AsyncTask<Void, Void, Void> newRegisterTask(final Object listener) {
@@ -335,9 +413,7 @@ public class JobEventDispatcher implements JobEventHandlerInterface {
             @Override
             protected Void doInBackground(Void... params) {
                 if (hasPendingListener(listener)) {
-                    mListenerEntry = new ListenerEntry(
-                            new WeakReference<Object>(listener),
-                            mHierarchyViewer.fetchInvocationHandlers(listener.getClass()));
+                    mListenerEntry = createListenerEntry(listener);
                 }
 
                 return null;
@@ -378,11 +454,7 @@ public class JobEventDispatcher implements JobEventHandlerInterface {
 
         if (dispatchJobEvent(jobEvent)) {
             if (jobEvent.isJobFinished()) {
-                mPendingJobs.remove(jobId);
-
-                if (mPendingJobs.isEmpty()) {
-                    mJobManager.removeJobEventListener(mJobFinishedListener);
-                }
+                removePendingJob(jobId);
             }
 
             mJobFinishedListener.consumeEvent(jobEvent);
@@ -405,15 +477,20 @@ public class JobEventDispatcher implements JobEventHandlerInterface {
                 continue;
             }
 
-            isDispatched = sendJobEvent(listener,
-                    entry.getInvocationHandlers(), jobEvent) || isDispatched;
+            isDispatched = sendJobEvent(listener, entry, jobEvent) || isDispatched;
         }
 
         return isDispatched;
     }
 
-    private boolean sendJobEvent(Object listener, List<InvocationHandler> handlers, JobEvent event) {
+    private boolean sendJobEvent(Object listener, ListenerEntry entry, JobEvent event) {
         try {
+            final EventHandlerDispatcher<Object> dispatcher = entry.getEventHandlerDispatcher();
+            if (dispatcher != null) {
+                return dispatcher.dispatch(listener, event);
+            }
+
+            final List<InvocationHandler> handlers = entry.getInvocationHandlers();
             for (InvocationHandler handler : handlers) {
                 if (!handler.isFitEvent(listener, event)) {
                     continue;
@@ -1,6 +1,7 @@
 package com.be.android.library.worker.handlers;
 
 import com.be.android.library.worker.base.InvocationHandler;
+import com.be.android.library.worker.interfaces.EventHandlerDispatcher;
 
 import java.lang.ref.WeakReference;
 import java.util.List;
@@ -8,6 +9,7 @@ import java.util.List;
 class ListenerEntry {
     WeakReference<Object> mListenerObjectRef;
     List<InvocationHandler> mInvocationHandlers;
+    EventHandlerDispatcher<Object> mEventHandlerDispatcher;
 
     ListenerEntry(WeakReference<Object> mListenerObjectRef,
                   List<InvocationHandler> invocationHandlers) {
@@ -16,6 +18,13 @@ class ListenerEntry {
         this.mInvocationHandlers = invocationHandlers;
     }
 
+    ListenerEntry(WeakReference<Object> mListenerObjectRef,
+                  EventHandlerDispatcher<Object> eventHandlerDispatcher) {
+
+        this.mListenerObjectRef = mListenerObjectRef;
+        this.mEventHandlerDispatcher = eventHandlerDispatcher;
+    }
+
     public WeakReference<Object> getListenerObjectRef() {
         return mListenerObjectRef;
     }
@@ -23,4 +32,11 @@ class ListenerEntry {
     public List<InvocationHandler> getInvocationHandlers() {
         return mInvocationHandlers;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return generated event handler dispatcher or null if invocation handlers are used
+     */
+    public EventHandlerDispatcher<Object> getEventHandlerDispatcher() {
+        return mEventHandlerDispatcher;
+    }
+}
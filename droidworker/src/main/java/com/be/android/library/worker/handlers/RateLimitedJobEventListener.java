@@ -0,0 +1,59 @@
+package com.be.android.library.worker.handlers;
+
+import android.os.Handler;
+
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.interfaces.JobEventListener;
+import com.be.android.library.worker.util.JobEventCoalescer;
+
+/**
+ * Job event listener limiting rate of progress and status message updates
+ * passed to wrapped listener.
+ * <p>
+ * Events are delivered to wrapped listener on handler thread. Only the latest update of a job
+ * is delivered once minimum update interval is elapsed, while job status changes
+ * and job results are delivered without delay and in order.
+ * <br>
+ * Observables keep weak references to listeners, so keep reference to this listener
+ * for as long as it should receive events.
+ */
+public class RateLimitedJobEventListener implements JobEventListener {
+
+    private final JobEventListener mListener;
+    private final JobEventCoalescer mEventCoalescer;
+
+    /**
+     * Create listener delivering events on current thread looper
+     *
+     * @param listener listener to deliver events to
+     * @param minUpdateIntervalMillis minimum interval between updates of a job
+     */
+    public RateLimitedJobEventListener(JobEventListener listener, long minUpdateIntervalMillis) {
+        this(new Handler(), listener, minUpdateIntervalMillis);
+    }
+
+    public RateLimitedJobEventListener(Handler handler,
+                                       JobEventListener listener,
+                                       long minUpdateIntervalMillis) {
+
+        mListener = listener;
+        mEventCoalescer = new JobEventCoalescer(handler, listener, minUpdateIntervalMillis);
+    }
+
+    public JobEventListener getListener() {
+        return mListener;
+    }
+
+    public long getMinUpdateIntervalMillis() {
+        return mEventCoalescer.getMinUpdateIntervalMillis();
+    }
+
+    public void setMinUpdateIntervalMillis(long minUpdateIntervalMillis) {
+        mEventCoalescer.setMinUpdateIntervalMillis(minUpdateIntervalMillis);
+    }
+
+    @Override
+    public void onJobEvent(JobEvent event) {
+        mEventCoalescer.post(event);
+    }
+}
@@ -0,0 +1,17 @@
+package com.be.android.library.worker.interfaces;
+
+import java.util.List;
+
+/**
+ * Worker able to dispatch several jobs at once
+ *
+ * @see com.be.android.library.worker.util.Workers#submitJobs(Worker, List)
+ */
+public interface BatchWorker extends Worker {
+
+    /**
+     * Submit several jobs to be executed in background
+     * @param jobs jobs to execute in submit order
+     */
+    public void submitJobs(List<Job> jobs);
+}
@@ -0,0 +1,29 @@
+package com.be.android.library.worker.interfaces;
+
+import com.be.android.library.worker.base.JobEvent;
+
+/**
+ * Delivers job events to event handler methods of a listener type without reflection.
+ * <p>
+ * Implementations are generated by worker annotation processor as
+ * {@code <ListenerType>EventDispatcher} for each type declaring
+ * {@link com.be.android.library.worker.annotations.OnJobEvent},
+ * {@link com.be.android.library.worker.annotations.OnJobResult},
+ * {@link com.be.android.library.worker.annotations.OnJobSuccess},
+ * {@link com.be.android.library.worker.annotations.OnJobFailure} or
+ * {@link com.be.android.library.worker.annotations.OnJobCancelled} methods.
+ *
+ * @param <T> listener type
+ */
+public interface EventHandlerDispatcher<T> {
+
+    /**
+     * Invoke the first event handler of listener matching the event
+     *
+     * @param listener listener to invoke event handler of
+     * @param event event to deliver
+     * @return true if event handler is invoked
+     * @throws Exception exception thrown by event handler
+     */
+    boolean dispatch(T listener, JobEvent event) throws Exception;
+}
@@ -0,0 +1,31 @@
+package com.be.android.library.worker.interfaces;
+
+import com.be.android.library.worker.base.JobEvent;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts job events to bytes persisted by disk job events cache and back
+ */
+public interface JobEventSerializer {
+
+    /**
+     * @param event job event to write
+     * @param out destination of serialized job event
+     * @throws IOException if event can't be serialized; event is not cached then
+     */
+    public void writeEvent(JobEvent event, DataOutput out) throws IOException;
+
+    /**
+     * Read job event written by {@link #writeEvent(JobEvent, DataOutput)}.
+     * Given buffer is a read only view of the mapped cache file,
+     * so data may be decoded from it without copying.
+     *
+     * @param data serialized job event, positioned at its first byte
+     * @return restored job event
+     * @throws IOException if event can't be restored; cache entry is evicted then
+     */
+    public JobEvent readEvent(ByteBuffer data) throws IOException;
+}
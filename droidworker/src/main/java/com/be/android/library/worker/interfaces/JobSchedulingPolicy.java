@@ -0,0 +1,37 @@
+package com.be.android.library.worker.interfaces;
+
+import com.be.android.library.worker.controllers.JobGroupStats;
+
+import java.util.List;
+
+/**
+ * Defines which job group queue is served when worker is able to execute next queued job
+ */
+public interface JobSchedulingPolicy {
+
+    /**
+     * Passed as released group id when next job is not requested by finished job
+     */
+    public static final int GROUP_NONE = Integer.MIN_VALUE;
+
+    /**
+     * Select job group to take next queued job from.
+     * <p>
+     * Called by worker under it's queue lock, implementation should be fast
+     * and should not retain passed statistics objects.
+     *
+     * @param readyGroups statistics of groups having queued jobs ready for execution,
+     *                    ordered by group id; never empty
+     * @param releasedGroupId group of the job just finished or {@link #GROUP_NONE}
+     * @return id of one of the ready groups
+     */
+    public int selectGroup(List<JobGroupStats> readyGroups, int releasedGroupId);
+
+    /**
+     * Called by worker under it's queue lock once group has no more queued jobs,
+     * so state kept for the group may be released
+     *
+     * @param groupId id of the drained group
+     */
+    public void onGroupDrained(int groupId);
+}
@@ -3,13 +3,70 @@ package com.be.android.library.worker.jobs;
 
 import com.be.android.library.worker.base.ForkJoinJob;
 import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.controllers.JobManager;
+import com.be.android.library.worker.interfaces.CacheEntryDescriptor;
 import com.be.android.library.worker.models.LoadJobResult;
 
+/**
+ * Job loading data, which result may be cached by {@link JobManager}.
+ * <br>
+ * Once {@link JobManager#setJobEventsCache(com.be.android.library.worker.interfaces.JobEventsCache)}
+ * is set, successful result of the job declaring {@link #getCacheKey()} is written to the cache,
+ * and the next submitted job with the same cache key is finished with the cached result
+ * without being executed.
+ */
 public abstract class LoadJob extends ForkJoinJob {
 
+    public static final long REFRESH_INTERVAL_NONE = -1;
+
+    private static final CacheEntryDescriptor DEFAULT_CACHE_ENTRY_DESCRIPTOR = new CacheEntryDescriptor() {
+        @Override
+        public int getJobEventSize(JobEvent event) {
+            return 1;
+        }
+
+        @Override
+        public int getExpirationTimeoutMillis() {
+            return TIMEOUT_NONE;
+        }
+    };
+
     @Override
     protected final JobEvent executeImpl() throws Exception {
-        return performLoad();
+        final LoadJobResult<?> result = performLoad();
+
+        if (result != null && result.getLoadTimeMillis() == 0) {
+            result.setLoadTimeMillis(System.currentTimeMillis());
+        }
+
+        return result;
+    }
+
+    /**
+     * @return key to cache load result by, or null if result should not be cached
+     */
+    public String getCacheKey() {
+        return null;
+    }
+
+    /**
+     * @return descriptor defining size and expiration timeout of cached load result;
+     * by default result has size of 1 and doesn't expire
+     */
+    public CacheEntryDescriptor getCacheEntryDescriptor() {
+        return DEFAULT_CACHE_ENTRY_DESCRIPTOR;
+    }
+
+    /**
+     * Cached result loaded longer than refresh interval ago is still delivered,
+     * while a copy of this job is executed in background to refresh cached result.
+     *
+     * @return refresh interval in milliseconds or {@link #REFRESH_INTERVAL_NONE}
+     * to deliver cached result until it expires
+     * @see LoadJobResult#getLoadTimeMillis()
+     */
+    public long getCacheRefreshIntervalMillis() {
+        return REFRESH_INTERVAL_NONE;
     }
 
     protected abstract LoadJobResult<?> performLoad() throws Exception;
@@ -19,6 +19,20 @@ public interface JobParams extends FlagsProvider {
      * has to have this flag to ensure correct execution flow.
      */
     public static final String FLAG_FORCE_EXECUTE = "com.be.android.library.worker.flags.FLAG_FORCE_EXECUTE";
+
+    /**
+     * If set then job is executed on a virtual thread when runtime supports them,
+     * otherwise on a separate pool of blocking job threads. Intended for jobs
+     * which spend most of their time blocked on I/O.
+     * <br>
+     * <br>
+     * Job group ordering is preserved. In work-stealing scheduler mode flag applies to jobs with group
+     * {@link com.be.android.library.worker.controllers.JobManager#JOB_GROUP_UNIQUE}
+     * or {@link com.be.android.library.worker.controllers.JobManager#JOB_GROUP_DEDICATED} only;
+     * other groups may be moved to virtual threads entirely by
+     * {@link com.be.android.library.worker.controllers.ThreadPoolWorker#setGroupExecutionMode(int, int)}.
+     */
+    public static final String FLAG_VIRTUAL_THREAD_EXECUTION = "com.be.android.library.worker.flags.FLAG_VIRTUAL_THREAD_EXECUTION";
     public static final String FLAG_JOB_ENQUEUED = "com.be.android.worker.params.FLAG_JOB_ENQUEUED";
     public static final String FLAG_JOB_SUBMITTED = "com.be.android.worker.params.FLAG_JOB_SUBMITTED";
     public static final String FLAG_JOB_PAUSED = "com.be.android.worker.params.FLAG_JOB_PAUSED";
@@ -6,6 +6,7 @@ import com.be.android.library.worker.base.JobStatus;
 
 public class LoadJobResult<TData> extends JobEvent {
     private TData mData;
+    private long mLoadTimeMillis;
 
     public static <T> LoadJobResult<T> loadFailure() {
         return new LoadJobResult<T>(JobResultStatus.FAILED);
@@ -28,6 +29,7 @@ public class LoadJobResult<TData> extends JobEvent {
         super(other);
 
         mData = other.getData();
+        mLoadTimeMillis = other.getLoadTimeMillis();
     }
 
     public LoadJobResult(int resultCode, JobStatus status, TData resultData) {
@@ -87,4 +89,26 @@ public class LoadJobResult<TData> extends JobEvent {
     public void setData(TData data) {
         mData = data;
     }
+
+    /**
+     * @return wall clock time the data was loaded at, in milliseconds, or 0 if unknown
+     */
+    public long getLoadTimeMillis() {
+        return mLoadTimeMillis;
+    }
+
+    public void setLoadTimeMillis(long loadTimeMillis) {
+        mLoadTimeMillis = loadTimeMillis;
+    }
+
+    /**
+     * @return copy of this result not bound to any job params,
+     * so it may be cached and delivered as a result of another job
+     */
+    public LoadJobResult<TData> detach() {
+        final LoadJobResult<TData> result = new LoadJobResult<TData>(this);
+        result.setJobParams(null);
+
+        return result;
+    }
 }
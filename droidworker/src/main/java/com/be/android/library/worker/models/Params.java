@@ -243,7 +243,7 @@ public class Params implements JobParams, Parcelable {
     private int mGroupId;
     private int mPriority;
     private Object mPayload;
-    private Set<String> mJobTags;
+    private volatile Set<String> mJobTags;
     private Map<String, Object> mExtras;
     private Flags mFlags;
 
@@ -279,7 +279,7 @@ public class Params implements JobParams, Parcelable {
         p.mGroupId = mGroupId;
         p.mPriority = mPriority;
         p.mPayload = copyPayload();
-        p.mJobTags = new HashSet<String>(mJobTags);
+        p.mJobTags = mJobTags == null ? null : new HashSet<String>(mJobTags);
         p.mExtras = copyExtras();
         p.mFlags = mFlags.copy();
 
@@ -304,6 +304,22 @@ public class Params implements JobParams, Parcelable {
         mJobId = jobId;
     }
 
+    /**
+     * Add tags to params of submitted job. Tag set is replaced instead of being
+     * modified, so tags may be read concurrently.
+     *
+     * @param tags tags to add
+     */
+    public synchronized void addTags(Collection<String> tags) {
+        final Set<String> jobTags = mJobTags == null
+                ? new HashSet<String>()
+                : new HashSet<String>(mJobTags);
+
+        if (jobTags.addAll(tags)) {
+            mJobTags = jobTags;
+        }
+    }
+
     @Override
     public int getJobId() {
         return mJobId;
@@ -366,26 +382,30 @@ public class Params implements JobParams, Parcelable {
 
     @Override
     public Collection<String> getTags() {
-        if (mJobTags == null) {
+        final Set<String> jobTags = mJobTags;
+        if (jobTags == null) {
             return Collections.emptySet();
         }
 
-        return Collections.unmodifiableCollection(mJobTags);
+        return Collections.unmodifiableCollection(jobTags);
     }
 
     @Override
     public boolean hasTag(String tag) {
-        return mJobTags != null && mJobTags.contains(tag);
+        final Set<String> jobTags = mJobTags;
+
+        return jobTags != null && jobTags.contains(tag);
     }
 
     @Override
     public boolean hasTags(String... tags) {
-        if (mJobTags == null) {
+        final Set<String> jobTags = mJobTags;
+        if (jobTags == null) {
             return false;
         }
 
         for (String tag : tags) {
-            if (!mJobTags.contains(tag)) {
+            if (!jobTags.contains(tag)) {
                 return false;
             }
         }
@@ -395,11 +415,12 @@ public class Params implements JobParams, Parcelable {
 
     @Override
     public boolean hasTags(Collection<String> tags) {
-        if (mJobTags == null) {
+        final Set<String> jobTags = mJobTags;
+        if (jobTags == null) {
             return false;
         }
 
-        return mJobTags.containsAll(tags);
+        return jobTags.containsAll(tags);
     }
 
     @Override
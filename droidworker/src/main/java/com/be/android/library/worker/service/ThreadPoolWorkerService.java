@@ -8,6 +8,13 @@ public class ThreadPoolWorkerService extends WorkerService {
 
     public static final String EXTRA_THREAD_POOL_SIZE = "thread_pool_size";
     public static final String EXTRA_ENABLE_LOG_TRACE = "enable_log_trace";
+    public static final String EXTRA_SCHEDULER_MODE = "scheduler_mode";
+    public static final String EXTRA_COMPLETION_MODE = "completion_mode";
+    public static final String EXTRA_MAX_THREAD_POOL_SIZE = "max_thread_pool_size";
+    public static final String EXTRA_QUEUE_CAPACITY = "queue_capacity";
+    public static final String EXTRA_QUEUE_OVERFLOW_POLICY = "queue_overflow_policy";
+    public static final String EXTRA_ADAPTIVE_MIN_THREAD_POOL_SIZE = "adaptive_min_thread_pool_size";
+    public static final String EXTRA_ADAPTIVE_MAX_THREAD_POOL_SIZE = "adaptive_max_thread_pool_size";
 
     public static final int THREAD_POOL_SIZE_DEFAULT = 4;
 
@@ -15,18 +22,56 @@ public class ThreadPoolWorkerService extends WorkerService {
 
     @Override
     protected ThreadPoolWorker createWorker(Intent launchIntent) {
+        mWorker = createThreadPoolWorker(launchIntent);
+
+        return mWorker;
+    }
+
+    /**
+     * Create worker configured by launch intent extras
+     *
+     * @param launchIntent intent with worker configuration extras or null to use defaults
+     * @return configured worker
+     */
+    public static ThreadPoolWorker createThreadPoolWorker(Intent launchIntent) {
         int threadCount = THREAD_POOL_SIZE_DEFAULT;
+        int schedulerMode = ThreadPoolWorker.SCHEDULER_MODE_QUEUED;
+        int completionMode = ThreadPoolWorker.COMPLETION_MODE_MAIN_THREAD;
+        int maxThreadCount = ThreadPoolWorker.THREAD_COUNT_UNBOUNDED;
+        int queueCapacity = ThreadPoolWorker.QUEUE_CAPACITY_UNBOUNDED;
+        int overflowPolicy = ThreadPoolWorker.OVERFLOW_POLICY_REJECT;
+        int adaptiveMinThreadCount = 0;
+        int adaptiveMaxThreadCount = 0;
         boolean enableLogTrace = false;
 
         if (launchIntent != null) {
             threadCount = launchIntent.getIntExtra(EXTRA_THREAD_POOL_SIZE, THREAD_POOL_SIZE_DEFAULT);
+            schedulerMode = launchIntent.getIntExtra(EXTRA_SCHEDULER_MODE,
+                    ThreadPoolWorker.SCHEDULER_MODE_QUEUED);
+            completionMode = launchIntent.getIntExtra(EXTRA_COMPLETION_MODE,
+                    ThreadPoolWorker.COMPLETION_MODE_MAIN_THREAD);
+            maxThreadCount = launchIntent.getIntExtra(EXTRA_MAX_THREAD_POOL_SIZE,
+                    ThreadPoolWorker.THREAD_COUNT_UNBOUNDED);
+            queueCapacity = launchIntent.getIntExtra(EXTRA_QUEUE_CAPACITY,
+                    ThreadPoolWorker.QUEUE_CAPACITY_UNBOUNDED);
+            overflowPolicy = launchIntent.getIntExtra(EXTRA_QUEUE_OVERFLOW_POLICY,
+                    ThreadPoolWorker.OVERFLOW_POLICY_REJECT);
+            adaptiveMinThreadCount = launchIntent.getIntExtra(EXTRA_ADAPTIVE_MIN_THREAD_POOL_SIZE, 1);
+            adaptiveMaxThreadCount = launchIntent.getIntExtra(EXTRA_ADAPTIVE_MAX_THREAD_POOL_SIZE, 0);
             enableLogTrace = launchIntent.getBooleanExtra(EXTRA_ENABLE_LOG_TRACE, false);
         }
 
-        mWorker = new ThreadPoolWorker(threadCount);
-        mWorker.setTraceEnabled(enableLogTrace);
+        final ThreadPoolWorker worker = new ThreadPoolWorker(threadCount, schedulerMode);
+        worker.setCompletionMode(completionMode);
+        worker.setMaximumThreadCount(maxThreadCount);
+        worker.setQueueCapacity(queueCapacity);
+        worker.setQueueOverflowPolicy(overflowPolicy);
+        if (adaptiveMaxThreadCount > 0) {
+            worker.setAdaptivePoolSizing(adaptiveMinThreadCount, adaptiveMaxThreadCount);
+        }
+        worker.setTraceEnabled(enableLogTrace);
 
-        return mWorker;
+        return worker;
     }
 
     @Override
@@ -12,42 +12,96 @@ import com.be.android.library.worker.controllers.JobManager;
 import com.be.android.library.worker.interfaces.Job;
 import com.be.android.library.worker.interfaces.JobEventListener;
 import com.be.android.library.worker.interfaces.Worker;
+import com.be.android.library.worker.util.IntSet;
+import com.be.android.library.worker.util.JobEventBus;
+import com.be.android.library.worker.util.Workers;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public abstract class WorkerService extends Service {
 
     public static final String LOG_TAG = WorkerService.class.getSimpleName();
     public static final String EXTRA_JOB_ID = "job_id";
+    public static final String EXTRA_JOB_IDS = "job_ids";
 
     public static final String ACTION_SUBMIT_JOB = "com.be.android.library" +
                                                    ".worker.intent.action.SUBMIT_JOB";
 
+    /**
+     * Start service to keep process alive while jobs submitted directly
+     * to a worker outside of the service are not finished
+     */
+    public static final String ACTION_KEEP_ALIVE = "com.be.android.library" +
+                                                   ".worker.intent.action.KEEP_ALIVE";
+
     private static final int STOP_SELF_DELAY_MILLIS_DEFAULT = 18000;
 
-    private static WorkerService mInstance;
+    private static volatile WorkerService mInstance;
 
     private Handler mHandler;
-    private Worker mWorker;
-    private Set<Integer> mPendingJobs;
-    private boolean isRunning;
-    private long lastJobSubmitTimeMillis;
-    private Intent mLaunchIntent;
+    private JobEventBus mEventBus;
+    private volatile Worker mWorker;
+    private final IntSet mPendingJobs = new IntSet();
+    private volatile boolean isRunning;
+    // Written on the main thread only
+    private volatile boolean mIsKeepAliveRequested;
+    private volatile long lastJobSubmitTimeMillis;
+    private volatile Intent mLaunchIntent;
+    private final ReadWriteLock mWorkerLock = new ReentrantReadWriteLock();
+
+    private final Runnable mKeepAliveRequest = new Runnable() {
+        @Override
+        public void run() {
+            if (!mIsKeepAliveRequested) {
+                mIsKeepAliveRequested = true;
+                mHandler.postDelayed(mKeepAliveCheck, getKeepAliveDurationMillis());
+            }
+        }
+    };
+
+    private final Runnable mKeepAliveCheck = new Runnable() {
+        @Override
+        public void run() {
+            final int delay = getKeepAliveDurationMillis();
+            if (hasPendingJobs()) {
+                mHandler.postDelayed(this, delay);
+                return;
+            }
+
+            // Keep-alive window is extended by every request made meanwhile
+            final long remainingMillis = lastJobSubmitTimeMillis + delay - System.currentTimeMillis();
+            if (remainingMillis > delay / 20) {
+                mHandler.postDelayed(this, remainingMillis);
+                return;
+            }
+
+            mIsKeepAliveRequested = false;
+            stopSelfIfNoJobs();
+        }
+    };
 
     private final JobEventListener mJobFinishedListener = new JobEventListener() {
         @Override
-        public void onJobEvent(final JobEvent event) {
+        public void onJobEvent(JobEvent event) {
             if (!event.isJobFinished()) {
                 return;
             }
 
-            mHandler.post(new Runnable() {
-                @Override
-                public void run() {
-                    WorkerService.this.onJobFinishedInner(event);
-                }
-            });
+            mEventBus.post(mJobFinishedHandler, event);
+        }
+    };
+
+    private final JobEventListener mJobFinishedHandler = new JobEventListener() {
+        @Override
+        public void onJobEvent(JobEvent event) {
+            onJobFinishedInner(event);
         }
     };
 
@@ -59,15 +113,22 @@ public abstract class WorkerService extends Service {
     public void onCreate() {
         super.onCreate();
 
-        mPendingJobs = new HashSet<Integer>();
         mHandler = new Handler();
+        mEventBus = JobEventBus.forHandler(mHandler);
         isRunning = true;
+        mInstance = this;
 
         Log.d(LOG_TAG, "WorkerService created");
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
+        if (intent != null && ACTION_KEEP_ALIVE.equals(intent.getAction())) {
+            keepAlive();
+
+            return Service.START_NOT_STICKY;
+        }
+
         if (!ACTION_SUBMIT_JOB.equals(intent.getAction())) {
             Log.e(LOG_TAG, String.format("unsupported intent action received: %s", intent.getAction()));
             stopSelf(startId);
@@ -75,6 +136,11 @@ public abstract class WorkerService extends Service {
             return Service.START_NOT_STICKY;
         }
 
+        final int[] jobIds = intent.getIntArrayExtra(EXTRA_JOB_IDS);
+        if (jobIds != null) {
+            return submitJobs(intent, startId, jobIds);
+        }
+
         final int jobId = intent.getIntExtra(EXTRA_JOB_ID, JobManager.JOB_ID_UNSPECIFIED);
         if (jobId == JobManager.JOB_ID_UNSPECIFIED) {
             Log.e(LOG_TAG, "job id is not specified");
@@ -103,39 +169,159 @@ public abstract class WorkerService extends Service {
         return Service.START_REDELIVER_INTENT;
     }
 
+    private int submitJobs(Intent intent, int startId, int[] jobIds) {
+        final List<Job> jobs = new ArrayList<Job>(jobIds.length);
+        for (int jobId : jobIds) {
+            final Job job = getJobManager().findJob(jobId);
+            if (job == null) {
+                Log.e(LOG_TAG, String.format("job id '%d' not found", jobId));
+
+            } else if (job.getStatus() != JobStatus.PENDING) {
+                Log.w(LOG_TAG, String.format("job '%s' is already submitted", job));
+
+            } else {
+                jobs.add(job);
+            }
+        }
+
+        if (jobs.isEmpty()) {
+            stopSelf(startId);
+
+            return Service.START_NOT_STICKY;
+        }
+
+        mLaunchIntent = intent;
+        submitJobs(jobs);
+
+        return Service.START_REDELIVER_INTENT;
+    }
+
     public boolean isRunning() {
         return isRunning;
     }
 
+    /**
+     * @return true if worker is created, so jobs may be submitted directly
+     * with {@link #submitJob(Job)} without affecting worker configuration
+     */
+    public boolean hasWorker() {
+        return mWorker != null;
+    }
+
+    /**
+     * Keep service running while job manager has unfinished jobs,
+     * including the ones submitted to a worker outside of the service.
+     * Service is kept alive for at least keep-alive duration after the last request.
+     */
+    public void keepAlive() {
+        lastJobSubmitTimeMillis = System.currentTimeMillis();
+
+        mHandler.post(mKeepAliveRequest);
+    }
+
+    /**
+     * Submit job to service worker, creating the worker if needed
+     *
+     * @param job job to submit
+     * @throws IllegalStateException if service is already stopped
+     */
     public void submitJob(Job job) {
-        registerJob(job);
+        if (!submitToWorker(Collections.singletonList(job), true)) {
+            throw new IllegalStateException("service is already stopped");
+        }
+    }
 
-        if (mWorker == null) {
-            synchronized (this) {
-                if (mWorker == null) {
-                    mWorker = createWorker(mLaunchIntent);
-                }
-            }
+    /**
+     * Submit jobs batch to service worker, creating the worker if needed
+     *
+     * @param jobs jobs to submit
+     * @throws IllegalStateException if service is already stopped
+     */
+    public void submitJobs(List<Job> jobs) {
+        if (!submitToWorker(jobs, true)) {
+            throw new IllegalStateException("service is already stopped");
         }
+    }
+
+    /**
+     * Submit job directly to existing worker of running service.
+     * <br>
+     * Check and submission are done under the lock taken by {@link #onDestroy()},
+     * so the worker can't be finished in between.
+     *
+     * @param job job to submit
+     * @return false if service is stopped or has no worker yet,
+     * so job should be submitted by starting the service
+     */
+    public boolean trySubmitJob(Job job) {
+        return submitToWorker(Collections.singletonList(job), false);
+    }
 
+    /**
+     * Submit jobs batch directly to existing worker of running service
+     *
+     * @param jobs jobs to submit
+     * @return false if service is stopped or has no worker yet,
+     * so jobs should be submitted by starting the service
+     * @see #trySubmitJob(Job)
+     */
+    public boolean trySubmitJobs(List<Job> jobs) {
+        return submitToWorker(jobs, false);
+    }
+
+    private boolean submitToWorker(List<Job> jobs, boolean isWorkerCreationAllowed) {
+        final Lock lock = mWorkerLock.readLock();
+        lock.lock();
         try {
-            mWorker.submitJob(job);
-            onJobSubmitted(job);
+            if (!isRunning) {
+                return false;
+            }
+
+            if (mWorker == null) {
+                if (!isWorkerCreationAllowed) {
+                    return false;
+                }
+
+                synchronized (this) {
+                    if (mWorker == null) {
+                        mWorker = createWorker(mLaunchIntent);
+                    }
+                }
+            }
 
-        } catch (Exception e) {
-            Log.e(LOG_TAG, String.format("unable to submit job '%s'", job));
-            e.printStackTrace();
+            for (Job job : jobs) {
+                registerJob(job);
+            }
+
+            try {
+                if (jobs.size() == 1) {
+                    mWorker.submitJob(jobs.get(0));
+                } else {
+                    Workers.submitJobs(mWorker, jobs);
+                }
+
+                for (Job job : jobs) {
+                    onJobSubmitted(job);
+                }
+
+            } catch (Exception e) {
+                Log.e(LOG_TAG, String.format("unable to submit '%d' jobs", jobs.size()));
+                e.printStackTrace();
+            }
+
+            return true;
+
+        } finally {
+            lock.unlock();
         }
     }
 
     private void registerJob(Job job) {
-        if (!isRunning) {
-            throw new IllegalStateException("service is already stopped");
-        }
-
         lastJobSubmitTimeMillis = System.currentTimeMillis();
 
-        mPendingJobs.add(job.getJobId());
+        synchronized (mPendingJobs) {
+            mPendingJobs.add(job.getJobId());
+        }
         job.addJobEventListener(mJobFinishedListener);
     }
 
@@ -145,12 +331,29 @@ public abstract class WorkerService extends Service {
 
     protected abstract Worker createWorker(Intent launchIntent);
 
+    /**
+     * @return true if there are unfinished jobs submitted to service or,
+     * if service is kept alive, registered by job manager
+     */
     public boolean hasPendingJobs() {
-        return !mPendingJobs.isEmpty();
+        final boolean hasSubmittedJobs;
+        synchronized (mPendingJobs) {
+            hasSubmittedJobs = !mPendingJobs.isEmpty();
+        }
+
+        return hasSubmittedJobs
+                || (mIsKeepAliveRequested && getJobManager().getJobCount() > 0);
     }
 
     public Set<Integer> getPendingJobs() {
-        return new HashSet<Integer>(mPendingJobs);
+        synchronized (mPendingJobs) {
+            final Set<Integer> jobs = new HashSet<Integer>(mPendingJobs.size());
+            for (int i = 0; i < mPendingJobs.size(); i++) {
+                jobs.add(mPendingJobs.valueAt(i));
+            }
+
+            return jobs;
+        }
     }
 
     protected int getKeepAliveDurationMillis() {
@@ -170,7 +373,9 @@ public abstract class WorkerService extends Service {
             return;
         }
 
-        mPendingJobs.remove(result.getJobId());
+        synchronized (mPendingJobs) {
+            mPendingJobs.remove(result.getJobId());
+        }
         scheduleStopSelf();
 
         onJobFinished(result);
@@ -201,15 +406,23 @@ public abstract class WorkerService extends Service {
 
     @Override
     public void onDestroy() {
-        isRunning = false;
+        final Lock lock = mWorkerLock.writeLock();
+        lock.lock();
+        try {
+            isRunning = false;
 
-        if (mWorker != null) {
-            synchronized (this) {
+            if (mWorker != null) {
                 mWorker.finish();
                 mWorker = null;
             }
+
+        } finally {
+            lock.unlock();
         }
 
+        mHandler.removeCallbacks(mKeepAliveRequest);
+        mHandler.removeCallbacks(mKeepAliveCheck);
+
         mInstance = null;
 
         Log.d(LOG_TAG, "WorkerService destroyed");
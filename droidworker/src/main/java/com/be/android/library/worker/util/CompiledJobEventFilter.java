@@ -0,0 +1,110 @@
+package com.be.android.library.worker.util;
+
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.interfaces.Predicate;
+import com.be.android.library.worker.models.Flag;
+import com.be.android.library.worker.models.JobParams;
+
+import java.util.Arrays;
+
+/**
+ * Immutable predicate matching job events the same way as {@link JobEventFilter#apply(JobEvent)}.
+ * <p>
+ * Job statuses are folded into a bit mask, event and extra codes are sorted
+ * for binary search, tags and flag names are deduplicated and interned.
+ * Event fields are checked before job params, so most events are rejected
+ * without any map lookup. May be shared between threads.
+ *
+ * @see JobEventFilter#compile()
+ */
+final class CompiledJobEventFilter implements Predicate<JobEvent> {
+
+    private static final int NO_STATUS_CRITERIA = -1;
+
+    private final int mStatusMask;
+    private final int[] mEventCodes;
+    private final int[] mExtraCodes;
+    private final String mJobClassName;
+    private final String[] mTags;
+    private final String[] mFlagNames;
+    private final boolean[] mFlagValues;
+
+    CompiledJobEventFilter(JobEventFilter filter) {
+        mStatusMask = filter.getPendingStatus() == null || filter.getPendingStatus().length == 0
+                ? NO_STATUS_CRITERIA
+                : CompiledJobSelector.statusMask(filter.getPendingStatus());
+
+        mEventCodes = sortedCopyOrNull(filter.getPendingEventCode());
+        mExtraCodes = sortedCopyOrNull(filter.getPendingExtraCode());
+
+        final Class<?> jobType = filter.getPendingJobType();
+        mJobClassName = jobType == null || jobType.equals(Job.class) ? null : jobType.getName().intern();
+
+        final String[] tags = filter.getPendingTags();
+        mTags = tags == null || tags.length == 0 ? null : CompiledJobSelector.internDistinct(tags);
+
+        final Flag[] flags = filter.getPendingFlags();
+        final int flagCount = flags == null ? 0 : flags.length;
+        mFlagNames = new String[flagCount];
+        mFlagValues = new boolean[flagCount];
+        for (int i = 0; i < flagCount; i++) {
+            mFlagNames[i] = flags[i].getName().intern();
+            mFlagValues[i] = flags[i].getValue();
+        }
+    }
+
+    @Override
+    public boolean apply(JobEvent event) {
+        if (mStatusMask != NO_STATUS_CRITERIA
+                && (mStatusMask & (1 << event.getJobStatus().ordinal())) == 0) {
+
+            return false;
+        }
+
+        if (mEventCodes != null
+                && IntArrays.binarySearch(mEventCodes, mEventCodes.length, event.getEventCode()) < 0) {
+
+            return false;
+        }
+
+        if (mExtraCodes != null
+                && IntArrays.binarySearch(mExtraCodes, mExtraCodes.length, event.getExtraCode()) < 0) {
+
+            return false;
+        }
+
+        final JobParams params = event.getJobParams();
+
+        if (mJobClassName != null && !mJobClassName.equals(params.getJobClassName())) {
+            return false;
+        }
+
+        if (mTags != null && !params.hasTags(mTags)) {
+            return false;
+        }
+
+        if (mFlagNames.length == 0) {
+            return true;
+        }
+
+        for (int i = 0; i < mFlagNames.length; i++) {
+            if (params.checkFlag(mFlagNames[i]) == mFlagValues[i]) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static int[] sortedCopyOrNull(int[] values) {
+        if (values == null || values.length == 0) {
+            return null;
+        }
+
+        final int[] copy = values.clone();
+        Arrays.sort(copy);
+
+        return copy;
+    }
+}
@@ -0,0 +1,204 @@
+package com.be.android.library.worker.util;
+
+import com.be.android.library.worker.base.JobStatus;
+import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.interfaces.Predicate;
+import com.be.android.library.worker.models.JobParams;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable predicate matching jobs the same way as {@link JobSelector#apply(Job)}.
+ * <p>
+ * Criteria are copied on compilation: job ids and groups are sorted for binary search,
+ * job statuses are folded into a bit mask, tags and flag names are deduplicated and
+ * interned. Cheap and selective criteria are checked first; flags and extras are
+ * looked up directly in job params without copying them.
+ * Compiled selector is not affected by later changes of the source selector
+ * and may be shared between threads.
+ *
+ * @see JobSelector#compile()
+ */
+final class CompiledJobSelector implements Predicate<Job> {
+
+    private static final int NO_STATUS_CRITERIA = -1;
+
+    private final int[] mJobIds;
+    private final int[] mJobGroups;
+    private final int mStatusMask;
+    private final String[] mTags;
+    private final boolean mIsAnyTag;
+    private final String[] mFlagNames;
+    private final Boolean[] mFlagValues;
+    private final boolean mIsAnyFlag;
+    private final String[] mExtraNames;
+    private final Object[] mExtraValues;
+
+    CompiledJobSelector(JobSelector selector) {
+        mJobIds = sortedCopy(selector.getJobIds());
+        mJobGroups = sortedCopy(selector.getJobGroups());
+        mStatusMask = statusMask(selector.getJobStatus());
+
+        final String[] tags = selector.getTags();
+        mTags = tags == null || tags.length == 0 ? null : internDistinct(tags);
+        mIsAnyTag = selector.isAnyTag();
+
+        final Map<String, Boolean> flags = selector.getFlags();
+        mFlagNames = new String[flags.size()];
+        mFlagValues = new Boolean[flags.size()];
+        int i = 0;
+        for (Map.Entry<String, Boolean> entry : flags.entrySet()) {
+            mFlagNames[i] = entry.getKey().intern();
+            mFlagValues[i] = entry.getValue();
+            i++;
+        }
+        mIsAnyFlag = selector.getIsAnyFlag();
+
+        final Map<String, Object> extras = selector.getExtras();
+        mExtraNames = new String[extras.size()];
+        mExtraValues = new Object[extras.size()];
+        i = 0;
+        for (Map.Entry<String, Object> entry : extras.entrySet()) {
+            mExtraNames[i] = entry.getKey().intern();
+            mExtraValues[i] = entry.getValue();
+            i++;
+        }
+    }
+
+    @Override
+    public boolean apply(Job job) {
+        if (mJobIds != null
+                && job.hasId()
+                && IntArrays.binarySearch(mJobIds, mJobIds.length, job.getJobId()) < 0) {
+
+            return false;
+        }
+
+        if (mStatusMask != NO_STATUS_CRITERIA
+                && (mStatusMask & (1 << job.getStatus().ordinal())) == 0) {
+
+            return false;
+        }
+
+        final JobParams params = job.getParams();
+
+        if (mJobGroups != null
+                && IntArrays.binarySearch(mJobGroups, mJobGroups.length, params.getGroupId()) < 0) {
+
+            return false;
+        }
+
+        return applyForTags(params) && applyForFlags(params) && applyForExtras(params);
+    }
+
+    private boolean applyForTags(JobParams params) {
+        if (mTags == null) {
+            return true;
+        }
+
+        if (mIsAnyTag) {
+            for (String tag : mTags) {
+                if (params.hasTag(tag)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        return params.hasTags(mTags);
+    }
+
+    private boolean applyForFlags(JobParams params) {
+        if (mFlagNames.length == 0) {
+            return true;
+        }
+
+        for (int i = 0; i < mFlagNames.length; i++) {
+            final boolean isMatching = params.hasFlag(mFlagNames[i])
+                    && (mFlagValues[i] == null || params.checkFlag(mFlagNames[i]) == mFlagValues[i]);
+
+            if (mIsAnyFlag && isMatching) {
+                return true;
+            }
+
+            if (!mIsAnyFlag && !isMatching) {
+                return false;
+            }
+        }
+
+        return !mIsAnyFlag;
+    }
+
+    private boolean applyForExtras(JobParams params) {
+        for (int i = 0; i < mExtraNames.length; i++) {
+            if (!params.hasExtra(mExtraNames[i])) {
+                return false;
+            }
+
+            final Object jobExtraValue = params.getExtra(mExtraNames[i]);
+            final Object value = mExtraValues[i];
+
+            if (jobExtraValue == null ? value != null : !jobExtraValue.equals(value)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int[] sortedCopy(int[] values) {
+        if (values == null) {
+            return null;
+        }
+
+        final int[] copy = values.clone();
+        Arrays.sort(copy);
+
+        return copy;
+    }
+
+    static int statusMask(JobStatus[] statuses) {
+        if (statuses == null) {
+            return NO_STATUS_CRITERIA;
+        }
+
+        int mask = 0;
+        for (JobStatus status : statuses) {
+            mask |= 1 << status.ordinal();
+        }
+
+        return mask;
+    }
+
+    static String[] internDistinct(String[] values) {
+        final String[] buffer = new String[values.length];
+
+        int count = 0;
+        for (String value : values) {
+            final String interned = value.intern();
+
+            boolean isDuplicate = false;
+            for (int i = 0; i < count; i++) {
+                if (buffer[i] == interned) {
+                    isDuplicate = true;
+                    break;
+                }
+            }
+
+            if (!isDuplicate) {
+                buffer[count++] = interned;
+            }
+        }
+
+        if (count == buffer.length) {
+            return buffer;
+        }
+
+        final String[] result = new String[count];
+        System.arraycopy(buffer, 0, result, 0, count);
+
+        return result;
+    }
+}
@@ -0,0 +1,78 @@
+package com.be.android.library.worker.util;
+
+/**
+ * Sorted int array helpers shared by {@link IntSet} and {@link IntObjectMap}
+ */
+final class IntArrays {
+
+    private IntArrays() {
+    }
+
+    /**
+     * @param values values sorted ascending
+     * @param size number of used values
+     * @param value value to find
+     * @return index of value or bitwise complement of insertion index if not found
+     */
+    static int binarySearch(int[] values, int size, int value) {
+        int lo = 0;
+        int hi = size - 1;
+
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            final int midValue = values[mid];
+
+            if (midValue < value) {
+                lo = mid + 1;
+            } else if (midValue > value) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return ~lo;
+    }
+
+    /**
+     * @return given array with value inserted at index or its grown copy
+     */
+    static int[] insert(int[] values, int size, int index, int value) {
+        if (size < values.length) {
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+
+            return values;
+        }
+
+        final int[] grown = new int[growSize(size)];
+        System.arraycopy(values, 0, grown, 0, index);
+        grown[index] = value;
+        System.arraycopy(values, index, grown, index + 1, size - index);
+
+        return grown;
+    }
+
+    /**
+     * @return given array with value inserted at index or its grown copy
+     */
+    static Object[] insert(Object[] values, int size, int index, Object value) {
+        if (size < values.length) {
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+
+            return values;
+        }
+
+        final Object[] grown = new Object[growSize(size)];
+        System.arraycopy(values, 0, grown, 0, index);
+        grown[index] = value;
+        System.arraycopy(values, index, grown, index + 1, size - index);
+
+        return grown;
+    }
+
+    static int growSize(int size) {
+        return size < 4 ? 8 : size * 2;
+    }
+}
@@ -0,0 +1,129 @@
+package com.be.android.library.worker.util;
+
+/**
+ * Map of primitive int keys, e.g. job ids or job group ids, to objects.
+ * <p>
+ * Keys are kept in a sorted array, so lookups don't box keys and take O(log n),
+ * while insertions and removals shift arrays and are O(n); suited for small maps
+ * which are looked up more often than updated. Entries may be iterated by index
+ * with {@link #keyAt(int)} and {@link #valueAt(int)}.
+ * This class is not thread-safe.
+ *
+ * @param <V> value type
+ */
+public class IntObjectMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private int[] mKeys;
+    private Object[] mValues;
+    private int mSize;
+
+    public IntObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntObjectMap(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initial capacity is negative");
+        }
+
+        mKeys = new int[initialCapacity];
+        mValues = new Object[initialCapacity];
+    }
+
+    /**
+     * @return previous value mapped to given key or null
+     */
+    public V put(int key, V value) {
+        int index = IntArrays.binarySearch(mKeys, mSize, key);
+        if (index >= 0) {
+            final V previous = valueAtUnchecked(index);
+            mValues[index] = value;
+
+            return previous;
+        }
+
+        index = ~index;
+        mKeys = IntArrays.insert(mKeys, mSize, index, key);
+        mValues = IntArrays.insert(mValues, mSize, index, value);
+        mSize++;
+
+        return null;
+    }
+
+    public V get(int key) {
+        final int index = IntArrays.binarySearch(mKeys, mSize, key);
+
+        return index >= 0 ? valueAtUnchecked(index) : null;
+    }
+
+    public boolean containsKey(int key) {
+        return IntArrays.binarySearch(mKeys, mSize, key) >= 0;
+    }
+
+    /**
+     * @return removed value or null if no value mapped to given key
+     */
+    public V remove(int key) {
+        final int index = IntArrays.binarySearch(mKeys, mSize, key);
+        if (index < 0) {
+            return null;
+        }
+
+        final V value = valueAtUnchecked(index);
+        System.arraycopy(mKeys, index + 1, mKeys, index, mSize - index - 1);
+        System.arraycopy(mValues, index + 1, mValues, index, mSize - index - 1);
+        mSize--;
+        mValues[mSize] = null;
+
+        return value;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * @param index index of entry, from 0 to {@link #size()} - 1
+     * @return key at given index; keys are ordered ascending
+     */
+    public int keyAt(int index) {
+        checkIndex(index);
+
+        return mKeys[index];
+    }
+
+    /**
+     * @param index index of entry, from 0 to {@link #size()} - 1
+     * @return value mapped to the key at given index
+     */
+    public V valueAt(int index) {
+        checkIndex(index);
+
+        return valueAtUnchecked(index);
+    }
+
+    public void clear() {
+        for (int i = 0; i < mSize; i++) {
+            mValues[i] = null;
+        }
+        mSize = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAtUnchecked(int index) {
+        return (V) mValues[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "index %d is out of bounds [0, %d)", index, mSize));
+        }
+    }
+}
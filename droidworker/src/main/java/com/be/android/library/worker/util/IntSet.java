@@ -0,0 +1,120 @@
+package com.be.android.library.worker.util;
+
+/**
+ * Set of primitive int values, e.g. job ids or job group ids.
+ * <p>
+ * Values are kept in a sorted array, so lookups don't box values and
+ * take O(log n), while insertions and removals shift the array and are O(n);
+ * suited for small sets which are looked up more often than updated.
+ * Values may be iterated by index with {@link #valueAt(int)}.
+ * This class is not thread-safe.
+ */
+public class IntSet {
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private int[] mValues;
+    private int mSize;
+
+    public IntSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntSet(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initial capacity is negative");
+        }
+
+        mValues = new int[initialCapacity];
+    }
+
+    /**
+     * @return true if value is added; false if set already contains value
+     */
+    public boolean add(int value) {
+        int index = IntArrays.binarySearch(mValues, mSize, value);
+        if (index >= 0) {
+            return false;
+        }
+
+        index = ~index;
+        mValues = IntArrays.insert(mValues, mSize, index, value);
+        mSize++;
+
+        return true;
+    }
+
+    public void addAll(int[] values) {
+        for (int value : values) {
+            add(value);
+        }
+    }
+
+    /**
+     * @return true if value is removed; false if set doesn't contain value
+     */
+    public boolean remove(int value) {
+        final int index = IntArrays.binarySearch(mValues, mSize, value);
+        if (index < 0) {
+            return false;
+        }
+
+        System.arraycopy(mValues, index + 1, mValues, index, mSize - index - 1);
+        mSize--;
+
+        return true;
+    }
+
+    public boolean contains(int value) {
+        return IntArrays.binarySearch(mValues, mSize, value) >= 0;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    /**
+     * @param index index of value, from 0 to {@link #size()} - 1
+     * @return value at given index; values are ordered ascending
+     */
+    public int valueAt(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "index %d is out of bounds [0, %d)", index, mSize));
+        }
+
+        return mValues[index];
+    }
+
+    public void clear() {
+        mSize = 0;
+    }
+
+    /**
+     * @return new array of set values ordered ascending
+     */
+    public int[] toArray() {
+        final int[] values = new int[mSize];
+        System.arraycopy(mValues, 0, values, 0, mSize);
+
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder(mSize * 4 + 2);
+        builder.append('[');
+        for (int i = 0; i < mSize; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(mValues[i]);
+        }
+
+        return builder.append(']').toString();
+    }
+}
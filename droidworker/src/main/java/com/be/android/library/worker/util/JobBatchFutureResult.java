@@ -0,0 +1,112 @@
+package com.be.android.library.worker.util;
+
+import com.be.android.library.worker.base.JobEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pending result of jobs submitted as a batch.
+ * <br>
+ * Result events are listed in submit order of their jobs.
+ */
+public class JobBatchFutureResult implements Future<List<JobEvent>> {
+
+    private final List<JobFutureResult> mPendingResults;
+
+    public JobBatchFutureResult(List<JobFutureResult> pendingResults) {
+        mPendingResults = Collections.unmodifiableList(
+                new ArrayList<JobFutureResult>(pendingResults));
+    }
+
+    /**
+     * @return pending results of each job in submit order
+     */
+    public List<JobFutureResult> getPendingResults() {
+        return mPendingResults;
+    }
+
+    public int size() {
+        return mPendingResults.size();
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean isCancelled = true;
+        for (JobFutureResult pendingResult : mPendingResults) {
+            isCancelled &= pendingResult.cancel(mayInterruptIfRunning);
+        }
+
+        return isCancelled;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        for (JobFutureResult pendingResult : mPendingResults) {
+            if (!pendingResult.isCancelled()) {
+                return false;
+            }
+        }
+
+        return !mPendingResults.isEmpty();
+    }
+
+    @Override
+    public boolean isDone() {
+        for (JobFutureResult pendingResult : mPendingResults) {
+            if (!pendingResult.isDone()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @return result events of all jobs in submit order
+     * @throws InterruptedException as per {@link Future#get()}
+     * @throws ExecutionException as per {@link Future#get()}
+     */
+    @Override
+    public List<JobEvent> get() throws InterruptedException, ExecutionException {
+        final List<JobEvent> events = new ArrayList<JobEvent>(mPendingResults.size());
+        for (JobFutureResult pendingResult : mPendingResults) {
+            events.add(pendingResult.get());
+        }
+
+        return events;
+    }
+
+    /**
+     * @param timeout total time to wait for all results, as per {@link Future#get(long, TimeUnit)}
+     * @param unit as per {@link Future#get(long, TimeUnit)}
+     * @return result events of all jobs in submit order
+     * @throws InterruptedException as per {@link Future#get(long, TimeUnit)}
+     * @throws ExecutionException as per {@link Future#get(long, TimeUnit)}
+     * @throws TimeoutException if any of results is not available in time
+     */
+    @Override
+    public List<JobEvent> get(long timeout, TimeUnit unit) throws InterruptedException,
+            ExecutionException, TimeoutException {
+
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        final List<JobEvent> events = new ArrayList<JobEvent>(mPendingResults.size());
+        for (JobFutureResult pendingResult : mPendingResults) {
+            final long remainingNanos = Math.max(0, deadline - System.nanoTime());
+            final JobEvent event = pendingResult.get(remainingNanos, TimeUnit.NANOSECONDS);
+            if (event == null && !pendingResult.isDone()) {
+                throw new TimeoutException(String.format(
+                        "result of job '%d' is not available", pendingResult.getJobId()));
+            }
+            events.add(event);
+        }
+
+        return events;
+    }
+}
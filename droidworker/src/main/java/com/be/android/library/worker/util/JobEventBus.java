@@ -0,0 +1,239 @@
+package com.be.android.library.worker.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.interfaces.JobEventListener;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands job events and tasks over to handler thread in batches.
+ * <p>
+ * Events posted from any thread are collected in a lock-free queue, which is drained
+ * on handler thread by a single message: a burst of events costs a few looper messages
+ * instead of a message per event. Single drain is limited by batch size and
+ * by time budget, so the rest of handler messages aren't held up for longer than a frame.
+ * Events are delivered in the order they are posted.
+ */
+public class JobEventBus {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    public static final long DEFAULT_DRAIN_BUDGET_MILLIS = 8;
+
+    private static volatile JobEventBus sMainThreadBus;
+
+    private static class Node {
+        private volatile Node mNext;
+        private JobEventListener mListener;
+        private JobEvent mEvent;
+        private Runnable mTask;
+    }
+
+    private final Handler mHandler;
+    private final int mMaxBatchSize;
+    private final long mDrainBudgetMillis;
+    private final AtomicBoolean mIsDrainScheduled;
+
+    // Multi-producer single-consumer queue: producers append to tail,
+    // handler thread consumes from head, which is always a consumed node
+    private final AtomicReference<Node> mTail;
+    private Node mHead;
+
+    private final Runnable mDrainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    /**
+     * @return shared bus delivering events on main thread
+     */
+    public static JobEventBus getMainThreadBus() {
+        if (sMainThreadBus == null) {
+            synchronized (JobEventBus.class) {
+                if (sMainThreadBus == null) {
+                    sMainThreadBus = new JobEventBus(new Handler(Looper.getMainLooper()));
+                }
+            }
+        }
+
+        return sMainThreadBus;
+    }
+
+    /**
+     * @param handler handler to deliver events on
+     * @return shared main thread bus if handler runs on main looper, or new bus for handler
+     */
+    public static JobEventBus forHandler(Handler handler) {
+        if (handler.getLooper() == Looper.getMainLooper()) {
+            return getMainThreadBus();
+        }
+
+        return new JobEventBus(handler);
+    }
+
+    public JobEventBus(Handler handler) {
+        this(handler, DEFAULT_MAX_BATCH_SIZE, DEFAULT_DRAIN_BUDGET_MILLIS);
+    }
+
+    /**
+     * @param handler handler to deliver events on
+     * @param maxBatchSize max count of events delivered by a single handler message
+     * @param drainBudgetMillis max time single handler message may spend delivering events
+     */
+    public JobEventBus(Handler handler, int maxBatchSize, long drainBudgetMillis) {
+        if (handler == null) {
+            throw new IllegalArgumentException("handler is null");
+        }
+
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("batch size should be positive");
+        }
+
+        if (drainBudgetMillis < 1) {
+            throw new IllegalArgumentException("drain budget should be positive");
+        }
+
+        mHandler = handler;
+        mMaxBatchSize = maxBatchSize;
+        mDrainBudgetMillis = drainBudgetMillis;
+        mIsDrainScheduled = new AtomicBoolean(false);
+
+        final Node stub = new Node();
+        mHead = stub;
+        mTail = new AtomicReference<Node>(stub);
+    }
+
+    public Handler getHandler() {
+        return mHandler;
+    }
+
+    /**
+     * Deliver event to listener on handler thread
+     *
+     * @param listener listener to deliver event to
+     * @param event event to deliver
+     */
+    public void post(JobEventListener listener, JobEvent event) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener is null");
+        }
+
+        if (event == null) {
+            throw new IllegalArgumentException("event is null");
+        }
+
+        final Node node = new Node();
+        node.mListener = listener;
+        node.mEvent = event;
+        enqueue(node);
+    }
+
+    /**
+     * Run task on handler thread in order with posted events
+     *
+     * @param task task to run
+     */
+    public void post(Runnable task) {
+        if (task == null) {
+            throw new IllegalArgumentException("task is null");
+        }
+
+        final Node node = new Node();
+        node.mTask = task;
+        enqueue(node);
+    }
+
+    private void enqueue(Node node) {
+        final Node prev = mTail.getAndSet(node);
+        prev.mNext = node;
+
+        if (mIsDrainScheduled.compareAndSet(false, true)) {
+            postDrain(mDrainTask);
+        }
+    }
+
+    private Node poll() {
+        final Node next = mHead.mNext;
+        if (next == null) {
+            return null;
+        }
+
+        mHead = next;
+
+        return next;
+    }
+
+    private void drain() {
+        final long deadline = uptimeMillis() + mDrainBudgetMillis;
+        boolean isQueueDrained = false;
+
+        try {
+            for (int i = 0; i < mMaxBatchSize; i++) {
+                Node node = poll();
+
+                if (node == null) {
+                    mIsDrainScheduled.set(false);
+
+                    // Event may be enqueued after poll while drain was still scheduled
+                    if (mHead.mNext == null || !mIsDrainScheduled.compareAndSet(false, true)) {
+                        isQueueDrained = true;
+                        return;
+                    }
+
+                    node = poll();
+                }
+
+                deliver(node);
+
+                if (uptimeMillis() >= deadline) {
+                    break;
+                }
+            }
+
+        } finally {
+            // Continue with next message if batch is exhausted or listener has thrown
+            if (!isQueueDrained) {
+                postDrain(mDrainTask);
+            }
+        }
+    }
+
+    private void deliver(Node node) {
+        final JobEventListener listener = node.mListener;
+        final JobEvent event = node.mEvent;
+        final Runnable task = node.mTask;
+
+        // Node stays as queue head, so don't keep delivered items
+        node.mListener = null;
+        node.mEvent = null;
+        node.mTask = null;
+
+        if (task != null) {
+            task.run();
+        } else {
+            listener.onJobEvent(event);
+        }
+    }
+
+    /**
+     * Post message draining event queue to handler
+     *
+     * @param drainTask task to post
+     */
+    protected void postDrain(Runnable drainTask) {
+        mHandler.post(drainTask);
+    }
+
+    /**
+     * @return time base of drain budget, in milliseconds
+     */
+    protected long uptimeMillis() {
+        return SystemClock.uptimeMillis();
+    }
+}
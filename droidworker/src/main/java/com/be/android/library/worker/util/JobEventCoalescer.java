@@ -0,0 +1,248 @@
+package com.be.android.library.worker.util;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.interfaces.JobEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Delivers job events to listener on handler thread coalescing progress
+ * and status message updates.
+ * <p>
+ * While update of a job is pending delivery, next update of the same kind replaces it,
+ * so only the latest progress and status message is delivered. Updates of each job are
+ * delivered not more often than once per minimum update interval, if one is set.
+ * Any other event, such as job status change or job result, is posted at once:
+ * pending updates of the job are delivered right before it, so event order is kept.
+ */
+public class JobEventCoalescer {
+
+    private class JobUpdates {
+        private final int mJobId;
+        private JobEvent mProgressEvent;
+        private JobEvent mStatusMessageEvent;
+        private Runnable mScheduledDelivery;
+        private boolean mIsDelivered;
+        private long mLastDeliveryMillis;
+
+        private JobUpdates(int jobId) {
+            mJobId = jobId;
+        }
+
+        private void setEvent(JobEvent event) {
+            if (event.getExtraCode() == JobEvent.EXTRA_CODE_PROGRESS_UPDATE) {
+                mProgressEvent = event;
+            } else {
+                mStatusMessageEvent = event;
+            }
+        }
+
+        private void clear() {
+            mProgressEvent = null;
+            mStatusMessageEvent = null;
+            mScheduledDelivery = null;
+        }
+    }
+
+    private final Handler mHandler;
+    private final JobEventBus mEventBus;
+    private final JobEventListener mListener;
+    private final Map<Integer, JobUpdates> mJobUpdates;
+    private volatile long mMinUpdateIntervalMillis;
+
+    public JobEventCoalescer(Handler handler, JobEventListener listener) {
+        this(handler, listener, 0);
+    }
+
+    /**
+     * @param handler handler to deliver events on
+     * @param listener listener to deliver events to
+     * @param minUpdateIntervalMillis minimum interval between updates of a job
+     *                                delivered to listener, or 0 to deliver updates at once
+     */
+    public JobEventCoalescer(Handler handler, JobEventListener listener, long minUpdateIntervalMillis) {
+        if (handler == null) {
+            throw new IllegalArgumentException("handler is null");
+        }
+
+        if (listener == null) {
+            throw new IllegalArgumentException("listener is null");
+        }
+
+        mHandler = handler;
+        mEventBus = JobEventBus.forHandler(handler);
+        mListener = listener;
+        mJobUpdates = new HashMap<Integer, JobUpdates>();
+        setMinUpdateIntervalMillis(minUpdateIntervalMillis);
+    }
+
+    public long getMinUpdateIntervalMillis() {
+        return mMinUpdateIntervalMillis;
+    }
+
+    /**
+     * Limit rate of progress and status message updates delivered for each job
+     *
+     * @param minUpdateIntervalMillis minimum interval between updates of a job,
+     *                                or 0 to deliver updates as soon as possible
+     */
+    public void setMinUpdateIntervalMillis(long minUpdateIntervalMillis) {
+        if (minUpdateIntervalMillis < 0) {
+            throw new IllegalArgumentException("update interval may not be negative");
+        }
+
+        mMinUpdateIntervalMillis = minUpdateIntervalMillis;
+    }
+
+    /**
+     * Post event to be delivered to listener
+     *
+     * @param event event to deliver
+     */
+    public void post(JobEvent event) {
+        if (event.isCoalescibleUpdate()) {
+            postUpdate(event);
+        } else {
+            postEvent(event);
+        }
+    }
+
+    /**
+     * Discard all pending updates
+     */
+    public void clear() {
+        synchronized (mJobUpdates) {
+            for (JobUpdates updates : mJobUpdates.values()) {
+                updates.clear();
+            }
+            mJobUpdates.clear();
+        }
+    }
+
+    private void postUpdate(JobEvent event) {
+        final int jobId = event.getJobId();
+        final Runnable delivery;
+        final long delayMillis;
+
+        synchronized (mJobUpdates) {
+            JobUpdates updates = mJobUpdates.get(jobId);
+            if (updates == null) {
+                updates = new JobUpdates(jobId);
+                mJobUpdates.put(jobId, updates);
+            }
+
+            updates.setEvent(event);
+            if (updates.mScheduledDelivery != null) {
+                // Update is in flight and will deliver the latest event
+                return;
+            }
+
+            delivery = createDelivery(updates);
+            updates.mScheduledDelivery = delivery;
+            delayMillis = updates.mIsDelivered
+                    ? updates.mLastDeliveryMillis + mMinUpdateIntervalMillis - uptimeMillis()
+                    : 0;
+        }
+
+        postDelivery(delivery, Math.max(0, delayMillis));
+    }
+
+    private void postEvent(final JobEvent event) {
+        final int jobId = event.getJobId();
+        final JobEvent statusMessageEvent;
+        final JobEvent progressEvent;
+
+        synchronized (mJobUpdates) {
+            final JobUpdates updates = event.isJobFinished()
+                    ? mJobUpdates.remove(jobId)
+                    : mJobUpdates.get(jobId);
+
+            if (updates != null) {
+                statusMessageEvent = updates.mStatusMessageEvent;
+                progressEvent = updates.mProgressEvent;
+                updates.clear();
+
+                if (statusMessageEvent != null || progressEvent != null) {
+                    updates.mIsDelivered = true;
+                    updates.mLastDeliveryMillis = uptimeMillis();
+                }
+            } else {
+                statusMessageEvent = null;
+                progressEvent = null;
+            }
+        }
+
+        postDelivery(new Runnable() {
+            @Override
+            public void run() {
+                if (statusMessageEvent != null) {
+                    mListener.onJobEvent(statusMessageEvent);
+                }
+                if (progressEvent != null) {
+                    mListener.onJobEvent(progressEvent);
+                }
+                mListener.onJobEvent(event);
+            }
+        }, 0);
+    }
+
+    private Runnable createDelivery(final JobUpdates updates) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                final JobEvent statusMessageEvent;
+                final JobEvent progressEvent;
+
+                synchronized (mJobUpdates) {
+                    if (updates.mScheduledDelivery != this) {
+                        // Updates are already delivered along with other job event
+                        return;
+                    }
+
+                    statusMessageEvent = updates.mStatusMessageEvent;
+                    progressEvent = updates.mProgressEvent;
+                    updates.clear();
+                    updates.mIsDelivered = true;
+                    updates.mLastDeliveryMillis = uptimeMillis();
+
+                    if (mMinUpdateIntervalMillis == 0) {
+                        mJobUpdates.remove(updates.mJobId);
+                    }
+                }
+
+                if (statusMessageEvent != null) {
+                    mListener.onJobEvent(statusMessageEvent);
+                }
+                if (progressEvent != null) {
+                    mListener.onJobEvent(progressEvent);
+                }
+            }
+        };
+    }
+
+    /**
+     * Post event delivery to handler thread; deliveries without delay
+     * are batched by {@link JobEventBus}
+     *
+     * @param delivery delivery to run
+     * @param delayMillis delay to run delivery after, in milliseconds
+     */
+    protected void postDelivery(Runnable delivery, long delayMillis) {
+        if (delayMillis > 0) {
+            mHandler.postDelayed(delivery, delayMillis);
+        } else {
+            mEventBus.post(delivery);
+        }
+    }
+
+    /**
+     * @return time base of {@link #postDelivery(Runnable, long)} delays, in milliseconds
+     */
+    protected long uptimeMillis() {
+        return SystemClock.uptimeMillis();
+    }
+}
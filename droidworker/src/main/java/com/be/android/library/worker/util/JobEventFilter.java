@@ -102,6 +102,45 @@ public class JobEventFilter implements Predicate<JobEvent> {
     protected JobEventFilter() {
     }
 
+    /**
+     * Create immutable predicate matching the same events as this filter,
+     * optimized to be applied many times; may be shared between threads.
+     * Subclasses overriding checks are applied as is.
+     *
+     * @return compiled filter
+     */
+    public Predicate<JobEvent> compile() {
+        if (getClass() != JobEventFilter.class) {
+            return this;
+        }
+
+        return new CompiledJobEventFilter(this);
+    }
+
+    JobStatus[] getPendingStatus() {
+        return mPendingStatus;
+    }
+
+    int[] getPendingEventCode() {
+        return mPendingEventCode;
+    }
+
+    int[] getPendingExtraCode() {
+        return mPendingExtraCode;
+    }
+
+    String[] getPendingTags() {
+        return mPendingTags;
+    }
+
+    Flag[] getPendingFlags() {
+        return mPendingFlags;
+    }
+
+    Class<?> getPendingJobType() {
+        return mPendingJobType;
+    }
+
     public boolean apply(JobEvent event) {
         return checkPendingStatus(event)
                 && checkPendingJobType(event)
@@ -5,6 +5,7 @@ import com.be.android.library.worker.base.JobStatus;
 import com.be.android.library.worker.controllers.JobManager;
 import com.be.android.library.worker.interfaces.Job;
 import com.be.android.library.worker.interfaces.JobEventListener;
+import com.be.android.library.worker.interfaces.Predicate;
 
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CountDownLatch;
@@ -15,7 +16,7 @@ import java.util.concurrent.TimeoutException;
 
 public class JobFutureEvent implements Future<JobEvent> {
 
-    private final JobEventFilter mEventFilter;
+    private final Predicate<JobEvent> mEventFilter;
     private volatile boolean mIsCancelled;
     private volatile int mJobId = JobManager.JOB_ID_UNSPECIFIED;
     private JobEvent jobEvent;
@@ -57,7 +58,7 @@ public class JobFutureEvent implements Future<JobEvent> {
                     "future event for submitted job; \"%s\"", job));
         }
 
-        mEventFilter = filter;
+        mEventFilter = filter.compile();
         job.addJobEventListener(mJobEventListener);
     }
 
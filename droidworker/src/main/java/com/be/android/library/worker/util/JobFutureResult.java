@@ -2,9 +2,11 @@ package com.be.android.library.worker.util;
 
 import com.be.android.library.worker.base.JobEvent;
 import com.be.android.library.worker.base.JobStatus;
+import com.be.android.library.worker.base.JobStatusLock;
 import com.be.android.library.worker.controllers.JobManager;
 import com.be.android.library.worker.interfaces.Job;
 import com.be.android.library.worker.interfaces.JobEventListener;
+import com.be.android.library.worker.interfaces.Predicate;
 
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CountDownLatch;
@@ -17,12 +19,14 @@ public class JobFutureResult implements Future<JobEvent> {
 
     private volatile boolean mIsCancelled;
     private volatile int mJobId = JobManager.JOB_ID_UNSPECIFIED;
+    private final boolean mIsJobShared;
     private JobEvent mJobEvent;
     private JobEvent mResultEvent;
     private final Object mMutex = new Object();
     private final CountDownLatch mWaitLatch = new CountDownLatch(1);
     private final JobManager mJobManager;
     private JobEventFilter mEventFilter;
+    private Predicate<JobEvent> mEventPredicate;
 
     private final JobEventListener mJobEventListener =
             new JobEventListener() {
@@ -72,17 +76,69 @@ public class JobFutureResult implements Future<JobEvent> {
         }
 
         mJobManager = jobManager;
+        mIsJobShared = false;
 
         job.addJobEventListener(mJobEventListener);
     }
 
+    private JobFutureResult(Job job, int jobId, JobManager jobManager) {
+        mJobManager = jobManager;
+        mJobId = jobId;
+        mIsJobShared = true;
+
+        job.addJobEventListener(mJobEventListener);
+    }
+
+    /**
+     * Create pending result of job which is already submitted.
+     * <br>
+     * Job may finish while pending result is being attached to it, so its finish event
+     * may be sent only to listeners registered earlier. Such result is detached and null
+     * is returned, unless it has received the finish event. Cancelling returned result
+     * doesn't cancel the job, as it may be awaited by others.
+     *
+     * @param job submitted job
+     * @param jobId id assigned to the job
+     * @param jobManager job manager the job is submitted to
+     * @return pending result of given job or null if the job is finished
+     */
+    public static JobFutureResult forSubmittedJob(Job job, int jobId, JobManager jobManager) {
+        final JobFutureResult result = new JobFutureResult(job, jobId, jobManager);
+
+        // Status lock is taken after result is attached: unless status set by job
+        // is terminal here, the result is notified of job finish
+        final boolean isJobTerminated;
+        final JobStatusLock lock = job.acquireStatusLock();
+        try {
+            isJobTerminated = job.isFinished() || job.getStatus() == JobStatus.CANCELLED;
+
+        } finally {
+            lock.release();
+        }
+
+        if (!isJobTerminated) {
+            return result;
+        }
+
+        synchronized (result.mMutex) {
+            if (result.mResultEvent != null) {
+                return result;
+            }
+        }
+
+        job.removeJobEventListener(result.mJobEventListener);
+
+        return null;
+    }
+
     /**
      * @param event event to process
      * @return true to obtain provided event as result
      */
     protected boolean handleJobEvent(JobEvent event) {
-        if (mEventFilter != null) {
-            return mEventFilter.apply(event);
+        final Predicate<JobEvent> eventPredicate = mEventPredicate;
+        if (eventPredicate != null) {
+            return eventPredicate.apply(event);
         }
 
         return event.isJobFinished();
@@ -97,7 +153,7 @@ public class JobFutureResult implements Future<JobEvent> {
         if (mJobId != JobManager.JOB_ID_UNSPECIFIED) {
             mWaitLatch.countDown();
 
-            return mJobManager.cancelJob(mJobId);
+            return mIsJobShared || mJobManager.cancelJob(mJobId);
         }
 
         return true;
@@ -178,5 +234,6 @@ public class JobFutureResult implements Future<JobEvent> {
 
     public void setEventFilter(JobEventFilter eventFilter) {
         mEventFilter = eventFilter;
+        mEventPredicate = eventFilter == null ? null : eventFilter.compile();
     }
 }
@@ -38,10 +38,10 @@ public class JobProgressTracker {
         }
     }
 
-    private final Handler mHandler;
+    private final JobEventBus mEventBus;
     private final JobManager mJobManager;
     private final List<JobSelector> mSelectors;
-    private final Set<Integer> mRegisteredJobs;
+    private final IntSet mRegisteredJobs;
     private Callbacks mCallbacks;
     private boolean mIsInProgress;
 
@@ -61,23 +61,25 @@ public class JobProgressTracker {
         }
     };
 
+    private final JobEventListener mJobEventHandler = new JobEventListener() {
+        @Override
+        public void onJobEvent(JobEvent event) {
+            handleJobEvent(event);
+        }
+    };
+
     private final JobEventListener mJobEventListener = new JobEventListener() {
         @Override
-        public void onJobEvent(final JobEvent event) {
-            mHandler.post(new Runnable() {
-                @Override
-                public void run() {
-                    handleJobEvent(event);
-                }
-            });
+        public void onJobEvent(JobEvent event) {
+            mEventBus.post(mJobEventHandler, event);
         }
     };
 
     public JobProgressTracker(JobManager jobManager, Handler handler) {
         mJobManager = jobManager;
-        mRegisteredJobs = new HashSet<Integer>();
+        mRegisteredJobs = new IntSet();
         mSelectors = new ArrayList<JobSelector>();
-        mHandler = handler;
+        mEventBus = JobEventBus.forHandler(handler);
     }
 
     public JobProgressTracker(JobManager jobManager) {
@@ -85,24 +87,14 @@ public class JobProgressTracker {
     }
 
     public void saveInstanceState(Bundle outState) {
-        final int[] ids = new int[mRegisteredJobs.size()];
-
-        int i = 0;
-        for (int id : mRegisteredJobs) {
-            ids[i] = id;
-            i++;
-        }
-
-        outState.putIntArray(EXTRA_STATE_REGISTERED_JOBS, ids);
+        outState.putIntArray(EXTRA_STATE_REGISTERED_JOBS, mRegisteredJobs.toArray());
     }
 
     public void restoreInstanceState(Bundle state) {
         if (state.containsKey(EXTRA_STATE_REGISTERED_JOBS)) {
             final int[] ids = state.getIntArray(EXTRA_STATE_REGISTERED_JOBS);
             mRegisteredJobs.clear();
-            for (int id : ids) {
-                mRegisteredJobs.add(id);
-            }
+            mRegisteredJobs.addAll(ids);
         }
     }
 
@@ -143,7 +135,12 @@ public class JobProgressTracker {
     }
 
     public Set<Integer> getRegisteredJobs() {
-        return Collections.unmodifiableSet(mRegisteredJobs);
+        final Set<Integer> jobs = new HashSet<Integer>(mRegisteredJobs.size());
+        for (int i = 0; i < mRegisteredJobs.size(); i++) {
+            jobs.add(mRegisteredJobs.valueAt(i));
+        }
+
+        return Collections.unmodifiableSet(jobs);
     }
 
     public Callbacks getCallbacks() {
@@ -2,6 +2,7 @@ package com.be.android.library.worker.util;
 
 import com.be.android.library.worker.base.JobStatus;
 import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.interfaces.Predicate;
 import com.be.android.library.worker.models.Flags;
 
 import java.util.Arrays;
@@ -16,6 +17,7 @@ import java.util.Map;
 public class JobSelector {
 
     private int[] mJobIds;
+    private int[] mJobGroups;
     private String[] mJobTags;
     private JobStatus[] mJobStatus;
     private Map<String, Boolean> mJobFlags;
@@ -31,6 +33,10 @@ public class JobSelector {
         return new JobSelector().jobId(jobId);
     }
 
+    public static JobSelector forJobGroup(int... groupId) {
+        return new JobSelector().jobGroup(groupId);
+    }
+
     public static JobSelector forJobStatus(JobStatus... status) {
         return new JobSelector().jobStatus(status);
     }
@@ -77,6 +83,27 @@ public class JobSelector {
     public JobSelector() {
     }
 
+    /**
+     * Create immutable predicate matching the same jobs as this selector,
+     * optimized to be applied to many jobs; may be shared between threads.
+     * Later changes of this selector don't affect compiled predicate.
+     * Subclasses overriding match checks are applied as is.
+     *
+     * @return compiled selector
+     */
+    public Predicate<Job> compile() {
+        if (getClass() != JobSelector.class) {
+            return new Predicate<Job>() {
+                @Override
+                public boolean apply(Job job) {
+                    return JobSelector.this.apply(job);
+                }
+            };
+        }
+
+        return new CompiledJobSelector(this);
+    }
+
     public boolean apply(Job job) {
         if (mJobIds != null
                 && job.hasId()
@@ -85,6 +112,21 @@ public class JobSelector {
             return false;
         }
 
+        if (mJobGroups != null) {
+            final int jobGroup = job.getParams().getGroupId();
+            boolean hasGroup = false;
+            for (int groupId : mJobGroups) {
+                if (groupId == jobGroup) {
+                    hasGroup = true;
+                    break;
+                }
+            }
+
+            if (hasGroup == false) {
+                return false;
+            }
+        }
+
         if (mJobStatus != null) {
             final JobStatus jobStatus = job.getStatus();
             boolean hasStatus = false;
@@ -241,7 +283,12 @@ public class JobSelector {
     }
 
     public JobSelector jobId(int... jobId) {
-        mJobIds = jobId;
+        if (jobId == null) {
+            mJobIds = null;
+        } else {
+            mJobIds = jobId.clone();
+            Arrays.sort(mJobIds);
+        }
 
         return this;
     }
@@ -250,11 +297,15 @@ public class JobSelector {
         if (mJobIds == null) {
             mJobIds = new int[] { jobId };
 
-        } else if (Arrays.binarySearch(mJobIds, jobId) < 0) {
-            int[] jobIds = new int[mJobIds.length + 1];
-            System.arraycopy(mJobIds, 0, jobIds, 0, mJobIds.length);
-            mJobIds = jobIds;
-            mJobIds[mJobIds.length - 1] = jobId;
+        } else {
+            final int index = Arrays.binarySearch(mJobIds, jobId);
+            if (index < 0) {
+                int[] jobIds = new int[mJobIds.length + 1];
+                System.arraycopy(mJobIds, 0, jobIds, 0, ~index);
+                jobIds[~index] = jobId;
+                System.arraycopy(mJobIds, ~index, jobIds, ~index + 1, mJobIds.length + index + 1);
+                mJobIds = jobIds;
+            }
         }
 
         return this;
@@ -287,6 +338,33 @@ public class JobSelector {
         return this;
     }
 
+    /**
+     * @return selected job ids or null if job id is not a criteria
+     */
+    public int[] getJobIds() {
+        return mJobIds == null ? null : mJobIds.clone();
+    }
+
+    public JobSelector jobGroup(int... groupId) {
+        mJobGroups = groupId;
+
+        return this;
+    }
+
+    /**
+     * @return selected job group ids or null if job group is not a criteria
+     */
+    public int[] getJobGroups() {
+        return mJobGroups == null ? null : mJobGroups.clone();
+    }
+
+    /**
+     * @return selected job tags or null if job tags are not a criteria
+     */
+    public String[] getTags() {
+        return mJobTags == null ? null : mJobTags.clone();
+    }
+
     public JobSelector tags(String... tags) {
         mJobTags = tags;
 
@@ -348,6 +426,13 @@ public class JobSelector {
         return this;
     }
 
+    /**
+     * @return selected job statuses or null if job status is not a criteria
+     */
+    public JobStatus[] getJobStatus() {
+        return mJobStatus == null ? null : mJobStatus.clone();
+    }
+
     public JobSelector jobStatus(JobStatus... jobStatus) {
         mJobStatus = jobStatus;
 
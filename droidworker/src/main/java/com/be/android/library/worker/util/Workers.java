@@ -0,0 +1,31 @@
+package com.be.android.library.worker.util;
+
+import com.be.android.library.worker.interfaces.BatchWorker;
+import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.interfaces.Worker;
+
+import java.util.List;
+
+public final class Workers {
+
+    private Workers() {
+    }
+
+    /**
+     * Submit jobs batch at once if worker supports it, or one by one otherwise
+     *
+     * @param worker worker to submit jobs to
+     * @param jobs jobs to execute in submit order
+     */
+    public static void submitJobs(Worker worker, List<Job> jobs) {
+        if (worker instanceof BatchWorker) {
+            ((BatchWorker) worker).submitJobs(jobs);
+
+            return;
+        }
+
+        for (Job job : jobs) {
+            worker.submitJob(job);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.be.android.library.worker.test;
+
+import com.be.android.library.worker.annotations.OnJobFailure;
+import com.be.android.library.worker.annotations.OnJobSuccess;
+import com.be.android.library.worker.base.HierarchyViewer;
+import com.be.android.library.worker.base.InvocationHandler;
+import com.be.android.library.worker.base.JobCancelInvocationHandlerProvider;
+import com.be.android.library.worker.base.JobEventInvocationHandlerProvider;
+import com.be.android.library.worker.base.JobFailureInvocationHandlerProvider;
+import com.be.android.library.worker.base.JobResultInvocationHandlerProvider;
+import com.be.android.library.worker.base.JobSuccessInvocationHandlerProvider;
+import com.be.android.library.worker.test.benchmark.DispatchBenchmarkListener;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify listener handlers are resolved once and shared between threads
+ */
+public class TestHierarchyViewer {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+    private static final int THREAD_COUNT = 8;
+
+    public static class ConcurrentListener {
+
+        @OnJobSuccess
+        public void onJobSuccess() {
+        }
+
+        @OnJobFailure
+        public void onJobFailure() {
+        }
+    }
+
+    public static class PrefetchedListener {
+
+        @OnJobSuccess
+        public void onJobSuccess() {
+        }
+    }
+
+    public static class NoHandlersListener {
+
+        public void onJobSuccess() {
+        }
+    }
+
+    @After
+    public void validate() {
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testConcurrentFetchResolvesSameHandlers() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+
+        try {
+            final Future<?>[] results = new Future<?>[THREAD_COUNT];
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                results[i] = executor.submit(new Callable<List<InvocationHandler>>() {
+                    @Override
+                    public List<InvocationHandler> call() throws Exception {
+                        startLatch.await();
+
+                        return createHierarchyViewer().fetchInvocationHandlers(ConcurrentListener.class);
+                    }
+                });
+            }
+
+            startLatch.countDown();
+
+            final Object handlers = results[0].get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            assertNotNull(handlers);
+            assertEquals(2, ((List<?>) handlers).size());
+            for (Future<?> result : results) {
+                assertSame(handlers, result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            }
+
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPrefetch() {
+        final HierarchyViewer hierarchyViewer = createHierarchyViewer();
+
+        assertFalse(hierarchyViewer.isResolved(PrefetchedListener.class));
+
+        hierarchyViewer.prefetch(PrefetchedListener.class, DispatchBenchmarkListener.class);
+
+        assertTrue(hierarchyViewer.isResolved(PrefetchedListener.class));
+        assertTrue(hierarchyViewer.isResolved(DispatchBenchmarkListener.class));
+        assertNotNull(hierarchyViewer.fetchEventHandlerDispatcher(DispatchBenchmarkListener.class));
+
+        try {
+            hierarchyViewer.prefetch(NoHandlersListener.class);
+            fail("listener type without event handlers should not be resolved");
+
+        } catch (IllegalArgumentException e) {
+            assertFalse(hierarchyViewer.isResolved(NoHandlersListener.class));
+        }
+    }
+
+    private static HierarchyViewer createHierarchyViewer() {
+        final HierarchyViewer hierarchyViewer = new HierarchyViewer(null);
+        hierarchyViewer.registerInvocationHandlerProvider(new JobEventInvocationHandlerProvider());
+        hierarchyViewer.registerInvocationHandlerProvider(new JobResultInvocationHandlerProvider());
+        hierarchyViewer.registerInvocationHandlerProvider(new JobSuccessInvocationHandlerProvider());
+        hierarchyViewer.registerInvocationHandlerProvider(new JobFailureInvocationHandlerProvider());
+        hierarchyViewer.registerInvocationHandlerProvider(new JobCancelInvocationHandlerProvider());
+
+        return hierarchyViewer;
+    }
+}
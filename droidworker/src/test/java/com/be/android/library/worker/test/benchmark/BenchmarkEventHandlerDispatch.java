@@ -0,0 +1,171 @@
+package com.be.android.library.worker.test.benchmark;
+
+import com.be.android.library.worker.annotations.OnJobCancelled;
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.HierarchyViewer;
+import com.be.android.library.worker.base.InvocationHandler;
+import com.be.android.library.worker.base.JobCancelInvocationHandlerProvider;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.base.JobEventInvocationHandlerProvider;
+import com.be.android.library.worker.base.JobFailureInvocationHandlerProvider;
+import com.be.android.library.worker.base.JobResultInvocationHandlerProvider;
+import com.be.android.library.worker.base.JobStatus;
+import com.be.android.library.worker.base.JobSuccessInvocationHandlerProvider;
+import com.be.android.library.worker.interfaces.EventHandlerDispatcher;
+import com.be.android.library.worker.models.JobParams;
+import com.be.android.library.worker.models.ProgressUpdateEvent;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Compare event handler invocation through reflective invocation handlers
+ * with generated event handler dispatcher.
+ * <br>
+ * Run with {@code -Pbenchmark}; time of each way is reported as test duration.
+ */
+public class BenchmarkEventHandlerDispatch {
+
+    private static final int EVENT_COUNT = 300000;
+    private static final int ROUNDS = 3;
+
+    @Test
+    public void benchmarkReflectiveDispatch() throws Exception {
+        final HierarchyViewer hierarchyViewer = createHierarchyViewer();
+        final List<InvocationHandler> handlers =
+                hierarchyViewer.fetchInvocationHandlers(DispatchBenchmarkListener.class);
+        final JobEvent[] events = createEvents();
+
+        // The first round warms up
+        for (int i = 0; i <= ROUNDS; i++) {
+            runReflectiveRound(handlers, events);
+        }
+    }
+
+    @Test
+    public void benchmarkGeneratedDispatch() throws Exception {
+        final HierarchyViewer hierarchyViewer = createHierarchyViewer();
+        final EventHandlerDispatcher<Object> dispatcher =
+                hierarchyViewer.fetchEventHandlerDispatcher(DispatchBenchmarkListener.class);
+
+        assertNotNull(dispatcher);
+        assertNull(hierarchyViewer.fetchEventHandlerDispatcher(ReflectiveListener.class));
+
+        final JobEvent[] events = createEvents();
+
+        // The first round warms up
+        for (int i = 0; i <= ROUNDS; i++) {
+            runGeneratedRound(dispatcher, events);
+        }
+    }
+
+    private void runReflectiveRound(List<InvocationHandler> handlers, JobEvent[] events) throws Exception {
+        final DispatchBenchmarkListener listener = new DispatchBenchmarkListener();
+
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            sendJobEvent(listener, handlers, events[i % events.length]);
+        }
+
+        assertListenerCalls(listener);
+    }
+
+    private void runGeneratedRound(EventHandlerDispatcher<Object> dispatcher,
+                                   JobEvent[] events) throws Exception {
+
+        final DispatchBenchmarkListener listener = new DispatchBenchmarkListener();
+
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            dispatcher.dispatch(listener, events[i % events.length]);
+        }
+
+        assertListenerCalls(listener);
+    }
+
+    /**
+     * Same handler lookup as JobEventDispatcher performs for listeners without generated dispatcher
+     */
+    private static boolean sendJobEvent(Object listener,
+                                        List<InvocationHandler> handlers,
+                                        JobEvent event) throws Exception {
+
+        for (InvocationHandler handler : handlers) {
+            if (handler.isFitEvent(listener, event)) {
+                return handler.apply(listener, event);
+            }
+        }
+
+        for (InvocationHandler handler : handlers) {
+            if (handler.canApply(listener, event)) {
+                return handler.apply(listener, event);
+            }
+        }
+
+        return false;
+    }
+
+    private static void assertListenerCalls(DispatchBenchmarkListener listener) {
+        assertEquals(EVENT_COUNT / 3, listener.mSuccessCount);
+        assertEquals(EVENT_COUNT / 3, listener.mFailureCount);
+        assertEquals(EVENT_COUNT / 3, listener.mProgressCount);
+    }
+
+    private static HierarchyViewer createHierarchyViewer() {
+        final HierarchyViewer hierarchyViewer = new HierarchyViewer(null);
+        hierarchyViewer.registerInvocationHandlerProvider(new JobEventInvocationHandlerProvider());
+        hierarchyViewer.registerInvocationHandlerProvider(new JobResultInvocationHandlerProvider());
+        hierarchyViewer.registerInvocationHandlerProvider(new JobSuccessInvocationHandlerProvider());
+        hierarchyViewer.registerInvocationHandlerProvider(new JobFailureInvocationHandlerProvider());
+        hierarchyViewer.registerInvocationHandlerProvider(new JobCancelInvocationHandlerProvider());
+
+        return hierarchyViewer;
+    }
+
+    private static JobEvent[] createEvents() {
+        final BaseJob job = new BaseJob() {
+            @Override
+            protected JobEvent executeImpl() throws Exception {
+                return JobEvent.ok();
+            }
+        };
+        job.setup().apply();
+        final JobParams params = job.getParams();
+
+        return new JobEvent[] {
+                new JobEvent.Builder()
+                        .eventCode(JobEvent.EVENT_CODE_OK)
+                        .jobStatus(JobStatus.OK)
+                        .params(params)
+                        .build(),
+                new JobEvent.Builder()
+                        .eventCode(JobEvent.EVENT_CODE_FAILED)
+                        .jobStatus(JobStatus.FAILED)
+                        .params(params)
+                        .build(),
+                new ProgressUpdateEvent(0.5f, JobStatus.IN_PROGRESS) {
+                    {
+                        setJobParams(params);
+                    }
+                }
+        };
+    }
+
+    /**
+     * Listener without generated dispatcher
+     */
+    public static class ReflectiveListener extends DispatchBenchmarkListener {
+
+        @Override
+        public void onJobFailure() {
+            super.onJobFailure();
+        }
+
+        @OnJobCancelled
+        public void onJobCancelled() {
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.be.android.library.worker.test.benchmark;
+
+import com.be.android.library.worker.util.IntSet;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compare time of job id lookups in boxed {@code HashSet<Integer>} and {@link IntSet}.
+ * <br>
+ * Job ids above the {@code Integer} cache range are boxed on each lookup of the boxed set,
+ * while {@link IntSet} lookups are checked not to allocate on JVMs providing per-thread
+ * allocation counters.
+ * <br>
+ * Run with {@code -Pbenchmark}; time of each set is reported as test duration.
+ */
+public class BenchmarkIntSet {
+
+    private static final int PENDING_JOB_COUNT = 16;
+    private static final int FIRST_JOB_ID = 1000;
+    private static final int LOOKUP_COUNT = 1000000;
+    private static final int ROUNDS = 3;
+
+    @Test
+    public void benchmarkBoxedSetLookup() throws Exception {
+        final Set<Integer> boxedSet = new HashSet<Integer>();
+        for (int i = 0; i < PENDING_JOB_COUNT; i++) {
+            boxedSet.add(FIRST_JOB_ID + i * 2);
+        }
+
+        // The first round warms up
+        for (int round = 0; round <= ROUNDS; round++) {
+            int hits = 0;
+            for (int i = 0; i < LOOKUP_COUNT; i++) {
+                if (boxedSet.contains(FIRST_JOB_ID + (i % (PENDING_JOB_COUNT * 4)))) {
+                    hits++;
+                }
+            }
+
+            assertEquals(LOOKUP_COUNT / 4, hits);
+        }
+    }
+
+    @Test
+    public void benchmarkIntSetLookup() throws Exception {
+        final IntSet intSet = new IntSet();
+        for (int i = 0; i < PENDING_JOB_COUNT; i++) {
+            intSet.add(FIRST_JOB_ID + i * 2);
+        }
+
+        // The first round warms up
+        for (int round = 0; round <= ROUNDS; round++) {
+            final long startBytes = getAllocatedBytes();
+
+            int hits = 0;
+            for (int i = 0; i < LOOKUP_COUNT; i++) {
+                if (intSet.contains(FIRST_JOB_ID + (i % (PENDING_JOB_COUNT * 4)))) {
+                    hits++;
+                }
+            }
+
+            final long allocatedBytes = getAllocatedBytes() - startBytes;
+
+            assertEquals(LOOKUP_COUNT / 4, hits);
+            if (startBytes >= 0) {
+                // Allow for allocations unrelated to lookups, boxing takes 16 bytes per lookup
+                assertTrue("lookups allocate " + allocatedBytes + " bytes",
+                        allocatedBytes < LOOKUP_COUNT);
+            }
+        }
+    }
+
+    /**
+     * @return bytes allocated by current thread or -1 if not supported
+     */
+    private static long getAllocatedBytes() {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        if (!allocationBean.isThreadAllocatedMemorySupported()
+                || !allocationBean.isThreadAllocatedMemoryEnabled()) {
+
+            return -1;
+        }
+
+        return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
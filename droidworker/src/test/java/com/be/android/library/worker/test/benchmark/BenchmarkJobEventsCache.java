@@ -0,0 +1,170 @@
+package com.be.android.library.worker.test.benchmark;
+
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.controllers.ConcurrentJobEventsCache;
+import com.be.android.library.worker.controllers.InMemoryJobEventsCache;
+import com.be.android.library.worker.interfaces.CacheEntryDescriptor;
+import com.be.android.library.worker.interfaces.JobEventsCache;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measure insert and lookup time of {@link InMemoryJobEventsCache} holding 100k entries.
+ * <br>
+ * Cache is kept full, so each insert evicts least recently used entry;
+ * half of the entries expire while inserts go on.
+ * Lookups of single lock and striped caches are run by growing thread count.
+ * <br>
+ * Run with {@code -Pbenchmark}; time of each case is reported as test duration.
+ */
+public class BenchmarkJobEventsCache {
+
+    private static final int ENTRY_COUNT = 100000;
+    private static final int OPERATION_COUNT = 1000000;
+    private static final int ROUNDS = 3;
+    private static final int LOOKUPS_PER_THREAD = 500000;
+    private static final int MAX_THREAD_COUNT = 8;
+
+    private static class BenchmarkCache extends InMemoryJobEventsCache {
+
+        private long mTimeMillis;
+
+        private BenchmarkCache(int maxCacheSize) {
+            super(maxCacheSize);
+        }
+
+        @Override
+        protected long elapsedRealtime() {
+            return mTimeMillis;
+        }
+    }
+
+    private static final CacheEntryDescriptor PERMANENT = new CacheEntryDescriptor() {
+        @Override
+        public int getJobEventSize(JobEvent event) {
+            return 1;
+        }
+
+        @Override
+        public int getExpirationTimeoutMillis() {
+            return TIMEOUT_NONE;
+        }
+    };
+
+    private static final CacheEntryDescriptor EXPIRING = new CacheEntryDescriptor() {
+        @Override
+        public int getJobEventSize(JobEvent event) {
+            return 1;
+        }
+
+        @Override
+        public int getExpirationTimeoutMillis() {
+            return 5000;
+        }
+    };
+
+    @Test
+    public void benchmarkFullCache() throws Exception {
+        final String[] keys = new String[ENTRY_COUNT * 2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "job.result." + i;
+        }
+        final JobEvent event = JobEvent.ok();
+
+        // The first round warms up
+        for (int i = 0; i <= ROUNDS; i++) {
+            runRound(keys, event);
+        }
+    }
+
+    @Test
+    public void benchmarkSingleLockLookups() throws Exception {
+        runLookupRounds(new BenchmarkCache(ENTRY_COUNT));
+    }
+
+    @Test
+    public void benchmarkStripedLookups() throws Exception {
+        // Max cache size bounds all stripes together, so cache keeps all entries
+        runLookupRounds(new ConcurrentJobEventsCache(ENTRY_COUNT, MAX_THREAD_COUNT) {
+            @Override
+            protected long elapsedRealtime() {
+                return 0;
+            }
+        });
+    }
+
+    private static void runLookupRounds(JobEventsCache cache) throws Exception {
+        final String[] keys = new String[ENTRY_COUNT];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "job.result." + i;
+            cache.putEvent(JobEvent.ok(), keys[i], PERMANENT);
+        }
+
+        // Warm up
+        runLookups(cache, keys, MAX_THREAD_COUNT);
+
+        for (int threadCount = 1; threadCount <= MAX_THREAD_COUNT; threadCount *= 2) {
+            runLookups(cache, keys, threadCount);
+        }
+    }
+
+    private static void runLookups(final JobEventsCache cache,
+                                     final String[] keys,
+                                     int threadCount) throws Exception {
+
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final AtomicInteger failedCount = new AtomicInteger();
+        final Thread[] threads = new Thread[threadCount];
+
+        for (int i = 0; i < threadCount; i++) {
+            final int offset = i * (keys.length / threadCount);
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+
+                    for (int j = 0; j < LOOKUPS_PER_THREAD; j++) {
+                        if (cache.getEvent(keys[(offset + j * 7) % keys.length]) == null) {
+                            failedCount.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, failedCount.get());
+    }
+
+    private static void runRound(String[] keys, JobEvent event) {
+        final BenchmarkCache cache = new BenchmarkCache(ENTRY_COUNT);
+
+        int hits = 0;
+        for (int i = 0; i < OPERATION_COUNT; i++) {
+            cache.mTimeMillis = i / 10;
+            cache.putEvent(event, keys[i % keys.length], (i & 1) == 0 ? PERMANENT : EXPIRING);
+
+            if (cache.getEvent(keys[(i * 7) % keys.length]) != null) {
+                hits++;
+            }
+        }
+
+        assertTrue(hits > 0);
+        assertTrue(cache.getCacheSize() <= ENTRY_COUNT);
+        assertEquals(cache.getEntryCount(), cache.getCacheSize());
+    }
+}
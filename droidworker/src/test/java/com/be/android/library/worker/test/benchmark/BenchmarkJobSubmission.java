@@ -0,0 +1,153 @@
+package com.be.android.library.worker.test.benchmark;
+
+import android.content.Intent;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.base.JobStatus;
+import com.be.android.library.worker.controllers.JobManager;
+import com.be.android.library.worker.controllers.LocalJobManager;
+import com.be.android.library.worker.controllers.ThreadPoolWorker;
+import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.service.ThreadPoolWorkerService;
+import com.be.android.library.worker.service.WorkerService;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compare per-submit latency (submit call to job start) of jobs passed to idle worker
+ * through service intents handled on the main thread and jobs submitted to worker directly.
+ * <br>
+ * Binder transaction of a real service start is not part of the intent path measured here,
+ * so the actual difference on device is larger.
+ * <br>
+ * Run with {@code -Pbenchmark}; time of each path is reported as test duration.
+ */
+public class BenchmarkJobSubmission {
+
+    private static final int THREAD_COUNT = 4;
+    private static final int JOB_COUNT = 2000;
+    private static final int ROUNDS = 3;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    private static class BenchmarkJob extends BaseJob {
+
+        private final CountDownLatch mLatch;
+
+        private BenchmarkJob(CountDownLatch latch) {
+            mLatch = latch;
+        }
+
+        @Override
+        protected JobEvent executeImpl() throws Exception {
+            mLatch.countDown();
+
+            return JobEvent.ok();
+        }
+    }
+
+    private static class BenchmarkThreadPoolWorker extends ThreadPoolWorker {
+
+        private BenchmarkThreadPoolWorker() {
+            super(THREAD_COUNT);
+
+            setCompletionMode(COMPLETION_MODE_DISPATCHER_THREAD);
+        }
+
+        @Override
+        protected void performShutdown() {
+            shutdownImpl();
+        }
+    }
+
+    /**
+     * Mimics worker service submission: every job is packed to an intent,
+     * handed over to the main thread, looked up by id and submitted to worker
+     */
+    private static class IntentJobManager extends JobManager {
+
+        private final ThreadPoolWorker mWorker = new BenchmarkThreadPoolWorker();
+        private final ExecutorService mMainThread = Executors.newSingleThreadExecutor();
+
+        @Override
+        protected void submitJobImpl(Job job) {
+            final Intent intent = new Intent(WorkerService.ACTION_SUBMIT_JOB);
+            intent.putExtra(WorkerService.EXTRA_JOB_ID, job.getJobId());
+            intent.putExtra(ThreadPoolWorkerService.EXTRA_THREAD_POOL_SIZE, THREAD_COUNT);
+            intent.putExtra(ThreadPoolWorkerService.EXTRA_SCHEDULER_MODE,
+                    ThreadPoolWorker.SCHEDULER_MODE_QUEUED);
+
+            final int jobId = job.getJobId();
+            mMainThread.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final Job submittedJob = findJob(jobId);
+                    if (submittedJob != null && submittedJob.getStatus() == JobStatus.PENDING) {
+                        mWorker.submitJob(submittedJob);
+                    }
+                }
+            });
+        }
+
+        void finish() {
+            mMainThread.shutdown();
+            mWorker.finish();
+        }
+    }
+
+    @Test
+    public void benchmarkIntentSubmission() throws Exception {
+        // The first round warms up
+        for (int i = 0; i <= ROUNDS; i++) {
+            runIntentRound();
+        }
+    }
+
+    @Test
+    public void benchmarkDirectSubmission() throws Exception {
+        // The first round warms up
+        for (int i = 0; i <= ROUNDS; i++) {
+            runDirectRound();
+        }
+    }
+
+    private void runIntentRound() throws Exception {
+        final IntentJobManager jobManager = new IntentJobManager();
+        try {
+            runRound(jobManager);
+        } finally {
+            jobManager.finish();
+        }
+    }
+
+    private void runDirectRound() throws Exception {
+        final LocalJobManager jobManager = new LocalJobManager(new BenchmarkThreadPoolWorker());
+        try {
+            runRound(jobManager);
+        } finally {
+            jobManager.finish();
+        }
+    }
+
+    /**
+     * Jobs are submitted one at a time, so latency doesn't include waiting in job queue
+     */
+    private void runRound(JobManager jobManager) throws Exception {
+        for (int i = 0; i < JOB_COUNT; i++) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            final BenchmarkJob job = new BenchmarkJob(latch);
+            job.setup().group(JobManager.JOB_GROUP_DEFAULT).apply();
+
+            jobManager.submitJob(job);
+
+            assertTrue("job is not started in time", latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.be.android.library.worker.test.benchmark;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.controllers.JobManager;
+import com.be.android.library.worker.controllers.ThreadPoolWorker;
+import com.be.android.library.worker.interfaces.JobEventListener;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compare {@link ThreadPoolWorker} scheduler modes on time to execute jobs spread
+ * over serial job groups and {@link JobManager#JOB_GROUP_UNIQUE} group.
+ * <br>
+ * Run with {@code -Pbenchmark}; time of each mode is reported as test duration.
+ */
+public class BenchmarkSchedulerModes {
+
+    private static final int THREAD_COUNT = 4;
+    private static final int JOB_COUNT = 4000;
+    private static final int GROUP_COUNT = 8;
+    private static final int JOB_WORK_ITERATIONS = 2000;
+    private static final int ROUNDS = 3;
+    private static final long TIMEOUT_SECONDS = 60;
+
+    private static class BenchmarkJob extends BaseJob {
+
+        private final int mIndex;
+        private volatile long mSink;
+
+        private BenchmarkJob(int index) {
+            mIndex = index;
+        }
+
+        @Override
+        protected JobEvent executeImpl() throws Exception {
+            long value = mIndex;
+            for (int i = 0; i < JOB_WORK_ITERATIONS; i++) {
+                value = value * 31 + i;
+            }
+            mSink = value;
+
+            return JobEvent.ok();
+        }
+    }
+
+    /**
+     * Handles finished jobs on dispatcher thread so queued mode runs without main looper
+     */
+    private static class BenchmarkThreadPoolWorker extends ThreadPoolWorker {
+
+        private BenchmarkThreadPoolWorker(int threadCount, int schedulerMode) {
+            super(threadCount, schedulerMode);
+
+            setCompletionMode(COMPLETION_MODE_DISPATCHER_THREAD);
+        }
+
+        @Override
+        protected void performShutdown() {
+            shutdownImpl();
+        }
+    }
+
+    // Listeners are weakly referenced by jobs
+    private JobEventListener mFinishListener;
+
+    @Test
+    public void benchmarkQueuedMode() throws Exception {
+        runRounds(ThreadPoolWorker.SCHEDULER_MODE_QUEUED);
+    }
+
+    @Test
+    public void benchmarkWorkStealingMode() throws Exception {
+        runRounds(ThreadPoolWorker.SCHEDULER_MODE_WORK_STEALING);
+    }
+
+    private void runRounds(int schedulerMode) throws Exception {
+        // The first round warms up
+        for (int i = 0; i <= ROUNDS; i++) {
+            runRound(schedulerMode);
+        }
+    }
+
+    private void runRound(int schedulerMode) throws Exception {
+        final ThreadPoolWorker worker = new BenchmarkThreadPoolWorker(THREAD_COUNT, schedulerMode);
+        final CountDownLatch latch = new CountDownLatch(JOB_COUNT);
+        final AtomicInteger failedCount = new AtomicInteger(0);
+        final BenchmarkJob[] jobs = new BenchmarkJob[JOB_COUNT];
+        mFinishListener = new JobEventListener() {
+            @Override
+            public void onJobEvent(JobEvent event) {
+                if (!event.isJobFinished()
+                        || event.getEventCode() == JobEvent.EVENT_CODE_UPDATE) {
+                    return;
+                }
+
+                if (event.getEventCode() != JobEvent.EVENT_CODE_OK) {
+                    failedCount.incrementAndGet();
+                }
+                latch.countDown();
+            }
+        };
+
+        for (int i = 0; i < JOB_COUNT; i++) {
+            final int groupId = i % 2 == 0
+                    ? JobManager.JOB_GROUP_UNIQUE
+                    : 1 + (i / 2) % GROUP_COUNT;
+
+            jobs[i] = new BenchmarkJob(i);
+            jobs[i].setup().group(groupId).priority(i % 3).apply();
+            jobs[i].getParams().assignJobId(i + 1);
+            jobs[i].addJobEventListener(mFinishListener);
+        }
+
+        for (BenchmarkJob job : jobs) {
+            worker.submitJob(job);
+        }
+
+        try {
+            assertTrue("jobs are not finished in time; mode: " + schedulerMode,
+                    latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        } finally {
+            worker.finish();
+        }
+
+        assertEquals(0, failedCount.get());
+    }
+}
@@ -0,0 +1,33 @@
+package com.be.android.library.worker.test.benchmark;
+
+import com.be.android.library.worker.annotations.OnJobEvent;
+import com.be.android.library.worker.annotations.OnJobFailure;
+import com.be.android.library.worker.annotations.OnJobSuccess;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.base.JobStatus;
+import com.be.android.library.worker.models.ProgressUpdateEvent;
+
+/**
+ * Event listener used by {@link BenchmarkEventHandlerDispatch}
+ */
+public class DispatchBenchmarkListener {
+
+    int mSuccessCount;
+    int mFailureCount;
+    int mProgressCount;
+
+    @OnJobSuccess
+    public void onJobSuccess(JobEvent event) {
+        mSuccessCount++;
+    }
+
+    @OnJobFailure
+    public void onJobFailure() {
+        mFailureCount++;
+    }
+
+    @OnJobEvent(jobStatus = JobStatus.IN_PROGRESS, eventCode = JobEvent.EVENT_CODE_UPDATE)
+    public void onJobProgress(ProgressUpdateEvent event) {
+        mProgressCount++;
+    }
+}
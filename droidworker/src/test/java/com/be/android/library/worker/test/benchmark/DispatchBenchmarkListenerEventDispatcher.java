@@ -0,0 +1,50 @@
+package com.be.android.library.worker.test.benchmark;
+
+import com.be.android.library.worker.base.EventHandlerMatcher;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.base.JobStatus;
+import com.be.android.library.worker.interfaces.EventHandlerDispatcher;
+import com.be.android.library.worker.models.ProgressUpdateEvent;
+
+/**
+ * Dispatcher of {@link DispatchBenchmarkListener} as generated by worker annotation processor,
+ * which is not run on unit test sources
+ */
+public final class DispatchBenchmarkListenerEventDispatcher
+        implements EventHandlerDispatcher<DispatchBenchmarkListener> {
+
+    /**
+     * {@code DispatchBenchmarkListener.onJobSuccess()} annotated with {@code @OnJobSuccess}
+     */
+    private static final EventHandlerMatcher MATCHER_0 = new EventHandlerMatcher(null,
+            new JobStatus[] {JobStatus.OK}, new int[] {}, new String[] {});
+
+    /**
+     * {@code DispatchBenchmarkListener.onJobFailure()} annotated with {@code @OnJobFailure}
+     */
+    private static final EventHandlerMatcher MATCHER_1 = new EventHandlerMatcher(null,
+            new JobStatus[] {JobStatus.FAILED}, new int[] {}, new String[] {});
+
+    /**
+     * {@code DispatchBenchmarkListener.onJobProgress()} annotated with {@code @OnJobEvent}
+     */
+    private static final EventHandlerMatcher MATCHER_2 = new EventHandlerMatcher(null,
+            new JobStatus[] {JobStatus.IN_PROGRESS}, new int[] {3}, new String[] {});
+
+    @Override
+    public boolean dispatch(DispatchBenchmarkListener listener, JobEvent event) throws Exception {
+        if (MATCHER_0.matches(event)) {
+            listener.onJobSuccess(event);
+            return true;
+        }
+        if (MATCHER_2.matches(event) && event instanceof ProgressUpdateEvent) {
+            listener.onJobProgress((ProgressUpdateEvent) event);
+            return true;
+        }
+        if (MATCHER_1.matches(event)) {
+            listener.onJobFailure();
+            return true;
+        }
+        return false;
+    }
+}
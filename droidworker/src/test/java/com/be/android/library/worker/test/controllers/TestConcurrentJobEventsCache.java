@@ -0,0 +1,238 @@
+package com.be.android.library.worker.test.controllers;
+
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.controllers.ConcurrentJobEventsCache;
+import com.be.android.library.worker.interfaces.CacheEntryDescriptor;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Stress concurrent job events cache from multiple threads and verify
+ * no update or size accounting is lost
+ */
+public class TestConcurrentJobEventsCache {
+
+    private static final int THREAD_COUNT = 8;
+    private static final int KEYS_PER_THREAD = 2000;
+    private static final int SHARED_KEY_COUNT = 64;
+    private static final int ITERATIONS = 20;
+
+    private static class Cache extends ConcurrentJobEventsCache {
+
+        private Cache(int maxCacheSize) {
+            super(maxCacheSize, THREAD_COUNT);
+        }
+
+        @Override
+        protected long elapsedRealtime() {
+            return 0;
+        }
+    }
+
+    private static final CacheEntryDescriptor UNIT_DESCRIPTOR = new CacheEntryDescriptor() {
+        @Override
+        public int getJobEventSize(JobEvent event) {
+            return 1;
+        }
+
+        @Override
+        public int getExpirationTimeoutMillis() {
+            return TIMEOUT_NONE;
+        }
+    };
+
+    private interface Worker {
+        void run(int threadIndex) throws Exception;
+    }
+
+    @After
+    public void validate() {
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testNoLostUpdates() throws Exception {
+        final Cache cache = new Cache(Integer.MAX_VALUE);
+        final JobEvent[][] events = new JobEvent[THREAD_COUNT][KEYS_PER_THREAD];
+        final AtomicInteger lostReads = new AtomicInteger();
+
+        runConcurrently(new Worker() {
+            @Override
+            public void run(int threadIndex) throws Exception {
+                for (int i = 0; i < ITERATIONS; i++) {
+                    for (int j = 0; j < KEYS_PER_THREAD; j++) {
+                        final String key = "job." + threadIndex + "." + j;
+                        final JobEvent event = JobEvent.ok();
+                        events[threadIndex][j] = event;
+
+                        cache.putEvent(event, key, UNIT_DESCRIPTOR);
+                        cache.putEvent(JobEvent.ok(), "shared." + (j % SHARED_KEY_COUNT), UNIT_DESCRIPTOR);
+
+                        if (cache.getEvent(key) != event) {
+                            lostReads.incrementAndGet();
+                        }
+
+                        if (j % 3 == 0) {
+                            cache.evictEvent(key);
+                        }
+                    }
+                }
+            }
+        });
+
+        assertEquals(0, lostReads.get());
+
+        int expectedCount = SHARED_KEY_COUNT;
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            for (int j = 0; j < KEYS_PER_THREAD; j++) {
+                final JobEvent cached = cache.getEvent("job." + i + "." + j);
+
+                if (j % 3 == 0) {
+                    assertNull(cached);
+                } else {
+                    assertSame(events[i][j], cached);
+                    expectedCount++;
+                }
+            }
+        }
+
+        assertEquals(expectedCount, cache.getEntryCount());
+        assertEquals(expectedCount, cache.getCacheSize());
+    }
+
+    @Test
+    public void testSizeBoundUnderContention() throws Exception {
+        final int maxCacheSize = 1000;
+        final Cache cache = new Cache(maxCacheSize);
+
+        runConcurrently(new Worker() {
+            @Override
+            public void run(int threadIndex) throws Exception {
+                for (int i = 0; i < ITERATIONS * KEYS_PER_THREAD; i++) {
+                    final String key = "job." + ((i * 31 + threadIndex) % (KEYS_PER_THREAD * 2));
+
+                    cache.putEvent(JobEvent.ok(), key, UNIT_DESCRIPTOR);
+                    cache.getEvent("job." + (i % KEYS_PER_THREAD));
+                }
+            }
+        });
+
+        assertTrue(cache.getCacheSize() <= maxCacheSize);
+        assertEquals(cache.getEntryCount(), cache.getCacheSize());
+
+        cache.evictAll();
+        assertEquals(0, cache.getCacheSize());
+    }
+
+    @Test
+    public void testMaxCacheSizeSharedByStripes() throws Exception {
+        final int maxCacheSize = 100;
+        final Cache cache = new Cache(maxCacheSize);
+
+        // Event larger than max cache size share of a stripe is kept
+        final JobEvent largeEvent = JobEvent.ok();
+        cache.putEvent(largeEvent, "large", sizeDescriptor(maxCacheSize - 10));
+        assertSame(largeEvent, cache.getEvent("large"));
+
+        for (int i = 0; i < 10; i++) {
+            cache.putEvent(JobEvent.ok(), "job." + i, UNIT_DESCRIPTOR);
+        }
+        assertSame(largeEvent, cache.getEvent("large"));
+        assertEquals(maxCacheSize, cache.getCacheSize());
+
+        // Entries are evicted from other stripes to fit inserted event
+        final JobEvent insertedEvent = JobEvent.ok();
+        cache.putEvent(insertedEvent, "job.10", sizeDescriptor(50));
+        assertSame(insertedEvent, cache.getEvent("job.10"));
+        assertTrue(cache.getCacheSize() <= maxCacheSize);
+
+        // Event exceeding max cache size is not kept
+        cache.putEvent(JobEvent.ok(), "huge", sizeDescriptor(maxCacheSize + 1));
+        assertNull(cache.getEvent("huge"));
+        assertTrue(cache.getCacheSize() <= maxCacheSize);
+
+        cache.setMaxCacheSize(maxCacheSize - 10);
+        assertTrue(cache.getCacheSize() <= maxCacheSize - 10);
+
+        cache.evictAll();
+        assertEquals(0, cache.getCacheSize());
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    @Test
+    public void testFullCacheKeepsMaxCacheSizeEntries() throws Exception {
+        final int maxCacheSize = 1000;
+        final Cache cache = new Cache(maxCacheSize);
+
+        for (int i = 0; i < maxCacheSize; i++) {
+            cache.putEvent(JobEvent.ok(), "job." + i, UNIT_DESCRIPTOR);
+        }
+
+        assertEquals(maxCacheSize, cache.getEntryCount());
+        for (int i = 0; i < maxCacheSize; i++) {
+            assertTrue(cache.getEvent("job." + i) != null);
+        }
+
+        cache.putEvent(JobEvent.ok(), "job." + maxCacheSize, UNIT_DESCRIPTOR);
+        assertEquals(maxCacheSize, cache.getEntryCount());
+        assertEquals(maxCacheSize, cache.getCacheSize());
+    }
+
+    private static CacheEntryDescriptor sizeDescriptor(final int size) {
+        return new CacheEntryDescriptor() {
+            @Override
+            public int getJobEventSize(JobEvent event) {
+                return size;
+            }
+
+            @Override
+            public int getExpirationTimeoutMillis() {
+                return TIMEOUT_NONE;
+            }
+        };
+    }
+
+    private static void runConcurrently(final Worker worker) throws Exception {
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final Thread[] threads = new Thread[THREAD_COUNT];
+
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            final int threadIndex = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        worker.run(threadIndex);
+
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        startLatch.countDown();
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+}
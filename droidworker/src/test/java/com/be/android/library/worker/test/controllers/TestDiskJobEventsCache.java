@@ -0,0 +1,250 @@
+package com.be.android.library.worker.test.controllers;
+
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.base.JobStatus;
+import com.be.android.library.worker.controllers.DiskJobEventsCache;
+import com.be.android.library.worker.controllers.InMemoryJobEventsCache;
+import com.be.android.library.worker.controllers.TieredJobEventsCache;
+import com.be.android.library.worker.interfaces.CacheEntryDescriptor;
+import com.be.android.library.worker.interfaces.JobEventSerializer;
+import com.be.android.library.worker.models.LoadJobResult;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify disk job events cache restores events after reopen, compacts its log
+ * and serves as the second level of tiered cache
+ */
+public class TestDiskJobEventsCache {
+
+    private static final int LOG_CAPACITY = 8192;
+
+    private static class ManualClockCache extends DiskJobEventsCache {
+
+        private static long sTimeMillis = 1000;
+
+        private ManualClockCache(File file) throws IOException {
+            super(file, LOG_CAPACITY, new StringResultSerializer());
+        }
+
+        @Override
+        protected long currentTimeMillis() {
+            return sTimeMillis;
+        }
+    }
+
+    private static class StringResultSerializer implements JobEventSerializer {
+
+        @Override
+        public void writeEvent(JobEvent event, DataOutput out) throws IOException {
+            final byte[] data = ((String) ((LoadJobResult) event).getData()).getBytes("UTF-8");
+
+            out.writeInt(event.getEventCode());
+            out.writeInt(data.length);
+            out.write(data);
+        }
+
+        @Override
+        public JobEvent readEvent(ByteBuffer data) throws IOException {
+            final int eventCode = data.getInt();
+            final byte[] bytes = new byte[data.getInt()];
+            data.get(bytes);
+
+            return new LoadJobResult<String>(eventCode, JobStatus.OK, new String(bytes, "UTF-8"));
+        }
+    }
+
+    private static class Descriptor implements CacheEntryDescriptor {
+
+        private final int mTimeoutMillis;
+
+        private Descriptor(int timeoutMillis) {
+            mTimeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        public int getJobEventSize(JobEvent event) {
+            return 1;
+        }
+
+        @Override
+        public int getExpirationTimeoutMillis() {
+            return mTimeoutMillis;
+        }
+    }
+
+    private static final Descriptor PERMANENT = new Descriptor(CacheEntryDescriptor.TIMEOUT_NONE);
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    @After
+    public void validate() {
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testEventsRestoredAfterReopen() throws Exception {
+        final File file = new File(mTemporaryFolder.getRoot(), "events.log");
+        ManualClockCache cache = new ManualClockCache(file);
+
+        cache.putEvent(result("first"), "first", PERMANENT);
+        cache.putEvent(result("second"), "second", PERMANENT);
+        cache.putEvent(result("second, updated"), "second", PERMANENT);
+        cache.putEvent(result("expiring"), "expiring", new Descriptor(1000));
+        cache.evictEvent("first");
+        cache.close();
+
+        ManualClockCache.sTimeMillis += 2000;
+        cache = new ManualClockCache(file);
+
+        assertEquals(1, cache.getEntryCount());
+        assertNull(cache.getEvent("first"));
+        assertNull(cache.getEvent("expiring"));
+        assertEquals("second, updated", dataOf(cache.getEvent("second")));
+
+        // Record being appended when process died is discarded with the rest of the log
+        cache.putEvent(result("third"), "third", PERMANENT);
+        cache.close();
+
+        corruptRecord(file, "third");
+
+        cache = new ManualClockCache(file);
+        assertNull(cache.getEvent("third"));
+        assertEquals("second, updated", dataOf(cache.getEvent("second")));
+
+        cache.putEvent(result("fourth"), "fourth", PERMANENT);
+        cache.close();
+
+        cache = new ManualClockCache(file);
+        assertEquals(2, cache.getEntryCount());
+        assertEquals("fourth", dataOf(cache.getEvent("fourth")));
+        cache.close();
+    }
+
+    @Test
+    public void testLogCompaction() throws Exception {
+        final File file = new File(mTemporaryFolder.getRoot(), "events.log");
+        ManualClockCache cache = new ManualClockCache(file);
+
+        final StringBuilder payload = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            payload.append('x');
+        }
+
+        // Updates of few keys overflow the log many times
+        for (int i = 0; i < 1000; i++) {
+            cache.putEvent(result(payload + "." + i), "key." + (i % 5), PERMANENT);
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(payload + "." + (995 + i), dataOf(cache.getEvent("key." + i)));
+        }
+
+        // Distinct keys evict least recently used ones
+        for (int i = 0; i < 1000; i++) {
+            cache.putEvent(result(payload.toString()), "distinct." + i, PERMANENT);
+            cache.getEvent("key.0");
+        }
+
+        assertTrue(cache.getCacheSize() <= LOG_CAPACITY);
+        assertNull(cache.getEvent("distinct.0"));
+        assertNull(cache.getEvent("key.1"));
+        assertEquals(payload + ".995", dataOf(cache.getEvent("key.0")));
+        assertEquals(payload.toString(), dataOf(cache.getEvent("distinct.999")));
+
+        final int entryCount = cache.getEntryCount();
+        cache.close();
+
+        cache = new ManualClockCache(file);
+        assertEquals(entryCount, cache.getEntryCount());
+        assertEquals(payload + ".995", dataOf(cache.getEvent("key.0")));
+
+        cache.evictAll();
+        assertEquals(0, cache.getEntryCount());
+        cache.close();
+
+        cache = new ManualClockCache(file);
+        assertEquals(0, cache.getEntryCount());
+        cache.close();
+    }
+
+    @Test
+    public void testSecondLevelEventsPromoted() throws Exception {
+        final ManualClockCache diskCache =
+                new ManualClockCache(new File(mTemporaryFolder.getRoot(), "events.log"));
+        final InMemoryJobEventsCache memoryCache = new InMemoryJobEventsCache(10) {
+            @Override
+            protected long elapsedRealtime() {
+                return 0;
+            }
+        };
+        final TieredJobEventsCache cache = new TieredJobEventsCache(memoryCache, diskCache, PERMANENT);
+
+        final JobEvent event = result("cached");
+        cache.putEvent(event, "key", PERMANENT);
+        assertSame(event, cache.getEvent("key"));
+
+        // Cold start of the first level
+        memoryCache.evictAll();
+
+        final JobEvent restoredEvent = cache.getEvent("key");
+        assertEquals("cached", dataOf(restoredEvent));
+        assertSame(restoredEvent, memoryCache.getEvent("key"));
+
+        cache.evictEvent("key");
+        assertNull(memoryCache.getEvent("key"));
+        assertNull(diskCache.getEvent("key"));
+
+        diskCache.close();
+    }
+
+    /**
+     * Overwrite key length of the first record with given key, as left by interrupted write
+     */
+    private static void corruptRecord(File file, String key) throws IOException {
+        final RandomAccessFile logFile = new RandomAccessFile(file, "rw");
+        final byte[] content = new byte[(int) logFile.length()];
+        logFile.readFully(content);
+
+        final byte[] keyBytes = key.getBytes("UTF-8");
+        for (int i = 0; i < content.length - keyBytes.length; i++) {
+            int j = 0;
+            while (j < keyBytes.length && content[i + j] == keyBytes[j]) {
+                j++;
+            }
+
+            if (j == keyBytes.length) {
+                // Key follows record length, key length, expiration time and payload length
+                logFile.seek(i - 16);
+                logFile.writeInt(-100);
+                break;
+            }
+        }
+
+        logFile.close();
+    }
+
+    private static JobEvent result(String data) {
+        return new LoadJobResult<String>(data);
+    }
+
+    private static String dataOf(JobEvent event) {
+        return (String) ((LoadJobResult) event).getData();
+    }
+}
@@ -0,0 +1,142 @@
+package com.be.android.library.worker.test.controllers;
+
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.controllers.InMemoryJobEventsCache;
+import com.be.android.library.worker.interfaces.CacheEntryDescriptor;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify least recently used eviction, size accounting and expiration of cached job events
+ */
+public class TestInMemoryJobEventsCache {
+
+    private static class ManualClockCache extends InMemoryJobEventsCache {
+
+        private long mTimeMillis = 1000;
+
+        private ManualClockCache(int maxCacheSize) {
+            super(maxCacheSize);
+        }
+
+        private void advance(long millis) {
+            mTimeMillis += millis;
+        }
+
+        @Override
+        protected long elapsedRealtime() {
+            return mTimeMillis;
+        }
+    }
+
+    private static class Descriptor implements CacheEntryDescriptor {
+
+        private final int mSize;
+        private final int mTimeoutMillis;
+
+        private Descriptor(int size, int timeoutMillis) {
+            mSize = size;
+            mTimeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        public int getJobEventSize(JobEvent event) {
+            return mSize;
+        }
+
+        @Override
+        public int getExpirationTimeoutMillis() {
+            return mTimeoutMillis;
+        }
+    }
+
+    @After
+    public void validate() {
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryEvicted() throws Exception {
+        final ManualClockCache cache = new ManualClockCache(30);
+        final Descriptor descriptor = new Descriptor(10, CacheEntryDescriptor.TIMEOUT_NONE);
+
+        final JobEvent first = JobEvent.ok();
+        final JobEvent second = JobEvent.ok();
+        final JobEvent third = JobEvent.ok();
+        cache.putEvent(first, "first", descriptor);
+        cache.putEvent(second, "second", descriptor);
+        cache.putEvent(third, "third", descriptor);
+
+        // Access moves entry to the tail of eviction order
+        assertSame(first, cache.getEvent("first"));
+
+        cache.putEvent(JobEvent.ok(), "fourth", descriptor);
+
+        assertNull(cache.getEvent("second"));
+        assertSame(first, cache.getEvent("first"));
+        assertSame(third, cache.getEvent("third"));
+        assertEquals(30, cache.getCacheSize());
+        assertEquals(3, cache.getEntryCount());
+
+        // Replaced entry size is released
+        cache.putEvent(JobEvent.ok(), "first", new Descriptor(5, CacheEntryDescriptor.TIMEOUT_NONE));
+        assertEquals(25, cache.getCacheSize());
+
+        cache.evictEvent("third");
+        assertEquals(15, cache.getCacheSize());
+
+        cache.setMaxCacheSize(5);
+        assertEquals(5, cache.getCacheSize());
+        assertNull(cache.getEvent("fourth"));
+
+        cache.evictAll();
+        assertEquals(0, cache.getCacheSize());
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    @Test
+    public void testExpiredEntriesEvicted() throws Exception {
+        final ManualClockCache cache = new ManualClockCache(Integer.MAX_VALUE);
+
+        cache.putEvent(JobEvent.ok(), "short", new Descriptor(1, 100));
+        cache.putEvent(JobEvent.ok(), "accessed", new Descriptor(1, 1000));
+        cache.putEvent(JobEvent.ok(), "long", new Descriptor(1, 100000));
+        cache.putEvent(JobEvent.ok(), "permanent", new Descriptor(1, CacheEntryDescriptor.TIMEOUT_NONE));
+
+        cache.advance(100);
+        assertEquals(4, cache.getEntryCount());
+
+        cache.advance(700);
+        cache.getEvent("accessed");
+
+        // Expired entry is evicted by the wheel sweep without lookup
+        cache.advance(400);
+        cache.getEvent("permanent");
+        assertEquals(3, cache.getEntryCount());
+
+        // Access extends expiration timeout
+        cache.advance(500);
+        cache.getEvent("permanent");
+        assertEquals(3, cache.getEntryCount());
+
+        cache.advance(500);
+        assertNull(cache.getEvent("accessed"));
+        assertEquals(2, cache.getEntryCount());
+
+        // Entries due in later wheel rounds outlive idle periods
+        cache.advance(90000);
+        cache.getEvent("permanent");
+        assertEquals(2, cache.getEntryCount());
+
+        cache.advance(10000);
+        cache.getEvent("permanent");
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(1, cache.getCacheSize());
+    }
+}
@@ -0,0 +1,192 @@
+package com.be.android.library.worker.test.controllers;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.base.JobStatus;
+import com.be.android.library.worker.controllers.JobManager;
+import com.be.android.library.worker.controllers.LocalJobManager;
+import com.be.android.library.worker.controllers.ThreadPoolWorker;
+import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.interfaces.Worker;
+import com.be.android.library.worker.util.JobBatchFutureResult;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify jobs submitted as a batch are executed as if they were submitted one by one
+ */
+public class TestJobBatchSubmission {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+    private static final int JOB_COUNT = 50;
+
+    private ThreadPoolWorker mWorker;
+    private JobManager mJobManager;
+    private final AtomicInteger mBatchCount = new AtomicInteger(0);
+
+    @Before
+    public void setUp() {
+        mWorker = new ThreadPoolWorker(2);
+        mWorker.setCompletionMode(ThreadPoolWorker.COMPLETION_MODE_DISPATCHER_THREAD);
+
+        mJobManager = new JobManager() {
+            @Override
+            protected void submitJobImpl(Job job) {
+                mWorker.submitJob(job);
+            }
+
+            @Override
+            protected void submitJobsImpl(List<Job> jobs) {
+                mBatchCount.incrementAndGet();
+                mWorker.submitJobs(jobs);
+            }
+        };
+    }
+
+    @After
+    public void validate() {
+        mWorker.finish();
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testBatchResultsInSubmitOrder() throws Exception {
+        final List<Job> jobs = new ArrayList<Job>();
+        for (int i = 0; i < JOB_COUNT; i++) {
+            jobs.add(createJob(i % 2 == 0 ? JobManager.JOB_GROUP_DEFAULT : 5, null, null));
+        }
+
+        final JobBatchFutureResult pendingResult = mJobManager.submitJobs(jobs);
+        final List<JobEvent> events = pendingResult.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, mBatchCount.get());
+        assertEquals(JOB_COUNT, events.size());
+        assertTrue(pendingResult.isDone());
+        for (int i = 0; i < JOB_COUNT; i++) {
+            // Ids are assigned in a single range
+            assertEquals(jobs.get(0).getJobId() + i, jobs.get(i).getJobId());
+            assertEquals(jobs.get(i).getJobId(), events.get(i).getJobId());
+            assertEquals(JobStatus.OK, events.get(i).getJobStatus());
+        }
+    }
+
+    @Test
+    public void testSerialGroupBatchKeepsOrder() throws Exception {
+        final List<Integer> executionOrder = new CopyOnWriteArrayList<Integer>();
+        final AtomicBoolean isOverlapDetected = new AtomicBoolean(false);
+        final AtomicInteger activeJobs = new AtomicInteger(0);
+
+        final List<Job> jobs = new ArrayList<Job>();
+        for (int i = 0; i < JOB_COUNT; i++) {
+            jobs.add(createJob(7, executionOrder, new Runnable() {
+                @Override
+                public void run() {
+                    if (activeJobs.incrementAndGet() > 1) {
+                        isOverlapDetected.set(true);
+                    }
+                    Thread.yield();
+                    activeJobs.decrementAndGet();
+                }
+            }));
+        }
+
+        mJobManager.submitJobs(jobs).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertFalse(isOverlapDetected.get());
+        assertEquals(JOB_COUNT, executionOrder.size());
+        for (int i = 0; i < JOB_COUNT; i++) {
+            assertEquals(jobs.get(i).getJobId(), (int) executionOrder.get(i));
+        }
+    }
+
+    @Test
+    public void testInvalidBatchIsNotSubmitted() throws Exception {
+        final Job job = createJob(JobManager.JOB_GROUP_DEFAULT, null, null);
+        final Job submittedJob = createJob(JobManager.JOB_GROUP_DEFAULT, null, null);
+        mJobManager.submitJob(submittedJob);
+
+        try {
+            mJobManager.submitJobs(Arrays.asList(job, submittedJob));
+            fail("batch with already submitted job is accepted");
+
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            mJobManager.submitJobs(Arrays.asList(job, job));
+            fail("batch with repeated job is accepted");
+
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        assertFalse(job.hasId());
+        assertNull(mJobManager.findJob(submittedJob.getJobId() + 1));
+        assertEquals(0, mBatchCount.get());
+    }
+
+    @Test
+    public void testBatchSubmittedOneByOneToPlainWorker() throws Exception {
+        final List<Job> submittedJobs = new CopyOnWriteArrayList<Job>();
+        final LocalJobManager jobManager = new LocalJobManager(new Worker() {
+            @Override
+            public void submitJob(Job job) {
+                submittedJobs.add(job);
+                job.execute();
+            }
+
+            @Override
+            public void finish() {
+            }
+        });
+
+        final List<Job> jobs = new ArrayList<Job>();
+        for (int i = 0; i < 3; i++) {
+            jobs.add(createJob(JobManager.JOB_GROUP_DEFAULT, null, null));
+        }
+
+        final List<JobEvent> events = jobManager.submitJobs(jobs).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertEquals(jobs, submittedJobs);
+        for (JobEvent event : events) {
+            assertEquals(JobStatus.OK, event.getJobStatus());
+        }
+    }
+
+    private BaseJob createJob(int groupId, final List<Integer> executionOrder, final Runnable action) {
+        BaseJob job = new BaseJob() {
+            @Override
+            protected JobEvent executeImpl() throws Exception {
+                if (action != null) {
+                    action.run();
+                }
+                if (executionOrder != null) {
+                    executionOrder.add(getJobId());
+                }
+
+                return JobEvent.ok();
+            }
+        };
+        job.setup().group(groupId).apply();
+
+        return job;
+    }
+}
@@ -0,0 +1,263 @@
+package com.be.android.library.worker.test.controllers;
+
+import android.os.Bundle;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.base.JobStatus;
+import com.be.android.library.worker.controllers.JobLoader;
+import com.be.android.library.worker.controllers.JobManager;
+import com.be.android.library.worker.handlers.JobEventHandlerInterface;
+import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.interfaces.JobEventListener;
+import com.be.android.library.worker.util.JobFutureResult;
+import com.be.android.library.worker.util.JobSelector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify equivalent jobs submitted while one of them is in-flight are executed once
+ */
+public class TestJobCoalescing {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+    private static final String EXTRA_DATA = "data";
+
+    public static class DataJob extends BaseJob {
+
+        public DataJob() {
+        }
+
+        @Override
+        protected JobEvent executeImpl() throws Exception {
+            return JobEvent.ok((String) getParams().getExtra(EXTRA_DATA));
+        }
+    }
+
+    private JobManager mJobManager;
+    private final List<Job> mSubmittedJobs = new CopyOnWriteArrayList<Job>();
+
+    @Before
+    public void setUp() {
+        // Submitted jobs are kept in-flight until they are executed by test
+        mJobManager = new JobManager() {
+            @Override
+            protected void submitJobImpl(Job job) {
+                mSubmittedJobs.add(job);
+            }
+        };
+    }
+
+    @After
+    public void validate() {
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testEquivalentJobsCoalesced() throws Exception {
+        final int jobId = mJobManager.submitJobCoalesced(createJob("a"));
+
+        final DataJob coalescedJob = createJob("a");
+        assertEquals(jobId, mJobManager.submitJobCoalesced(coalescedJob));
+        assertFalse(coalescedJob.hasId());
+        assertEquals(JobStatus.PENDING, coalescedJob.getStatus());
+
+        final int otherJobId = mJobManager.submitJobCoalesced(createJob("b"));
+        assertNotEquals(jobId, otherJobId);
+
+        // Explicit key coalesces jobs regardless of their params
+        final int keyedJobId = mJobManager.submitJobCoalesced(createJob("c"), "key");
+        assertEquals(keyedJobId, mJobManager.submitJobCoalesced(createJob("d"), "key"));
+        assertEquals(3, mSubmittedJobs.size());
+
+        final JobFutureResult pendingResult = mJobManager.submitJobCoalescedForResult(createJob("a"), null);
+        assertEquals(jobId, pendingResult.getJobId());
+        assertFalse(pendingResult.isDone());
+
+        mSubmittedJobs.get(0).execute();
+
+        final JobEvent result = pendingResult.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        assertEquals(jobId, result.getJobId());
+        assertEquals("a", result.getExtraMessage());
+
+        // Finished job is not in-flight anymore
+        final int nextJobId = mJobManager.submitJobCoalesced(createJob("a"));
+        assertNotEquals(jobId, nextJobId);
+        assertEquals(4, mSubmittedJobs.size());
+    }
+
+    @Test
+    public void testCoalescedJobTagsMerged() throws Exception {
+        final DataJob job = createJob("a", "loader1");
+        final int jobId = mJobManager.submitJobCoalesced(job);
+
+        assertEquals(jobId, mJobManager.submitJobCoalesced(createJob("a", "loader2")));
+        assertEquals(jobId, mJobManager.submitJobCoalescedForResult(createJob("a", "loader3"), null).getJobId());
+        assertEquals(1, mSubmittedJobs.size());
+
+        // Shared job is found by tag of every submitter
+        assertTrue(job.getParams().hasTags("loader1", "loader2", "loader3"));
+        assertSame(job, mJobManager.findJob(JobSelector.forJobTags("loader2")));
+        assertSame(job, mJobManager.findJob(JobSelector.forJobTags("loader1", "loader3")));
+    }
+
+    @Test
+    public void testCancelledJobReplaced() throws Exception {
+        final int jobId = mJobManager.submitJobCoalesced(createJob("a"));
+
+        // Cancelling coalesced result doesn't cancel the job awaited by others
+        final JobFutureResult pendingResult = mJobManager.submitJobCoalescedForResult(createJob("a"), null);
+        assertTrue(pendingResult.cancel(false));
+        assertFalse(mJobManager.isJobCancelled(jobId));
+
+        assertTrue(mJobManager.cancelJob(jobId));
+
+        final DataJob job = createJob("a");
+        final JobFutureResult nextResult = mJobManager.submitJobCoalescedForResult(job, null);
+        assertEquals(2, mSubmittedJobs.size());
+        assertSame(job, mSubmittedJobs.get(1));
+
+        job.execute();
+        assertEquals(job.getJobId(), nextResult.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).getJobId());
+    }
+
+    @Test
+    public void testJobFinishingWhileResultAttachedReplaced() throws Exception {
+        final DataJob job = createJob("a");
+        final List<JobFutureResult> lateResults = new CopyOnWriteArrayList<JobFutureResult>();
+        final AtomicBoolean isLateSharedResultDetached = new AtomicBoolean(false);
+
+        // Listener registered before submission is notified while finished job is still in-flight,
+        // so results attached at that moment miss the finish event being delivered
+        final JobEventListener listener = new JobEventListener() {
+            @Override
+            public void onJobEvent(JobEvent event) {
+                if (event.isJobFinished()) {
+                    isLateSharedResultDetached.set(
+                            JobFutureResult.forSubmittedJob(job, event.getJobId(), mJobManager) == null);
+                    lateResults.add(mJobManager.submitJobCoalescedForResult(createJob("a"), null));
+                }
+            }
+        };
+        job.addJobEventListener(listener);
+
+        final int jobId = mJobManager.submitJobCoalesced(job);
+        job.execute();
+
+        assertTrue(isLateSharedResultDetached.get());
+        assertEquals(1, lateResults.size());
+
+        // Late result is pending result of the job replacing finished one
+        assertEquals(2, mSubmittedJobs.size());
+        assertNotEquals(jobId, lateResults.get(0).getJobId());
+
+        mSubmittedJobs.get(1).execute();
+        assertEquals("a", lateResults.get(0).get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).getExtraMessage());
+
+        job.removeJobEventListener(listener);
+    }
+
+    @Test
+    public void testConcurrentSubmissionsExecutedOnce() throws Exception {
+        final int threadCount = 8;
+        final int[] jobIds = new int[threadCount];
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final Thread[] threads = new Thread[threadCount];
+
+        for (int i = 0; i < threadCount; i++) {
+            final int index = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+
+                    jobIds[index] = mJobManager.submitJobCoalesced(createJob("a"));
+                }
+            });
+            threads[i].start();
+        }
+
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join(TIMEOUT_MILLIS);
+        }
+
+        assertEquals(1, mSubmittedJobs.size());
+        for (int jobId : jobIds) {
+            assertEquals(mSubmittedJobs.get(0).getJobId(), jobId);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testLoaderCoalescingRequiresCoalescingHandler() throws Exception {
+        final JobEventHandlerInterface eventHandler = new JobEventHandlerInterface() {
+            @Override
+            public boolean isPending(int jobId) {
+                return false;
+            }
+
+            @Override
+            public boolean isPending(JobSelector selector) {
+                return false;
+            }
+
+            @Override
+            public boolean isPendingAll(JobSelector selector) {
+                return false;
+            }
+
+            @Override
+            public boolean addPendingJob(int jobId) {
+                return false;
+            }
+
+            @Override
+            public int submitJob(Job job) {
+                return mJobManager.submitJob(job);
+            }
+        };
+        final JobLoader.JobLoaderCallbacks callbacks = new JobLoader.JobLoaderCallbacks() {
+            @Override
+            public Job onCreateJob(String attachTag, Bundle data) {
+                return new DataJob();
+            }
+        };
+
+        final JobLoader loader = new JobLoader(mJobManager, eventHandler, "loader", callbacks) {
+        };
+        loader.setCoalescingEnabled(true);
+    }
+
+    private static DataJob createJob(String data) {
+        final DataJob job = new DataJob();
+        job.setup().addExtra(EXTRA_DATA, data).apply();
+
+        return job;
+    }
+
+    private static DataJob createJob(String data, String tag) {
+        final DataJob job = new DataJob();
+        job.setup().addExtra(EXTRA_DATA, data).addTag(tag).apply();
+
+        return job;
+    }
+}
@@ -0,0 +1,165 @@
+package com.be.android.library.worker.test.controllers;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.interfaces.JobEventListener;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify job event listeners may be updated while job is notifying them
+ */
+public class TestJobEventObservable {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+    private static final int ITERATIONS = 20000;
+
+    private BaseJob mJob;
+
+    @Before
+    public void setUp() {
+        mJob = new BaseJob() {
+            @Override
+            protected JobEvent executeImpl() throws Exception {
+                return JobEvent.ok();
+            }
+        };
+        mJob.setup().apply();
+        mJob.getParams().assignJobId(1);
+    }
+
+    @After
+    public void validate() {
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testListenersUpdatedFromCallback() throws Exception {
+        final AtomicInteger addedListenerEvents = new AtomicInteger(0);
+        final AtomicInteger removingListenerEvents = new AtomicInteger(0);
+        final JobEventListener addedListener = new JobEventListener() {
+            @Override
+            public void onJobEvent(JobEvent event) {
+                addedListenerEvents.incrementAndGet();
+            }
+        };
+        final JobEventListener removingListener = new JobEventListener() {
+            @Override
+            public void onJobEvent(JobEvent event) {
+                removingListenerEvents.incrementAndGet();
+                mJob.removeJobEventListener(this);
+                mJob.addJobEventListener("added", addedListener);
+            }
+        };
+        mJob.addJobEventListener(removingListener);
+
+        mJob.notifyJobEvent(JobEvent.ok());
+
+        assertEquals(1, removingListenerEvents.get());
+        assertEquals(0, addedListenerEvents.get());
+        assertFalse(mJob.hasJobEventListener(removingListener));
+        assertTrue(mJob.hasJobEventListener("added"));
+
+        mJob.notifyJobEvent(JobEvent.ok());
+
+        assertEquals(1, removingListenerEvents.get());
+        assertEquals(1, addedListenerEvents.get());
+        assertTrue(mJob.removeJobEventListener("added"));
+        assertNull(mJob.findJobEventListener("added"));
+    }
+
+    @Test
+    public void testListenersKeepOrder() throws Exception {
+        final List<Integer> order = new ArrayList<Integer>();
+        final List<JobEventListener> listeners = new ArrayList<JobEventListener>();
+        for (int i = 0; i < 5; i++) {
+            final int index = i;
+            listeners.add(new JobEventListener() {
+                @Override
+                public void onJobEvent(JobEvent event) {
+                    order.add(index);
+                }
+            });
+            mJob.addJobEventListener(listeners.get(i));
+        }
+        mJob.removeJobEventListener(listeners.get(2));
+
+        mJob.notifyJobEvent(JobEvent.ok());
+
+        assertEquals(4, order.size());
+        assertEquals(0, (int) order.get(0));
+        assertEquals(1, (int) order.get(1));
+        assertEquals(3, (int) order.get(2));
+        assertEquals(4, (int) order.get(3));
+    }
+
+    @Test
+    public void testConcurrentUpdatesWhileNotifying() throws Exception {
+        final AtomicBoolean isStopped = new AtomicBoolean(false);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger stableListenerEvents = new AtomicInteger(0);
+        final JobEventListener stableListener = new JobEventListener() {
+            @Override
+            public void onJobEvent(JobEvent event) {
+                stableListenerEvents.incrementAndGet();
+            }
+        };
+        mJob.addJobEventListener(stableListener);
+
+        final Thread notifier = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    while (!isStopped.get()) {
+                        mJob.notifyJobEvent(JobEvent.ok());
+                    }
+                } catch (Throwable e) {
+                    error.set(e);
+                } finally {
+                    latch.countDown();
+                }
+            }
+        });
+        notifier.start();
+
+        final List<JobEventListener> listeners = new ArrayList<JobEventListener>();
+        for (int i = 0; i < ITERATIONS; i++) {
+            final JobEventListener listener = new JobEventListener() {
+                @Override
+                public void onJobEvent(JobEvent event) {
+                }
+            };
+            listeners.add(listener);
+            mJob.addJobEventListener(listener);
+            if (i % 2 == 0) {
+                mJob.removeJobEventListener(listeners.get(i / 2));
+            }
+        }
+        isStopped.set(true);
+
+        assertTrue(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertNull(error.get());
+        assertTrue(mJob.hasJobEventListener(stableListener));
+
+        final int eventCount = stableListenerEvents.get();
+        mJob.notifyJobEvent(JobEvent.ok());
+        assertEquals(eventCount + 1, stableListenerEvents.get());
+    }
+}
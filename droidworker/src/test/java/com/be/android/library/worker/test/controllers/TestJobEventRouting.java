@@ -0,0 +1,134 @@
+package com.be.android.library.worker.test.controllers;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.base.JobStatus;
+import com.be.android.library.worker.controllers.JobManager;
+import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.interfaces.JobEventListener;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify job manager routes events only to listeners subscribed to the job id or job tag
+ */
+public class TestJobEventRouting {
+
+    private JobManager mJobManager;
+
+    private static class RecordingListener implements JobEventListener {
+        final List<JobEvent> events = new ArrayList<JobEvent>();
+
+        @Override
+        public void onJobEvent(JobEvent event) {
+            events.add(event);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        mJobManager = new JobManager() {
+            @Override
+            protected void submitJobImpl(Job job) {
+            }
+        };
+    }
+
+    @After
+    public void validate() {
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testJobIdSubscription() throws Exception {
+        final BaseJob trackedJob = createJob();
+        final BaseJob otherJob = createJob();
+        mJobManager.submitJob(trackedJob);
+        mJobManager.submitJob(otherJob);
+
+        final RecordingListener listener = new RecordingListener();
+        mJobManager.addJobEventListener(trackedJob.getJobId(), listener);
+
+        final JobEvent trackedEvent = createEvent(trackedJob);
+        mJobManager.notifyJobEvent(trackedEvent);
+        mJobManager.notifyJobEvent(createEvent(otherJob));
+
+        assertEquals(1, listener.events.size());
+        assertEquals(trackedEvent, listener.events.get(0));
+
+        assertTrue(mJobManager.removeJobEventListener(trackedJob.getJobId(), listener));
+        assertFalse(mJobManager.removeJobEventListener(trackedJob.getJobId(), listener));
+
+        mJobManager.notifyJobEvent(createEvent(trackedJob));
+
+        assertEquals(1, listener.events.size());
+    }
+
+    @Test
+    public void testJobTagSubscription() throws Exception {
+        final BaseJob taggedJob = createJob("tag.a", "tag.b");
+        final BaseJob otherJob = createJob("tag.c");
+        mJobManager.submitJob(taggedJob);
+        mJobManager.submitJob(otherJob);
+
+        final RecordingListener tagListener = new RecordingListener();
+        mJobManager.addJobTagEventListener("tag.b", tagListener);
+
+        mJobManager.notifyJobEvent(createEvent(taggedJob));
+        mJobManager.notifyJobEvent(createEvent(otherJob));
+
+        assertEquals(1, tagListener.events.size());
+        assertEquals(taggedJob.getJobId(), tagListener.events.get(0).getJobId());
+
+        assertTrue(mJobManager.removeJobTagEventListener("tag.b", tagListener));
+        mJobManager.notifyJobEvent(createEvent(taggedJob));
+
+        assertEquals(1, tagListener.events.size());
+    }
+
+    @Test
+    public void testListenerSubscribedManyTimesNotifiedOnce() throws Exception {
+        final BaseJob job = createJob("tag.a", "tag.b");
+        mJobManager.submitJob(job);
+
+        final RecordingListener listener = new RecordingListener();
+        mJobManager.addJobEventListener(job.getJobId(), listener);
+        mJobManager.addJobEventListener(job.getJobId(), listener);
+        mJobManager.addJobTagEventListener("tag.a", listener);
+        mJobManager.addJobTagEventListener("tag.b", listener);
+
+        mJobManager.notifyJobEvent(createEvent(job));
+
+        assertEquals(1, listener.events.size());
+    }
+
+    private BaseJob createJob(String... tags) {
+        BaseJob job = new BaseJob() {
+            @Override
+            protected JobEvent executeImpl() throws Exception {
+                return JobEvent.ok();
+            }
+        };
+        job.setup().tags(tags).apply();
+
+        return job;
+    }
+
+    private static JobEvent createEvent(Job job) {
+        return new JobEvent.Builder()
+                .eventCode(JobEvent.EVENT_CODE_UPDATE)
+                .jobStatus(JobStatus.IN_PROGRESS)
+                .params(job.getParams())
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.be.android.library.worker.test.controllers;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.controllers.JobManager;
+import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.util.JobSelector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify job manager lookups stay consistent with submitted and discarded jobs
+ */
+public class TestJobManagerIndex {
+
+    private JobManager mJobManager;
+
+    @Before
+    public void setUp() {
+        mJobManager = new JobManager() {
+            @Override
+            protected void submitJobImpl(Job job) {
+            }
+        };
+    }
+
+    @After
+    public void validate() {
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testFindJobById() throws Exception {
+        BaseJob job = createJob(0, "tag.a");
+        int jobId = mJobManager.submitJob(job);
+
+        assertSame(job, mJobManager.findJob(jobId));
+        assertTrue(mJobManager.discardJob(jobId));
+        assertNull(mJobManager.findJob(jobId));
+    }
+
+    @Test
+    public void testFindAllByTagKeepsSubmitOrder() throws Exception {
+        BaseJob first = createJob(0, "tag.a", "tag.b");
+        BaseJob second = createJob(0, "tag.a");
+        BaseJob third = createJob(0, "tag.a", "tag.b");
+        mJobManager.submitJob(first);
+        mJobManager.submitJob(second);
+        mJobManager.submitJob(third);
+
+        List<Job> jobs = mJobManager.findAll(JobSelector.forJobTags("tag.a", "tag.b"));
+
+        assertEquals(2, jobs.size());
+        assertSame(first, jobs.get(0));
+        assertSame(third, jobs.get(1));
+        assertSame(first, mJobManager.findJob(JobSelector.forJobTags("tag.b")));
+    }
+
+    @Test
+    public void testFindAllByAnyTagReturnsEachJobOnce() throws Exception {
+        mJobManager.submitJob(createJob(0, "tag.a", "tag.b"));
+        mJobManager.submitJob(createJob(0, "tag.b"));
+        mJobManager.submitJob(createJob(0, "tag.c"));
+
+        assertEquals(2, mJobManager.findAll(JobSelector.forAnyJobTags("tag.a", "tag.b")).size());
+    }
+
+    @Test
+    public void testFindAllByGroup() throws Exception {
+        BaseJob job = createJob(5);
+        mJobManager.submitJob(job);
+        mJobManager.submitJob(createJob(6));
+
+        List<Job> jobs = mJobManager.findAll(JobSelector.forJobGroup(5));
+
+        assertEquals(1, jobs.size());
+        assertSame(job, jobs.get(0));
+        assertEquals(2, mJobManager.findAll(JobSelector.forJobGroup(5, 6)).size());
+    }
+
+    @Test
+    public void testDiscardAllUpdatesIndexes() throws Exception {
+        mJobManager.submitJob(createJob(1, "tag.a"));
+        mJobManager.submitJob(createJob(1, "tag.a"));
+        int jobId = mJobManager.submitJob(createJob(1, "tag.b"));
+
+        assertEquals(2, mJobManager.discardAll(JobSelector.forJobTags("tag.a")));
+        assertTrue(mJobManager.findAll(JobSelector.forJobTags("tag.a")).isEmpty());
+
+        List<Job> jobs = mJobManager.findAll(JobSelector.forJobGroup(1));
+        assertEquals(1, jobs.size());
+        assertEquals(jobId, jobs.get(0).getJobId());
+    }
+
+    private BaseJob createJob(int groupId, String... tags) {
+        BaseJob job = new BaseJob() {
+            @Override
+            protected JobEvent executeImpl() throws Exception {
+                return JobEvent.ok();
+            }
+        };
+        job.setup().group(groupId).tags(tags).apply();
+
+        return job;
+    }
+}
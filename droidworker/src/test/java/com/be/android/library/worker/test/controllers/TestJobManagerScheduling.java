@@ -0,0 +1,268 @@
+package com.be.android.library.worker.test.controllers;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.base.JobStatus;
+import com.be.android.library.worker.controllers.JobManager;
+import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.interfaces.JobFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify delayed and periodic job submission of job manager
+ */
+public class TestJobManagerScheduling {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+    private static final long DELAY_MILLIS = 100;
+    private static final long PERIOD_MILLIS = 20;
+    private static final int RUN_COUNT = 3;
+
+    private JobManager mJobManager;
+    private final List<Job> mSubmittedJobs = new CopyOnWriteArrayList<Job>();
+    private volatile CountDownLatch mSubmitLatch;
+
+    @Before
+    public void setUp() {
+        mJobManager = new JobManager() {
+            @Override
+            protected void submitJobImpl(Job job) {
+                mSubmittedJobs.add(job);
+                job.execute();
+
+                final CountDownLatch latch = mSubmitLatch;
+                if (latch != null) {
+                    latch.countDown();
+                }
+            }
+        };
+    }
+
+    @After
+    public void validate() {
+        mJobManager.cancelScheduledJobs();
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testDelayedJobSubmittedWhenDue() throws Exception {
+        mSubmitLatch = new CountDownLatch(1);
+
+        final long startTime = System.nanoTime();
+        final int jobId = mJobManager.submitJobDelayed(createJob(), DELAY_MILLIS);
+
+        assertTrue(mJobManager.isJobDelayed(jobId));
+        assertTrue(mSubmittedJobs.isEmpty());
+        assertTrue(mSubmitLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) >= DELAY_MILLIS);
+        assertFalse(mJobManager.isJobDelayed(jobId));
+        assertEquals(jobId, mSubmittedJobs.get(0).getJobId());
+        assertEquals(JobStatus.OK, mSubmittedJobs.get(0).getStatus());
+    }
+
+    @Test
+    public void testDelayedJobCancelled() throws Exception {
+        final BaseJob job = createJob();
+        final int jobId = mJobManager.submitJobDelayed(job, TIMEOUT_MILLIS);
+
+        assertSame(job, mJobManager.findJob(jobId));
+        assertTrue(mJobManager.cancelJob(jobId));
+        assertFalse(mJobManager.isJobDelayed(jobId));
+        assertEquals(JobStatus.CANCELLED, job.getStatus());
+        assertFalse(mJobManager.cancelJob(jobId));
+        assertTrue(mSubmittedJobs.isEmpty());
+    }
+
+    @Test
+    public void testDelayedJobsCoalesced() throws Exception {
+        mSubmitLatch = new CountDownLatch(1);
+
+        final BaseJob[] jobs = new BaseJob[5];
+        for (int i = 0; i < jobs.length; i++) {
+            jobs[i] = createJob();
+            mJobManager.submitJobDelayed(jobs[i], DELAY_MILLIS, "refresh");
+        }
+
+        assertTrue(mSubmitLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        Thread.sleep(DELAY_MILLIS);
+
+        assertEquals(1, mSubmittedJobs.size());
+        assertSame(jobs[jobs.length - 1], mSubmittedJobs.get(0));
+        for (int i = 0; i < jobs.length - 1; i++) {
+            assertEquals(JobStatus.CANCELLED, jobs[i].getStatus());
+        }
+    }
+
+    @Test
+    public void testPeriodicJobCreatedPerRun() throws Exception {
+        mSubmitLatch = new CountDownLatch(RUN_COUNT);
+
+        final int periodicJobId = mJobManager.submitJobAtFixedRate(new JobFactory() {
+            @Override
+            public Job createJob() {
+                return TestJobManagerScheduling.this.createJob();
+            }
+        }, 0, PERIOD_MILLIS);
+
+        assertTrue(mSubmitLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertTrue(mJobManager.cancelPeriodicJob(periodicJobId));
+        assertFalse(mJobManager.cancelPeriodicJob(periodicJobId));
+
+        final Set<Job> distinctJobs = Collections.newSetFromMap(new IdentityHashMap<Job, Boolean>());
+        distinctJobs.addAll(mSubmittedJobs);
+        assertEquals(mSubmittedJobs.size(), distinctJobs.size());
+    }
+
+    @Test
+    public void testPeriodicRunWaitsForCancelledJobToFinish() throws Exception {
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final List<Job> submittedJobs = new CopyOnWriteArrayList<Job>();
+        final AtomicInteger runningJobCount = new AtomicInteger(0);
+        final AtomicInteger maxRunningJobCount = new AtomicInteger(0);
+
+        // Jobs are executed asynchronously, so timer is free to start next run
+        final JobManager jobManager = new JobManager() {
+            @Override
+            protected void submitJobImpl(final Job job) {
+                submittedJobs.add(job);
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        job.execute();
+                    }
+                }).start();
+            }
+        };
+
+        final int periodicJobId = jobManager.submitJobAtFixedRate(new JobFactory() {
+            @Override
+            public Job createJob() {
+                return new CancellableJob() {
+                    @Override
+                    protected JobEvent executeImpl() throws Exception {
+                        final int runningCount = runningJobCount.incrementAndGet();
+                        if (runningCount > maxRunningJobCount.get()) {
+                            maxRunningJobCount.set(runningCount);
+                        }
+                        startLatch.countDown();
+                        releaseLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                        runningJobCount.decrementAndGet();
+
+                        return JobEvent.ok();
+                    }
+                };
+            }
+        }, 0, PERIOD_MILLIS);
+
+        try {
+            assertTrue(startLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            final Job firstJob = submittedJobs.get(0);
+            assertTrue(jobManager.cancelJob(firstJob.getJobId()));
+            assertEquals(JobStatus.CANCELLED, firstJob.getStatus());
+
+            // Cancelled job is still executing, so runs are skipped
+            Thread.sleep(PERIOD_MILLIS * 5);
+            assertEquals(1, submittedJobs.size());
+
+            releaseLatch.countDown();
+            final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (submittedJobs.size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(PERIOD_MILLIS);
+            }
+
+            assertTrue(submittedJobs.size() >= 2);
+            assertEquals(1, maxRunningJobCount.get());
+
+        } finally {
+            jobManager.cancelPeriodicJob(periodicJobId);
+            releaseLatch.countDown();
+        }
+    }
+
+    @Test
+    public void testPeriodicJobResetPerRun() throws Exception {
+        mSubmitLatch = new CountDownLatch(RUN_COUNT);
+
+        final AtomicInteger resetCount = new AtomicInteger(0);
+        final BaseJob job = new BaseJob() {
+            @Override
+            protected JobEvent executeImpl() throws Exception {
+                return JobEvent.ok();
+            }
+
+            @Override
+            protected void onReset() {
+                resetCount.incrementAndGet();
+            }
+        };
+        job.setup().group(3).addTag("periodic").apply();
+
+        final int periodicJobId = mJobManager.submitJobAtFixedRate(job, 0, PERIOD_MILLIS);
+
+        assertTrue(mSubmitLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertTrue(mJobManager.cancelPeriodicJob(periodicJobId));
+
+        assertTrue(resetCount.get() >= RUN_COUNT - 1);
+        assertEquals(3, job.getParams().getGroupId());
+        assertTrue(job.getParams().hasTag("periodic"));
+        for (Job submittedJob : mSubmittedJobs) {
+            assertSame(job, submittedJob);
+        }
+    }
+
+    /**
+     * Reports cancelled status as soon as it is cancelled, like jobs
+     * not derived from {@link BaseJob} may do, while it is still executing
+     */
+    private static abstract class CancellableJob extends BaseJob {
+
+        private volatile boolean mIsCancelRequested;
+
+        CancellableJob() {
+            setup().apply();
+        }
+
+        @Override
+        protected void onCancelled() {
+            mIsCancelRequested = true;
+        }
+
+        @Override
+        public JobStatus getStatus() {
+            final JobStatus status = super.getStatus();
+
+            return mIsCancelRequested && status == JobStatus.IN_PROGRESS ? JobStatus.CANCELLED : status;
+        }
+    }
+
+    private BaseJob createJob() {
+        BaseJob job = new BaseJob() {
+            @Override
+            protected JobEvent executeImpl() throws Exception {
+                return JobEvent.ok();
+            }
+        };
+        job.setup().apply();
+
+        return job;
+    }
+}
@@ -0,0 +1,197 @@
+package com.be.android.library.worker.test.controllers;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.controllers.DeficitFairSchedulingPolicy;
+import com.be.android.library.worker.controllers.JobGroupStats;
+import com.be.android.library.worker.controllers.JobManager;
+import com.be.android.library.worker.controllers.StrictPrioritySchedulingPolicy;
+import com.be.android.library.worker.controllers.ThreadPoolWorker;
+import com.be.android.library.worker.controllers.WeightedRoundRobinSchedulingPolicy;
+import com.be.android.library.worker.interfaces.JobSchedulingPolicy;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify job group selection of {@link JobSchedulingPolicy} implementations
+ * and group statistics collected by {@link ThreadPoolWorker}
+ */
+public class TestJobSchedulingPolicy {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private ThreadPoolWorker mWorker;
+
+    @After
+    public void validate() {
+        if (mWorker != null) {
+            mWorker.finish();
+        }
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testStrictPriorityPrefersReleasedGroup() {
+        final StrictPrioritySchedulingPolicy policy = new StrictPrioritySchedulingPolicy();
+        final List<JobGroupStats> groups = createGroups(JobManager.JOB_GROUP_UNIQUE, 1, 2);
+
+        assertEquals(2, policy.selectGroup(groups, 2));
+        assertEquals(JobManager.JOB_GROUP_UNIQUE, policy.selectGroup(groups, JobSchedulingPolicy.GROUP_NONE));
+        assertEquals(JobManager.JOB_GROUP_UNIQUE, policy.selectGroup(groups, JobManager.JOB_GROUP_UNIQUE));
+
+        policy.setGroupPriority(2, 5);
+        assertEquals(2, policy.selectGroup(groups, JobSchedulingPolicy.GROUP_NONE));
+        assertEquals(1, policy.selectGroup(groups, 1));
+    }
+
+    @Test
+    public void testWeightedRoundRobinSharesDispatches() {
+        final WeightedRoundRobinSchedulingPolicy policy = new WeightedRoundRobinSchedulingPolicy();
+        policy.setGroupWeight(1, 3);
+
+        final Map<Integer, Integer> counts = selectRepeatedly(policy, createGroups(1, 2), 40);
+
+        assertEquals(30, (int) counts.get(1));
+        assertEquals(10, (int) counts.get(2));
+    }
+
+    @Test
+    public void testDeficitFairSharesDispatches() {
+        final DeficitFairSchedulingPolicy policy = new DeficitFairSchedulingPolicy();
+        policy.setGroupWeight(2, 2);
+
+        final Map<Integer, Integer> counts = selectRepeatedly(policy, createGroups(1, 2, 3), 40);
+
+        assertEquals(10, (int) counts.get(1));
+        assertEquals(20, (int) counts.get(2));
+        assertEquals(10, (int) counts.get(3));
+    }
+
+    @Test
+    public void testQueuedGroupStatsCollected() throws Exception {
+        mWorker = new ThreadPoolWorker(1);
+        mWorker.setCompletionMode(ThreadPoolWorker.COMPLETION_MODE_DISPATCHER_THREAD);
+        mWorker.setSchedulingPolicy(new WeightedRoundRobinSchedulingPolicy());
+
+        final CountDownLatch gate = new CountDownLatch(1);
+        final CountDownLatch lastJobGate = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(4);
+        final CountDownLatch lastJobLatch = new CountDownLatch(1);
+
+        mWorker.submitJob(createJob(1, 1, gate, latch));
+        for (int i = 2; i <= 4; i++) {
+            mWorker.submitJob(createJob(1, i, null, latch));
+        }
+        mWorker.submitJob(createJob(1, 5, lastJobGate, lastJobLatch));
+
+        JobGroupStats stats = mWorker.getJobGroupStats(1);
+        assertNotNull(stats);
+        assertEquals(4, stats.getQueueDepth());
+
+        gate.countDown();
+        assertTrue(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (mWorker.getJobGroupStats(1).getFinishedCount() < 4
+                && System.currentTimeMillis() < deadline) {
+
+            Thread.sleep(10);
+        }
+
+        // Last job is still executing, so group statistics are kept
+        stats = mWorker.getJobGroupStats(1);
+        assertEquals(0, stats.getQueueDepth());
+        assertEquals(4, stats.getMaxQueueDepth());
+        // Job may be returned to the queue if pool threads are saturated
+        assertTrue(stats.getEnqueuedCount() >= 4);
+        assertEquals(stats.getEnqueuedCount(), stats.getDequeuedCount());
+        assertEquals(4, stats.getFinishedCount());
+        assertEquals(1, mWorker.getJobGroupStats().size());
+
+        // Statistics of idle group are dropped
+        lastJobGate.countDown();
+        assertTrue(lastJobLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        while (mWorker.getJobGroupStats(1) != null
+                && System.currentTimeMillis() < deadline) {
+
+            Thread.sleep(10);
+        }
+
+        assertNull(mWorker.getJobGroupStats(1));
+        assertTrue(mWorker.getJobGroupStats().isEmpty());
+    }
+
+    @Test
+    public void testWeightedRoundRobinDrainedGroupRestarts() {
+        final WeightedRoundRobinSchedulingPolicy policy = new WeightedRoundRobinSchedulingPolicy();
+
+        assertEquals(1, policy.selectGroup(createGroups(1, 2, 3), JobSchedulingPolicy.GROUP_NONE));
+
+        // Drained group is not charged for the dispatch made before it's queue was emptied
+        policy.onGroupDrained(1);
+        final List<JobGroupStats> groups = createGroups(1, 2);
+        assertEquals(2, policy.selectGroup(groups, JobSchedulingPolicy.GROUP_NONE));
+        assertEquals(1, policy.selectGroup(groups, JobSchedulingPolicy.GROUP_NONE));
+    }
+
+    private Map<Integer, Integer> selectRepeatedly(JobSchedulingPolicy policy,
+                                                   List<JobGroupStats> groups,
+                                                   int count) {
+
+        final Map<Integer, Integer> counts = new HashMap<Integer, Integer>();
+        for (JobGroupStats stats : groups) {
+            counts.put(stats.getGroupId(), 0);
+        }
+
+        for (int i = 0; i < count; i++) {
+            final int groupId = policy.selectGroup(groups, JobSchedulingPolicy.GROUP_NONE);
+            counts.put(groupId, counts.get(groupId) + 1);
+        }
+
+        return counts;
+    }
+
+    private List<JobGroupStats> createGroups(int... groupIds) {
+        final List<JobGroupStats> groups = new ArrayList<JobGroupStats>();
+        for (int groupId : groupIds) {
+            groups.add(new JobGroupStats(groupId));
+        }
+
+        return groups;
+    }
+
+    private BaseJob createJob(int groupId, int jobId,
+                              final CountDownLatch gate,
+                              final CountDownLatch latch) {
+
+        BaseJob job = new BaseJob() {
+            @Override
+            protected JobEvent executeImpl() throws Exception {
+                if (gate != null) {
+                    gate.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                latch.countDown();
+
+                return JobEvent.ok();
+            }
+        };
+        job.setup().group(groupId).apply();
+        job.getParams().assignJobId(jobId);
+
+        return job;
+    }
+}
@@ -0,0 +1,225 @@
+package com.be.android.library.worker.test.controllers;
+
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.base.JobStatus;
+import com.be.android.library.worker.controllers.InMemoryJobEventsCache;
+import com.be.android.library.worker.controllers.JobManager;
+import com.be.android.library.worker.interfaces.CacheEntryDescriptor;
+import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.interfaces.JobEventListener;
+import com.be.android.library.worker.jobs.LoadJob;
+import com.be.android.library.worker.models.LoadJobResult;
+import com.be.android.library.worker.util.JobSelector;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify load job results are served from and written to job events cache by job manager
+ */
+public class TestLoadJobCache {
+
+    private static final String EXTRA_CACHE_KEY = "cache_key";
+    private static final String EXTRA_DATA = "data";
+    private static final String EXTRA_REFRESH_INTERVAL = "refresh_interval";
+    private static final String JOB_TAG = "tag";
+
+    private static final AtomicInteger sLoadCount = new AtomicInteger();
+
+    public static class CachedLoadJob extends LoadJob {
+
+        public CachedLoadJob() {
+        }
+
+        @Override
+        public String getCacheKey() {
+            return (String) getParams().getExtra(EXTRA_CACHE_KEY);
+        }
+
+        @Override
+        public long getCacheRefreshIntervalMillis() {
+            return getParams().getExtra(EXTRA_REFRESH_INTERVAL, REFRESH_INTERVAL_NONE);
+        }
+
+        @Override
+        protected LoadJobResult<?> performLoad() throws Exception {
+            sLoadCount.incrementAndGet();
+
+            final String data = (String) getParams().getExtra(EXTRA_DATA);
+            if (data == null) {
+                return LoadJobResult.loadFailure();
+            }
+
+            return new LoadJobResult<String>(data);
+        }
+    }
+
+    private static class ResultListener implements JobEventListener {
+
+        private volatile JobEvent mResult;
+
+        @Override
+        public void onJobEvent(JobEvent event) {
+            if (event.isJobFinished()) {
+                mResult = event;
+            }
+        }
+    }
+
+    private JobManager mJobManager;
+    private InMemoryJobEventsCache mCache;
+    private final List<Job> mExecutedJobs = new CopyOnWriteArrayList<Job>();
+
+    @Before
+    public void setUp() {
+        sLoadCount.set(0);
+
+        mCache = new InMemoryJobEventsCache(100) {
+            @Override
+            protected long elapsedRealtime() {
+                return 0;
+            }
+        };
+
+        mJobManager = new JobManager() {
+            @Override
+            protected void submitJobImpl(Job job) {
+                mExecutedJobs.add(job);
+                job.execute();
+            }
+
+            @Override
+            protected void submitJobsImpl(List<Job> jobs) {
+                for (Job job : jobs) {
+                    submitJobImpl(job);
+                }
+            }
+        };
+        mJobManager.setJobEventsCache(mCache);
+    }
+
+    @After
+    public void validate() {
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testCachedResultServedWithoutExecution() throws Exception {
+        mJobManager.submitJob(createJob("key", "loaded", null));
+        assertEquals(1, sLoadCount.get());
+
+        final JobEvent cachedEvent = mCache.getEvent("key");
+        assertEquals("loaded", dataOf(cachedEvent));
+        assertNull(cachedEvent.getJobParams());
+
+        final ResultListener listener = new ResultListener();
+        final CachedLoadJob job = createJob("key", "not loaded", null);
+        job.addJobEventListener(listener);
+        final int jobId = mJobManager.submitJob(job);
+
+        assertEquals(1, sLoadCount.get());
+        assertEquals(1, mExecutedJobs.size());
+        assertEquals(JobStatus.OK, job.getStatus());
+        assertEquals(jobId, listener.mResult.getJobId());
+        assertEquals("loaded", dataOf(listener.mResult));
+
+        // Cached result is not bound to jobs it was delivered to
+        assertNull(mCache.getEvent("key").getJobParams());
+
+        final CachedLoadJob cachedJob = createJob("key", "not loaded", null);
+        final CachedLoadJob loadedJob = createJob("other key", "other", null);
+        mJobManager.submitJobs(Arrays.asList(cachedJob, loadedJob));
+
+        assertEquals(2, sLoadCount.get());
+        assertSame(loadedJob, mExecutedJobs.get(1));
+        assertEquals(JobStatus.OK, cachedJob.getStatus());
+        assertEquals("other", dataOf(mCache.getEvent("other key")));
+    }
+
+    @Test
+    public void testFailedResultNotCached() throws Exception {
+        mJobManager.submitJob(createJob("key", null, null));
+        mJobManager.submitJob(createJob("key", null, null));
+
+        assertEquals(2, sLoadCount.get());
+        assertNull(mCache.getEvent("key"));
+
+        // Jobs without cache key are not cached
+        mJobManager.submitJob(createJob(null, "loaded", null));
+        assertEquals(0, mCache.getEntryCount());
+    }
+
+    @Test
+    public void testStaleResultRefreshed() throws Exception {
+        final LoadJobResult<String> staleResult = new LoadJobResult<String>("stale");
+        staleResult.setLoadTimeMillis(System.currentTimeMillis() - 60000);
+        mCache.putEvent(staleResult, "key", new CacheEntryDescriptor() {
+            @Override
+            public int getJobEventSize(JobEvent event) {
+                return 1;
+            }
+
+            @Override
+            public int getExpirationTimeoutMillis() {
+                return TIMEOUT_NONE;
+            }
+        });
+
+        final ResultListener listener = new ResultListener();
+        final CachedLoadJob job = createJob("key", "fresh", 1000L, JOB_TAG);
+        job.addJobEventListener(listener);
+        mJobManager.submitJob(job);
+
+        // Stale result is delivered while refresh job updates the cache
+        assertEquals("stale", dataOf(listener.mResult));
+        assertEquals(1, sLoadCount.get());
+        assertEquals(1, mExecutedJobs.size());
+        assertFalse(mExecutedJobs.get(0) == job);
+        assertEquals("fresh", dataOf(mCache.getEvent("key")));
+
+        // Refresh job is internal, so it is not seen by selectors
+        final Job refreshJob = mExecutedJobs.get(0);
+        assertTrue(refreshJob.getParams().getTags().isEmpty());
+        assertNull(mJobManager.findJob(refreshJob.getJobId()));
+        // Finished request job is removed from index asynchronously
+        for (Job taggedJob : mJobManager.findAll(JobSelector.forJobTags(JOB_TAG))) {
+            assertSame(job, taggedJob);
+        }
+
+        // Fresh result is served without refresh
+        mJobManager.submitJob(createJob("key", "fresh", 1000L));
+        assertEquals(1, sLoadCount.get());
+        assertTrue(((LoadJobResult<?>) mCache.getEvent("key")).getLoadTimeMillis() > 0);
+    }
+
+    private static CachedLoadJob createJob(String cacheKey, String data, Long refreshIntervalMillis,
+                                           String... tags) {
+        final CachedLoadJob job = new CachedLoadJob();
+        job.setup()
+                .tags(tags)
+                .addExtra(EXTRA_CACHE_KEY, cacheKey)
+                .addExtra(EXTRA_DATA, data)
+                .addExtra(EXTRA_REFRESH_INTERVAL,
+                        refreshIntervalMillis == null ? LoadJob.REFRESH_INTERVAL_NONE : refreshIntervalMillis)
+                .apply();
+
+        return job;
+    }
+
+    private static String dataOf(JobEvent event) {
+        return (String) ((LoadJobResult<?>) event).getData();
+    }
+}
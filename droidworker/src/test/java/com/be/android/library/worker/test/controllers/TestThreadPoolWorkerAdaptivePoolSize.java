@@ -0,0 +1,93 @@
+package com.be.android.library.worker.test.controllers;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.controllers.JobManager;
+import com.be.android.library.worker.controllers.ThreadPoolWorker;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify {@link ThreadPoolWorker} adjusts common thread pool size to the workload
+ */
+public class TestThreadPoolWorkerAdaptivePoolSize {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+    private static final long SAMPLE_INTERVAL_MILLIS = 20;
+    private static final int JOB_COUNT = 200;
+    private static final int MAX_THREAD_COUNT = 6;
+
+    private ThreadPoolWorker mWorker;
+
+    @After
+    public void validate() {
+        if (mWorker != null) {
+            mWorker.finish();
+        }
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testPoolResizedForBlockingJobs() throws Exception {
+        mWorker = new ThreadPoolWorker(1);
+        mWorker.setCompletionMode(ThreadPoolWorker.COMPLETION_MODE_DISPATCHER_THREAD);
+        mWorker.setAdaptivePoolSizing(1, MAX_THREAD_COUNT, SAMPLE_INTERVAL_MILLIS);
+
+        final CountDownLatch latch = new CountDownLatch(JOB_COUNT);
+        for (int i = 1; i <= JOB_COUNT; i++) {
+            mWorker.submitJob(createSleepingJob(i, latch));
+        }
+
+        int maxObservedThreadCount = 1;
+        while (!latch.await(SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+            final int threadCount = mWorker.getCoreThreadCount();
+            assertTrue(threadCount <= MAX_THREAD_COUNT);
+            maxObservedThreadCount = Math.max(maxObservedThreadCount, threadCount);
+        }
+
+        assertTrue(maxObservedThreadCount > 1);
+
+        // Idle threads are released once queue is empty
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (mWorker.getCoreThreadCount() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+        }
+        assertEquals(1, mWorker.getCoreThreadCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBoundsRejected() throws Exception {
+        mWorker = new ThreadPoolWorker(1);
+        mWorker.setAdaptivePoolSizing(2, 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWorkStealingModeRejected() throws Exception {
+        mWorker = new ThreadPoolWorker(1, ThreadPoolWorker.SCHEDULER_MODE_WORK_STEALING);
+        mWorker.setAdaptivePoolSizing(1, 2);
+    }
+
+    private BaseJob createSleepingJob(int jobId, final CountDownLatch latch) {
+        BaseJob job = new BaseJob() {
+            @Override
+            protected JobEvent executeImpl() throws Exception {
+                Thread.sleep(5);
+                latch.countDown();
+
+                return JobEvent.ok();
+            }
+        };
+        job.setup().group(JobManager.JOB_GROUP_UNIQUE).apply();
+        job.getParams().assignJobId(jobId);
+
+        return job;
+    }
+}
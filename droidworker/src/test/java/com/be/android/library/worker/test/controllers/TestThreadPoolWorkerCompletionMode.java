@@ -0,0 +1,102 @@
+package com.be.android.library.worker.test.controllers;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.controllers.JobManager;
+import com.be.android.library.worker.controllers.ThreadPoolWorker;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify queued jobs are dispatched without main looper
+ * in {@link ThreadPoolWorker#COMPLETION_MODE_DISPATCHER_THREAD}
+ * and {@link ThreadPoolWorker#COMPLETION_MODE_WORKER_THREAD}
+ */
+public class TestThreadPoolWorkerCompletionMode {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+    private static final int JOB_COUNT = 40;
+
+    private ThreadPoolWorker mWorker;
+    private final AtomicInteger mJobIdCounter = new AtomicInteger(0);
+
+    @After
+    public void validate() {
+        if (mWorker != null) {
+            mWorker.finish();
+        }
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testDispatcherThreadCompletion() throws Exception {
+        runQueuedJobs(ThreadPoolWorker.COMPLETION_MODE_DISPATCHER_THREAD);
+    }
+
+    @Test
+    public void testWorkerThreadCompletion() throws Exception {
+        runQueuedJobs(ThreadPoolWorker.COMPLETION_MODE_WORKER_THREAD);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownCompletionModeRejected() throws Exception {
+        mWorker = new ThreadPoolWorker(1);
+        mWorker.setCompletionMode(-1);
+    }
+
+    private void runQueuedJobs(int completionMode) throws Exception {
+        mWorker = new ThreadPoolWorker(2);
+        mWorker.setCompletionMode(completionMode);
+
+        final CountDownLatch latch = new CountDownLatch(JOB_COUNT * 2);
+        final AtomicInteger activeGroupJobs = new AtomicInteger(0);
+        final AtomicBoolean isOverlapDetected = new AtomicBoolean(false);
+
+        for (int i = 0; i < JOB_COUNT; i++) {
+            mWorker.submitJob(createJob(1, new Runnable() {
+                @Override
+                public void run() {
+                    if (activeGroupJobs.incrementAndGet() > 1) {
+                        isOverlapDetected.set(true);
+                    }
+                    activeGroupJobs.decrementAndGet();
+                    latch.countDown();
+                }
+            }));
+            mWorker.submitJob(createJob(JobManager.JOB_GROUP_UNIQUE, new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            }));
+        }
+
+        assertTrue(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertFalse(isOverlapDetected.get());
+    }
+
+    private BaseJob createJob(int groupId, final Runnable action) {
+        BaseJob job = new BaseJob() {
+            @Override
+            protected JobEvent executeImpl() throws Exception {
+                action.run();
+
+                return JobEvent.ok();
+            }
+        };
+        job.setup().group(groupId).apply();
+        job.getParams().assignJobId(mJobIdCounter.incrementAndGet());
+
+        return job;
+    }
+}
@@ -0,0 +1,203 @@
+package com.be.android.library.worker.test.controllers;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.base.JobStatus;
+import com.be.android.library.worker.controllers.ThreadPoolWorker;
+import com.be.android.library.worker.interfaces.JobEventListener;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify {@link ThreadPoolWorker} queue capacity overflow policies
+ */
+public class TestThreadPoolWorkerQueueCapacity {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+    private static final int GROUP_ID = 1;
+
+    private ThreadPoolWorker mWorker;
+    private CountDownLatch mGate;
+    private CountDownLatch mRejectLatch;
+    private int mJobIdCounter;
+
+    private final JobEventListener mRejectListener = new JobEventListener() {
+        @Override
+        public void onJobEvent(JobEvent event) {
+            if (event.getExtraCode() == JobEvent.EXTRA_CODE_JOB_REJECTED) {
+                mRejectLatch.countDown();
+            }
+        }
+    };
+
+    @Before
+    public void setUp() {
+        mWorker = new ThreadPoolWorker(1);
+        mWorker.setCompletionMode(ThreadPoolWorker.COMPLETION_MODE_DISPATCHER_THREAD);
+        mGate = new CountDownLatch(1);
+        mRejectLatch = new CountDownLatch(1);
+
+        // Occupy the group, so next jobs of the group are queued
+        mWorker.submitJob(createJob(0));
+    }
+
+    @After
+    public void validate() {
+        mGate.countDown();
+        mWorker.finish();
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testRejectPolicy() throws Exception {
+        mWorker.setGroupQueueCapacity(GROUP_ID, 2);
+
+        final BaseJob first = submitJob(0);
+        final BaseJob second = submitJob(0);
+        final BaseJob rejected = submitJob(0);
+
+        assertTrue(mRejectLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(JobStatus.FAILED, rejected.getStatus());
+        assertEquals(JobStatus.PENDING, first.getStatus());
+        assertEquals(JobStatus.PENDING, second.getStatus());
+        assertEquals(2, mWorker.getQueuedJobCount());
+        assertEquals(1, mWorker.getOverflowCount(ThreadPoolWorker.OVERFLOW_POLICY_REJECT));
+        assertEquals(1, mWorker.getJobGroupStats(GROUP_ID).getRejectedCount());
+    }
+
+    @Test
+    public void testDropOldestPolicy() throws Exception {
+        mWorker.setQueueCapacity(2);
+        mWorker.setQueueOverflowPolicy(ThreadPoolWorker.OVERFLOW_POLICY_DROP_OLDEST);
+
+        final BaseJob oldest = submitJob(0);
+        submitJob(0);
+        final BaseJob newest = submitJob(0);
+
+        assertTrue(mRejectLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(JobStatus.FAILED, oldest.getStatus());
+        assertEquals(JobStatus.PENDING, newest.getStatus());
+        assertEquals(2, mWorker.getQueuedJobCount());
+        assertEquals(1, mWorker.getOverflowCount(ThreadPoolWorker.OVERFLOW_POLICY_DROP_OLDEST));
+        assertEquals(1, mWorker.getJobGroupStats(GROUP_ID).getDroppedCount());
+    }
+
+    @Test
+    public void testDropLowestPriorityPolicy() throws Exception {
+        mWorker.setGroupQueueCapacity(GROUP_ID, 2);
+        mWorker.setQueueOverflowPolicy(ThreadPoolWorker.OVERFLOW_POLICY_DROP_LOWEST_PRIORITY);
+
+        final BaseJob high = submitJob(5);
+        final BaseJob low = submitJob(1);
+        final BaseJob middle = submitJob(3);
+
+        assertTrue(mRejectLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(JobStatus.FAILED, low.getStatus());
+        assertEquals(JobStatus.PENDING, high.getStatus());
+        assertEquals(JobStatus.PENDING, middle.getStatus());
+
+        mRejectLatch = new CountDownLatch(1);
+        final BaseJob lowest = submitJob(0);
+
+        assertTrue(mRejectLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(JobStatus.FAILED, lowest.getStatus());
+        assertEquals(2, mWorker.getQueuedJobCount());
+        assertEquals(2, mWorker.getOverflowCount(ThreadPoolWorker.OVERFLOW_POLICY_DROP_LOWEST_PRIORITY));
+    }
+
+    @Test
+    public void testBlockPolicy() throws Exception {
+        mWorker.setQueueCapacity(1);
+        mWorker.setQueueOverflowPolicy(ThreadPoolWorker.OVERFLOW_POLICY_BLOCK);
+        mWorker.setQueueBlockTimeout(50);
+
+        submitJob(0);
+        final BaseJob timedOut = submitJob(0);
+
+        assertEquals(JobStatus.FAILED, timedOut.getStatus());
+        assertEquals(1, mWorker.getQueueBlockTimeoutCount());
+
+        mWorker.setQueueBlockTimeout(TIMEOUT_MILLIS);
+        final CountDownLatch submitLatch = new CountDownLatch(1);
+        final BaseJob blocked = createJob(0);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                mWorker.submitJob(blocked);
+                submitLatch.countDown();
+            }
+        }).start();
+
+        assertFalse(submitLatch.await(100, TimeUnit.MILLISECONDS));
+
+        mGate.countDown();
+
+        assertTrue(submitLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(2, mWorker.getOverflowCount(ThreadPoolWorker.OVERFLOW_POLICY_BLOCK));
+        assertEquals(1, mWorker.getQueueBlockTimeoutCount());
+    }
+
+    @Test
+    public void testBlockPolicyRejectsOnCompletionThread() throws Exception {
+        mWorker.setCompletionMode(ThreadPoolWorker.COMPLETION_MODE_MAIN_THREAD);
+        mWorker.setQueueCapacity(1);
+        mWorker.setQueueOverflowPolicy(ThreadPoolWorker.OVERFLOW_POLICY_BLOCK);
+        mWorker.setQueueBlockTimeout(TIMEOUT_MILLIS);
+
+        submitJob(0);
+
+        // Main thread releases queue capacity, so it is not blocked
+        final BaseJob rejected = createJob(0);
+        rejected.addJobEventListener(mRejectListener);
+        final CountDownLatch submitLatch = new CountDownLatch(1);
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                mWorker.submitJob(rejected);
+                submitLatch.countDown();
+            }
+        });
+
+        assertTrue(submitLatch.await(TIMEOUT_MILLIS / 2, TimeUnit.MILLISECONDS));
+        assertTrue(mRejectLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(JobStatus.FAILED, rejected.getStatus());
+        assertEquals(0, mWorker.getQueueBlockTimeoutCount());
+        assertEquals(1, mWorker.getOverflowCount(ThreadPoolWorker.OVERFLOW_POLICY_REJECT));
+    }
+
+    private BaseJob submitJob(int priority) {
+        final BaseJob job = createJob(priority);
+        job.addJobEventListener(mRejectListener);
+        mWorker.submitJob(job);
+
+        return job;
+    }
+
+    private BaseJob createJob(int priority) {
+        BaseJob job = new BaseJob() {
+            @Override
+            protected JobEvent executeImpl() throws Exception {
+                mGate.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+                return JobEvent.ok();
+            }
+        };
+        job.setup().group(GROUP_ID).priority(priority).apply();
+        job.getParams().assignJobId(++mJobIdCounter);
+
+        return job;
+    }
+}
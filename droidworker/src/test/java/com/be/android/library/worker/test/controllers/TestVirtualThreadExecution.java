@@ -0,0 +1,134 @@
+package com.be.android.library.worker.test.controllers;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.controllers.JobManager;
+import com.be.android.library.worker.controllers.ThreadPoolWorker;
+import com.be.android.library.worker.models.JobParams;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify blocking jobs executed in {@link ThreadPoolWorker#EXECUTION_MODE_VIRTUAL_THREAD}
+ * don't occupy a platform thread each
+ */
+public class TestVirtualThreadExecution {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+    private static final int JOB_COUNT = 64;
+    private static final int BLOCKING_THREAD_COUNT = 8;
+    private static final long JOB_DURATION_MILLIS = 100;
+
+    private ThreadPoolWorker mWorker;
+    private final AtomicInteger mJobIdCounter = new AtomicInteger(0);
+
+    @After
+    public void validate() {
+        if (mWorker != null) {
+            mWorker.finish();
+        }
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testVirtualThreadJobsUseFewerPlatformThreads() throws Exception {
+        mWorker = new ThreadPoolWorker(2);
+        mWorker.setBlockingThreadCount(BLOCKING_THREAD_COUNT);
+
+        final int dedicatedThreadCount = runBlockingJobs(false);
+        final int virtualThreadCount = runBlockingJobs(true);
+
+        assertTrue(dedicatedThreadCount >= JOB_COUNT);
+        if (ThreadPoolWorker.isVirtualThreadSupported()) {
+            assertTrue(virtualThreadCount < JOB_COUNT / 2);
+        } else {
+            // Falls back to blocking thread pool
+            assertTrue(virtualThreadCount <= BLOCKING_THREAD_COUNT);
+        }
+    }
+
+    @Test
+    public void testVirtualThreadGroupExecutedSerially() throws Exception {
+        mWorker = new ThreadPoolWorker(2);
+        mWorker.setCompletionMode(ThreadPoolWorker.COMPLETION_MODE_DISPATCHER_THREAD);
+        mWorker.setGroupExecutionMode(5, ThreadPoolWorker.EXECUTION_MODE_VIRTUAL_THREAD);
+
+        final CountDownLatch latch = new CountDownLatch(JOB_COUNT);
+        final AtomicInteger activeJobs = new AtomicInteger(0);
+        final AtomicBoolean isOverlapDetected = new AtomicBoolean(false);
+        final AtomicBoolean isPoolThreadUsed = new AtomicBoolean(false);
+
+        for (int i = 0; i < JOB_COUNT; i++) {
+            BaseJob job = new BaseJob() {
+                @Override
+                protected JobEvent executeImpl() throws Exception {
+                    if (activeJobs.incrementAndGet() > 1) {
+                        isOverlapDetected.set(true);
+                    }
+                    if (Thread.currentThread().getName().startsWith(ThreadPoolWorker.BASE_THREAD_NAME)) {
+                        isPoolThreadUsed.set(true);
+                    }
+                    activeJobs.decrementAndGet();
+                    latch.countDown();
+
+                    return JobEvent.ok();
+                }
+            };
+            job.setup().group(5).apply();
+            job.getParams().assignJobId(mJobIdCounter.incrementAndGet());
+            mWorker.submitJob(job);
+        }
+
+        assertTrue(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertFalse(isOverlapDetected.get());
+        assertFalse(isPoolThreadUsed.get());
+    }
+
+    /**
+     * @return peak number of platform threads started while jobs were running
+     */
+    private int runBlockingJobs(boolean isVirtual) throws Exception {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        final int baseThreadCount = threadBean.getThreadCount();
+        threadBean.resetPeakThreadCount();
+
+        final CountDownLatch latch = new CountDownLatch(JOB_COUNT);
+        for (int i = 0; i < JOB_COUNT; i++) {
+            BaseJob job = new BaseJob() {
+                @Override
+                protected JobEvent executeImpl() throws Exception {
+                    Thread.sleep(JOB_DURATION_MILLIS);
+                    latch.countDown();
+
+                    return JobEvent.ok();
+                }
+            };
+            if (isVirtual) {
+                job.setup()
+                        .group(JobManager.JOB_GROUP_DEDICATED)
+                        .flag(JobParams.FLAG_VIRTUAL_THREAD_EXECUTION)
+                        .apply();
+            } else {
+                job.setup().group(JobManager.JOB_GROUP_DEDICATED).apply();
+            }
+            job.getParams().assignJobId(mJobIdCounter.incrementAndGet());
+            mWorker.submitJob(job);
+        }
+
+        assertTrue(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        return threadBean.getPeakThreadCount() - baseThreadCount;
+    }
+}
@@ -0,0 +1,263 @@
+package com.be.android.library.worker.test.controllers;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.controllers.JobManager;
+import com.be.android.library.worker.controllers.ThreadPoolWorker;
+import com.be.android.library.worker.models.JobParams;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify job group rules are kept by {@link ThreadPoolWorker#SCHEDULER_MODE_WORK_STEALING}
+ */
+public class TestWorkStealingScheduler {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private ThreadPoolWorker mWorker;
+    private final AtomicInteger mJobIdCounter = new AtomicInteger(0);
+
+    @Before
+    public void setUp() {
+        mWorker = new ThreadPoolWorker(4, ThreadPoolWorker.SCHEDULER_MODE_WORK_STEALING);
+    }
+
+    @After
+    public void validate() {
+        mWorker.finish();
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testGroupJobsAreExecutedSerially() throws Exception {
+        final int groupCount = 3;
+        final int jobsPerGroup = 50;
+        final CountDownLatch latch = new CountDownLatch(groupCount * jobsPerGroup);
+        final AtomicBoolean isOverlapDetected = new AtomicBoolean(false);
+        final AtomicInteger[] activeCounters = new AtomicInteger[groupCount];
+        for (int i = 0; i < groupCount; i++) {
+            activeCounters[i] = new AtomicInteger(0);
+        }
+
+        for (int i = 0; i < jobsPerGroup; i++) {
+            for (int group = 0; group < groupCount; group++) {
+                final AtomicInteger counter = activeCounters[group];
+                mWorker.submitJob(createJob(group + 1, 0, new Runnable() {
+                    @Override
+                    public void run() {
+                        if (counter.incrementAndGet() > 1) {
+                            isOverlapDetected.set(true);
+                        }
+                        Thread.yield();
+                        counter.decrementAndGet();
+                        latch.countDown();
+                    }
+                }));
+            }
+        }
+
+        assertTrue(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertFalse(isOverlapDetected.get());
+    }
+
+    @Test
+    public void testGroupJobsAreOrderedByPriority() throws Exception {
+        final CountDownLatch blockerLatch = new CountDownLatch(1);
+        final CountDownLatch blockerStartedLatch = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(3);
+        final List<Integer> executedPriorities = Collections.synchronizedList(new ArrayList<Integer>());
+
+        mWorker.submitJob(createJob(1, 0, new Runnable() {
+            @Override
+            public void run() {
+                blockerStartedLatch.countDown();
+                await(blockerLatch);
+            }
+        }));
+        assertTrue(blockerStartedLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        final List<BaseJob> queuedJobs = new ArrayList<BaseJob>();
+        for (final int priority : new int[] { 1, 3, 2 }) {
+            BaseJob job = createJob(1, priority, new Runnable() {
+                @Override
+                public void run() {
+                    executedPriorities.add(priority);
+                    latch.countDown();
+                }
+            });
+            mWorker.submitJob(job);
+            assertTrue(job.getParams().checkFlag(JobParams.FLAG_JOB_ENQUEUED));
+            queuedJobs.add(job);
+        }
+
+        blockerLatch.countDown();
+
+        assertTrue(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(3, executedPriorities.get(0).intValue());
+        assertEquals(2, executedPriorities.get(1).intValue());
+        assertEquals(1, executedPriorities.get(2).intValue());
+
+        for (BaseJob job : queuedJobs) {
+            assertTrue(job.getParams().checkFlag(JobParams.FLAG_JOB_SUBMITTED));
+        }
+    }
+
+    @Test
+    public void testForcedUniqueJobIsExecutedWhenAllThreadsAreBusy() throws Exception {
+        mWorker.finish();
+        mWorker = new ThreadPoolWorker(1, ThreadPoolWorker.SCHEDULER_MODE_WORK_STEALING);
+
+        final CountDownLatch blockerLatch = new CountDownLatch(1);
+        final CountDownLatch blockerStartedLatch = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        mWorker.submitJob(createJob(JobManager.JOB_GROUP_UNIQUE, 0, new Runnable() {
+            @Override
+            public void run() {
+                blockerStartedLatch.countDown();
+                await(blockerLatch);
+            }
+        }));
+        assertTrue(blockerStartedLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        BaseJob forcedJob = createJob(JobManager.JOB_GROUP_UNIQUE, 0, new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        forcedJob.getParams().getFlags().setFlag(JobParams.FLAG_FORCE_EXECUTE, true);
+        mWorker.submitJob(forcedJob);
+
+        try {
+            assertTrue(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            assertTrue(forcedJob.getParams().checkFlag(JobParams.FLAG_JOB_SUBMITTED));
+        } finally {
+            blockerLatch.countDown();
+        }
+    }
+
+    @Test
+    public void testJobWaitingForOtherGroupDoesNotBlockPool() throws Exception {
+        mWorker.finish();
+        mWorker = new ThreadPoolWorker(1, ThreadPoolWorker.SCHEDULER_MODE_WORK_STEALING);
+
+        final CountDownLatch childLatch = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        mWorker.submitJob(createJob(1, 0, new Runnable() {
+            @Override
+            public void run() {
+                mWorker.submitJob(createJob(2, 0, new Runnable() {
+                    @Override
+                    public void run() {
+                        childLatch.countDown();
+                    }
+                }));
+                await(childLatch);
+                latch.countDown();
+            }
+        }));
+
+        assertTrue(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testSerialGroupThreadsLimitedByMaximumThreadCount() throws Exception {
+        mWorker.finish();
+        mWorker = new ThreadPoolWorker(1, ThreadPoolWorker.SCHEDULER_MODE_WORK_STEALING);
+        mWorker.setMaximumThreadCount(2);
+
+        final int groupCount = 4;
+        final CountDownLatch blockerLatch = new CountDownLatch(1);
+        final CountDownLatch startedLatch = new CountDownLatch(2);
+        final CountDownLatch latch = new CountDownLatch(groupCount);
+        final AtomicInteger runningCount = new AtomicInteger(0);
+        final AtomicInteger maxRunningCount = new AtomicInteger(0);
+
+        for (int group = 1; group <= groupCount; group++) {
+            mWorker.submitJob(createJob(group, 0, new Runnable() {
+                @Override
+                public void run() {
+                    final int running = runningCount.incrementAndGet();
+                    if (running > maxRunningCount.get()) {
+                        maxRunningCount.set(running);
+                    }
+                    startedLatch.countDown();
+                    await(blockerLatch);
+                    runningCount.decrementAndGet();
+                    latch.countDown();
+                }
+            }));
+        }
+
+        try {
+            assertTrue(startedLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            Thread.sleep(200);
+            assertEquals(2, maxRunningCount.get());
+        } finally {
+            blockerLatch.countDown();
+        }
+
+        assertTrue(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testBoundedQueueCapacityRejected() throws Exception {
+        mWorker.setQueueCapacity(ThreadPoolWorker.QUEUE_CAPACITY_UNBOUNDED);
+
+        try {
+            mWorker.setQueueCapacity(10);
+            fail("bounded queue capacity is accepted in work stealing mode");
+        } catch (IllegalStateException expected) {
+        }
+
+        try {
+            mWorker.setGroupQueueCapacity(1, 10);
+            fail("bounded group queue capacity is accepted in work stealing mode");
+        } catch (IllegalStateException expected) {
+        }
+
+        assertEquals(ThreadPoolWorker.QUEUE_CAPACITY_UNBOUNDED, mWorker.getQueueCapacity());
+    }
+
+    private BaseJob createJob(int groupId, int priority, final Runnable action) {
+        BaseJob job = new BaseJob() {
+            @Override
+            protected JobEvent executeImpl() throws Exception {
+                action.run();
+
+                return JobEvent.ok();
+            }
+        };
+        job.setup().group(groupId).priority(priority).apply();
+        job.getParams().assignJobId(mJobIdCounter.incrementAndGet());
+
+        return job;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
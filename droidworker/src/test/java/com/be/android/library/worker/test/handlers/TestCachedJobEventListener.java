@@ -0,0 +1,107 @@
+package com.be.android.library.worker.test.handlers;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.base.JobStatus;
+import com.be.android.library.worker.handlers.CachedJobEventListener;
+import com.be.android.library.worker.models.JobParams;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify last job events are retained per job and job results outlive progress updates
+ */
+public class TestCachedJobEventListener {
+
+    private static final int CAPACITY = 3;
+
+    private static class RetainingListener extends CachedJobEventListener {
+
+        private RetainingListener() {
+            super(CAPACITY);
+        }
+
+        @Override
+        public boolean onJobEventImpl(JobEvent event) {
+            return false;
+        }
+    }
+
+    @After
+    public void validate() {
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testBusyJobDoesNotEvictResult() throws Exception {
+        final RetainingListener listener = new RetainingListener();
+        final JobParams quietJob = createJobParams(1);
+        final JobParams busyJob = createJobParams(2);
+
+        final JobEvent result = createEvent(quietJob, JobEvent.EVENT_CODE_OK, JobStatus.OK);
+        listener.onJobEvent(result);
+
+        JobEvent lastUpdate = null;
+        for (int i = 0; i < 100; i++) {
+            lastUpdate = createEvent(busyJob, JobEvent.EVENT_CODE_UPDATE, JobStatus.IN_PROGRESS);
+            listener.onJobEvent(lastUpdate);
+        }
+
+        assertSame(result, listener.getLastJobEvent(1));
+        assertSame(lastUpdate, listener.getLastJobEvent(2));
+
+        // Later events don't replace job result
+        listener.onJobEvent(createEvent(quietJob, JobEvent.EVENT_CODE_UPDATE, JobStatus.IN_PROGRESS));
+        assertSame(result, listener.getLastJobEvent(1));
+
+        listener.consumeEvent(result);
+        assertNull(listener.getLastJobEvent(1));
+    }
+
+    @Test
+    public void testPendingJobEventsEvictedFirst() throws Exception {
+        final RetainingListener listener = new RetainingListener();
+
+        final JobEvent result = createEvent(createJobParams(1), JobEvent.EVENT_CODE_OK, JobStatus.OK);
+        listener.onJobEvent(result);
+        listener.onJobEvent(createEvent(createJobParams(2), JobEvent.EVENT_CODE_UPDATE, JobStatus.IN_PROGRESS));
+        listener.onJobEvent(createEvent(createJobParams(3), JobEvent.EVENT_CODE_UPDATE, JobStatus.IN_PROGRESS));
+        listener.onJobEvent(createEvent(createJobParams(4), JobEvent.EVENT_CODE_UPDATE, JobStatus.IN_PROGRESS));
+
+        assertSame(result, listener.getLastJobEvent(1));
+        assertNull(listener.getLastJobEvent(2));
+
+        for (int jobId = 5; jobId < 5 + CAPACITY; jobId++) {
+            listener.onJobEvent(createEvent(createJobParams(jobId), JobEvent.EVENT_CODE_FAILED, JobStatus.FAILED));
+        }
+
+        assertNull(listener.getLastJobEvent(1));
+        assertNull(listener.getLastJobEvent(4));
+    }
+
+    private static JobParams createJobParams(int jobId) {
+        final BaseJob job = new BaseJob() {
+            @Override
+            protected JobEvent executeImpl() throws Exception {
+                return JobEvent.ok();
+            }
+        };
+        job.setup().apply();
+        job.getParams().assignJobId(jobId);
+
+        return job.getParams();
+    }
+
+    private static JobEvent createEvent(JobParams params, int eventCode, JobStatus status) {
+        return new JobEvent.Builder()
+                .eventCode(eventCode)
+                .jobStatus(status)
+                .params(params)
+                .build();
+    }
+}
@@ -0,0 +1,181 @@
+package com.be.android.library.worker.test.service;
+
+import android.content.Intent;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.controllers.JobManager;
+import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.interfaces.Worker;
+import com.be.android.library.worker.service.WorkerService;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify jobs submitted directly to worker service are either accepted by
+ * its running worker or refused, while the service is being destroyed,
+ * and that keep-alive requests don't keep the service running forever
+ */
+public class TestWorkerServiceSubmission {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+    private static final int KEEP_ALIVE_MILLIS = 200;
+
+    private static final AtomicInteger sJobIdCounter = new AtomicInteger(0);
+
+    private static class RecordingWorker implements Worker {
+
+        private final AtomicInteger mSubmittedCount = new AtomicInteger(0);
+        private final AtomicBoolean mIsFinished = new AtomicBoolean(false);
+        private final AtomicBoolean mIsSubmittedAfterFinish = new AtomicBoolean(false);
+
+        @Override
+        public void submitJob(Job job) {
+            if (mIsFinished.get()) {
+                mIsSubmittedAfterFinish.set(true);
+            }
+            mSubmittedCount.incrementAndGet();
+        }
+
+        @Override
+        public void finish() {
+            mIsFinished.set(true);
+        }
+    }
+
+    private static class TestWorkerService extends WorkerService {
+
+        private final RecordingWorker mWorker = new RecordingWorker();
+        private final JobManager mJobManager = new JobManager() {
+            @Override
+            protected void submitJobImpl(Job job) {
+            }
+        };
+
+        @Override
+        protected Worker createWorker(Intent launchIntent) {
+            return mWorker;
+        }
+
+        @Override
+        protected JobManager getJobManager() {
+            return mJobManager;
+        }
+
+        @Override
+        protected int getKeepAliveDurationMillis() {
+            return KEEP_ALIVE_MILLIS;
+        }
+    }
+
+    @After
+    public void validate() {
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testDirectSubmissionRequiresRunningWorker() throws Exception {
+        final TestWorkerService service = new TestWorkerService();
+        service.onCreate();
+
+        // Worker is created by the first job passed to service by intent
+        assertFalse(service.trySubmitJob(createJob()));
+        service.submitJob(createJob());
+        assertTrue(service.trySubmitJob(createJob()));
+        assertEquals(2, service.mWorker.mSubmittedCount.get());
+
+        service.onDestroy();
+
+        assertFalse(service.trySubmitJob(createJob()));
+        assertEquals(2, service.mWorker.mSubmittedCount.get());
+    }
+
+    @Test
+    public void testNoJobSubmittedToFinishedWorker() throws Exception {
+        final TestWorkerService service = new TestWorkerService();
+        service.onCreate();
+        service.submitJob(createJob());
+
+        final AtomicInteger acceptedCount = new AtomicInteger(1);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final Thread submitter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                startLatch.countDown();
+                while (service.trySubmitJob(createJob())) {
+                    acceptedCount.incrementAndGet();
+                }
+            }
+        });
+        submitter.start();
+
+        assertTrue(startLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        service.onDestroy();
+        submitter.join(TIMEOUT_MILLIS);
+
+        assertFalse(submitter.isAlive());
+        assertFalse(service.mWorker.mIsSubmittedAfterFinish.get());
+        assertEquals(acceptedCount.get(), service.mWorker.mSubmittedCount.get());
+    }
+
+    @Test
+    public void testKeepAliveWindowEndsAfterLastRequest() throws Exception {
+        final TestWorkerService service = new TestWorkerService();
+        service.onCreate();
+
+        // The second request extends the window past the first scheduled check
+        service.keepAlive();
+        Thread.sleep(KEEP_ALIVE_MILLIS / 2);
+        service.keepAlive();
+        Thread.sleep(KEEP_ALIVE_MILLIS * 4);
+
+        // Jobs submitted outside of the service don't keep it alive after the window
+        service.mJobManager.submitJob(createUnsubmittedJob());
+        assertFalse(service.hasPendingJobs());
+
+        service.keepAlive();
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!service.hasPendingJobs() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(service.hasPendingJobs());
+
+        service.onDestroy();
+    }
+
+    private static Job createUnsubmittedJob() {
+        final BaseJob job = new BaseJob() {
+            @Override
+            protected JobEvent executeImpl() throws Exception {
+                return JobEvent.ok();
+            }
+        };
+        job.setup().apply();
+
+        return job;
+    }
+
+    private static Job createJob() {
+        final BaseJob job = new BaseJob() {
+            @Override
+            protected JobEvent executeImpl() throws Exception {
+                return JobEvent.ok();
+            }
+        };
+        job.setup().apply();
+        job.getParams().assignJobId(sJobIdCounter.incrementAndGet());
+
+        return job;
+    }
+}
@@ -0,0 +1,77 @@
+package com.be.android.library.worker.test.util;
+
+import com.be.android.library.worker.util.IntObjectMap;
+import com.be.android.library.worker.util.IntSet;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+public class TestIntCollections {
+
+    @After
+    public void validate() {
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testIntSet() throws Exception {
+        final IntSet set = new IntSet(0);
+
+        for (int value : new int[] {5, -3, 100, 5, 0, 42, 7, 1, 2, 3, -100}) {
+            set.add(value);
+        }
+
+        assertEquals(10, set.size());
+        assertArrayEquals(new int[] {-100, -3, 0, 1, 2, 3, 5, 7, 42, 100}, set.toArray());
+        assertTrue(set.contains(42));
+        assertFalse(set.contains(6));
+
+        assertTrue(set.remove(-100));
+        assertTrue(set.remove(100));
+        assertFalse(set.remove(100));
+        assertEquals(-3, set.valueAt(0));
+        assertEquals(42, set.valueAt(set.size() - 1));
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(42));
+    }
+
+    @Test
+    public void testIntObjectMap() throws Exception {
+        final IntObjectMap<String> map = new IntObjectMap<String>(1);
+
+        final int[] keys = {9, -1, 4, 16, 2, 11, 7, 3, 8};
+        for (int key : keys) {
+            assertNull(map.put(key, String.valueOf(key)));
+        }
+
+        assertEquals("4", map.put(4, "four"));
+        assertEquals(keys.length, map.size());
+        assertEquals("four", map.get(4));
+        assertNull(map.get(5));
+
+        final int[] sortedKeys = keys.clone();
+        Arrays.sort(sortedKeys);
+        for (int i = 0; i < map.size(); i++) {
+            assertEquals(sortedKeys[i], map.keyAt(i));
+        }
+
+        assertEquals("16", map.remove(16));
+        assertNull(map.remove(16));
+        assertFalse(map.containsKey(16));
+        assertEquals("11", map.valueAt(map.size() - 1));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+}
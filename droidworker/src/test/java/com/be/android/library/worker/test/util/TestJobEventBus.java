@@ -0,0 +1,211 @@
+package com.be.android.library.worker.test.util;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.interfaces.JobEventListener;
+import com.be.android.library.worker.util.JobEventBus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify events posted from many threads are delivered in order by a few handler messages
+ */
+public class TestJobEventBus {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+    private static final int PRODUCER_COUNT = 4;
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private ExecutorService mHandlerThread;
+    private final AtomicInteger mDrainCount = new AtomicInteger(0);
+
+    /**
+     * Drains events on executor thread, so no looper is required
+     */
+    private class TestJobEventBusImpl extends JobEventBus {
+
+        private TestJobEventBusImpl() {
+            super(new Handler(Looper.getMainLooper()), MAX_BATCH_SIZE, TIMEOUT_MILLIS);
+        }
+
+        @Override
+        protected void postDrain(Runnable drainTask) {
+            mDrainCount.incrementAndGet();
+            mHandlerThread.execute(drainTask);
+        }
+
+        @Override
+        protected long uptimeMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+        }
+    }
+
+    @Before
+    public void setUp() {
+        mHandlerThread = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void validate() {
+        mHandlerThread.shutdownNow();
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testBurstDrainedInFewMessages() throws Exception {
+        final int eventCount = 1000;
+        final JobEventBus eventBus = new TestJobEventBusImpl();
+        final CountDownLatch handlerLatch = new CountDownLatch(1);
+
+        // Hold handler thread until the whole burst is posted
+        mHandlerThread.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    handlerLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        final DeliveryRecorder recorder = new DeliveryRecorder(eventCount);
+        postConcurrently(eventBus, recorder, eventCount / PRODUCER_COUNT);
+        handlerLatch.countDown();
+
+        assertTrue(recorder.mLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        recorder.assertProducerOrder(eventCount / PRODUCER_COUNT);
+        assertTrue(mDrainCount.get() <= eventCount / MAX_BATCH_SIZE + 1);
+    }
+
+    @Test
+    public void testConcurrentPostsAreNotLost() throws Exception {
+        final int eventCount = 100000;
+        final JobEventBus eventBus = new TestJobEventBusImpl();
+        final DeliveryRecorder recorder = new DeliveryRecorder(eventCount);
+
+        postConcurrently(eventBus, recorder, eventCount / PRODUCER_COUNT);
+
+        assertTrue(recorder.mLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        recorder.assertProducerOrder(eventCount / PRODUCER_COUNT);
+    }
+
+    @Test
+    public void testTasksKeepOrderWithEvents() throws Exception {
+        final JobEventBus eventBus = new TestJobEventBusImpl();
+        final List<String> order = new ArrayList<String>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final JobEventListener listener = new JobEventListener() {
+            @Override
+            public void onJobEvent(JobEvent event) {
+                order.add(event.getExtraMessage());
+            }
+        };
+
+        for (int i = 0; i < 10; i++) {
+            eventBus.post(listener, JobEvent.ok("event " + i));
+            final int index = i;
+            eventBus.post(new Runnable() {
+                @Override
+                public void run() {
+                    order.add("task " + index);
+                }
+            });
+        }
+        eventBus.post(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(20, order.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("event " + i, order.get(i * 2));
+            assertEquals("task " + i, order.get(i * 2 + 1));
+        }
+    }
+
+    private static void postConcurrently(final JobEventBus eventBus,
+                                         final JobEventListener listener,
+                                         final int eventsPerProducer) throws Exception {
+
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final List<Thread> producers = new ArrayList<Thread>();
+        for (int i = 0; i < PRODUCER_COUNT; i++) {
+            final int producer = i;
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+
+                    for (int j = 0; j < eventsPerProducer; j++) {
+                        eventBus.post(listener, JobEvent.ok(producer + ":" + j));
+                    }
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+
+        startLatch.countDown();
+        for (Thread producer : producers) {
+            producer.join(TIMEOUT_MILLIS);
+        }
+    }
+
+    /**
+     * Checks events of each producer are delivered in post order
+     */
+    private static class DeliveryRecorder implements JobEventListener {
+
+        private final CountDownLatch mLatch;
+        private final int[] mNextIndices = new int[PRODUCER_COUNT];
+        private volatile boolean mIsOrderBroken;
+
+        private DeliveryRecorder(int eventCount) {
+            mLatch = new CountDownLatch(eventCount);
+        }
+
+        @Override
+        public void onJobEvent(JobEvent event) {
+            final String[] parts = event.getExtraMessage().split(":");
+            final int producer = Integer.parseInt(parts[0]);
+            final int index = Integer.parseInt(parts[1]);
+
+            if (mNextIndices[producer] != index) {
+                mIsOrderBroken = true;
+            }
+            mNextIndices[producer] = index + 1;
+            mLatch.countDown();
+        }
+
+        private void assertProducerOrder(int eventsPerProducer) {
+            assertTrue(!mIsOrderBroken);
+            for (int nextIndex : mNextIndices) {
+                assertEquals(eventsPerProducer, nextIndex);
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.be.android.library.worker.test.util;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.base.JobStatus;
+import com.be.android.library.worker.interfaces.JobEventListener;
+import com.be.android.library.worker.models.ProgressUpdateEvent;
+import com.be.android.library.worker.util.JobEventCoalescer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify job updates are coalesced and rate limited, while other job events are kept
+ */
+public class TestJobEventCoalescer {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+    private static final int UPDATE_COUNT = 1000;
+
+    private ScheduledExecutorService mDeliveryThread;
+    private final List<JobEvent> mDeliveredEvents = new CopyOnWriteArrayList<JobEvent>();
+    private final List<Long> mDeliveryTimes = new CopyOnWriteArrayList<Long>();
+    private final CountDownLatch mFinishLatch = new CountDownLatch(1);
+    private long mDeliveryStartTime;
+
+    private final JobEventListener mListener = new JobEventListener() {
+        @Override
+        public void onJobEvent(JobEvent event) {
+            mDeliveredEvents.add(event);
+            mDeliveryTimes.add(mDeliveryStartTime);
+
+            if (event.isJobFinished()) {
+                mFinishLatch.countDown();
+            }
+        }
+    };
+
+    /**
+     * Delivers events on executor thread, so no looper is required.
+     * Delivery time is taken when delivery starts, so listener calls
+     * delayed by thread preemption don't shorten measured intervals.
+     */
+    private class TestJobEventCoalescerImpl extends JobEventCoalescer {
+
+        private TestJobEventCoalescerImpl(long minUpdateIntervalMillis) {
+            super(new Handler(Looper.getMainLooper()), mListener, minUpdateIntervalMillis);
+        }
+
+        @Override
+        protected void postDelivery(final Runnable delivery, long delayMillis) {
+            mDeliveryThread.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    mDeliveryStartTime = System.nanoTime();
+                    delivery.run();
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        protected long uptimeMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+        }
+    }
+
+    @Before
+    public void setUp() {
+        mDeliveryThread = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void validate() {
+        mDeliveryThread.shutdownNow();
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testUpdatesCoalescedWhileInFlight() throws Exception {
+        final JobEventCoalescer coalescer = new TestJobEventCoalescerImpl(0);
+        final CountDownLatch deliveryLatch = new CountDownLatch(1);
+
+        // Hold delivery thread, so that the first update stays in flight
+        mDeliveryThread.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    deliveryLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        final BaseJob job = createJob(coalescer, 0);
+        job.execute();
+        deliveryLatch.countDown();
+
+        assertTrue(mFinishLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        final List<JobEvent> progressEvents = getProgressEvents();
+        assertEquals(1, progressEvents.size());
+        assertEquals(1f, ((ProgressUpdateEvent) progressEvents.get(0)).getProgress(), 0f);
+        assertEquals("message " + (UPDATE_COUNT - 1),
+                getStatusMessageEvents().get(0).getExtraMessage());
+        assertEquals(1, getStatusMessageEvents().size());
+        assertTerminalEventIsLast();
+    }
+
+    @Test
+    public void testUpdatesRateLimited() throws Exception {
+        final long intervalMillis = 50;
+        final long updatePeriodMillis = 1;
+        final JobEventCoalescer coalescer = new TestJobEventCoalescerImpl(intervalMillis);
+
+        final long startTime = System.nanoTime();
+        createJob(coalescer, updatePeriodMillis).execute();
+        final long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        assertTrue(mFinishLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        final List<JobEvent> progressEvents = getProgressEvents();
+        assertTrue(progressEvents.size() > 1);
+        assertTrue(progressEvents.size() <= durationMillis / intervalMillis + 2);
+
+        // Latest update is delivered right before job result
+        assertEquals(1f, ((ProgressUpdateEvent) progressEvents.get(progressEvents.size() - 1))
+                .getProgress(), 0f);
+        assertTerminalEventIsLast();
+
+        long lastProgressTime = 0;
+        for (int i = 0; i < mDeliveredEvents.size() - 2; i++) {
+            if (!isProgressEvent(mDeliveredEvents.get(i))) continue;
+
+            final long deliveryTime = mDeliveryTimes.get(i);
+            if (lastProgressTime != 0) {
+                assertTrue(TimeUnit.NANOSECONDS.toMillis(deliveryTime - lastProgressTime)
+                        >= intervalMillis - 1);
+            }
+            lastProgressTime = deliveryTime;
+        }
+    }
+
+    private BaseJob createJob(final JobEventCoalescer coalescer, final long updatePeriodMillis) {
+        final BaseJob job = new BaseJob() {
+            @Override
+            protected JobEvent executeImpl() throws Exception {
+                for (int i = 0; i < UPDATE_COUNT; i++) {
+                    notifyStatusMessageUpdate("message " + i);
+                    notifyProgressUpdate((i + 1) / (float) UPDATE_COUNT);
+
+                    if (updatePeriodMillis > 0) {
+                        Thread.sleep(updatePeriodMillis);
+                    }
+                }
+
+                return JobEvent.ok();
+            }
+        };
+        job.setup().apply();
+        job.getParams().assignJobId(1);
+        job.addJobEventListener(new JobEventListener() {
+            @Override
+            public void onJobEvent(JobEvent event) {
+                coalescer.post(event);
+            }
+        });
+
+        return job;
+    }
+
+    private void assertTerminalEventIsLast() {
+        for (int i = 0; i < mDeliveredEvents.size() - 1; i++) {
+            assertTrue(!mDeliveredEvents.get(i).isJobFinished());
+        }
+        assertEquals(JobStatus.OK, mDeliveredEvents.get(mDeliveredEvents.size() - 1).getJobStatus());
+    }
+
+    private List<JobEvent> getProgressEvents() {
+        final List<JobEvent> events = new CopyOnWriteArrayList<JobEvent>();
+        for (JobEvent event : mDeliveredEvents) {
+            if (isProgressEvent(event)) {
+                events.add(event);
+            }
+        }
+
+        return events;
+    }
+
+    private List<JobEvent> getStatusMessageEvents() {
+        final List<JobEvent> events = new CopyOnWriteArrayList<JobEvent>();
+        for (JobEvent event : mDeliveredEvents) {
+            if (event.getExtraCode() == JobEvent.EXTRA_CODE_STATUS_MESSAGE_CHANGED) {
+                events.add(event);
+            }
+        }
+
+        return events;
+    }
+
+    private static boolean isProgressEvent(JobEvent event) {
+        return event.getExtraCode() == JobEvent.EXTRA_CODE_PROGRESS_UPDATE;
+    }
+}
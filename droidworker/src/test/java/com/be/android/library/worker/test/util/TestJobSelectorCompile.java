@@ -0,0 +1,137 @@
+package com.be.android.library.worker.test.util;
+
+import com.be.android.library.worker.base.BaseJob;
+import com.be.android.library.worker.base.JobEvent;
+import com.be.android.library.worker.base.JobStatus;
+import com.be.android.library.worker.interfaces.Job;
+import com.be.android.library.worker.interfaces.Predicate;
+import com.be.android.library.worker.models.Flag;
+import com.be.android.library.worker.util.JobEventFilter;
+import com.be.android.library.worker.util.JobSelector;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.validateMockitoUsage;
+
+/**
+ * Verify compiled selectors and filters match the same jobs and events as interpreted ones
+ */
+public class TestJobSelectorCompile {
+
+    @After
+    public void validate() {
+        validateMockitoUsage();
+    }
+
+    @Test
+    public void testCompiledSelectorMatchesSameJobs() throws Exception {
+        final BaseJob[] jobs = {
+                createJob(1, 0, "tag.a", "tag.b"),
+                createJob(2, 1, "tag.b"),
+                createJob(3, 2),
+                createJob(4, 1, "tag.c")
+        };
+        jobs[0].getParams().setFlag("flag.a", true);
+        jobs[1].getParams().setFlag("flag.a", false);
+        jobs[1].getParams().setFlag("flag.b", true);
+        jobs[3].getParams().setFlag("flag.b", true);
+
+        final JobSelector[] selectors = {
+                JobSelector.create(),
+                JobSelector.forJobId(4, 2),
+                JobSelector.forJobGroup(1),
+                JobSelector.forJobStatus(JobStatus.PENDING),
+                JobSelector.forJobStatus(JobStatus.OK, JobStatus.FAILED),
+                JobSelector.forJobTags("tag.b"),
+                JobSelector.forJobTags("tag.a", "tag.b", "tag.a"),
+                JobSelector.forAnyJobTags("tag.a", "tag.c"),
+                JobSelector.forJobFlags("flag.a"),
+                JobSelector.create().addFlag("flag.a", false),
+                JobSelector.forAnyJobFlags("flag.a", "flag.b"),
+                JobSelector.create().addFlag("flag.a", true).addFlag("flag.b", true).setIsAnyFlag(true),
+                JobSelector.forJobExtra("extra.index", 3),
+                JobSelector.forJobExtra("extra.index", null),
+                JobSelector.forJobGroup(1).tags("tag.b").jobStatus(JobStatus.PENDING)
+        };
+
+        for (int i = 0; i < selectors.length; i++) {
+            final Predicate<Job> compiled = selectors[i].compile();
+
+            for (BaseJob job : jobs) {
+                assertEquals(String.format("selector %d, job %d", i, job.getJobId()),
+                        selectors[i].apply(job), compiled.apply(job));
+            }
+        }
+    }
+
+    @Test
+    public void testCompiledSelectorIsSnapshot() throws Exception {
+        final BaseJob job = createJob(1, 0, "tag.a");
+        final JobSelector selector = JobSelector.forJobTags("tag.a");
+        final Predicate<Job> compiled = selector.compile();
+
+        selector.tags("tag.b");
+
+        assertTrue(compiled.apply(job));
+        assertFalse(selector.apply(job));
+    }
+
+    @Test
+    public void testCompiledFilterMatchesSameEvents() throws Exception {
+        final BaseJob job = createJob(1, 0, "tag.a", "tag.b");
+        job.getParams().setFlag("flag.a", true);
+
+        final JobEvent[] events = {
+                createEvent(job, JobEvent.EVENT_CODE_UPDATE, JobStatus.IN_PROGRESS),
+                createEvent(job, JobEvent.EVENT_CODE_OK, JobStatus.OK),
+                createEvent(job, JobEvent.EVENT_CODE_FAILED, JobStatus.FAILED)
+        };
+
+        final JobEventFilter[] filters = {
+                new JobEventFilter.Builder().build(),
+                new JobEventFilter.Builder().pendingStatus(JobStatus.OK, JobStatus.FAILED).build(),
+                new JobEventFilter.Builder().pendingEventCode(JobEvent.EVENT_CODE_UPDATE).build(),
+                new JobEventFilter.Builder().pendingTags("tag.b", "tag.a").build(),
+                new JobEventFilter.Builder().pendingTags("tag.c").build(),
+                new JobEventFilter.Builder().pendingFlags(Flag.create("flag.a", false)).build(),
+                new JobEventFilter.Builder()
+                        .pendingFlags(Flag.create("flag.a", false), Flag.create("flag.a", true))
+                        .pendingStatus(JobStatus.IN_PROGRESS)
+                        .build()
+        };
+
+        for (int i = 0; i < filters.length; i++) {
+            final Predicate<JobEvent> compiled = filters[i].compile();
+
+            for (JobEvent event : events) {
+                assertEquals(String.format("filter %d, event %s", i, event.getJobStatus()),
+                        filters[i].apply(event), compiled.apply(event));
+            }
+        }
+    }
+
+    private static BaseJob createJob(int jobId, int groupId, String... tags) {
+        final BaseJob job = new BaseJob() {
+            @Override
+            protected JobEvent executeImpl() throws Exception {
+                return JobEvent.ok();
+            }
+        };
+        job.setup().group(groupId).tags(tags).addExtra("extra.index", jobId).apply();
+        job.getParams().assignJobId(jobId);
+
+        return job;
+    }
+
+    private static JobEvent createEvent(Job job, int eventCode, JobStatus status) {
+        return new JobEvent.Builder()
+                .eventCode(eventCode)
+                .jobStatus(status)
+                .params(job.getParams())
+                .build();
+    }
+}